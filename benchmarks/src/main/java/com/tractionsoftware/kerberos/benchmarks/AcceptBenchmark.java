@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos.benchmarks;
+
+import com.tractionsoftware.kerberos.AcceptResult;
+import com.tractionsoftware.kerberos.AcceptorConfig;
+import com.tractionsoftware.kerberos.AcceptorCredentialCache;
+import com.tractionsoftware.kerberos.AcceptorService;
+import com.tractionsoftware.kerberos.FastPathAcceptor;
+import com.tractionsoftware.kerberos.KerberosDetails;
+import com.tractionsoftware.kerberos.SessionSetupPrivilegedAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.security.auth.Subject;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end context acceptance of real AP-REQs issued by an embedded KDC.
+ *
+ * <p>
+ * A fixed set of tokens is accepted over and over, so the JDK replay cache is turned off in the forked JVM, and the
+ * fast path runs with a library replay cache that accepts everything.
+ * Run with {@code -t <threads>} for multi-threaded throughput and {@code -prof gc} for allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Dsun.security.krb5.rcache=none" })
+public class AcceptBenchmark {
+
+    private static final int TOKENS = 256;
+
+    private static final int BATCH = 64;
+
+    @State(Scope.Benchmark)
+    public static class Kdc {
+
+        EmbeddedKdc kdc;
+
+        byte[][] tokens;
+
+        AcceptorConfig cached;
+
+        AcceptorConfig fastPath;
+
+        FastPathAcceptor fastPathAcceptor;
+
+        AcceptorService service;
+
+        List<ByteBuffer> batch;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            kdc = new EmbeddedKdc();
+            tokens = new byte[TOKENS][];
+            for (int i = 0; i < TOKENS; i++) {
+                tokens[i] = kdc.newToken();
+            }
+            cached = new AcceptorConfig();
+            cached.setCredentialCache(new AcceptorCredentialCache());
+            fastPath = new AcceptorConfig();
+            fastPath.setCredentialCache(cached.getCredentialCache());
+            fastPathAcceptor = FastPathAcceptor.fromKeyTab(kdc.serviceKeytab(), EmbeddedKdc.SERVICE);
+            fastPath.setFastPathAcceptor(fastPathAcceptor);
+            fastPath.setReplayCache((buf, off, len) -> true);
+            service = new AcceptorService(kdc.acceptor(), cached, Runtime.getRuntime().availableProcessors(), TOKENS, Duration.ofSeconds(30));
+            batch = new ArrayList<>(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                batch.add(ByteBuffer.wrap(tokens[i]));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            service.close();
+            cached.getCredentialCache().close();
+            kdc.close();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Tokens {
+
+        private int next;
+
+        byte[] next(Kdc kdc) {
+            return kdc.tokens[next++ & (TOKENS - 1)];
+        }
+
+    }
+
+    @Benchmark
+    public KerberosDetails acceptWithPerRequestCredentials(Kdc kdc, Tokens tokens) {
+        return accept(kdc, null, tokens.next(kdc));
+    }
+
+    @Benchmark
+    public KerberosDetails acceptWithCachedCredentials(Kdc kdc, Tokens tokens) {
+        return accept(kdc, kdc.cached, tokens.next(kdc));
+    }
+
+    @Benchmark
+    public KerberosDetails acceptWithFastPath(Kdc kdc, Tokens tokens) {
+        // A token that falls back to JGSS would silently measure the wrong path
+        long accepted = kdc.fastPathAcceptor.getAccepted();
+        KerberosDetails details = accept(kdc, kdc.fastPath, tokens.next(kdc));
+        if (kdc.fastPathAcceptor.getAccepted() == accepted) {
+            throw new IllegalStateException("Token was accepted by JGSS, not the fast path");
+        }
+        return details;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<AcceptResult> acceptBatch(Kdc kdc) {
+        List<AcceptResult> results = kdc.service.submitAll(EmbeddedKdc.SERVICE, kdc.batch).join();
+        for (AcceptResult result : results) {
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("Token was not accepted: " + result);
+            }
+        }
+        return results;
+    }
+
+    static KerberosDetails accept(Kdc kdc, AcceptorConfig config, byte[] token) {
+        KerberosDetails details = Subject.callAs(
+            kdc.kdc.acceptor(),
+            new SessionSetupPrivilegedAction(config, EmbeddedKdc.SERVICE, token)
+        );
+        if (details == null) {
+            throw new IllegalStateException("Token was not accepted");
+        }
+        return details;
+    }
+
+}
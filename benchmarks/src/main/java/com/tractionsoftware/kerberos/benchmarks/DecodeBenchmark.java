@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos.benchmarks;
+
+import com.tractionsoftware.kerberos.NegTokenInit;
+import com.tractionsoftware.kerberos.NegTokenInitView;
+import com.tractionsoftware.kerberos.NegTokenTarg;
+import com.tractionsoftware.kerberos.NegTokenTargView;
+import com.tractionsoftware.kerberos.NegotiateHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of incoming SPNEGO blobs and Negotiate headers, comparing the object tree decoders with the flyweight
+ * views. Run with {@code -prof gc} to see the allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+
+    private byte[] negTokenInit;
+
+    private byte[] negTokenTarg;
+
+    private String authorization;
+
+    private final NegTokenInitView initView = new NegTokenInitView();
+
+    private final NegTokenTargView targView = new NegTokenTargView();
+
+    private final NegotiateHeader header = new NegotiateHeader();
+
+    @Setup
+    public void setup() {
+        negTokenInit = Fixtures.negTokenInit(Fixtures.mechToken(Fixtures.MECH_TOKEN_LENGTH));
+        negTokenTarg = Fixtures.negTokenTarg(Fixtures.mechToken(160));
+        authorization = "Negotiate " + Base64.getEncoder().encodeToString(negTokenInit);
+    }
+
+    @Benchmark
+    public NegTokenInit negTokenInitDecode() throws IOException {
+        NegTokenInit init = new NegTokenInit();
+        init.decode(negTokenInit, 0, negTokenInit.length);
+        return init;
+    }
+
+    @Benchmark
+    public int negTokenInitView() throws IOException {
+        return initView.wrap(negTokenInit, 0, negTokenInit.length).mechTokenLength();
+    }
+
+    @Benchmark
+    public NegTokenTarg negTokenTargDecode() throws IOException {
+        NegTokenTarg targ = new NegTokenTarg();
+        targ.decode(negTokenTarg, 0, negTokenTarg.length);
+        return targ;
+    }
+
+    @Benchmark
+    public int negTokenTargView() throws IOException {
+        return targView.wrap(negTokenTarg, 0, negTokenTarg.length).responseTokenLength();
+    }
+
+    @Benchmark
+    public byte[] authorizationHeaderJdkBase64() {
+        return Base64.getDecoder().decode(authorization.substring(NegotiateHeader.SCHEME.length() + 1));
+    }
+
+    @Benchmark
+    public int authorizationHeader() {
+        header.decode(authorization);
+        return header.length();
+    }
+
+    @Benchmark
+    public int authorizationHeaderToMechToken() throws IOException {
+        header.decode(authorization);
+        return initView.wrap(header.buffer(), 0, header.length()).mechTokenLength();
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos.benchmarks;
+
+import com.tractionsoftware.kerberos.CommonOids;
+import org.apache.kerby.kerberos.kerb.server.SimpleKdcServer;
+import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.GSSManager;
+import org.ietf.jgss.GSSName;
+
+import javax.security.auth.Subject;
+import javax.security.auth.login.AppConfigurationEntry;
+import javax.security.auth.login.Configuration;
+import javax.security.auth.login.LoginContext;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * In-process KDC with a service and a client principal, for benchmarks that accept real AP-REQs.
+ *
+ * <p>
+ * Must be created before anything else in the JVM touches Kerberos, since it points
+ * {@code java.security.krb5.conf} at its own configuration.
+ */
+final class EmbeddedKdc implements AutoCloseable {
+
+    static final String REALM = "EXAMPLE.COM";
+
+    static final String SERVICE = "HTTP/localhost@" + REALM;
+
+    static final String CLIENT = "client@" + REALM;
+
+    private static final String ENCTYPES = "aes256-cts-hmac-sha1-96 aes128-cts-hmac-sha1-96";
+
+    private final Path dir;
+
+    private final SimpleKdcServer kdc;
+
+    private final Subject acceptor;
+
+    private final Subject initiator;
+
+    EmbeddedKdc() throws Exception {
+        dir = Files.createTempDirectory("kerberos-bench");
+        int port = freePort();
+
+        kdc = new SimpleKdcServer();
+        kdc.setWorkDir(dir.toFile());
+        kdc.setKdcHost("localhost");
+        kdc.setKdcRealm(REALM);
+        kdc.setAllowUdp(false);
+        kdc.setKdcTcpPort(port);
+        kdc.init();
+        kdc.start();
+
+        File serviceKeytab = dir.resolve("service.keytab").toFile();
+        File clientKeytab = dir.resolve("client.keytab").toFile();
+        kdc.createAndExportPrincipals(serviceKeytab, SERVICE);
+        kdc.createAndExportPrincipals(clientKeytab, CLIENT);
+
+        Path krb5Conf = dir.resolve("krb5.conf");
+        Files.writeString(krb5Conf, """
+            [libdefaults]
+                default_realm = %1$s
+                udp_preference_limit = 1
+                dns_lookup_kdc = false
+                dns_lookup_realm = false
+                default_tkt_enctypes = %3$s
+                default_tgs_enctypes = %3$s
+                permitted_enctypes = %3$s
+            [realms]
+                %1$s = {
+                    kdc = localhost:%2$d
+                }
+            """.formatted(REALM, port, ENCTYPES));
+        System.setProperty("java.security.krb5.conf", krb5Conf.toString());
+
+        acceptor = login(SERVICE, serviceKeytab, false);
+        initiator = login(CLIENT, clientKeytab, true);
+    }
+
+    /**
+     * Return the Subject to run acceptor code in
+     */
+    Subject acceptor() {
+        return acceptor;
+    }
+
+    /**
+     * Return the keytab holding the service's keys
+     */
+    Path serviceKeytab() {
+        return dir.resolve("service.keytab");
+    }
+
+    /**
+     * Create a fresh Kerberos v5 AP-REQ for the service, as a GSS-API token
+     */
+    byte[] newToken() throws Exception {
+        return Subject.callAs(initiator, () -> {
+            GSSManager manager = GSSManager.getInstance();
+            GSSName server = manager.createName(SERVICE, GSSName.NT_USER_NAME);
+            GSSContext context = manager.createContext(server, CommonOids.KERBEROS5, null, GSSContext.DEFAULT_LIFETIME);
+            try {
+                context.requestMutualAuth(true);
+                return context.initSecContext(new byte[0], 0, 0);
+            }
+            finally {
+                context.dispose();
+            }
+        });
+    }
+
+    @Override
+    public void close() throws Exception {
+        kdc.stop();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+    private static Subject login(String principal, File keytab, boolean initiator) throws Exception {
+        Map<String, String> options = Map.of(
+            "useKeyTab", "true",
+            "keyTab", keytab.getAbsolutePath(),
+            "principal", principal,
+            "storeKey", "true",
+            "doNotPrompt", "true",
+            "isInitiator", Boolean.toString(initiator)
+        );
+        Configuration conf = new Configuration() {
+            @Override
+            public AppConfigurationEntry[] getAppConfigurationEntry(String name) {
+                return new AppConfigurationEntry[] {
+                    new AppConfigurationEntry(
+                        "com.sun.security.auth.module.Krb5LoginModule",
+                        AppConfigurationEntry.LoginModuleControlFlag.REQUIRED,
+                        options
+                    )
+                };
+            }
+        };
+        LoginContext lc = new LoginContext("benchmark", new Subject(), null, conf);
+        lc.login();
+        return lc.getSubject();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
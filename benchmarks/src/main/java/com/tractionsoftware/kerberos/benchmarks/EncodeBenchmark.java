@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos.benchmarks;
+
+import com.tractionsoftware.kerberos.CommonOids;
+import com.tractionsoftware.kerberos.NegTokenInit;
+import com.tractionsoftware.kerberos.NegTokenTarg;
+import com.tractionsoftware.kerberos.NegotiateHeader;
+import com.tractionsoftware.kerberos.SPNEGO;
+import org.ietf.jgss.Oid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of outgoing SPNEGO blobs and Negotiate headers, comparing the object tree encoders with the single-pass
+ * encoders. Run with {@code -prof gc} to see the allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodeBenchmark {
+
+    private byte[] responseToken;
+
+    private NegTokenTarg targ;
+
+    private NegTokenInit init;
+
+    private final ByteBuffer out = ByteBuffer.allocate(8192);
+
+    private final StringBuilder header = new StringBuilder(512);
+
+    @Setup
+    public void setup() {
+        responseToken = Fixtures.mechToken(160);
+        targ = new NegTokenTarg(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, responseToken);
+        init = new NegTokenInit(new Oid[] { CommonOids.MSKERBEROS5, CommonOids.KERBEROS5, CommonOids.NTLMSSP }, null);
+    }
+
+    @Benchmark
+    public byte[] negTokenTargEncode() throws IOException {
+        return targ.encode();
+    }
+
+    @Benchmark
+    public int negTokenTargEncodeInto() throws IOException {
+        out.clear();
+        return NegTokenTarg.encode(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, responseToken, 0, responseToken.length, out);
+    }
+
+    @Benchmark
+    public byte[] negTokenInitEncode() throws IOException {
+        return init.encode();
+    }
+
+    @Benchmark
+    public int negTokenInitEncodeInto() throws IOException {
+        out.clear();
+        return init.encode(out);
+    }
+
+    @Benchmark
+    public String wwwAuthenticateJdkBase64() throws IOException {
+        return NegotiateHeader.SCHEME + " " + Base64.getEncoder().encodeToString(targ.encode());
+    }
+
+    @Benchmark
+    public int wwwAuthenticate() throws IOException {
+        header.setLength(0);
+        return NegotiateHeader.appendResponse(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, responseToken, header).length();
+    }
+
+}
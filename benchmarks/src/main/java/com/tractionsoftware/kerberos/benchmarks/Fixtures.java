@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Synthetic SPNEGO blobs for the decode and encode benchmarks, which do not need a KDC.
+ */
+final class Fixtures {
+
+    // Typical size of a Kerberos AP-REQ from a domain-joined Windows client without a large PAC
+
+    static final int MECH_TOKEN_LENGTH = 1600;
+
+    private static final byte[] SPNEGO_OID = hex("06062b0601050502");
+
+    private static final byte[] MSKERBEROS5_OID = hex("06092a864882f712010202");
+
+    private static final byte[] KERBEROS5_OID = hex("06092a864886f712010202");
+
+    private static final byte[] NTLMSSP_OID = hex("060a2b06010401823702020a");
+
+    private Fixtures() {
+    }
+
+    static byte[] mechToken(int len) {
+        byte[] b = new byte[len];
+        new Random(42).nextBytes(b);
+        b[0] = 0x60;
+        return b;
+    }
+
+    /**
+     * Build a NegTokenInit as sent by browsers: three mechTypes, context flags and a mechToken
+     */
+    static byte[] negTokenInit(byte[] mechToken) {
+        return tlv(0x60,
+            SPNEGO_OID,
+            tlv(0xa0, tlv(0x30,
+                tlv(0xa0, tlv(0x30, MSKERBEROS5_OID, KERBEROS5_OID, NTLMSSP_OID)),
+                tlv(0xa1, hex("03020160")),
+                tlv(0xa2, tlv(0x04, mechToken))
+            ))
+        );
+    }
+
+    /**
+     * Build a NegTokenTarg as returned by servers: result, supportedMech and a response token
+     */
+    static byte[] negTokenTarg(byte[] responseToken) {
+        return tlv(0xa1, tlv(0x30,
+            tlv(0xa0, hex("0a0100")),
+            tlv(0xa1, KERBEROS5_OID),
+            tlv(0xa2, tlv(0x04, responseToken))
+        ));
+    }
+
+    private static byte[] tlv(int tag, byte[]... parts) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            content.writeBytes(part);
+        }
+        int n = content.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(n + 6);
+        out.write(tag);
+        if (n < 0x80) {
+            out.write(n);
+        }
+        else if (n < 0x100) {
+            out.write(0x81);
+            out.write(n);
+        }
+        else {
+            out.write(0x82);
+            out.write(n >>> 8);
+            out.write(n);
+        }
+        out.writeBytes(content.toByteArray());
+        return out.toByteArray();
+    }
+
+    private static byte[] hex(String s) {
+        byte[] b = new byte[s.length() / 2];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) Integer.parseInt(s, 2 * i, 2 * i + 2, 16);
+        }
+        return b;
+    }
+
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.io.IOException;
+
+/**
+ * Flyweight view of the unencrypted parts of a Kerberos AP-REQ, optionally wrapped in a GSS-API
+ * initial context token.
+ *
+ * <p>
+ * Offsets refer to the array passed to {@link #parse(byte[], int, int)}; nothing is copied.
+ * Instances are reusable but not thread-safe.
+ */
+final class APRequest {
+
+    // AP-REQ and Ticket application tags
+
+    static final int AP_REQ = 0x6e;
+    static final int TICKET = 0x61;
+
+    // GSS-API token ID for a Kerberos AP-REQ
+
+    private static final int TOK_ID_AP_REQ = 0x0100;
+
+    private final DERCursor cursor = new DERCursor();
+
+    private int mechOff;
+
+    private int mechLen;
+
+    private int apOptions;
+
+    private int realmOff;
+
+    private int realmLen;
+
+    private int snameType;
+
+    private int snameOff;
+
+    private int snameLen;
+
+    private int ticketOff;
+
+    private int ticketLen;
+
+    private int ticketEtype;
+
+    private int ticketKvno;
+
+    private int ticketCipherOff;
+
+    private int ticketCipherLen;
+
+    private int authEtype;
+
+    private int authCipherOff;
+
+    private int authCipherLen;
+
+    /**
+     * Parse an AP-REQ, or a GSS-API Kerberos token containing one
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @throws IOException
+     *     if the bytes are not a well-formed AP-REQ
+     */
+    void parse(byte[] buf, int off, int len) throws IOException {
+        DERCursor c = cursor.reset(buf, off, len);
+        mechOff = -1;
+        mechLen = 0;
+        apOptions = 0;
+        ticketKvno = -1;
+
+        int tag = c.next();
+        if (tag == DERCursor.APPLICATION) {
+            // GSS-API framing: mech OID, two byte token ID, then the AP-REQ
+            c.enter();
+            c.expect(DERCursor.OID);
+            mechOff = c.contentOffset();
+            mechLen = c.contentLength();
+            int p = c.position();
+            c.skip(2);
+            if ((((buf[p] & 0xff) << 8) | (buf[p + 1] & 0xff)) != TOK_ID_AP_REQ) {
+                throw new IOException("Not a Kerberos AP-REQ token");
+            }
+            tag = c.next();
+        }
+        if (tag != AP_REQ) {
+            throw new IOException("Not a Kerberos AP-REQ");
+        }
+        c.enter();
+        c.expect(DERCursor.SEQUENCE);
+        c.enter();
+
+        boolean haveTicket = false;
+        boolean haveAuthenticator = false;
+        while (c.hasNext()) {
+            switch (c.next()) {
+            case DERCursor.CONTEXT | 2 -> {
+                c.enter();
+                c.expect(DERCursor.BIT_STRING);
+                apOptions = c.flagsValue();
+                c.exit();
+            }
+            case DERCursor.CONTEXT | 3 -> {
+                parseTicket(c);
+                haveTicket = true;
+            }
+            case DERCursor.CONTEXT | 4 -> {
+                c.enter();
+                parseEncryptedData(c, false);
+                c.exit();
+                haveAuthenticator = true;
+            }
+            default -> {
+                // pvno and msg-type
+            }
+            }
+        }
+        if (!haveTicket || !haveAuthenticator) {
+            throw new IOException("AP-REQ is missing its ticket or authenticator");
+        }
+    }
+
+    /**
+     * Parse the AP-REQ carried by a security blob: a bare or GSS-API framed AP-REQ, the mechToken of an SPNEGO
+     * NegTokenInit, or the responseToken of an SPNEGO NegTokenTarg
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @throws IOException
+     *     if the blob does not carry a well-formed AP-REQ
+     */
+    void parseBlob(byte[] buf, int off, int len) throws IOException {
+        int tag = len > 0 ? buf[off] & 0xff : -1;
+        if (tag == DERCursor.APPLICATION) {
+            // The view passes a GSS-API framed Kerberos token through whole
+            NegTokenInitView init = new NegTokenInitView().wrap(buf, off, len);
+            parse(buf, init.mechTokenOffset(), init.mechTokenLength());
+        }
+        else if (tag == (DERCursor.CONTEXT | 1)) {
+            NegTokenTargView targ = new NegTokenTargView().wrap(buf, off, len);
+            if (!targ.hasResponseToken()) {
+                throw new IOException("No responseToken in blob");
+            }
+            parse(buf, targ.responseTokenOffset(), targ.responseTokenLength());
+        }
+        else {
+            parse(buf, off, len);
+        }
+    }
+
+    private void parseTicket(DERCursor c) throws IOException {
+        c.enter();
+        c.expect(TICKET);
+        ticketOff = c.headerOffset();
+        ticketLen = c.elementLength();
+        c.enter();
+        c.expect(DERCursor.SEQUENCE);
+        c.enter();
+        boolean haveEncPart = false;
+        while (c.hasNext()) {
+            switch (c.next()) {
+            case DERCursor.CONTEXT | 1 -> {
+                c.enter();
+                c.expect(DERCursor.GENERAL_STRING);
+                realmOff = c.contentOffset();
+                realmLen = c.contentLength();
+                c.exit();
+            }
+            case DERCursor.CONTEXT | 2 -> {
+                c.enter();
+                c.expect(DERCursor.SEQUENCE);
+                c.enter();
+                while (c.hasNext()) {
+                    int t = c.next();
+                    if (t == (DERCursor.CONTEXT | 0)) {
+                        c.enter();
+                        c.expect(DERCursor.INTEGER);
+                        snameType = c.intValue();
+                        c.exit();
+                    }
+                    else if (t == (DERCursor.CONTEXT | 1)) {
+                        c.enter();
+                        c.expect(DERCursor.SEQUENCE);
+                        snameOff = c.contentOffset();
+                        snameLen = c.contentLength();
+                        c.exit();
+                    }
+                }
+                c.exit();
+                c.exit();
+            }
+            case DERCursor.CONTEXT | 3 -> {
+                c.enter();
+                parseEncryptedData(c, true);
+                c.exit();
+                haveEncPart = true;
+            }
+            default -> {
+                // tkt-vno
+            }
+            }
+        }
+        c.exit();
+        c.exit();
+        c.exit();
+        if (!haveEncPart) {
+            throw new IOException("Ticket is missing its encrypted part");
+        }
+    }
+
+    private void parseEncryptedData(DERCursor c, boolean ticket) throws IOException {
+        c.expect(DERCursor.SEQUENCE);
+        c.enter();
+        int etype = 0;
+        int kvno = -1;
+        int cipherOff = -1;
+        int cipherLen = 0;
+        while (c.hasNext()) {
+            int t = c.next();
+            c.enter();
+            if (t == (DERCursor.CONTEXT | 0)) {
+                c.expect(DERCursor.INTEGER);
+                etype = c.intValue();
+            }
+            else if (t == (DERCursor.CONTEXT | 1)) {
+                c.expect(DERCursor.INTEGER);
+                kvno = c.intValue();
+            }
+            else if (t == (DERCursor.CONTEXT | 2)) {
+                c.expect(DERCursor.OCTET_STRING);
+                cipherOff = c.contentOffset();
+                cipherLen = c.contentLength();
+            }
+            c.exit();
+        }
+        c.exit();
+        if (cipherOff < 0) {
+            throw new IOException("EncryptedData has no cipher");
+        }
+        if (ticket) {
+            ticketEtype = etype;
+            ticketKvno = kvno;
+            ticketCipherOff = cipherOff;
+            ticketCipherLen = cipherLen;
+        }
+        else {
+            authEtype = etype;
+            authCipherOff = cipherOff;
+            authCipherLen = cipherLen;
+        }
+    }
+
+    byte[] buffer() {
+        return cursor.buffer();
+    }
+
+    /**
+     * Return the offset of the mech OID content, or -1 if the AP-REQ had no GSS-API framing
+     */
+    int mechOffset() {
+        return mechOff;
+    }
+
+    int mechLength() {
+        return mechLen;
+    }
+
+    /**
+     * Return the AP options, with option bit 0 in the high bit
+     */
+    int apOptions() {
+        return apOptions;
+    }
+
+    int realmOffset() {
+        return realmOff;
+    }
+
+    int realmLength() {
+        return realmLen;
+    }
+
+    int serverNameType() {
+        return snameType;
+    }
+
+    /**
+     * Return the offset of the content of the server name-string SEQUENCE OF GeneralString
+     */
+    int serverNameOffset() {
+        return snameOff;
+    }
+
+    int serverNameLength() {
+        return snameLen;
+    }
+
+    int ticketOffset() {
+        return ticketOff;
+    }
+
+    int ticketLength() {
+        return ticketLen;
+    }
+
+    int ticketEtype() {
+        return ticketEtype;
+    }
+
+    /**
+     * Return the key version number of the ticket, or -1 if it was not specified
+     */
+    int ticketKvno() {
+        return ticketKvno;
+    }
+
+    int ticketCipherOffset() {
+        return ticketCipherOff;
+    }
+
+    int ticketCipherLength() {
+        return ticketCipherLen;
+    }
+
+    int authenticatorEtype() {
+        return authEtype;
+    }
+
+    int authenticatorCipherOffset() {
+        return authCipherOff;
+    }
+
+    int authenticatorCipherLength() {
+        return authCipherLen;
+    }
+
+}
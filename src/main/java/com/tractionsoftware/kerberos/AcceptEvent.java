@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one {@link SessionSetupPrivilegedAction#accept()}
+ */
+@Name("com.tractionsoftware.kerberos.Accept")
+@Label("Kerberos Accept")
+@Description("Acceptance of one SPNEGO or Kerberos token")
+@Category({ "Traction", "Kerberos" })
+@StackTrace(false)
+final class AcceptEvent extends jdk.jfr.Event {
+
+    @Label("Account Name")
+    String accountName;
+
+    @Label("Token Size")
+    @DataAmount(DataAmount.BYTES)
+    int tokenSize;
+
+    @Label("Response Size")
+    @DataAmount(DataAmount.BYTES)
+    int responseSize;
+
+    @Label("Mechanism")
+    String mechanism;
+
+    @Label("Session Key Algorithm")
+    String sessionKeyAlgorithm;
+
+    @Label("Established")
+    boolean established;
+
+    @Label("GSS Major Code")
+    @Description("Major code of the GSSException if the token was rejected, otherwise 0")
+    int majorCode;
+
+}
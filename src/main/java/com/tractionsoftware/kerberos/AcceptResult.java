@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The outcome of accepting one security blob in a batch: either the {@link KerberosDetails}, or a structured failure.
+ *
+ * @see AcceptorService#submitAll(String, java.util.List)
+ */
+public final class AcceptResult {
+
+    /**
+     * How an accept ended
+     */
+    public enum Status {
+        /** The context was established */
+        ESTABLISHED,
+        /** The context needs another token from the initiator */
+        CONTINUE,
+        /** The blob was refused by GSS-API, see {@link #getMajorCode()} */
+        FAILED,
+        /** The service was too busy or closed, so the blob was not looked at */
+        REJECTED,
+        /** The deadline passed before the accept finished */
+        TIMED_OUT,
+        /** An unexpected exception */
+        ERROR
+    }
+
+    private final Status status;
+
+    private final KerberosDetails details;
+
+    private final Throwable failure;
+
+    private AcceptResult(Status status, KerberosDetails details, Throwable failure) {
+        this.status = status;
+        this.details = details;
+        this.failure = failure;
+    }
+
+    static AcceptResult of(KerberosDetails details, Throwable failure) {
+        if (failure == null) {
+            return new AcceptResult(details.isEstablished() ? Status.ESTABLISHED : Status.CONTINUE, details, null);
+        }
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        Status status;
+        if (failure instanceof AdmissionRejectedException || failure instanceof RejectedExecutionException) {
+            status = Status.REJECTED;
+        }
+        else if (failure instanceof GSSException) {
+            status = Status.FAILED;
+        }
+        else if (failure instanceof TimeoutException) {
+            status = Status.TIMED_OUT;
+        }
+        else {
+            status = Status.ERROR;
+        }
+        return new AcceptResult(status, null, failure);
+    }
+
+    /**
+     * Return how the accept ended
+     *
+     * @return Status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Check if the blob was accepted, whether or not the context needs another token
+     *
+     * @return boolean
+     */
+    public boolean isSuccess() {
+        return details != null;
+    }
+
+    /**
+     * Return the details of the accepted context
+     *
+     * @return KerberosDetails, or null if the accept failed
+     */
+    public KerberosDetails getDetails() {
+        return details;
+    }
+
+    /**
+     * Return the exception the accept failed with
+     *
+     * @return Throwable, or null if it succeeded
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Return the GSS-API major status code of a failed accept
+     *
+     * @return int, such as {@link GSSException#DEFECTIVE_TOKEN}, or 0 unless the status is {@link Status#FAILED}
+     */
+    public int getMajorCode() {
+        return failure instanceof GSSException e ? e.getMajor() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return details != null ? status + " " + details : status + " " + failure;
+    }
+
+}
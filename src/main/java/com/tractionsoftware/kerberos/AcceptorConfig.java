@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+/**
+ * Long-lived settings and shared state for {@link SessionSetupPrivilegedAction}.
+ *
+ * <p>
+ * One instance is normally created at startup and passed to every action. Settings may be changed at any time;
+ * actions that are already running keep the values they started with.
+ */
+public class AcceptorConfig {
+
+    // Shared acceptor credentials, or null to acquire credentials for each request
+
+    private volatile AcceptorCredentialCache credentialCache;
+
+    // Library replay cache, or null to rely on the JDK's built-in one
+
+    private volatile ReplayCache replayCache;
+
+    // Issuer of session resumption tokens, or null if none are issued
+
+    private volatile ResumptionTokens resumptionTokens;
+
+    // Contexts waiting for the next leg of a multi-round handshake, or null to dispose them after each token
+
+    private volatile HandshakeTable handshakeTable;
+
+    // Receiver of accept timings and outcomes, or null if none are recorded
+
+    private volatile AcceptorMetrics metrics;
+
+    // Fields of KerberosDetails read from each established context
+
+    private volatile int detailFields = KerberosDetails.DEFAULT_FIELDS;
+
+    // Pure-Java acceptor tried before JGSS, or null to always use JGSS
+
+    private volatile FastPathAcceptor fastPathAcceptor;
+
+    // Keytab checked for key rotation before each accept, or null if none is watched
+
+    private volatile KeytabIndex keytabIndex;
+
+    // Chooses the account from the ticket's SPN, or null to use the action's account
+
+    private volatile SpnRouter spnRouter;
+
+    // Structural checks applied to each blob before decoding, or null to pass every blob to JGSS
+
+    private volatile TokenValidator tokenValidator;
+
+    // Recently failed tokens rejected without another accept, or null to accept every repeat
+
+    private volatile NegativeTokenCache negativeTokenCache;
+
+    // Adaptive limit on accepts in flight, or null to start every accept
+
+    private volatile AdmissionController admissionController;
+
+    // Store for credentials delegated by clients, or null to leave them to the caller
+
+    private volatile DelegatedCredentialCache delegatedCredentialCache;
+
+    /**
+     * Return the acceptor credential cache
+     *
+     * @return AcceptorCredentialCache, or null if credentials are acquired for each request
+     */
+    public final AcceptorCredentialCache getCredentialCache() {
+        return credentialCache;
+    }
+
+    /**
+     * Set the acceptor credential cache
+     *
+     * @param credentialCache
+     *     AcceptorCredentialCache, or null to acquire credentials for each request
+     */
+    public final void setCredentialCache(AcceptorCredentialCache credentialCache) {
+        this.credentialCache = credentialCache;
+    }
+
+    /**
+     * Return the replay cache
+     *
+     * @return ReplayCache, or null if only the JDK's built-in replay cache is used
+     */
+    public final ReplayCache getReplayCache() {
+        return replayCache;
+    }
+
+    /**
+     * Set the replay cache checked after each accepted AP-REQ. See {@link ReplayCache#disableBuiltInReplayCache()}.
+     *
+     * @param replayCache
+     *     ReplayCache, or null to rely on the JDK's built-in one
+     */
+    public final void setReplayCache(ReplayCache replayCache) {
+        this.replayCache = replayCache;
+    }
+
+    /**
+     * Return the issuer of session resumption tokens
+     *
+     * @return ResumptionTokens, or null if none are issued
+     */
+    public final ResumptionTokens getResumptionTokens() {
+        return resumptionTokens;
+    }
+
+    /**
+     * Set the issuer of session resumption tokens. When set, each accepted context gets a token available from
+     * {@link KerberosDetails#getResumptionToken()}.
+     *
+     * @param resumptionTokens
+     *     ResumptionTokens, or null to issue none
+     */
+    public final void setResumptionTokens(ResumptionTokens resumptionTokens) {
+        this.resumptionTokens = resumptionTokens;
+    }
+
+    /**
+     * Return the table of handshakes in progress
+     *
+     * @return HandshakeTable, or null if every context is disposed after one token
+     */
+    public final HandshakeTable getHandshakeTable() {
+        return handshakeTable;
+    }
+
+    /**
+     * Set the table of handshakes in progress. When set, an action with a handshake ID whose context needs another
+     * token parks the context here, and the next action with the same ID continues it.
+     *
+     * @param handshakeTable
+     *     HandshakeTable, or null to dispose every context after one token
+     */
+    public final void setHandshakeTable(HandshakeTable handshakeTable) {
+        this.handshakeTable = handshakeTable;
+    }
+
+    /**
+     * Return the receiver of accept timings and outcomes
+     *
+     * @return AcceptorMetrics, or null if none are recorded
+     */
+    public final AcceptorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set the receiver of accept timings and outcomes, such as a {@link HistogramMetrics}
+     *
+     * @param metrics
+     *     AcceptorMetrics, or null to record none
+     */
+    public final void setMetrics(AcceptorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Return the fields of {@link KerberosDetails} read from each established context
+     *
+     * @return int mask of KerberosDetails field constants
+     */
+    public final int getDetailFields() {
+        return detailFields;
+    }
+
+    /**
+     * Set the fields of {@link KerberosDetails} read from each established context. Most callers only need
+     * {@link KerberosDetails#SOURCE_NAME}; leaving out {@link KerberosDetails#SESSION_KEY_ALGORITHM} avoids extracting
+     * the session key, and adding {@link KerberosDetails#PAC} returns the user's groups from Active Directory
+     * tickets. The source name, lifetime and session key algorithm are always read when resumption tokens are
+     * issued.
+     *
+     * @param detailFields
+     *     int mask of KerberosDetails field constants
+     */
+    public final void setDetailFields(int detailFields) {
+        this.detailFields = detailFields;
+    }
+
+    /**
+     * Return the fast path acceptor
+     *
+     * @return FastPathAcceptor, or null if every token is accepted with JGSS
+     */
+    public final FastPathAcceptor getFastPathAcceptor() {
+        return fastPathAcceptor;
+    }
+
+    /**
+     * Set the acceptor tried before JGSS for Kerberos AP-REQs with AES tickets, when the action's account, or the
+     * one chosen by the {@link SpnRouter}, is the acceptor's principal. It is only used when a {@link ReplayCache}
+     * is also set, since it bypasses the JDK's built-in one.
+     *
+     * @param fastPathAcceptor
+     *     FastPathAcceptor, or null to accept every token with JGSS
+     */
+    public final void setFastPathAcceptor(FastPathAcceptor fastPathAcceptor) {
+        this.fastPathAcceptor = fastPathAcceptor;
+    }
+
+    /**
+     * Return the keytab index checked for key rotation
+     *
+     * @return KeytabIndex, or null if none is watched
+     */
+    public final KeytabIndex getKeytabIndex() {
+        return keytabIndex;
+    }
+
+    /**
+     * Set the keytab index checked for key rotation before each accept. The fast path acceptor and credential cache
+     * follow it when they were created from it.
+     *
+     * @param keytabIndex
+     *     KeytabIndex, or null to watch none
+     */
+    public final void setKeytabIndex(KeytabIndex keytabIndex) {
+        this.keytabIndex = keytabIndex;
+    }
+
+    /**
+     * Return the router choosing the acceptor account from the ticket's SPN
+     *
+     * @return SpnRouter, or null if each action's own account is used
+     */
+    public final SpnRouter getSpnRouter() {
+        return spnRouter;
+    }
+
+    /**
+     * Set the router choosing the acceptor account from the ticket's SPN. An action's own account name, which may
+     * then be null, is only used for tickets the router has no route for.
+     *
+     * @param spnRouter
+     *     SpnRouter, or null to use each action's own account
+     */
+    public final void setSpnRouter(SpnRouter spnRouter) {
+        this.spnRouter = spnRouter;
+    }
+
+    /**
+     * Return the structural checks applied to each blob
+     *
+     * @return TokenValidator, or null if every blob is passed to JGSS
+     */
+    public final TokenValidator getTokenValidator() {
+        return tokenValidator;
+    }
+
+    /**
+     * Set the structural checks applied to each blob before it is decoded. A rejected blob fails with
+     * {@link org.ietf.jgss.GSSException#DEFECTIVE_TOKEN} and the {@link TokenValidator} reason as its minor code.
+     *
+     * @param tokenValidator
+     *     TokenValidator, or null to pass every blob to JGSS
+     */
+    public final void setTokenValidator(TokenValidator tokenValidator) {
+        this.tokenValidator = tokenValidator;
+    }
+
+    /**
+     * Return the cache of recently failed tokens
+     *
+     * @return NegativeTokenCache, or null if every repeat is accepted again
+     */
+    public final NegativeTokenCache getNegativeTokenCache() {
+        return negativeTokenCache;
+    }
+
+    /**
+     * Set the cache of recently failed tokens. A repeat of a token that failed within its time to live fails again
+     * with the same major and minor codes, without being decoded.
+     *
+     * @param negativeTokenCache
+     *     NegativeTokenCache, or null to accept every repeat again
+     */
+    public final void setNegativeTokenCache(NegativeTokenCache negativeTokenCache) {
+        this.negativeTokenCache = negativeTokenCache;
+    }
+
+    /**
+     * Return the adaptive limit on accepts in flight
+     *
+     * @return AdmissionController, or null if every accept is started
+     */
+    public final AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * Set the adaptive limit on accepts in flight. Accepts beyond it fail with an
+     * {@link AdmissionRejectedException} without the blob being looked at.
+     *
+     * @param admissionController
+     *     AdmissionController, or null to start every accept
+     */
+    public final void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    /**
+     * Return the store for credentials delegated by clients
+     *
+     * @return DelegatedCredentialCache, or null if they are left to the caller
+     */
+    public final DelegatedCredentialCache getDelegatedCredentialCache() {
+        return delegatedCredentialCache;
+    }
+
+    /**
+     * Set the store for credentials delegated by clients. When set, the delegated credential of each established
+     * context is cached under the client's principal name, for calls to downstream services on their behalf.
+     *
+     * @param delegatedCredentialCache
+     *     DelegatedCredentialCache, or null to leave delegated credentials to the caller
+     */
+    public final void setDelegatedCredentialCache(DelegatedCredentialCache delegatedCredentialCache) {
+        this.delegatedCredentialCache = delegatedCredentialCache;
+    }
+
+}
@@ -0,0 +1,514 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSCredential;
+import org.ietf.jgss.GSSException;
+import org.ietf.jgss.GSSManager;
+import org.ietf.jgss.GSSName;
+
+import javax.security.auth.Subject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long-lived cache of acceptor {@link GSSCredential}s, keyed by account name.
+ *
+ * <p>
+ * Acquiring acceptor credentials reads the keytab (or the keys in the current {@link Subject}), which is a large
+ * share of the cost of a handshake. This cache acquires them once per account and hands out reference-counted
+ * {@link Lease}s, so many concurrent {@link org.ietf.jgss.GSSContext}s can share one credential. A credential is
+ * replaced when it is requested under a different {@code Subject}, when the private credentials of its
+ * {@code Subject} change, when the watched keytab file is modified, or when it expires. A replaced credential is
+ * only disposed once the last lease on it has been closed. The number of accounts is bounded, and the least recently
+ * used account's credential is dropped to make room for a new one.
+ *
+ * <p>
+ * Lookups must run in the same {@code Subject} context as {@link SessionSetupPrivilegedAction#run()}, since that is
+ * where the credentials come from.
+ */
+public class AcceptorCredentialCache implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(AcceptorCredentialCache.class.getName());
+
+    /**
+     * Default interval between checks of the keytab file and {@code Subject} credentials
+     */
+    public static final long DEFAULT_CHECK_INTERVAL_MILLIS = 10_000;
+
+    /**
+     * Default maximum number of accounts with cached credentials
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    // Last-used times closer together than this are not updated, so hot entries are not written on every lease
+
+    private static final long TOUCH_GRANULARITY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * A reference to a cached credential, which must be closed once the context using it has been disposed.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private Entry entry;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Return the shared acceptor credential
+         *
+         * @return GSSCredential
+         */
+        public GSSCredential getCredential() {
+            Entry e = entry;
+            if (e == null) {
+                throw new IllegalStateException("Lease has been closed");
+            }
+            return e.credential;
+        }
+
+        @Override
+        public void close() throws GSSException {
+            Entry e = entry;
+            if (e != null) {
+                entry = null;
+                e.release();
+            }
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final String accountName;
+
+        private final GSSCredential credential;
+
+        private final Subject subject;
+
+        private final int subjectStamp;
+
+        private final long expiresAtNanos;
+
+        // One reference is held by the cache itself until the entry is retired
+
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        private volatile boolean retired;
+
+        private volatile long lastUsedNanos;
+
+        private Entry(String accountName, GSSCredential credential, Subject subject, int subjectStamp, long expiresAtNanos) {
+            this.accountName = accountName;
+            this.credential = credential;
+            this.subject = subject;
+            this.subjectStamp = subjectStamp;
+            this.expiresAtNanos = expiresAtNanos;
+            this.lastUsedNanos = System.nanoTime();
+        }
+
+        private void touch(long now) {
+            if (now - lastUsedNanos > TOUCH_GRANULARITY_NANOS) {
+                lastUsedNanos = now;
+            }
+        }
+
+        private boolean isUsable(Subject current, long now) {
+            return !retired && subject == current && now - expiresAtNanos < 0;
+        }
+
+        private boolean retain() {
+            for (;;) {
+                int n = refs.get();
+                if (n == 0) {
+                    return false;
+                }
+                if (refs.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void retire() {
+            if (!retired) {
+                retired = true;
+                try {
+                    release();
+                }
+                catch (GSSException e) {
+                    LOGGER.log(Level.FINE, "Failed to dispose acceptor credential for " + accountName, e);
+                }
+            }
+        }
+
+        private void release() throws GSSException {
+            if (refs.decrementAndGet() == 0) {
+                credential.dispose();
+            }
+        }
+
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Acquisitions in progress, so concurrent misses for one account wait for a single keytab read
+
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    private final Path keytab;
+
+    // Index whose reloads drop the cached credentials, or null
+
+    private final KeytabIndex index;
+
+    private volatile int indexGeneration;
+
+    private final long checkIntervalNanos;
+
+    private volatile long nextCheckNanos;
+
+    private volatile FileTime keytabModified;
+
+    private volatile boolean closed;
+
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /**
+     * Class constructor for a cache that does not watch a keytab file
+     */
+    public AcceptorCredentialCache() {
+        this((Path) null, DEFAULT_CHECK_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param keytab
+     *     Path of the keytab file backing the credentials, or null if there is none to watch
+     * @param checkIntervalMillis
+     *     minimum interval between checks for keytab and {@code Subject} changes
+     */
+    public AcceptorCredentialCache(Path keytab, long checkIntervalMillis) {
+        this.keytab = keytab;
+        this.index = null;
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, checkIntervalMillis));
+        this.keytabModified = readKeytabModified();
+        this.nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+    }
+
+    /**
+     * Class constructor for a cache whose credentials are dropped whenever a {@link KeytabIndex} is reloaded. The
+     * index should be {@linkplain KeytabIndex#install(Subject) installed} in the acceptor {@code Subject}.
+     *
+     * @param index
+     *     KeytabIndex
+     * @param checkIntervalMillis
+     *     minimum interval between checks for index and {@code Subject} changes
+     */
+    public AcceptorCredentialCache(KeytabIndex index, long checkIntervalMillis) {
+        this.keytab = null;
+        this.index = index;
+        this.indexGeneration = index.getGeneration();
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, checkIntervalMillis));
+        this.nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+    }
+
+    /**
+     * Lease the acceptor credential for the specified account, acquiring it if it is not cached or is stale.
+     *
+     * @param accountName
+     *     String
+     * @return Lease
+     * @throws GSSException
+     *     if the credential cannot be acquired
+     */
+    public Lease acquire(String accountName) throws GSSException {
+        if (closed) {
+            throw new IllegalStateException("Credential cache has been closed");
+        }
+        long now = System.nanoTime();
+        if (now - nextCheckNanos >= 0) {
+            checkForChanges(now);
+        }
+        Subject subject = Subject.current();
+        for (;;) {
+            Entry entry = entries.get(accountName);
+            if (entry == null || !entry.isUsable(subject, now)) {
+                entry = refresh(accountName, subject, now);
+            }
+            if (entry.retain()) {
+                entry.touch(now);
+                return new Lease(entry);
+            }
+            // Lost a race with a concurrent refresh or invalidation; look again
+            now = System.nanoTime();
+        }
+    }
+
+    /**
+     * Drop the cached credential for an account. It is disposed once in-flight handshakes release it.
+     *
+     * @param accountName
+     *     String
+     */
+    public void invalidate(String accountName) {
+        Entry entry = entries.remove(accountName);
+        if (entry != null) {
+            entry.retire();
+        }
+    }
+
+    /**
+     * Drop all cached credentials, e.g. after the keytab has been replaced.
+     */
+    public void invalidateAll() {
+        for (String accountName : entries.keySet()) {
+            invalidate(accountName);
+        }
+    }
+
+    /**
+     * Return the number of cached credentials
+     *
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Return the maximum number of accounts with cached credentials
+     *
+     * @return int
+     */
+    public final int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Set the maximum number of accounts with cached credentials. When a new account would exceed it, the credential
+     * of the least recently used account is dropped.
+     *
+     * @param maxEntries
+     *     int, at least 1
+     */
+    public final void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Dispose all cached credentials and refuse further leases.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        invalidateAll();
+    }
+
+    private Entry refresh(String accountName, Subject subject, long now) throws GSSException {
+        for (;;) {
+            CompletableFuture<Entry> pending = new CompletableFuture<>();
+            CompletableFuture<Entry> other = loading.putIfAbsent(accountName, pending);
+            if (other != null) {
+                // Another thread is acquiring this account's credential; use it unless it is for another Subject
+                Entry entry = await(other);
+                if (entry.isUsable(subject, System.nanoTime())) {
+                    return entry;
+                }
+                continue;
+            }
+            try {
+                Entry current = entries.get(accountName);
+                if (current != null && current.isUsable(subject, now)) {
+                    // Another thread refreshed it first
+                    pending.complete(current);
+                    return current;
+                }
+                // The keytab is read outside the map, so other accounts are not held up behind it
+                Entry entry = createEntry(accountName, subject);
+                Entry replaced = entries.put(accountName, entry);
+                pending.complete(entry);
+                if (replaced != null) {
+                    replaced.retire();
+                }
+                if (entries.size() > maxEntries) {
+                    evictLeastRecentlyUsed(entry);
+                }
+                if (closed) {
+                    invalidate(accountName);
+                    throw new IllegalStateException("Credential cache has been closed");
+                }
+                return entry;
+            }
+            catch (GSSException | RuntimeException e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+            finally {
+                loading.remove(accountName, pending);
+            }
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> pending) throws GSSException {
+        try {
+            return pending.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof GSSException failure) {
+                throw failure;
+            }
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw e;
+        }
+    }
+
+    // Drop the least recently used credentials until the cache is back within its bound
+
+    private void evictLeastRecentlyUsed(Entry keep) {
+        while (entries.size() > maxEntries) {
+            Entry oldest = null;
+            for (Entry entry : entries.values()) {
+                if (entry != keep && (oldest == null || entry.lastUsedNanos - oldest.lastUsedNanos < 0)) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldest.accountName, oldest)) {
+                LOGGER.log(Level.FINE, "Evicted acceptor credential for " + oldest.accountName);
+                oldest.retire();
+            }
+        }
+    }
+
+    private static Entry createEntry(String accountName, Subject subject) throws GSSException {
+        CredentialEvent event = new CredentialEvent();
+        event.begin();
+        GSSManager gssManager = GSSManager.getInstance();
+        GSSName serverGSSName = gssManager.createName(accountName, GSSName.NT_USER_NAME);
+        GSSCredential serverGSSCreds = gssManager.createCredential(
+            serverGSSName,
+            GSSCredential.INDEFINITE_LIFETIME,
+            CommonOids.KERBEROS5,
+            GSSCredential.ACCEPT_ONLY
+        );
+        if (event.shouldCommit()) {
+            event.accountName = accountName;
+            event.cached = true;
+            event.commit();
+        }
+        long expiresAtNanos;
+        try {
+            int lifetime = serverGSSCreds.getRemainingAcceptLifetime(CommonOids.KERBEROS5);
+            long lifetimeNanos = lifetime == GSSCredential.INDEFINITE_LIFETIME
+                ? Long.MAX_VALUE / 2
+                : TimeUnit.SECONDS.toNanos(lifetime);
+            expiresAtNanos = System.nanoTime() + lifetimeNanos;
+        }
+        catch (GSSException | RuntimeException e) {
+            try {
+                serverGSSCreds.dispose();
+            }
+            catch (GSSException | RuntimeException x) {
+                e.addSuppressed(x);
+            }
+            throw e;
+        }
+        LOGGER.log(Level.FINE, "Acquired acceptor credential for " + accountName);
+        return new Entry(accountName, serverGSSCreds, subject, subjectStamp(subject), expiresAtNanos);
+    }
+
+    private void checkForChanges(long now) {
+        nextCheckNanos = now + checkIntervalNanos;
+        if (keytab != null) {
+            FileTime modified = readKeytabModified();
+            if (modified != null && !modified.equals(keytabModified)) {
+                keytabModified = modified;
+                LOGGER.log(Level.FINE, "Keytab " + keytab + " changed; dropping cached acceptor credentials");
+                invalidateAll();
+                return;
+            }
+        }
+        if (index != null) {
+            int generation = index.getGeneration();
+            if (generation != indexGeneration) {
+                indexGeneration = generation;
+                LOGGER.log(Level.FINE, "Keytab index reloaded; dropping cached acceptor credentials");
+                invalidateAll();
+                return;
+            }
+        }
+        for (Entry entry : entries.values()) {
+            if (entry.subject != null && subjectStamp(entry.subject) != entry.subjectStamp) {
+                LOGGER.log(Level.FINE, "Subject credentials changed for " + entry.accountName);
+                if (entries.remove(entry.accountName, entry)) {
+                    entry.retire();
+                }
+            }
+        }
+    }
+
+    private FileTime readKeytabModified() {
+        if (keytab == null) {
+            return null;
+        }
+        try {
+            return Files.getLastModifiedTime(keytab);
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot read modification time of " + keytab, e);
+            return null;
+        }
+    }
+
+    private static int subjectStamp(Subject subject) {
+        if (subject == null) {
+            return 0;
+        }
+        Set<Object> creds = subject.getPrivateCredentials();
+        int stamp = 1;
+        synchronized (creds) {
+            for (Object cred : creds) {
+                stamp = 31 * stamp + System.identityHashCode(cred);
+            }
+        }
+        return stamp;
+    }
+
+}
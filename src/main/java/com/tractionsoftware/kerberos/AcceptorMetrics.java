@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+/**
+ * Receives timings and outcomes from the accept path, to be bridged to a monitoring system.
+ *
+ * <p>
+ * Implementations are called on the accepting thread, so they must be thread-safe and cheap. {@link HistogramMetrics}
+ * keeps lock-free histograms and counters that can be polled. When no metrics are configured the clock is not read
+ * at all.
+ *
+ * @see AcceptorConfig#setMetrics(AcceptorMetrics)
+ */
+public interface AcceptorMetrics {
+
+    /**
+     * Phases of an accept
+     */
+    enum Phase {
+        /**
+         * Staging and validating the blob, checking the keytab for rotation and the negative token cache, and taking
+         * a parked context or choosing the account for a new one
+         */
+        DECODE,
+        /**
+         * Trying the {@link FastPathAcceptor}, whether it accepts the token or falls back to JGSS
+         */
+        FAST_PATH,
+        /**
+         * Acquiring or leasing the acceptor credentials and creating the context
+         */
+        CREDENTIALS,
+        /**
+         * {@code acceptSecContext}
+         */
+        ACCEPT,
+        /**
+         * Finding the authenticator and checking it against the {@link ReplayCache}
+         */
+        REPLAY,
+        /**
+         * Reading the names, lifetime and session key of the established context
+         */
+        INQUIRE
+    }
+
+    /**
+     * Results of an accept
+     */
+    enum Outcome {
+        /**
+         * The context was established
+         */
+        ESTABLISHED,
+        /**
+         * The context needs another token and was parked
+         */
+        CONTINUE,
+        /**
+         * The context was rejected with a {@link org.ietf.jgss.GSSException}
+         */
+        FAILED,
+        /**
+         * The blob was shed by the {@link AdmissionController} without being looked at. No phases or failure are
+         * recorded.
+         */
+        REJECTED,
+        /**
+         * The accept failed with an unexpected runtime exception
+         */
+        ERROR
+    }
+
+    /**
+     * Record the time taken by a phase. Each phase an accept goes through is recorded once.
+     *
+     * @param phase
+     *     Phase
+     * @param nanos
+     *     long
+     */
+    void recordPhase(Phase phase, long nanos);
+
+    /**
+     * Record the result of an accept
+     *
+     * @param outcome
+     *     Outcome
+     */
+    void recordOutcome(Outcome outcome);
+
+    /**
+     * Record the major code of a failed accept, in addition to {@link Outcome#FAILED}
+     *
+     * @param majorCode
+     *     int, as returned by {@link org.ietf.jgss.GSSException#getMajor()}
+     */
+    void recordFailure(int majorCode);
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+
+import javax.security.auth.Subject;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs {@link SessionSetupPrivilegedAction}s on virtual threads under the acceptor's {@link Subject}, with bounded
+ * concurrency and backpressure.
+ *
+ * <p>
+ * At most {@code maxConcurrency} accepts run at once, and at most {@code maxQueued} more wait for a slot; anything
+ * beyond that is rejected immediately with a {@link RejectedExecutionException}. Every call has a deadline: if it
+ * has not completed by then, its future fails with a {@link TimeoutException}, and if it has not started it is
+ * dropped. An accept that has already started cannot be interrupted and finishes in the background, still holding
+ * its slot. Accept failures complete the future with the {@link GSSException}.
+ *
+ * <p>
+ * Batches of blobs, such as tokens forwarded in bulk by a proxy, can be accepted in parallel with
+ * {@link #submitAll(String, List)}; set an {@link AcceptorCredentialCache} in the config so that they share
+ * credentials.
+ */
+public class AcceptorService implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(AcceptorService.class.getName());
+
+    private final Subject subject;
+
+    private final AcceptorConfig config;
+
+    private final int maxConcurrency;
+
+    private final int maxQueued;
+
+    private final long defaultTimeoutNanos;
+
+    private final Semaphore permits;
+
+    // Accepts running or waiting to run
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final ExecutorService executor;
+
+    private volatile boolean closed;
+
+    /**
+     * Class constructor
+     *
+     * @param subject
+     *     the acceptor's Subject, holding its keys or keytab
+     * @param config
+     *     shared acceptor settings, or null for the defaults
+     * @param maxConcurrency
+     *     maximum number of accepts running at once
+     * @param maxQueued
+     *     maximum number of accepts waiting to run
+     * @param defaultTimeout
+     *     deadline for calls that do not specify one
+     */
+    public AcceptorService(Subject subject, AcceptorConfig config, int maxConcurrency, int maxQueued, Duration defaultTimeout) {
+        if (maxConcurrency <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive and maxQueued non-negative");
+        }
+        this.subject = subject;
+        this.config = config;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.defaultTimeoutNanos = defaultTimeout.toNanos();
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("kerberos-acceptor-", 0).factory());
+    }
+
+    /**
+     * Return the shared acceptor settings
+     *
+     * @return AcceptorConfig, or null for the defaults
+     */
+    public final AcceptorConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Accept a security blob, with the default deadline
+     *
+     * @param accountName
+     *     String
+     * @param secBlob
+     *     byte[], which must not be changed until the future completes
+     * @param secOffset
+     *     int
+     * @param secLen
+     *     int
+     * @return CompletableFuture
+     */
+    public CompletableFuture<KerberosDetails> submit(String accountName, byte[] secBlob, int secOffset, int secLen) {
+        return submit(new SessionSetupPrivilegedAction(config, accountName, secBlob, secOffset, secLen), defaultTimeoutNanos);
+    }
+
+    /**
+     * Accept a security blob held in a buffer, with the default deadline
+     *
+     * @param accountName
+     *     String
+     * @param secBlob
+     *     ByteBuffer, which must not be changed until the future completes
+     * @return CompletableFuture
+     */
+    public CompletableFuture<KerberosDetails> submit(String accountName, ByteBuffer secBlob) {
+        return submit(new SessionSetupPrivilegedAction(config, accountName, secBlob), defaultTimeoutNanos);
+    }
+
+    /**
+     * Accept a batch of security blobs in parallel, with the default deadline for each
+     *
+     * @param accountName
+     *     String
+     * @param secBlobs
+     *     List of ByteBuffer, which must not be changed until the future completes
+     * @return CompletableFuture of the results, in the same order as the blobs
+     * @see #submitAll(String, List, Duration)
+     */
+    public CompletableFuture<List<AcceptResult>> submitAll(String accountName, List<ByteBuffer> secBlobs) {
+        return submitAll(accountName, secBlobs, defaultTimeoutNanos);
+    }
+
+    /**
+     * Accept a batch of security blobs in parallel. Each blob is a separate accept under the concurrency limit, so
+     * blobs beyond the free queue capacity are rejected with {@link AcceptResult.Status#REJECTED} rather than
+     * holding up the rest; batches should be sized against {@code maxQueued}. The future always completes normally
+     * once every blob has a result.
+     *
+     * @param accountName
+     *     String
+     * @param secBlobs
+     *     List of ByteBuffer, which must not be changed until the future completes
+     * @param timeout
+     *     deadline for each blob
+     * @return CompletableFuture of the results, in the same order as the blobs
+     */
+    public CompletableFuture<List<AcceptResult>> submitAll(String accountName, List<ByteBuffer> secBlobs, Duration timeout) {
+        return submitAll(accountName, secBlobs, timeout.toNanos());
+    }
+
+    private CompletableFuture<List<AcceptResult>> submitAll(String accountName, List<ByteBuffer> secBlobs, long timeoutNanos) {
+        int n = secBlobs.size();
+        AcceptResult[] results = new AcceptResult[n];
+        CompletableFuture<?>[] done = new CompletableFuture<?>[n];
+        for (int i = 0; i < n; i++) {
+            int idx = i;
+            done[i] = submit(new SessionSetupPrivilegedAction(config, accountName, secBlobs.get(i)), timeoutNanos)
+                .handle((details, failure) -> results[idx] = AcceptResult.of(details, failure));
+        }
+        return CompletableFuture.allOf(done).thenApply(v -> List.of(results));
+    }
+
+    /**
+     * Run an action, which should use this service's {@link AcceptorConfig}
+     *
+     * @param action
+     *     SessionSetupPrivilegedAction
+     * @param timeout
+     *     deadline for this call
+     * @return CompletableFuture
+     */
+    public CompletableFuture<KerberosDetails> submit(SessionSetupPrivilegedAction action, Duration timeout) {
+        return submit(action, timeout.toNanos());
+    }
+
+    private CompletableFuture<KerberosDetails> submit(SessionSetupPrivilegedAction action, long timeoutNanos) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Acceptor service has been closed"));
+        }
+        if (pending.incrementAndGet() > maxConcurrency + maxQueued) {
+            pending.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many pending accepts"));
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        CompletableFuture<KerberosDetails> future = new CompletableFuture<>();
+        future.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+        try {
+            executor.execute(() -> run(action, future, deadline));
+        }
+        catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void run(SessionSetupPrivilegedAction action, CompletableFuture<KerberosDetails> future, long deadline) {
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            pending.decrementAndGet();
+            future.completeExceptionally(new TimeoutException("Timed out waiting to accept"));
+            return;
+        }
+        try {
+            if (future.isDone()) {
+                // Timed out or cancelled while waiting
+                return;
+            }
+            future.complete(Subject.callAs(subject, action::accept));
+        }
+        catch (CompletionException e) {
+            future.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+        }
+        catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unexpected failure accepting security context", e);
+            future.completeExceptionally(e);
+        }
+        finally {
+            permits.release();
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Return the number of accepts running now
+     *
+     * @return int
+     */
+    public int getRunning() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Return the number of accepts waiting to run
+     *
+     * @return int
+     */
+    public int getQueued() {
+        return Math.max(0, pending.get() - getRunning());
+    }
+
+    /**
+     * Stop accepting new work and wait for submitted work to finish
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.close();
+    }
+
+}
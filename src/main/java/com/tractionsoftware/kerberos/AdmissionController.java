@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Adaptive limit on the accepts in progress, which sheds excess work quickly rather than letting it queue.
+ *
+ * <p>
+ * Two budgets are checked as each {@link SessionSetupPrivilegedAction} starts: the number of accepts in flight and
+ * the total size of their security blobs. A blob that would exceed either fails straight away with an
+ * {@link AdmissionRejectedException} carrying a retry-after hint.
+ *
+ * <p>
+ * The count limit follows observed latency, AIMD style. Each accept that finishes within the target latency while
+ * the limit is in use adds {@code 1 / limit}, so the limit grows by about one per round of accepts. An accept that
+ * finishes late cuts the limit by {@link #BACKOFF}, at most once per smoothed latency so that one slow round is
+ * only counted once. The limit stays between the minimum and maximum given to the constructor.
+ *
+ * @see AcceptorConfig#setAdmissionController(AdmissionController)
+ */
+public class AdmissionController {
+
+    /**
+     * Factor applied to the limit when an accept exceeds the target latency
+     */
+    public static final double BACKOFF = 0.9;
+
+    /**
+     * Default budget for the total size of the security blobs being accepted
+     */
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 16L * 1024 * 1024;
+
+    /**
+     * Default shortest retry-after hint
+     */
+    public static final Duration DEFAULT_MIN_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long targetLatencyNanos;
+
+    private final long maxInFlightBytes;
+
+    private final long minRetryAfterNanos;
+
+    // The limit is a double, kept as its raw bits so it can be updated with compare-and-set
+
+    private final AtomicLong limitBits;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    // Exponentially weighted moving average of accept latency, with weight 1/8 for each new sample
+
+    private volatile long smoothedLatencyNanos;
+
+    private final AtomicLong nextDecreaseNanos = new AtomicLong(System.nanoTime());
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Class constructor with the default byte budget and retry-after hint
+     *
+     * @param minLimit
+     *     lowest limit on accepts in flight, and the starting limit
+     * @param maxLimit
+     *     highest limit on accepts in flight
+     * @param targetLatency
+     *     accept latency above which the limit is cut
+     */
+    public AdmissionController(int minLimit, int maxLimit, Duration targetLatency) {
+        this(minLimit, maxLimit, targetLatency, DEFAULT_MAX_IN_FLIGHT_BYTES, DEFAULT_MIN_RETRY_AFTER);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param minLimit
+     *     lowest limit on accepts in flight, and the starting limit
+     * @param maxLimit
+     *     highest limit on accepts in flight
+     * @param targetLatency
+     *     accept latency above which the limit is cut
+     * @param maxInFlightBytes
+     *     budget for the total size of the security blobs being accepted
+     * @param minRetryAfter
+     *     shortest retry-after hint given to rejected clients
+     */
+    public AdmissionController(int minLimit, int maxLimit, Duration targetLatency, long maxInFlightBytes, Duration minRetryAfter) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= maxLimit");
+        }
+        if (maxInFlightBytes < 1) {
+            throw new IllegalArgumentException("maxInFlightBytes must be positive");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.minRetryAfterNanos = minRetryAfter.toNanos();
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(minLimit));
+    }
+
+    /**
+     * Admit an accept, or reject it if either budget is used up
+     *
+     * @param tokenBytes
+     *     size of the security blob
+     * @return long the start time, to pass to {@link #release(long, int)}
+     * @throws AdmissionRejectedException
+     *     if the accept should not be started
+     */
+    long admit(int tokenBytes) throws AdmissionRejectedException {
+        int limit = (int) limit();
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            throw reject("Too many accepts in flight (limit " + limit + ")");
+        }
+        if (inFlightBytes.addAndGet(tokenBytes) > maxInFlightBytes) {
+            inFlightBytes.addAndGet(-tokenBytes);
+            inFlight.decrementAndGet();
+            throw reject("Too many security blob bytes in flight (limit " + maxInFlightBytes + ")");
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Release an admitted accept and adjust the limit from its latency
+     *
+     * @param startNanos
+     *     the value returned by {@link #admit(int)}
+     * @param tokenBytes
+     *     size of the security blob
+     */
+    void release(long startNanos, int tokenBytes) {
+        long now = System.nanoTime();
+        long latency = now - startNanos;
+        int active = inFlight.getAndDecrement();
+        inFlightBytes.addAndGet(-tokenBytes);
+
+        long smoothed = smoothedLatencyNanos;
+        smoothed = smoothed == 0 ? latency : smoothed + (latency - smoothed) / 8;
+        smoothedLatencyNanos = smoothed;
+
+        if (latency > targetLatencyNanos) {
+            long next = nextDecreaseNanos.get();
+            if (now - next >= 0 && nextDecreaseNanos.compareAndSet(next, now + smoothed)) {
+                updateLimit(l -> Math.max(minLimit, l * BACKOFF));
+            }
+        }
+        else if (active >= (int) limit()) {
+            // Only grow while the limit is what holds accepts back
+            updateLimit(l -> Math.min(maxLimit, l + 1 / l));
+        }
+    }
+
+    private void updateLimit(DoubleUnaryOperator f) {
+        long bits;
+        long updated;
+        do {
+            bits = limitBits.get();
+            updated = Double.doubleToRawLongBits(f.applyAsDouble(Double.longBitsToDouble(bits)));
+        }
+        while (!limitBits.compareAndSet(bits, updated));
+    }
+
+    private AdmissionRejectedException reject(String message) {
+        rejected.increment();
+        return new AdmissionRejectedException(message, getRetryAfter());
+    }
+
+    private double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    /**
+     * Return the current limit on accepts in flight
+     *
+     * @return int
+     */
+    public int getLimit() {
+        return (int) limit();
+    }
+
+    /**
+     * Return the number of accepts in flight
+     *
+     * @return int
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Return the total size of the security blobs being accepted
+     *
+     * @return long
+     */
+    public long getInFlightBytes() {
+        return inFlightBytes.get();
+    }
+
+    /**
+     * Return the smoothed latency of recent accepts
+     *
+     * @return Duration
+     */
+    public Duration getSmoothedLatency() {
+        return Duration.ofNanos(smoothedLatencyNanos);
+    }
+
+    /**
+     * Return the number of accepts rejected so far
+     *
+     * @return long
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Return the retry-after hint given to rejected clients now: twice the smoothed latency, which is roughly the
+     * time for the accepts in flight to drain, but no less than the minimum given to the constructor
+     *
+     * @return Duration
+     */
+    public Duration getRetryAfter() {
+        return Duration.ofNanos(Math.max(minRetryAfterNanos, 2 * smoothedLatencyNanos));
+    }
+
+}
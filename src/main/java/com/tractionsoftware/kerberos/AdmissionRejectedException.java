@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of accepting a security blob when the {@link AdmissionController} is shedding load. The blob was
+ * not looked at; the client should try again after {@link #getRetryAfter()}, for example by sending a 503 response
+ * with a {@code Retry-After} header.
+ *
+ * <p>
+ * The major code is {@link GSSException#UNAVAILABLE}. There is no stack trace, since many of these may be thrown
+ * in a short time during a login storm.
+ */
+public class AdmissionRejectedException extends GSSException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    /**
+     * Class constructor
+     *
+     * @param message
+     *     String
+     * @param retryAfter
+     *     how long the client should wait before trying again
+     */
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(UNAVAILABLE, 0, message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Return how long the client should wait before trying again
+     *
+     * @return Duration
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Return how long the client should wait before trying again, rounded up to whole seconds as used by the HTTP
+     * {@code Retry-After} header
+     *
+     * @return long
+     */
+    public long getRetryAfterSeconds() {
+        long seconds = retryAfter.toSeconds();
+        return retryAfter.toNanosPart() > 0 ? seconds + 1 : seconds;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
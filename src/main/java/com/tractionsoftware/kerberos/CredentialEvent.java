@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for acquiring acceptor credentials from the keytab or {@code Subject}
+ */
+@Name("com.tractionsoftware.kerberos.Credential")
+@Label("Kerberos Credential Acquisition")
+@Description("Acquisition of acceptor credentials")
+@Category({ "Traction", "Kerberos" })
+final class CredentialEvent extends jdk.jfr.Event {
+
+    @Label("Account Name")
+    String accountName;
+
+    @Label("Cached")
+    @Description("True if the credential was acquired for the shared credential cache")
+    boolean cached;
+
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Walks DER-encoded bytes in place, without building an object tree.
+ *
+ * <p>
+ * {@link #next()} reads the header of the element at the current position and moves past it;
+ * {@link #enter()} steps into the element just read, and {@link #exit()} returns to the enclosing level.
+ * Only single-byte tags and definite lengths are supported, which is all that SPNEGO and Kerberos use.
+ * Instances are reusable but not thread-safe.
+ */
+final class DERCursor {
+
+    static final int MAX_DEPTH = 16;
+
+    // DER tags used by SPNEGO and Kerberos
+
+    static final int BOOLEAN = 0x01;
+    static final int INTEGER = 0x02;
+    static final int BIT_STRING = 0x03;
+    static final int OCTET_STRING = 0x04;
+    static final int OID = 0x06;
+    static final int ENUMERATED = 0x0a;
+    static final int GENERAL_STRING = 0x1b;
+    static final int GENERALIZED_TIME = 0x18;
+    static final int SEQUENCE = 0x30;
+    static final int APPLICATION = 0x60;
+    static final int CONTEXT = 0xa0;
+
+    private byte[] buf;
+
+    private int pos;
+
+    private int end;
+
+    private final int[] ends = new int[MAX_DEPTH];
+
+    private int depth;
+
+    // Details of the last element read
+
+    private int tag;
+
+    private int headerOff;
+
+    private int contentOff;
+
+    private int contentLen;
+
+    DERCursor reset(byte[] buf, int off, int len) {
+        if (off < 0 || len < 0 || off + len > buf.length) {
+            throw new IndexOutOfBoundsException("off=" + off + " len=" + len + " length=" + buf.length);
+        }
+        this.buf = buf;
+        this.pos = off;
+        this.end = off + len;
+        this.depth = 0;
+        this.tag = -1;
+        this.headerOff = off;
+        this.contentOff = off;
+        this.contentLen = 0;
+        return this;
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    boolean hasNext() {
+        return pos < end;
+    }
+
+    int position() {
+        return pos;
+    }
+
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * Read the header of the next element at this level
+     *
+     * @return int the tag
+     * @throws IOException
+     *     if the header is malformed or the element overruns its container
+     */
+    int next() throws IOException {
+        if (pos >= end) {
+            throw new IOException("Unexpected end of DER data");
+        }
+        headerOff = pos;
+        int t = buf[pos++] & 0xff;
+        if ((t & 0x1f) == 0x1f) {
+            throw new IOException("Unsupported DER tag 0x" + Integer.toHexString(t));
+        }
+        if (pos >= end) {
+            throw new IOException("Truncated DER length");
+        }
+        int len = buf[pos++] & 0xff;
+        if (len > 0x7f) {
+            int n = len & 0x7f;
+            if (n == 0 || n > 4) {
+                throw new IOException("Unsupported DER length form 0x" + Integer.toHexString(len));
+            }
+            if (end - pos < n) {
+                throw new IOException("Truncated DER length");
+            }
+            len = 0;
+            for (int i = 0; i < n; i++) {
+                len = (len << 8) | (buf[pos++] & 0xff);
+            }
+            if (len < 0) {
+                throw new IOException("DER length out of range");
+            }
+        }
+        if (len > end - pos) {
+            throw new IOException("DER length " + len + " overruns container");
+        }
+        tag = t;
+        contentOff = pos;
+        contentLen = len;
+        pos += len;
+        return t;
+    }
+
+    /**
+     * Read the next element, which must have the specified tag
+     *
+     * @param expected
+     *     int
+     * @throws IOException
+     *     if the element is malformed or has a different tag
+     */
+    void expect(int expected) throws IOException {
+        if (next() != expected) {
+            throw new IOException("Expected DER tag 0x" + Integer.toHexString(expected) + " but found 0x" + Integer.toHexString(tag));
+        }
+    }
+
+    /**
+     * Skip forward to the element with the specified tag at this level
+     *
+     * @param wanted
+     *     int
+     * @return boolean true if it was found, false if the level ended first
+     * @throws IOException
+     *     if an element is malformed
+     */
+    boolean find(int wanted) throws IOException {
+        while (pos < end) {
+            if (next() == wanted) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skip raw bytes that are not DER-encoded, such as the GSS-API token ID
+     *
+     * @param n
+     *     int
+     * @throws IOException
+     *     if there are fewer than n bytes left at this level
+     */
+    void skip(int n) throws IOException {
+        if (end - pos < n) {
+            throw new IOException("Unexpected end of DER data");
+        }
+        pos += n;
+    }
+
+    /**
+     * Step into the element just read
+     *
+     * @throws IOException
+     *     if the nesting is too deep
+     */
+    void enter() throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IOException("DER nesting too deep");
+        }
+        ends[depth++] = end;
+        pos = contentOff;
+        end = contentOff + contentLen;
+    }
+
+    /**
+     * Return to the level enclosing the current one, positioned after the element that was entered
+     */
+    void exit() {
+        pos = end;
+        end = ends[--depth];
+    }
+
+    int tag() {
+        return tag;
+    }
+
+    int headerOffset() {
+        return headerOff;
+    }
+
+    int contentOffset() {
+        return contentOff;
+    }
+
+    int contentLength() {
+        return contentLen;
+    }
+
+    int contentEnd() {
+        return contentOff + contentLen;
+    }
+
+    int elementLength() {
+        return contentOff + contentLen - headerOff;
+    }
+
+    /**
+     * Return the content of the last element as a signed big-endian integer
+     *
+     * @return int
+     * @throws IOException
+     *     if the content is empty or too long
+     */
+    int intValue() throws IOException {
+        if (contentLen < 1 || contentLen > 5) {
+            throw new IOException("Bad DER integer length " + contentLen);
+        }
+        int v = buf[contentOff];
+        for (int i = 1; i < contentLen; i++) {
+            v = (v << 8) | (buf[contentOff + i] & 0xff);
+        }
+        return v;
+    }
+
+    /**
+     * Return the bits of the last element, which must be a BIT STRING, as a big-endian int of up to
+     * the first four bytes after the unused-bits count
+     *
+     * @return int
+     * @throws IOException
+     *     if the content is empty
+     */
+    int bitStringValue() throws IOException {
+        if (contentLen < 1) {
+            throw new IOException("Empty DER bit string");
+        }
+        int v = 0;
+        int n = Math.min(contentLen - 1, 4);
+        for (int i = 0; i < n; i++) {
+            v = (v << 8) | (buf[contentOff + 1 + i] & 0xff);
+        }
+        return v;
+    }
+
+    /**
+     * Return the bits of the last element, which must be a BIT STRING, left-aligned in an int, so that Kerberos
+     * flag bit 0 is the high bit whatever the length of the encoding
+     *
+     * @return int
+     * @throws IOException
+     *     if the content is empty
+     */
+    int flagsValue() throws IOException {
+        int n = Math.min(contentLen - 1, 4);
+        int v = bitStringValue();
+        return n > 0 ? v << (8 * (4 - n)) : 0;
+    }
+
+    /**
+     * Check if the content of the last element matches the specified bytes
+     *
+     * @param b
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return boolean
+     */
+    boolean contentEquals(byte[] b, int off, int len) {
+        return len == contentLen && Arrays.equals(buf, contentOff, contentOff + contentLen, b, off, off + len);
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.Oid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes DER headers and primitives straight into a buffer, for encoders that compute their exact length first.
+ *
+ * <p>
+ * All methods write at an absolute index and return the index after the bytes written; the buffer position is not
+ * changed.
+ */
+final class DERWriter {
+
+    private DERWriter() {
+    }
+
+    /**
+     * Return the length of a DER header for content of the specified length
+     *
+     * @param contentLen
+     *     int
+     * @return int
+     */
+    static int headerLength(int contentLen) {
+        if (contentLen < 0x80) {
+            return 2;
+        }
+        if (contentLen < 0x100) {
+            return 3;
+        }
+        if (contentLen < 0x10000) {
+            return 4;
+        }
+        if (contentLen < 0x1000000) {
+            return 5;
+        }
+        return 6;
+    }
+
+    /**
+     * Return the length of a whole DER element with content of the specified length
+     *
+     * @param contentLen
+     *     int
+     * @return int
+     */
+    static int elementLength(int contentLen) {
+        return headerLength(contentLen) + contentLen;
+    }
+
+    /**
+     * Return the number of content bytes in the minimal two's complement encoding of an integer
+     *
+     * @param v
+     *     int
+     * @return int
+     */
+    static int intLength(int v) {
+        int n = 1;
+        while (n < 4 && (v >> (8 * n - 1)) != 0 && (v >> (8 * n - 1)) != -1) {
+            n++;
+        }
+        return n;
+    }
+
+    static int putHeader(ByteBuffer dst, int pos, int tag, int contentLen) {
+        dst.put(pos++, (byte) tag);
+        int n = headerLength(contentLen) - 2;
+        if (n == 0) {
+            dst.put(pos++, (byte) contentLen);
+        }
+        else {
+            dst.put(pos++, (byte) (0x80 | n));
+            for (int shift = 8 * (n - 1); shift >= 0; shift -= 8) {
+                dst.put(pos++, (byte) (contentLen >>> shift));
+            }
+        }
+        return pos;
+    }
+
+    static int putInt(ByteBuffer dst, int pos, int tag, int v) {
+        int n = intLength(v);
+        pos = putHeader(dst, pos, tag, n);
+        for (int shift = 8 * (n - 1); shift >= 0; shift -= 8) {
+            dst.put(pos++, (byte) (v >> shift));
+        }
+        return pos;
+    }
+
+    static int putBytes(ByteBuffer dst, int pos, byte[] src, int off, int len) {
+        dst.put(pos, src, off, len);
+        return pos + len;
+    }
+
+    /**
+     * Check that the buffer has room for an encoding
+     *
+     * @param dst
+     *     ByteBuffer
+     * @param len
+     *     int
+     * @throws IOException
+     *     if the encoding will not fit
+     */
+    static void checkRemaining(ByteBuffer dst, int len) throws IOException {
+        if (dst.remaining() < len) {
+            throw new IOException("Buffer too small for " + len + " byte blob, " + dst.remaining() + " bytes remaining");
+        }
+    }
+
+    /**
+     * Return the DER encoding of an OID, shared for OIDs in the {@link OidRegistry}, so it must not be modified
+     *
+     * @param oid
+     *     Oid
+     * @return byte[]
+     * @throws IOException
+     *     if the OID cannot be encoded
+     */
+    static byte[] der(Oid oid) throws IOException {
+        return OidRegistry.der(oid);
+    }
+
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSCredential;
+import org.ietf.jgss.GSSException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of credentials delegated by clients, keyed by client principal, for calling downstream services on their
+ * behalf.
+ *
+ * <p>
+ * When a client delegates its credentials, {@link SessionSetupPrivilegedAction} stores them here before the accepted
+ * context is disposed. Later calls to a backend create an initiator {@link org.ietf.jgss.GSSContext} with the
+ * {@link GSSCredential} from {@link #acquire(String)}, without the client authenticating again. Each credential
+ * expires with its ticket, less a safety margin so that it is not handed out moments before the KDC would refuse
+ * it.
+ *
+ * <p>
+ * Like {@link AcceptorCredentialCache}, credentials are handed out as reference-counted {@link Lease}s: one that is
+ * replaced by a newer delegation, expires, or is evicted is only disposed once the last lease on it has been closed.
+ * The number of principals is bounded, and the least recently used principal's credential is dropped to make room
+ * for a new one.
+ *
+ * @see AcceptorConfig#setDelegatedCredentialCache(DelegatedCredentialCache)
+ */
+public class DelegatedCredentialCache implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DelegatedCredentialCache.class.getName());
+
+    /**
+     * Default maximum number of principals with cached credentials
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    /**
+     * Default time before a ticket expires at which its credential is no longer handed out
+     */
+    public static final long DEFAULT_EXPIRY_MARGIN_SECONDS = 60;
+
+    // Last-used times closer together than this are not updated, so hot entries are not written on every lease
+
+    private static final long TOUCH_GRANULARITY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * A reference to a cached credential, which must be closed once the context using it has been disposed.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private Entry entry;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Return the delegated credential
+         *
+         * @return GSSCredential
+         */
+        public GSSCredential getCredential() {
+            Entry e = entry;
+            if (e == null) {
+                throw new IllegalStateException("Lease has been closed");
+            }
+            return e.credential;
+        }
+
+        @Override
+        public void close() throws GSSException {
+            Entry e = entry;
+            if (e != null) {
+                entry = null;
+                e.release();
+            }
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final String principal;
+
+        private final GSSCredential credential;
+
+        private final long expiresAtNanos;
+
+        // One reference is held by the cache itself until the entry is retired
+
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        private volatile boolean retired;
+
+        private volatile long lastUsedNanos;
+
+        private Entry(String principal, GSSCredential credential, long expiresAtNanos) {
+            this.principal = principal;
+            this.credential = credential;
+            this.expiresAtNanos = expiresAtNanos;
+            this.lastUsedNanos = System.nanoTime();
+        }
+
+        private void touch(long now) {
+            if (now - lastUsedNanos > TOUCH_GRANULARITY_NANOS) {
+                lastUsedNanos = now;
+            }
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+
+        private boolean retain() {
+            for (;;) {
+                int n = refs.get();
+                if (n == 0) {
+                    return false;
+                }
+                if (refs.compareAndSet(n, n + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void retire() {
+            if (!retired) {
+                retired = true;
+                try {
+                    release();
+                }
+                catch (GSSException e) {
+                    LOGGER.log(Level.FINE, "Failed to dispose delegated credential for " + principal, e);
+                }
+            }
+        }
+
+        private void release() throws GSSException {
+            if (refs.decrementAndGet() == 0) {
+                credential.dispose();
+            }
+        }
+
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long expiryMarginSeconds;
+
+    private volatile boolean closed;
+
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /**
+     * Class constructor with the default expiry margin
+     */
+    public DelegatedCredentialCache() {
+        this(DEFAULT_EXPIRY_MARGIN_SECONDS);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param expiryMarginSeconds
+     *     time before a ticket expires at which its credential is no longer handed out
+     */
+    public DelegatedCredentialCache(long expiryMarginSeconds) {
+        this.expiryMarginSeconds = Math.max(0, expiryMarginSeconds);
+    }
+
+    /**
+     * Store a credential delegated by a client, replacing any earlier one. The cache takes ownership of the
+     * credential: it is disposed straight away if it expires within the margin, and otherwise once it has been
+     * replaced or dropped and released by every lease.
+     *
+     * @param principal
+     *     String, the client principal name
+     * @param credential
+     *     GSSCredential
+     * @return boolean true if the credential was cached
+     * @throws GSSException
+     *     if the lifetime of the credential cannot be read
+     */
+    public boolean put(String principal, GSSCredential credential) throws GSSException {
+        if (closed) {
+            throw new IllegalStateException("Credential cache has been closed");
+        }
+        int lifetime = credential.getRemainingLifetime();
+        if (lifetime != GSSCredential.INDEFINITE_LIFETIME && lifetime <= expiryMarginSeconds) {
+            LOGGER.log(Level.FINE, "Delegated credential for " + principal + " expires too soon to cache");
+            credential.dispose();
+            return false;
+        }
+        long now = System.nanoTime();
+        long lifetimeNanos = lifetime == GSSCredential.INDEFINITE_LIFETIME
+            ? Long.MAX_VALUE / 2
+            : TimeUnit.SECONDS.toNanos(lifetime - expiryMarginSeconds);
+        Entry entry = new Entry(principal, credential, now + lifetimeNanos);
+        Entry replaced = entries.put(principal, entry);
+        if (replaced != null) {
+            replaced.retire();
+        }
+        if (entries.size() > maxEntries) {
+            evictLeastRecentlyUsed(entry, now);
+        }
+        if (closed) {
+            invalidate(principal);
+        }
+        return true;
+    }
+
+    /**
+     * Lease the delegated credential of a client
+     *
+     * @param principal
+     *     String, the client principal name
+     * @return Lease, or null if the client has no unexpired delegated credential
+     */
+    public Lease acquire(String principal) {
+        if (closed) {
+            throw new IllegalStateException("Credential cache has been closed");
+        }
+        long now = System.nanoTime();
+        for (;;) {
+            Entry entry = entries.get(principal);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                if (entries.remove(principal, entry)) {
+                    LOGGER.log(Level.FINE, "Delegated credential for " + principal + " has expired");
+                    entry.retire();
+                }
+                return null;
+            }
+            if (entry.retain()) {
+                entry.touch(now);
+                return new Lease(entry);
+            }
+            // Lost a race with a concurrent replacement or invalidation; look again
+        }
+    }
+
+    /**
+     * Drop the delegated credential of a client, such as when they log out. It is disposed once in-flight calls
+     * release it.
+     *
+     * @param principal
+     *     String
+     */
+    public void invalidate(String principal) {
+        Entry entry = entries.remove(principal);
+        if (entry != null) {
+            entry.retire();
+        }
+    }
+
+    /**
+     * Drop all delegated credentials
+     */
+    public void invalidateAll() {
+        for (String principal : entries.keySet()) {
+            invalidate(principal);
+        }
+    }
+
+    /**
+     * Return the number of cached credentials, including some that may have expired
+     *
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Return the maximum number of principals with cached credentials
+     *
+     * @return int
+     */
+    public final int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Set the maximum number of principals with cached credentials. When a new principal would exceed it, expired
+     * credentials are dropped, then the credential of the least recently used principal.
+     *
+     * @param maxEntries
+     *     int, at least 1
+     */
+    public final void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Dispose all cached credentials and refuse further leases.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        invalidateAll();
+    }
+
+    // Drop expired credentials, then the least recently used ones, until the cache is back within its bound
+
+    private void evictLeastRecentlyUsed(Entry keep, long now) {
+        for (Entry entry : entries.values()) {
+            if (entry.isExpired(now) && entries.remove(entry.principal, entry)) {
+                entry.retire();
+            }
+        }
+        while (entries.size() > maxEntries) {
+            Entry oldest = null;
+            for (Entry entry : entries.values()) {
+                if (entry != keep && (oldest == null || entry.lastUsedNanos - oldest.lastUsedNanos < 0)) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldest.principal, oldest)) {
+                LOGGER.log(Level.FINE, "Evicted delegated credential for " + oldest.principal);
+                oldest.retire();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,751 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.Oid;
+
+import javax.security.auth.kerberos.KerberosKey;
+import javax.security.auth.kerberos.KerberosPrincipal;
+import javax.security.auth.kerberos.KeyTab;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Accepts the common case of a Kerberos v5 AP-REQ, an AES ticket for the service's own principal, without JGSS.
+ * The AP-REQ may be bare, have GSS-API framing, or be the optimistic mechToken of an SPNEGO NegTokenInit whose
+ * first mechanism is Kerberos; an SPNEGO token is answered with a NegTokenTarg that completes the negotiation.
+ *
+ * <p>
+ * The ticket and authenticator are decrypted and checked directly with the service keys, whose key schedules are
+ * derived once and reused for every ticket. Anything unusual makes {@link #accept(byte[], int, int, int)} return
+ * null so the caller can fall back to JGSS, which then reports any error: other encryption types, unknown key
+ * versions, user-to-user tickets, delegated credentials, tickets outside their lifetime or clock skew, and tokens
+ * that fail to decrypt or parse.
+ *
+ * <p>
+ * JGSS's built-in replay cache is bypassed, so this must only be used with a {@link ReplayCache};
+ * {@link SessionSetupPrivilegedAction} ignores it otherwise. Channel bindings are not checked.
+ *
+ * @see AcceptorConfig#setFastPathAcceptor(FastPathAcceptor)
+ */
+public class FastPathAcceptor {
+
+    private static final Logger LOGGER = Logger.getLogger(FastPathAcceptor.class.getName());
+
+    public static final int DEFAULT_CLOCK_SKEW_SECONDS = 300;
+
+    // Key usages from RFC 4120
+
+    private static final int USAGE_TICKET = 2;
+    private static final int USAGE_AUTHENTICATOR = 11;
+    private static final int USAGE_AP_REP = 12;
+
+    // Application tags
+
+    private static final int AUTHENTICATOR = 0x62;
+    private static final int ENC_TICKET_PART = 0x63;
+    private static final int AP_REP = 0x6f;
+    private static final int ENC_AP_REP_PART = 0x7b;
+
+    // AP options and ticket flags, with bit 0 in the high bit
+
+    private static final int AP_USE_SESSION_KEY = 0x40000000;
+    private static final int AP_MUTUAL_REQUIRED = 0x20000000;
+    private static final int TICKET_INVALID = 0x01000000;
+
+    // GSS-API checksum of RFC 4121
+
+    private static final int GSS_CHECKSUM_TYPE = 0x8003;
+    private static final int GSS_DELEG_FLAG = 1;
+    private static final int GSS_MUTUAL_FLAG = 2;
+
+    private static final int TOK_ID_AP_REP = 0x0200;
+
+    private static final byte[] KERBEROS5_OID = { 0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x12, 0x01, 0x02, 0x02 };
+
+    private static final byte[] MSKERBEROS5_OID = { 0x2a, (byte) 0x86, 0x48, (byte) 0x82, (byte) 0xf7, 0x12, 0x01, 0x02, 0x02 };
+
+    private static final byte[] SPNEGO_OID = { 0x2b, 0x06, 0x01, 0x05, 0x05, 0x02 };
+
+    // Encoded mechTypes of an SPNEGO NegTokenInit
+
+    private static final byte[] KERBEROS5_MECH_TYPE = tlv(DERCursor.OID, KERBEROS5_OID);
+
+    private static final byte[] MSKERBEROS5_MECH_TYPE = tlv(DERCursor.OID, MSKERBEROS5_OID);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private record ServiceKey(int etype, int kvno, KerberosAes.UsageKeys ticketKeys) {
+    }
+
+    private record KeySet(String principal, Map<Long, ServiceKey> keys, int generation) {
+    }
+
+    private final int clockSkewSeconds;
+
+    // Source of the keys, or null if they are set explicitly
+
+    private final KeytabIndex index;
+
+    private volatile KeySet keySet;
+
+    private final LongAdder accepted = new LongAdder();
+
+    /**
+     * Class constructor
+     *
+     * @param keys
+     *     the service's keys, all for the same principal
+     */
+    public FastPathAcceptor(Collection<KerberosKey> keys) {
+        this(keys, DEFAULT_CLOCK_SKEW_SECONDS);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param keys
+     *     the service's keys, all for the same principal
+     * @param clockSkewSeconds
+     *     allowed difference between the client's clock and ours
+     */
+    public FastPathAcceptor(Collection<KerberosKey> keys, int clockSkewSeconds) {
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.index = null;
+        setKeys(keys);
+    }
+
+    /**
+     * Class constructor for an acceptor that follows the keys for a principal in a {@link KeytabIndex}, re-deriving
+     * them whenever the index is reloaded
+     *
+     * @param index
+     *     KeytabIndex
+     * @param principal
+     *     String, such as {@code HTTP/host.example.com@EXAMPLE.COM}
+     * @param clockSkewSeconds
+     *     allowed difference between the client's clock and ours
+     */
+    public FastPathAcceptor(KeytabIndex index, String principal, int clockSkewSeconds) {
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.index = index;
+        KeytabIndex.Snapshot snapshot = index.snapshot();
+        this.keySet = keySet(principal, snapshot.keys(principal), snapshot.generation());
+    }
+
+    /**
+     * Create a fast path acceptor from the keys for a principal in a keytab
+     *
+     * @param keytab
+     *     Path
+     * @param principal
+     *     String, such as {@code HTTP/host.example.com@EXAMPLE.COM}
+     * @return FastPathAcceptor
+     */
+    public static FastPathAcceptor fromKeyTab(Path keytab, String principal) {
+        KerberosPrincipal p = new KerberosPrincipal(principal);
+        return new FastPathAcceptor(List.of(KeyTab.getInstance(p, keytab.toFile()).getKeys(p)));
+    }
+
+    /**
+     * Replace the service keys, such as after the keytab has been updated. Keys of types other than AES are ignored.
+     * An acceptor created from a {@link KeytabIndex} goes back to the index's keys after its next reload.
+     *
+     * @param keys
+     *     the service's keys, all for the same principal
+     */
+    public final void setKeys(Collection<KerberosKey> keys) {
+        keySet = keySet(null, keys, keySet != null ? keySet.generation() : 0);
+    }
+
+    private static KeySet keySet(String principal, Collection<KerberosKey> keys, int generation) {
+        Map<Long, ServiceKey> byVersion = new HashMap<>();
+        for (KerberosKey key : keys) {
+            String name = key.getPrincipal().getName();
+            if (principal == null) {
+                principal = name;
+            }
+            else if (!principal.equals(name)) {
+                throw new IllegalArgumentException("Keys for both " + principal + " and " + name);
+            }
+            if (!KerberosAes.isSupported(key.getKeyType())) {
+                continue;
+            }
+            try {
+                byte[] encoded = key.getEncoded();
+                ServiceKey sk = new ServiceKey(key.getKeyType(), key.getVersionNumber(), KerberosAes.deriveKeys(encoded, USAGE_TICKET));
+                Arrays.fill(encoded, (byte) 0);
+                byVersion.put(index(sk.etype(), sk.kvno()), sk);
+                // Tickets without a key version use the newest key
+                ServiceKey newest = byVersion.get(index(sk.etype(), -1));
+                if (newest == null || newest.kvno() < sk.kvno()) {
+                    byVersion.put(index(sk.etype(), -1), sk);
+                }
+            }
+            catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot derive keys for " + name, e);
+            }
+        }
+        return new KeySet(principal, Map.copyOf(byVersion), generation);
+    }
+
+    private KeySet keys() {
+        KeySet keys = keySet;
+        if (index != null) {
+            KeytabIndex.Snapshot snapshot = index.snapshot();
+            if (snapshot.generation() != keys.generation()) {
+                keys = keySet(keys.principal(), snapshot.keys(keys.principal()), snapshot.generation());
+                keySet = keys;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Return the principal the keys are for
+     *
+     * @return String, or null if there are no keys
+     */
+    public final String getPrincipal() {
+        return keySet.principal();
+    }
+
+    /**
+     * Check if an acceptor account name, which may leave out the realm, names the principal the keys are for
+     *
+     * @param accountName
+     *     String, or null
+     * @return boolean
+     */
+    public final boolean isAccount(String accountName) {
+        String principal = getPrincipal();
+        if (accountName == null || principal == null) {
+            return false;
+        }
+        if (accountName.indexOf('@') >= 0) {
+            return accountName.equals(principal);
+        }
+        return principal.length() > accountName.length() && principal.startsWith(accountName) && principal.charAt(accountName.length()) == '@';
+    }
+
+    /**
+     * Return the number of tokens accepted so far, not counting those passed to JGSS
+     *
+     * @return long
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Accept an AP-REQ, bare, with GSS-API framing, or wrapped in an SPNEGO NegTokenInit
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @param fields
+     *     int mask of the {@link KerberosDetails} fields to fill in
+     * @return KerberosDetails, or null if the token must be passed to JGSS instead
+     */
+    public KerberosDetails accept(byte[] buf, int off, int len, int fields) {
+        try {
+            KerberosDetails details = acceptImpl(buf, off, len, fields);
+            if (details != null) {
+                accepted.increment();
+            }
+            return details;
+        }
+        catch (IOException | GeneralSecurityException e) {
+            LOGGER.log(Level.FINE, "Falling back to JGSS", e);
+            return null;
+        }
+    }
+
+    private KerberosDetails acceptImpl(byte[] buf, int off, int len, int fields) throws IOException, GeneralSecurityException {
+        KeySet keys = keys();
+        APRequest req = new APRequest();
+        Oid spnegoMech = null;
+        if (isSpnego(buf, off, len)) {
+            NegTokenInitView init = new NegTokenInitView().wrap(buf, off, len);
+            // Only the initiator's first choice of mechanism may send an optimistic token
+            if (!init.oidEquals(0, KERBEROS5_MECH_TYPE) && !init.oidEquals(0, MSKERBEROS5_MECH_TYPE)) {
+                return null;
+            }
+            spnegoMech = init.getOidAt(0);
+            req.parse(buf, init.mechTokenOffset(), init.mechTokenLength());
+        }
+        else {
+            req.parse(buf, off, len);
+        }
+        byte[] mech = null;
+        if (req.mechOffset() >= 0) {
+            if (!mechEquals(buf, req, KERBEROS5_OID) && !mechEquals(buf, req, MSKERBEROS5_OID)) {
+                return null;
+            }
+            mech = Arrays.copyOfRange(buf, req.mechOffset(), req.mechOffset() + req.mechLength());
+        }
+        if ((req.apOptions() & AP_USE_SESSION_KEY) != 0 || !KerberosAes.isSupported(req.ticketEtype())) {
+            return null;
+        }
+        String target = principalName(buf, req.serverNameOffset(), req.serverNameLength(), buf, req.realmOffset(), req.realmLength());
+        if (!target.equals(keys.principal())) {
+            return null;
+        }
+        ServiceKey serviceKey = keys.keys().get(index(req.ticketEtype(), req.ticketKvno()));
+        if (serviceKey == null) {
+            return null;
+        }
+
+        // Ticket
+
+        byte[] ticket = KerberosAes.decrypt(serviceKey.ticketKeys(), buf, req.ticketCipherOffset(), req.ticketCipherLength());
+        EncTicketPart tkt = new EncTicketPart();
+        tkt.parse(ticket);
+        long now = System.currentTimeMillis() / 1000;
+        if ((tkt.flags & TICKET_INVALID) != 0
+            || (tkt.starttime >= 0 ? tkt.starttime : tkt.authtime) - now > clockSkewSeconds
+            || now - tkt.endtime > clockSkewSeconds
+            || !KerberosAes.isSupported(tkt.keyEtype)
+            || req.authenticatorEtype() != tkt.keyEtype) {
+            return null;
+        }
+        byte[] sessionKey = Arrays.copyOfRange(ticket, tkt.keyOff, tkt.keyOff + tkt.keyLen);
+        if (sessionKey.length != KerberosAes.keyLength(tkt.keyEtype)) {
+            return null;
+        }
+
+        // Authenticator
+
+        byte[] auth;
+        try {
+            auth = KerberosAes.decrypt(KerberosAes.deriveKeys(sessionKey, USAGE_AUTHENTICATOR), buf, req.authenticatorCipherOffset(), req.authenticatorCipherLength());
+        }
+        catch (GeneralSecurityException e) {
+            Arrays.fill(sessionKey, (byte) 0);
+            throw e;
+        }
+        Authenticator a = new Authenticator();
+        a.parse(auth);
+        if (!a.sameClient(auth, tkt, ticket)
+            || Math.abs(now - a.ctime) > clockSkewSeconds
+            || (a.gssFlags & GSS_DELEG_FLAG) != 0
+            || (a.subkeyEtype >= 0 && !KerberosAes.isSupported(a.subkeyEtype))) {
+            Arrays.fill(sessionKey, (byte) 0);
+            return null;
+        }
+
+        byte[] response = null;
+        if ((a.gssFlags & GSS_MUTUAL_FLAG) != 0 || (req.apOptions() & AP_MUTUAL_REQUIRED) != 0) {
+            response = apRep(auth, a, tkt.keyEtype, sessionKey, mech);
+        }
+        Arrays.fill(sessionKey, (byte) 0);
+        if (spnegoMech != null) {
+            response = negTokenTarg(spnegoMech, response);
+        }
+
+        return KerberosDetails.createFastPathInstance(
+            (fields & KerberosDetails.SOURCE_NAME) != 0
+                ? principalName(ticket, tkt.cnameOff, tkt.cnameLen, ticket, tkt.crealmOff, tkt.crealmLen)
+                : null,
+            (fields & KerberosDetails.TARGET_NAME) != 0 ? target : null,
+            (fields & KerberosDetails.LIFETIME) != 0 ? Math.clamp(tkt.endtime - now, 0, Integer.MAX_VALUE) : 0,
+            (fields & KerberosDetails.SESSION_KEY_ALGORITHM) != 0
+                ? KerberosAes.algorithmName(a.subkeyEtype >= 0 ? a.subkeyEtype : tkt.keyEtype)
+                : null,
+            response,
+            fields,
+            (fields & KerberosDetails.PAC) != 0 ? pac(ticket, tkt) : null
+        );
+    }
+
+    private static Pac pac(byte[] ticket, EncTicketPart tkt) {
+        if (tkt.authzOff < 0) {
+            return null;
+        }
+        try {
+            return Pac.fromAuthorizationData(ticket, tkt.authzOff, tkt.authzLen);
+        }
+        catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Cannot read PAC", e);
+            return null;
+        }
+    }
+
+    // EncAPRepPart echoes the authenticator's time, encrypted in the ticket session key. The AP-REP gets GSS-API
+    // framing with the initiator's mech OID if the AP-REQ had it.
+
+    private static byte[] apRep(byte[] auth, Authenticator a, int etype, byte[] sessionKey, byte[] mech) throws GeneralSecurityException {
+        byte[] encPart = tlv(ENC_AP_REP_PART, tlv(DERCursor.SEQUENCE,
+            tlv(DERCursor.CONTEXT, Arrays.copyOfRange(auth, a.ctimeOff, a.ctimeOff + a.ctimeLen)),
+            tlv(DERCursor.CONTEXT | 1, integer(a.cusec)),
+            tlv(DERCursor.CONTEXT | 3, integer(RANDOM.nextInt() & 0x3fffffff))
+        ));
+        byte[] cipher = KerberosAes.encrypt(KerberosAes.deriveKeys(sessionKey, USAGE_AP_REP), encPart);
+        byte[] apRep = tlv(AP_REP, tlv(DERCursor.SEQUENCE,
+            tlv(DERCursor.CONTEXT, integer(5)),
+            tlv(DERCursor.CONTEXT | 1, integer(15)),
+            tlv(DERCursor.CONTEXT | 2, tlv(DERCursor.SEQUENCE,
+                tlv(DERCursor.CONTEXT, integer(etype)),
+                tlv(DERCursor.CONTEXT | 2, tlv(DERCursor.OCTET_STRING, cipher))
+            ))
+        ));
+        if (mech == null) {
+            return apRep;
+        }
+        return tlv(DERCursor.APPLICATION,
+            tlv(DERCursor.OID, mech),
+            new byte[] { (byte) (TOK_ID_AP_REP >>> 8), (byte) TOK_ID_AP_REP },
+            apRep
+        );
+    }
+
+    // Completes the negotiation with the initiator's first mechanism, so no mechListMIC is needed (RFC 4178 5)
+
+    private static byte[] negTokenTarg(Oid mech, byte[] response) throws IOException {
+        int responseLen = response != null ? response.length : -1;
+        ByteBuffer b = ByteBuffer.allocate(NegTokenTarg.encodedLength(SPNEGO.AcceptCompleted, mech, responseLen));
+        NegTokenTarg.encode(SPNEGO.AcceptCompleted, mech, response, 0, responseLen, b);
+        return b.array();
+    }
+
+    private static boolean isSpnego(byte[] buf, int off, int len) throws IOException {
+        if (len <= 0 || (buf[off] & 0xff) != DERCursor.APPLICATION) {
+            return false;
+        }
+        DERCursor c = new DERCursor().reset(buf, off, len);
+        c.next();
+        c.enter();
+        c.expect(DERCursor.OID);
+        return c.contentEquals(SPNEGO_OID, 0, SPNEGO_OID.length);
+    }
+
+    private static byte[] tlv(int tag, byte[]... parts) {
+        int len = 0;
+        for (byte[] part : parts) {
+            len += part.length;
+        }
+        ByteBuffer b = ByteBuffer.allocate(DERWriter.elementLength(len));
+        int pos = DERWriter.putHeader(b, 0, tag, len);
+        for (byte[] part : parts) {
+            pos = DERWriter.putBytes(b, pos, part, 0, part.length);
+        }
+        return b.array();
+    }
+
+    private static byte[] integer(int v) {
+        ByteBuffer b = ByteBuffer.allocate(DERWriter.elementLength(DERWriter.intLength(v)));
+        DERWriter.putInt(b, 0, DERCursor.INTEGER, v);
+        return b.array();
+    }
+
+    private static boolean mechEquals(byte[] buf, APRequest req, byte[] oid) {
+        return Arrays.equals(buf, req.mechOffset(), req.mechOffset() + req.mechLength(), oid, 0, oid.length);
+    }
+
+    private static long index(int etype, int kvno) {
+        return ((long) etype << 32) | (kvno & 0xffffffffL);
+    }
+
+    // Render the content of a name-string SEQUENCE OF GeneralString and a realm as name/instance@REALM
+
+    private static String principalName(byte[] nameBuf, int nameOff, int nameLen, byte[] realmBuf, int realmOff, int realmLen)
+        throws IOException {
+
+        StringBuilder str = new StringBuilder(64);
+        DERCursor c = new DERCursor().reset(nameBuf, nameOff, nameLen);
+        while (c.hasNext()) {
+            c.expect(DERCursor.GENERAL_STRING);
+            if (!str.isEmpty()) {
+                str.append('/');
+            }
+            str.append(new String(nameBuf, c.contentOffset(), c.contentLength(), StandardCharsets.UTF_8));
+        }
+        return str.append('@').append(new String(realmBuf, realmOff, realmLen, StandardCharsets.UTF_8)).toString();
+    }
+
+    // KerberosTime ::= GeneralizedTime, always YYYYMMDDHHMMSSZ
+
+    private static long time(DERCursor c) throws IOException {
+        c.expect(DERCursor.GENERALIZED_TIME);
+        byte[] b = c.buffer();
+        int p = c.contentOffset();
+        if (c.contentLength() != 15 || b[p + 14] != 'Z') {
+            throw new IOException("Bad KerberosTime");
+        }
+        try {
+            return LocalDateTime.of(
+                digits(b, p, 4),
+                digits(b, p + 4, 2),
+                digits(b, p + 6, 2),
+                digits(b, p + 8, 2),
+                digits(b, p + 10, 2),
+                digits(b, p + 12, 2)
+            ).toEpochSecond(ZoneOffset.UTC);
+        }
+        catch (RuntimeException e) {
+            throw new IOException("Bad KerberosTime", e);
+        }
+    }
+
+    private static int digits(byte[] b, int p, int n) throws IOException {
+        int v = 0;
+        for (int i = 0; i < n; i++) {
+            int d = b[p + i] - '0';
+            if (d < 0 || d > 9) {
+                throw new IOException("Bad KerberosTime");
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    // Offsets of the client name in a decrypted EncTicketPart or Authenticator
+
+    private abstract static class ClientPart {
+
+        int crealmOff;
+
+        int crealmLen;
+
+        // Content of the name-string; the name-type is not compared
+
+        int cnameOff;
+
+        int cnameLen;
+
+        void parseCrealm(DERCursor c) throws IOException {
+            c.expect(DERCursor.GENERAL_STRING);
+            crealmOff = c.contentOffset();
+            crealmLen = c.contentLength();
+        }
+
+        // PrincipalName ::= SEQUENCE { name-type [0] Int32, name-string [1] SEQUENCE OF KerberosString }
+
+        void parseCname(DERCursor c) throws IOException {
+            c.expect(DERCursor.SEQUENCE);
+            c.enter();
+            if (c.find(DERCursor.CONTEXT | 1)) {
+                c.enter();
+                c.expect(DERCursor.SEQUENCE);
+                cnameOff = c.contentOffset();
+                cnameLen = c.contentLength();
+                c.exit();
+            }
+            c.exit();
+        }
+
+        boolean sameClient(byte[] buf, ClientPart other, byte[] otherBuf) {
+            return Arrays.equals(buf, crealmOff, crealmOff + crealmLen, otherBuf, other.crealmOff, other.crealmOff + other.crealmLen)
+                && Arrays.equals(buf, cnameOff, cnameOff + cnameLen, otherBuf, other.cnameOff, other.cnameOff + other.cnameLen);
+        }
+
+    }
+
+    // Offsets into the decrypted EncTicketPart, after the confounder
+
+    private static final class EncTicketPart extends ClientPart {
+
+        int flags;
+
+        int keyEtype = -1;
+
+        int keyOff;
+
+        int keyLen;
+
+        long authtime;
+
+        long starttime = -1;
+
+        long endtime;
+
+        int authzOff = -1;
+
+        int authzLen;
+
+        void parse(byte[] plain) throws IOException {
+            DERCursor c = new DERCursor().reset(plain, 16, plain.length - 16);
+            c.expect(ENC_TICKET_PART);
+            c.enter();
+            c.expect(DERCursor.SEQUENCE);
+            c.enter();
+            int seen = 0;
+            while (c.hasNext()) {
+                int tag = c.next();
+                c.enter();
+                switch (tag) {
+                case DERCursor.CONTEXT | 0 -> {
+                    c.expect(DERCursor.BIT_STRING);
+                    flags = c.flagsValue();
+                }
+                case DERCursor.CONTEXT | 1 -> {
+                    c.expect(DERCursor.SEQUENCE);
+                    c.enter();
+                    while (c.hasNext()) {
+                        int t = c.next();
+                        c.enter();
+                        if (t == (DERCursor.CONTEXT | 0)) {
+                            c.expect(DERCursor.INTEGER);
+                            keyEtype = c.intValue();
+                        }
+                        else if (t == (DERCursor.CONTEXT | 1)) {
+                            c.expect(DERCursor.OCTET_STRING);
+                            keyOff = c.contentOffset();
+                            keyLen = c.contentLength();
+                        }
+                        c.exit();
+                    }
+                    c.exit();
+                }
+                case DERCursor.CONTEXT | 2 -> parseCrealm(c);
+                case DERCursor.CONTEXT | 3 -> parseCname(c);
+                case DERCursor.CONTEXT | 5 -> authtime = time(c);
+                case DERCursor.CONTEXT | 6 -> starttime = time(c);
+                case DERCursor.CONTEXT | 7 -> endtime = time(c);
+                case DERCursor.CONTEXT | 10 -> {
+                    authzOff = c.position();
+                    c.next();
+                    authzLen = c.contentEnd() - authzOff;
+                }
+                default -> {
+                    // transited, renew-till and caddr
+                }
+                }
+                c.exit();
+                seen |= 1 << (tag & 0x1f);
+            }
+            // flags, key, crealm, cname, authtime and endtime are required
+            if ((seen & 0xaf) != 0xaf || keyLen == 0 || cnameLen == 0) {
+                throw new IOException("Incomplete EncTicketPart");
+            }
+        }
+
+    }
+
+    // Offsets into the decrypted Authenticator, after the confounder
+
+    private static final class Authenticator extends ClientPart {
+
+        int gssFlags;
+
+        int cusec;
+
+        int ctimeOff;
+
+        int ctimeLen;
+
+        long ctime;
+
+        int subkeyEtype = -1;
+
+        void parse(byte[] plain) throws IOException {
+            DERCursor c = new DERCursor().reset(plain, 16, plain.length - 16);
+            c.expect(AUTHENTICATOR);
+            c.enter();
+            c.expect(DERCursor.SEQUENCE);
+            c.enter();
+            boolean haveChecksum = false;
+            boolean haveTime = false;
+            while (c.hasNext()) {
+                int tag = c.next();
+                c.enter();
+                switch (tag) {
+                case DERCursor.CONTEXT | 1 -> parseCrealm(c);
+                case DERCursor.CONTEXT | 2 -> parseCname(c);
+                case DERCursor.CONTEXT | 3 -> {
+                    parseChecksum(c);
+                    haveChecksum = true;
+                }
+                case DERCursor.CONTEXT | 4 -> {
+                    c.expect(DERCursor.INTEGER);
+                    cusec = c.intValue();
+                }
+                case DERCursor.CONTEXT | 5 -> {
+                    ctimeOff = c.position();
+                    ctime = time(c);
+                    ctimeLen = c.contentEnd() - ctimeOff;
+                    haveTime = true;
+                }
+                case DERCursor.CONTEXT | 6 -> {
+                    c.expect(DERCursor.SEQUENCE);
+                    c.enter();
+                    c.expect(DERCursor.CONTEXT);
+                    c.enter();
+                    c.expect(DERCursor.INTEGER);
+                    subkeyEtype = c.intValue();
+                    c.exit();
+                    c.exit();
+                }
+                default -> {
+                    // authenticator-vno, seq-number and authorization-data
+                }
+                }
+                c.exit();
+            }
+            if (!haveChecksum || !haveTime || cnameLen == 0) {
+                throw new IOException("Authenticator has no GSS-API checksum");
+            }
+        }
+
+        // Checksum ::= SEQUENCE { cksumtype [0] Int32, checksum [1] OCTET STRING }, holding the RFC 4121 flags
+
+        private void parseChecksum(DERCursor c) throws IOException {
+            c.expect(DERCursor.SEQUENCE);
+            c.enter();
+            c.expect(DERCursor.CONTEXT);
+            c.enter();
+            c.expect(DERCursor.INTEGER);
+            if (c.intValue() != GSS_CHECKSUM_TYPE) {
+                throw new IOException("Not a GSS-API checksum");
+            }
+            c.exit();
+            c.expect(DERCursor.CONTEXT | 1);
+            c.enter();
+            c.expect(DERCursor.OCTET_STRING);
+            if (c.contentLength() < 24) {
+                throw new IOException("GSS-API checksum too short");
+            }
+            byte[] b = c.buffer();
+            int p = c.contentOffset() + 20;
+            gssFlags = (b[p] & 0xff) | (b[p + 1] & 0xff) << 8 | (b[p + 2] & 0xff) << 16 | (b[p + 3] & 0xff) << 24;
+            c.exit();
+            c.exit();
+        }
+
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-flight security contexts, keyed by connection or handshake ID, so that a handshake answered with
+ * {@link SPNEGO#AcceptIncomplete} can be continued by the next token from the same client.
+ *
+ * <p>
+ * A parked context lives for at most the configured time to live, and the table holds at most the configured
+ * number of contexts; when it is full the oldest is evicted. Evicted and expired contexts are disposed, and the
+ * client has to start again. Expired contexts are disposed whenever a context is taken or parked, or by
+ * {@link #sweep()}. Each ID may have only one handshake in progress: taking a context removes it from the
+ * table until it is parked again.
+ */
+public class HandshakeTable implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(HandshakeTable.class.getName());
+
+    private record Entry(String id, SessionSetupPrivilegedAction.GSSData data, long expiresAt) {
+    }
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Entries in the order they were parked, which is also the order they expire
+
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean closed;
+
+    /**
+     * Class constructor
+     *
+     * @param ttl
+     *     how long a context may wait for the next leg of its handshake
+     * @param maxEntries
+     *     maximum number of contexts held at once
+     */
+    public HandshakeTable(Duration ttl, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Remove and return the context parked under the specified ID
+     *
+     * @param id
+     *     String
+     * @return GSSData, or null if there is none or it has expired
+     */
+    SessionSetupPrivilegedAction.GSSData take(String id) {
+        long now = System.nanoTime();
+        Entry entry = entries.remove(id);
+        // Expire abandoned handshakes even when no new ones are being parked
+        evict(now);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.expiresAt() >= 0) {
+            dispose(entry);
+            return null;
+        }
+        return entry.data();
+    }
+
+    /**
+     * Park a context until the next leg of its handshake, replacing any context already parked under the ID
+     *
+     * @param id
+     *     String
+     * @param data
+     *     GSSData
+     */
+    void park(String id, SessionSetupPrivilegedAction.GSSData data) {
+        long now = System.nanoTime();
+        Entry entry = new Entry(id, data, now + ttlNanos);
+        Entry previous = entries.put(id, entry);
+        if (previous != null) {
+            dispose(previous);
+        }
+        order.add(entry);
+        if (closed) {
+            // Lost a race with close()
+            remove(id);
+            return;
+        }
+        evict(now);
+    }
+
+    /**
+     * Discard the handshake in progress for the specified ID, such as when its connection closes
+     *
+     * @param id
+     *     String
+     */
+    public void remove(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            dispose(entry);
+        }
+    }
+
+    /**
+     * Dispose the contexts whose time to live has passed. Taking and parking contexts does this as well, so this only
+     * needs to be called, such as from a scheduled task, to release abandoned contexts while the table is idle.
+     */
+    public void sweep() {
+        evict(System.nanoTime());
+    }
+
+    /**
+     * Return the number of contexts held
+     *
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Dispose every context held
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (String id : entries.keySet()) {
+            remove(id);
+        }
+        order.clear();
+    }
+
+    private void evict(long now) {
+        Entry head;
+        while ((head = order.peek()) != null) {
+            boolean live = entries.get(head.id()) == head;
+            if (live && now - head.expiresAt() < 0 && entries.size() <= maxEntries) {
+                return;
+            }
+            // Taken, replaced, expired, or the oldest in a full table
+            if (order.remove(head) && live && entries.remove(head.id(), head)) {
+                LOGGER.log(Level.FINE, "Evicted handshake " + head.id());
+                dispose(head);
+            }
+        }
+    }
+
+    private static void dispose(Entry entry) {
+        try {
+            entry.data().close();
+        }
+        catch (GSSException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to dispose handshake " + entry.id(), e);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AcceptorMetrics} that keeps a {@link LatencyHistogram} per phase and counters by outcome and by
+ * {@link GSSException} major code, for a monitoring system to poll.
+ */
+public class HistogramMetrics implements AcceptorMetrics {
+
+    // GSSException major codes run from 1 to 19; anything larger shares the last slot
+
+    private static final int MAX_MAJOR_CODE = 32;
+
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+    private final AtomicLongArray failures = new AtomicLongArray(MAX_MAJOR_CODE + 1);
+
+    public HistogramMetrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void recordPhase(Phase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordOutcome(Outcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+    }
+
+    @Override
+    public void recordFailure(int majorCode) {
+        failures.incrementAndGet(Math.clamp(majorCode, 0, MAX_MAJOR_CODE));
+    }
+
+    /**
+     * Return the histogram for a phase
+     *
+     * @param phase
+     *     Phase
+     * @return LatencyHistogram
+     */
+    public final LatencyHistogram getHistogram(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    /**
+     * Return the number of accepts with an outcome
+     *
+     * @param outcome
+     *     Outcome
+     * @return long
+     */
+    public final long getCount(Outcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    /**
+     * Return the number of accepts that failed with a major code
+     *
+     * @param majorCode
+     *     int, as returned by {@link GSSException#getMajor()}
+     * @return long
+     */
+    public final long getFailureCount(int majorCode) {
+        return failures.get(Math.clamp(majorCode, 0, MAX_MAJOR_CODE));
+    }
+
+    /**
+     * Clear all histograms and counters
+     */
+    public void reset() {
+        for (LatencyHistogram h : phases) {
+            h.reset();
+        }
+        for (LongAdder a : outcomes) {
+            a.reset();
+        }
+        for (int i = 0; i <= MAX_MAJOR_CODE; i++) {
+            failures.set(i, 0);
+        }
+    }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Push-style decoder for an SPNEGO NegTokenInit or NegTokenTarg that arrives in fragments, such as a CIFS session
+ * setup security blob split across network reads.
+ *
+ * <p>
+ * Each chunk is passed to {@link #feed(byte[], int, int)}, which consumes bytes up to the end of the token and
+ * returns how many it used, so anything after the token is left for the caller. The outer DER header is decoded as
+ * soon as its bytes arrive, so a token with an unexpected tag or over the size limit is rejected before its body is
+ * read. When the whole token arrives in one chunk it is referenced in place; otherwise each chunk is copied once
+ * into an assembly buffer that is kept across tokens and only grows, so it may be larger than the token. Once
+ * {@link #isComplete()}, the token is available from {@link #buffer()}, {@link #offset()} and {@link #length()}, or
+ * as a view from {@link #initView()} and {@link #targView()}.
+ *
+ * <p>
+ * The array of a chunk referenced in place must not be modified while the token is in use. Instances are reusable
+ * after {@link #reset()}, but not thread-safe.
+ */
+public final class IncrementalNegTokenDecoder {
+
+    // Tag, length byte and up to four more length bytes
+
+    private static final int MAX_HEADER = 6;
+
+    private final int maxTokenSize;
+
+    private final byte[] header = new byte[MAX_HEADER];
+
+    private int headerLen;
+
+    // Total size of the token, or -1 until its header has been read
+
+    private int total = -1;
+
+    // Buffer the token is assembled in, kept across tokens
+
+    private byte[] assembly;
+
+    private int filled;
+
+    // The complete token
+
+    private byte[] buf;
+
+    private int off;
+
+    private int len;
+
+    private boolean complete;
+
+    private NegTokenInitView initView;
+
+    private NegTokenTargView targView;
+
+    /**
+     * Class constructor with the default maximum token size
+     */
+    public IncrementalNegTokenDecoder() {
+        this(TokenValidator.DEFAULT_MAX_TOKEN_SIZE);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param maxTokenSize
+     *     largest token accepted, including its DER header
+     */
+    public IncrementalNegTokenDecoder(int maxTokenSize) {
+        if (maxTokenSize < 2) {
+            throw new IllegalArgumentException("maxTokenSize must be at least 2");
+        }
+        this.maxTokenSize = maxTokenSize;
+    }
+
+    /**
+     * Consume bytes of the token from a chunk
+     *
+     * @param chunk
+     *     byte[]
+     * @param chunkOff
+     *     int
+     * @param chunkLen
+     *     int
+     * @return int the number of bytes consumed, which is less than chunkLen only if the token is complete
+     * @throws IOException
+     *     if the token is not SPNEGO, its length is malformed, or it is larger than the maximum
+     */
+    public int feed(byte[] chunk, int chunkOff, int chunkLen) throws IOException {
+        if (complete) {
+            throw new IllegalStateException("Token is already complete");
+        }
+        if (chunkOff < 0 || chunkLen < 0 || chunkOff + chunkLen > chunk.length) {
+            throw new IndexOutOfBoundsException("off=" + chunkOff + " len=" + chunkLen + " length=" + chunk.length);
+        }
+        if (headerLen == 0 && chunkLen > 0) {
+            int size = tokenSize(chunk, chunkOff, Math.min(chunkLen, MAX_HEADER));
+            if (size >= 0 && size <= chunkLen) {
+                // The whole token is in this chunk
+                complete(chunk, chunkOff, size);
+                return size;
+            }
+        }
+        int p = chunkOff;
+        int end = chunkOff + chunkLen;
+        while (total < 0 && p < end) {
+            addHeaderByte(chunk[p++]);
+        }
+        if (total >= 0) {
+            int n = Math.min(end - p, total - filled);
+            System.arraycopy(chunk, p, assembly, filled, n);
+            p += n;
+            filled(n);
+        }
+        return p - chunkOff;
+    }
+
+    /**
+     * Consume bytes of the token from a buffer, advancing its position past them
+     *
+     * @param chunk
+     *     ByteBuffer
+     * @return int the number of bytes consumed, which is less than the bytes remaining only if the token is complete
+     * @throws IOException
+     *     if the token is not SPNEGO, its length is malformed, or it is larger than the maximum
+     */
+    public int feed(ByteBuffer chunk) throws IOException {
+        int n;
+        if (chunk.hasArray()) {
+            n = feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        }
+        else {
+            // Direct buffers cannot be referenced in place, so always assemble
+            if (complete) {
+                throw new IllegalStateException("Token is already complete");
+            }
+            int p = chunk.position();
+            int end = chunk.limit();
+            while (total < 0 && p < end) {
+                addHeaderByte(chunk.get(p++));
+            }
+            if (total >= 0) {
+                int m = Math.min(end - p, total - filled);
+                chunk.get(p, assembly, filled, m);
+                p += m;
+                filled(m);
+            }
+            n = p - chunk.position();
+        }
+        chunk.position(chunk.position() + n);
+        return n;
+    }
+
+    private void addHeaderByte(byte b) throws IOException {
+        header[headerLen++] = b;
+        total = tokenSize(header, 0, headerLen);
+        if (total >= 0) {
+            if (assembly == null || assembly.length < total) {
+                assembly = new byte[total];
+            }
+            System.arraycopy(header, 0, assembly, 0, headerLen);
+            filled(headerLen);
+        }
+    }
+
+    private void filled(int n) {
+        filled += n;
+        if (filled == total) {
+            complete(assembly, 0, total);
+        }
+    }
+
+    /**
+     * Return the size of the token from its header, or -1 if more header bytes are needed
+     */
+    private int tokenSize(byte[] b, int p, int n) throws IOException {
+        int tag = b[p] & 0xff;
+        if (tag != DERCursor.APPLICATION && tag != (DERCursor.CONTEXT | 1) && tag != DERCursor.SEQUENCE) {
+            throw new IOException("Not an SPNEGO token, tag 0x" + Integer.toHexString(tag));
+        }
+        if (n < 2) {
+            return -1;
+        }
+        int first = b[p + 1] & 0xff;
+        long size;
+        if (first < 0x80) {
+            size = 2 + first;
+        }
+        else {
+            int count = first & 0x7f;
+            if (count == 0 || count > 4) {
+                throw new IOException("Unsupported DER length form 0x" + Integer.toHexString(first));
+            }
+            if (n < 2 + count) {
+                return -1;
+            }
+            long contentLen = 0;
+            for (int i = 0; i < count; i++) {
+                contentLen = (contentLen << 8) | (b[p + 2 + i] & 0xff);
+            }
+            size = 2 + count + contentLen;
+        }
+        if (size > maxTokenSize) {
+            throw new IOException("Token of " + size + " bytes exceeds the maximum of " + maxTokenSize);
+        }
+        return (int) size;
+    }
+
+    private void complete(byte[] b, int p, int n) {
+        buf = b;
+        off = p;
+        len = n;
+        complete = true;
+    }
+
+    /**
+     * Check if a whole token has been received
+     *
+     * @return boolean
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Check if the token is a NegTokenInit, or a bare Kerberos v5 token, rather than a NegTokenTarg
+     *
+     * @return boolean
+     */
+    public boolean isNegTokenInit() {
+        checkComplete();
+        return (buf[off] & 0xff) == DERCursor.APPLICATION;
+    }
+
+    /**
+     * Return the number of bytes of the token received so far
+     *
+     * @return int
+     */
+    public int received() {
+        return complete ? len : total >= 0 ? filled : headerLen;
+    }
+
+    /**
+     * Return the size of the token, once its header has been received
+     *
+     * @return int, or -1 if it is not known yet
+     */
+    public int expectedLength() {
+        return complete ? len : total;
+    }
+
+    /**
+     * Return the array holding the complete token, which is either a chunk passed to {@link #feed(byte[], int, int)}
+     * or a buffer owned by this decoder. Either may extend past the token, so only {@link #length()} bytes from
+     * {@link #offset()} belong to it.
+     *
+     * @return byte[]
+     */
+    public byte[] buffer() {
+        checkComplete();
+        return buf;
+    }
+
+    /**
+     * Return the offset of the complete token in {@link #buffer()}
+     *
+     * @return int
+     */
+    public int offset() {
+        checkComplete();
+        return off;
+    }
+
+    /**
+     * Return the length of the complete token
+     *
+     * @return int
+     */
+    public int length() {
+        checkComplete();
+        return len;
+    }
+
+    /**
+     * Decode the complete token as a NegTokenInit, with a view reused across tokens
+     *
+     * @return NegTokenInitView
+     * @throws IOException
+     *     if the format of the data is invalid.
+     */
+    public NegTokenInitView initView() throws IOException {
+        checkComplete();
+        if (initView == null) {
+            initView = new NegTokenInitView();
+        }
+        return initView.wrap(buf, off, len);
+    }
+
+    /**
+     * Decode the complete token as a NegTokenTarg, with a view reused across tokens
+     *
+     * @return NegTokenTargView
+     * @throws IOException
+     *     if the format of the data is invalid.
+     */
+    public NegTokenTargView targView() throws IOException {
+        checkComplete();
+        if (targView == null) {
+            targView = new NegTokenTargView();
+        }
+        return targView.wrap(buf, off, len);
+    }
+
+    /**
+     * Forget the current token, partial or complete, to decode the next one. The assembly buffer is kept.
+     */
+    public void reset() {
+        headerLen = 0;
+        total = -1;
+        filled = 0;
+        buf = null;
+        off = 0;
+        len = 0;
+        complete = false;
+    }
+
+    private void checkComplete() {
+        if (!complete) {
+            throw new IllegalStateException("Token is not complete");
+        }
+    }
+
+}
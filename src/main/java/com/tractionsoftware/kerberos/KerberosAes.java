@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * The Kerberos AES encryption types of RFC 3962, aes128-cts-hmac-sha1-96 and aes256-cts-hmac-sha1-96, built on
+ * the JCE.
+ *
+ * <p>
+ * {@link #deriveKeys(byte[], int)} runs the RFC 3961 key derivation for one key usage; the result can be kept and
+ * reused for every message under that key and usage, such as every ticket encrypted in a service key.
+ */
+final class KerberosAes {
+
+    static final int AES128_CTS_HMAC_SHA1_96 = 17;
+    static final int AES256_CTS_HMAC_SHA1_96 = 18;
+
+    private static final int BLOCK_SIZE = 16;
+
+    private static final int MAC_SIZE = 12;
+
+    private static final IvParameterSpec ZERO_IV = new IvParameterSpec(new byte[BLOCK_SIZE]);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Encryption and integrity keys derived from a base key for one key usage
+     */
+    record UsageKeys(SecretKeySpec ke, Mac ki) {
+    }
+
+    private KerberosAes() {
+    }
+
+    static boolean isSupported(int etype) {
+        return etype == AES128_CTS_HMAC_SHA1_96 || etype == AES256_CTS_HMAC_SHA1_96;
+    }
+
+    static int keyLength(int etype) {
+        return etype == AES256_CTS_HMAC_SHA1_96 ? 32 : 16;
+    }
+
+    static String algorithmName(int etype) {
+        return etype == AES256_CTS_HMAC_SHA1_96 ? "aes256-cts-hmac-sha1-96" : "aes128-cts-hmac-sha1-96";
+    }
+
+    /**
+     * Derive the encryption and integrity keys for a key usage
+     *
+     * @param base
+     *     byte[] the 16 or 32 byte protocol key
+     * @param usage
+     *     int
+     * @return UsageKeys
+     * @throws GeneralSecurityException
+     *     if the JCE lacks AES or HMAC-SHA1
+     */
+    static UsageKeys deriveKeys(byte[] base, int usage) throws GeneralSecurityException {
+        byte[] ke = derive(base, usage, 0xaa);
+        byte[] ki = derive(base, usage, 0x55);
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(ki, "HmacSHA1"));
+        return new UsageKeys(new SecretKeySpec(ke, "AES"), mac);
+    }
+
+    /**
+     * Decrypt and verify a ciphertext
+     *
+     * @param keys
+     *     UsageKeys
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return byte[] the plaintext, which starts with a 16 byte confounder
+     * @throws GeneralSecurityException
+     *     if the ciphertext is too short or fails its integrity check
+     */
+    static byte[] decrypt(UsageKeys keys, byte[] buf, int off, int len) throws GeneralSecurityException {
+        int cipherLen = len - MAC_SIZE;
+        if (cipherLen < BLOCK_SIZE) {
+            throw new GeneralSecurityException("Ciphertext too short");
+        }
+        byte[] plain = cts(Cipher.DECRYPT_MODE, keys.ke()).doFinal(buf, off, cipherLen);
+        byte[] mac = hmac(keys.ki(), plain, 0, plain.length);
+        if (!MessageDigest.isEqual(Arrays.copyOf(mac, MAC_SIZE), Arrays.copyOfRange(buf, off + cipherLen, off + len))) {
+            throw new GeneralSecurityException("Integrity check failed");
+        }
+        return plain;
+    }
+
+    /**
+     * Encrypt and protect a message with a random confounder
+     *
+     * @param keys
+     *     UsageKeys
+     * @param data
+     *     byte[]
+     * @return byte[] the ciphertext and checksum
+     * @throws GeneralSecurityException
+     *     if the JCE lacks AES
+     */
+    static byte[] encrypt(UsageKeys keys, byte[] data) throws GeneralSecurityException {
+        byte[] plain = new byte[BLOCK_SIZE + data.length];
+        byte[] confounder = new byte[BLOCK_SIZE];
+        RANDOM.nextBytes(confounder);
+        System.arraycopy(confounder, 0, plain, 0, BLOCK_SIZE);
+        System.arraycopy(data, 0, plain, BLOCK_SIZE, data.length);
+        byte[] out = new byte[plain.length + MAC_SIZE];
+        cts(Cipher.ENCRYPT_MODE, keys.ke()).doFinal(plain, 0, plain.length, out, 0);
+        System.arraycopy(hmac(keys.ki(), plain, 0, plain.length), 0, out, plain.length, MAC_SIZE);
+        return out;
+    }
+
+    /**
+     * Return an AES cipher in the ciphertext stealing mode of RFC 3962, with a zero IV
+     *
+     * @param mode
+     *     int, {@link Cipher#ENCRYPT_MODE} or {@link Cipher#DECRYPT_MODE}
+     * @param key
+     *     SecretKeySpec
+     * @return Cipher
+     * @throws GeneralSecurityException
+     *     if the JCE lacks AES in CTS mode
+     */
+    static Cipher cts(int mode, SecretKeySpec key) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/CTS/NoPadding");
+        cipher.init(mode, key, ZERO_IV);
+        return cipher;
+    }
+
+    private static byte[] hmac(Mac prototype, byte[] b, int off, int len) throws GeneralSecurityException {
+        Mac mac;
+        try {
+            mac = (Mac) prototype.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            synchronized (prototype) {
+                prototype.update(b, off, len);
+                return prototype.doFinal();
+            }
+        }
+        mac.update(b, off, len);
+        return mac.doFinal();
+    }
+
+    private static byte[] derive(byte[] base, int usage, int constant) throws GeneralSecurityException {
+        return dk(base, new byte[] { (byte) (usage >>> 24), (byte) (usage >>> 16), (byte) (usage >>> 8), (byte) usage, (byte) constant });
+    }
+
+    /**
+     * The DK(base, constant) key derivation of RFC 3961, where random-to-key is the identity for AES
+     *
+     * @param base
+     *     byte[] the 16 or 32 byte protocol key
+     * @param constant
+     *     byte[]
+     * @return byte[] a key of the same length as the base key
+     * @throws GeneralSecurityException
+     *     if the JCE lacks AES
+     */
+    static byte[] dk(byte[] base, byte[] constant) throws GeneralSecurityException {
+        byte[] in = nfold(constant, BLOCK_SIZE);
+        Cipher cipher = Cipher.getInstance("AES/ECB/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(base, "AES"));
+        byte[] key = new byte[base.length];
+        for (int n = 0; n < key.length; n += BLOCK_SIZE) {
+            in = cipher.doFinal(in);
+            System.arraycopy(in, 0, key, n, Math.min(BLOCK_SIZE, key.length - n));
+        }
+        return key;
+    }
+
+    /**
+     * The n-fold operation of RFC 3961
+     *
+     * @param in
+     *     byte[]
+     * @param outLen
+     *     int length of the result in bytes
+     * @return byte[]
+     */
+    static byte[] nfold(byte[] in, int outLen) {
+        int inLen = in.length;
+        int lcm = outLen * inLen / gcd(outLen, inLen);
+        byte[] out = new byte[outLen];
+        int carry = 0;
+        // Sum the rotated copies from the least significant byte up, as a ones' complement addition
+        for (int i = lcm - 1; i >= 0; i--) {
+            int msbit = ((inLen << 3) - 1)
+                + (((inLen << 3) + 13) * (i / inLen))
+                + ((inLen - (i % inLen)) << 3);
+            msbit %= inLen << 3;
+            int b = (((in[((inLen - 1) - (msbit >>> 3)) % inLen] & 0xff) << 8)
+                | (in[(inLen - (msbit >>> 3)) % inLen] & 0xff));
+            b = (b >>> ((msbit & 7) + 1)) & 0xff;
+            carry += b + (out[i % outLen] & 0xff);
+            out[i % outLen] = (byte) carry;
+            carry >>>= 8;
+        }
+        // End-around carry
+        for (int i = outLen - 1; carry != 0 && i >= 0; i--) {
+            carry += out[i] & 0xff;
+            out[i] = (byte) carry;
+            carry >>>= 8;
+        }
+        return out;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+}
@@ -19,13 +19,16 @@
 
 package com.tractionsoftware.kerberos;
 
+import com.sun.security.jgss.AuthorizationDataEntry;
 import com.sun.security.jgss.ExtendedGSSContext;
 import com.sun.security.jgss.InquireType;
 import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.GSSCredential;
 import org.ietf.jgss.GSSException;
 import org.ietf.jgss.GSSName;
 
 import javax.security.auth.kerberos.EncryptionKey;
+import java.io.IOException;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -39,14 +42,103 @@ public class KerberosDetails {
 
     private static final Logger LOGGER = Logger.getLogger(KerberosDetails.class.getName());
 
+    // Fields that can be read from an established context
+
+    public static final int SOURCE_NAME = 0x01;
+    public static final int TARGET_NAME = 0x02;
+    public static final int LIFETIME = 0x04;
+    public static final int SESSION_KEY_ALGORITHM = 0x08;
+    public static final int PAC = 0x10;
+    public static final int DELEGATED_CREDENTIAL = 0x20;
+
+    // Fields read unless a mask is given
+
+    public static final int DEFAULT_FIELDS = SOURCE_NAME | TARGET_NAME | LIFETIME | SESSION_KEY_ALGORITHM;
+
+    public static final int ALL_FIELDS = DEFAULT_FIELDS | PAC | DELEGATED_CREDENTIAL;
+
     public static KerberosDetails createInstance(GSSContext serverGSSContext, byte[] respBlob) throws GSSException {
-        return new KerberosDetails(
-            serverGSSContext.getSrcName(),
-            serverGSSContext.getTargName(),
-            serverGSSContext.getLifetime(),
-            getSessionKeyAlgorithm(serverGSSContext),
-            respBlob
+        return createInstance(serverGSSContext, respBlob, DEFAULT_FIELDS);
+    }
+
+    /**
+     * Create the details of an established context, reading only the specified fields. Fields that are not read
+     * are null, or 0 for the lifetime. Leaving out {@link #SESSION_KEY_ALGORITHM} avoids extracting a copy of the
+     * session key.
+     *
+     * @param serverGSSContext
+     *     GSSContext
+     * @param respBlob
+     *     byte[]
+     * @param fields
+     *     int mask of {@link #SOURCE_NAME}, {@link #TARGET_NAME}, {@link #LIFETIME}, {@link #SESSION_KEY_ALGORITHM},
+     *     {@link #PAC} and {@link #DELEGATED_CREDENTIAL}
+     * @return KerberosDetails
+     * @throws GSSException
+     *     if a field cannot be read
+     */
+    public static KerberosDetails createInstance(GSSContext serverGSSContext, byte[] respBlob, int fields) throws GSSException {
+        KerberosDetails details = new KerberosDetails(
+            (fields & SOURCE_NAME) != 0 ? serverGSSContext.getSrcName().toString() : null,
+            (fields & TARGET_NAME) != 0 ? serverGSSContext.getTargName().toString() : null,
+            (fields & LIFETIME) != 0 ? serverGSSContext.getLifetime() : 0,
+            (fields & SESSION_KEY_ALGORITHM) != 0 ? getSessionKeyAlgorithm(serverGSSContext) : null,
+            respBlob,
+            true,
+            fields & ALL_FIELDS,
+            (fields & PAC) != 0 ? getPac(serverGSSContext) : null
         );
+        if ((fields & DELEGATED_CREDENTIAL) != 0 && serverGSSContext.getCredDelegState()) {
+            details.delegatedCredential = serverGSSContext.getDelegCred();
+        }
+        return details;
+    }
+
+    /**
+     * Return the PAC from the authorization data of the ticket that established a context
+     *
+     * @param serverGSSContext
+     *     GSSContext
+     * @return Pac, or null if the ticket has none or it cannot be read
+     */
+    public static Pac getPac(GSSContext serverGSSContext) {
+        if (serverGSSContext instanceof ExtendedGSSContext ext) {
+            try {
+                if (ext.inquireSecContext(InquireType.KRB5_GET_AUTHZ_DATA) instanceof AuthorizationDataEntry[] entries) {
+                    return Pac.fromAuthorizationData(entries);
+                }
+            }
+            catch (GSSException | IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Cannot read PAC", e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create the details for a context that needs another token from the initiator
+     *
+     * @param respBlob
+     *     byte[] the token to send back, with {@link SPNEGO#AcceptIncomplete}
+     * @return KerberosDetails
+     */
+    public static KerberosDetails createContinueInstance(byte[] respBlob) {
+        return new KerberosDetails(null, null, 0, null, respBlob, false, 0, null);
+    }
+
+    /**
+     * Create the details of a context accepted by the {@link FastPathAcceptor}
+     */
+    static KerberosDetails createFastPathInstance(
+        String source,
+        String target,
+        int remainingLifetimeSeconds,
+        String sessionKeyAlgorithm,
+        byte[] respBlob,
+        int fields,
+        Pac pac
+    ) {
+        return new KerberosDetails(source, target, remainingLifetimeSeconds, sessionKeyAlgorithm, respBlob, true, fields & ALL_FIELDS, pac);
     }
 
     public static String getSessionKeyAlgorithm(GSSContext serverGSSContext) {
@@ -73,6 +165,26 @@ public class KerberosDetails {
 
     private final byte[] responseToken;
 
+    // False if the handshake needs another token from the initiator
+
+    private final boolean established;
+
+    // Mask of the fields read from the context
+
+    private final int fields;
+
+    // Authorization data from Active Directory, if requested and present
+
+    private final Pac pac;
+
+    // Credential delegated by the client, if requested and present
+
+    private GSSCredential delegatedCredential;
+
+    // Session resumption token, if one was issued
+
+    private String resumptionToken;
+
     /**
      * Class constructor
      *
@@ -84,8 +196,38 @@ public class KerberosDetails {
      *     byte[]
      */
     public KerberosDetails(GSSName source, GSSName target, int remainingLifetimeSeconds, String sessionKeyAlgorithm, byte[] response) {
-        this.source = source.toString();
-        this.target = target.toString();
+        this(source.toString(), target.toString(), remainingLifetimeSeconds, sessionKeyAlgorithm, response);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param source
+     *     String
+     * @param target
+     *     String, or null if not known
+     * @param response
+     *     byte[]
+     */
+    public KerberosDetails(String source, String target, int remainingLifetimeSeconds, String sessionKeyAlgorithm, byte[] response) {
+        this(source, target, remainingLifetimeSeconds, sessionKeyAlgorithm, response, true, DEFAULT_FIELDS, null);
+    }
+
+    private KerberosDetails(
+        String source,
+        String target,
+        int remainingLifetimeSeconds,
+        String sessionKeyAlgorithm,
+        byte[] response,
+        boolean established,
+        int fields,
+        Pac pac
+    ) {
+        this.established = established;
+        this.fields = fields;
+        this.pac = pac;
+        this.source = source;
+        this.target = target;
         this.remainingLifetimeSeconds = remainingLifetimeSeconds;
         this.sessionKeyAlgorithm = sessionKeyAlgorithm;
         this.responseToken = response;
@@ -117,6 +259,35 @@ public class KerberosDetails {
         return sessionKeyAlgorithm;
     }
 
+    /**
+     * Check if the security context is established. If not, the response token must be sent with
+     * {@link SPNEGO#AcceptIncomplete} and the source and target names are not yet known.
+     *
+     * @return boolean
+     */
+    public final boolean isEstablished() {
+        return established;
+    }
+
+    /**
+     * Return the mask of the fields that were read from the context
+     *
+     * @return int
+     * @see #createInstance(GSSContext, byte[], int)
+     */
+    public final int getFields() {
+        return fields;
+    }
+
+    /**
+     * Return the PAC, whose {@link Pac#getLogonInfo() logon information} lists the user's groups
+     *
+     * @return Pac, or null if {@link #PAC} was not requested or the ticket had none
+     */
+    public final Pac getPac() {
+        return pac;
+    }
+
     /**
      * Return the Kerberos response token
      *
@@ -126,6 +297,30 @@ public class KerberosDetails {
         return responseToken;
     }
 
+    /**
+     * Return the credential the client delegated, which outlives the context. Unless it has been handed to a
+     * {@link DelegatedCredentialCache}, the caller owns it and should dispose it when done.
+     *
+     * @return GSSCredential, or null if it was not requested or the client did not delegate
+     */
+    public final GSSCredential getDelegatedCredential() {
+        return delegatedCredential;
+    }
+
+    /**
+     * Return the session resumption token issued for this context
+     *
+     * @return String, or null if none was issued
+     * @see ResumptionTokens
+     */
+    public final String getResumptionToken() {
+        return resumptionToken;
+    }
+
+    final void setResumptionToken(String resumptionToken) {
+        this.resumptionToken = resumptionToken;
+    }
+
     /**
      * Parse the source name to return the user name part only
      *
@@ -163,6 +358,9 @@ public class KerberosDetails {
     }
 
     public String toString() {
+        if (!established) {
+            return "[Continue:Response=" + getResponseLength() + " bytes]";
+        }
         return "[Source=" +
                source +
                ",Target=" +
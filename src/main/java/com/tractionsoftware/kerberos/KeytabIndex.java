@@ -0,0 +1,412 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import javax.security.auth.Subject;
+import javax.security.auth.kerberos.KerberosKey;
+import javax.security.auth.kerberos.KerberosPrincipal;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index of the keys in a keytab file, by principal, key version and encryption type, that follows the file
+ * as it is replaced.
+ *
+ * <p>
+ * Readers see an immutable snapshot through a volatile reference and take no locks. At most once per check
+ * interval, the first reader to notice that the interval has passed checks the modification time of the file, and
+ * if it has changed, parses it and swaps in a new snapshot; other readers keep using the old one in the meantime.
+ * A file that cannot be parsed, such as one that is still being written, leaves the current keys in place and is
+ * read again at the next check.
+ *
+ * <p>
+ * When a key rotation drops a key version from the file, the old keys stay in the index for the overlap period, so
+ * tickets issued before the rotation keep working until they expire. Set the overlap to at least the maximum
+ * ticket lifetime of the realm.
+ *
+ * <p>
+ * The keys can be used by a {@link FastPathAcceptor}, and can be installed into the acceptor {@link Subject} for
+ * JGSS; an {@link AcceptorCredentialCache} created with the index drops its credentials after each reload.
+ *
+ * @see AcceptorConfig#setKeytabIndex(KeytabIndex)
+ */
+public class KeytabIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(KeytabIndex.class.getName());
+
+    /**
+     * Default time that keys dropped from the keytab are still accepted
+     */
+    public static final Duration DEFAULT_OVERLAP = Duration.ofHours(10);
+
+    private static final int KEYTAB_V2 = 0x0502;
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    // A key and the time it stops being accepted, NEVER while it is in the keytab
+
+    private record Slot(KerberosKey key, long retainUntilNanos) {
+    }
+
+    /**
+     * Immutable contents of the index, replaced as a whole on each reload
+     */
+    record Snapshot(int generation, Map<String, Map<Long, Slot>> byPrincipal, long nextExpiryNanos) {
+
+        List<KerberosKey> keys(String principal) {
+            Map<Long, Slot> slots = byPrincipal.get(principal);
+            if (slots == null) {
+                return List.of();
+            }
+            List<KerberosKey> keys = new ArrayList<>(slots.size());
+            for (Slot slot : slots.values()) {
+                keys.add(slot.key());
+            }
+            return List.copyOf(keys);
+        }
+
+    }
+
+    private final Path keytab;
+
+    private final long overlapNanos;
+
+    private final long checkIntervalNanos;
+
+    private final AtomicLong nextCheckNanos;
+
+    private final List<Subject> subjects = new CopyOnWriteArrayList<>();
+
+    private volatile Snapshot snapshot = new Snapshot(0, Map.of(), NEVER);
+
+    // Modification time of the file the snapshot was loaded from
+
+    private FileTime loadedModified;
+
+    /**
+     * Class constructor
+     *
+     * @param keytab
+     *     Path of the keytab file
+     * @throws IOException
+     *     if the keytab cannot be read
+     */
+    public KeytabIndex(Path keytab) throws IOException {
+        this(keytab, DEFAULT_OVERLAP, AcceptorCredentialCache.DEFAULT_CHECK_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param keytab
+     *     Path of the keytab file
+     * @param overlap
+     *     time that keys dropped from the keytab are still accepted
+     * @param checkIntervalMillis
+     *     minimum interval between checks of the keytab's modification time
+     * @throws IOException
+     *     if the keytab cannot be read
+     */
+    public KeytabIndex(Path keytab, Duration overlap, long checkIntervalMillis) throws IOException {
+        this.keytab = keytab;
+        this.overlapNanos = overlap.toNanos();
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, checkIntervalMillis));
+        this.nextCheckNanos = new AtomicLong(System.nanoTime() + checkIntervalNanos);
+        synchronized (this) {
+            load(Files.getLastModifiedTime(keytab), System.nanoTime());
+        }
+    }
+
+    /**
+     * Return the keys for a principal, including keys dropped from the keytab within the overlap period
+     *
+     * @param principal
+     *     String, such as {@code HTTP/host.example.com@EXAMPLE.COM}
+     * @return List of KerberosKey, empty if there are none
+     */
+    public List<KerberosKey> getKeys(String principal) {
+        return snapshot().keys(principal);
+    }
+
+    /**
+     * Return the key for a principal with the specified encryption type and version
+     *
+     * @param principal
+     *     String
+     * @param keyType
+     *     int encryption type
+     * @param versionNumber
+     *     int key version, or -1 for the newest
+     * @return KerberosKey, or null if there is none
+     */
+    public KerberosKey getKey(String principal, int keyType, int versionNumber) {
+        Map<Long, Slot> slots = snapshot().byPrincipal().get(principal);
+        if (slots == null) {
+            return null;
+        }
+        if (versionNumber >= 0) {
+            Slot slot = slots.get(index(keyType, versionNumber));
+            return slot != null ? slot.key() : null;
+        }
+        KerberosKey newest = null;
+        for (Slot slot : slots.values()) {
+            KerberosKey key = slot.key();
+            if (key.getKeyType() == keyType && (newest == null || key.getVersionNumber() > newest.getVersionNumber())) {
+                newest = key;
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Return the principals with keys in the index
+     *
+     * @return Set of String
+     */
+    public Set<String> getPrincipals() {
+        return snapshot().byPrincipal().keySet();
+    }
+
+    /**
+     * Return the number of times the keys have changed, starting from 1 for the initial load
+     *
+     * @return int
+     */
+    public int getGeneration() {
+        return snapshot().generation();
+    }
+
+    /**
+     * Add the keys to the private credentials of an acceptor {@code Subject}, and replace them there after each
+     * reload, so that JGSS accepts the same key versions as the index
+     *
+     * @param subject
+     *     Subject
+     */
+    public void install(Subject subject) {
+        synchronized (this) {
+            subjects.add(subject);
+            replaceKeys(subject, null, snapshot);
+        }
+    }
+
+    /**
+     * Read the keytab now if it has changed, without waiting for the check interval
+     *
+     * @return boolean true if the keys changed
+     */
+    public boolean reload() {
+        return reloadIfChanged(System.nanoTime());
+    }
+
+    /**
+     * Check the keytab for changes if the check interval has passed. This is cheap and takes no locks unless a check
+     * is due.
+     */
+    public void check() {
+        snapshot();
+    }
+
+    Snapshot snapshot() {
+        long now = System.nanoTime();
+        long next = nextCheckNanos.get();
+        if (now - next >= 0 && nextCheckNanos.compareAndSet(next, now + checkIntervalNanos)) {
+            reloadIfChanged(now);
+        }
+        return snapshot;
+    }
+
+    private synchronized boolean reloadIfChanged(long now) {
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(keytab);
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot read modification time of " + keytab, e);
+            modified = loadedModified;
+        }
+        long nextExpiry = snapshot.nextExpiryNanos();
+        if (modified.equals(loadedModified) && (nextExpiry == NEVER || now - nextExpiry < 0)) {
+            return false;
+        }
+        try {
+            return load(modified, now);
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot read keytab " + keytab + "; keeping the current keys", e);
+            return false;
+        }
+    }
+
+    // Build a new snapshot from the file, carrying over keys that were dropped from it within the overlap
+
+    private boolean load(FileTime modified, long now) throws IOException {
+        Map<String, Map<Long, Slot>> byPrincipal = new HashMap<>();
+        for (KerberosKey key : parse(Files.readAllBytes(keytab))) {
+            byPrincipal.computeIfAbsent(key.getPrincipal().getName(), p -> new HashMap<>())
+                .put(index(key.getKeyType(), key.getVersionNumber()), new Slot(key, NEVER));
+        }
+        Snapshot current = snapshot;
+        long nextExpiry = NEVER;
+        boolean changed = !modified.equals(loadedModified);
+        for (Map.Entry<String, Map<Long, Slot>> e : current.byPrincipal().entrySet()) {
+            for (Map.Entry<Long, Slot> s : e.getValue().entrySet()) {
+                Map<Long, Slot> slots = byPrincipal.computeIfAbsent(e.getKey(), p -> new HashMap<>());
+                if (slots.containsKey(s.getKey())) {
+                    continue;
+                }
+                long retainUntil = s.getValue().retainUntilNanos() == NEVER ? now + overlapNanos : s.getValue().retainUntilNanos();
+                if (retainUntil - now > 0) {
+                    slots.put(s.getKey(), new Slot(s.getValue().key(), retainUntil));
+                    nextExpiry = nextExpiry == NEVER || retainUntil - nextExpiry < 0 ? retainUntil : nextExpiry;
+                }
+                else {
+                    LOGGER.log(Level.FINE, "Overlap for version " + s.getValue().key().getVersionNumber() + " of " + e.getKey() + " has ended");
+                    changed = true;
+                }
+            }
+        }
+        byPrincipal.values().removeIf(Map::isEmpty);
+        Map<String, Map<Long, Slot>> frozen = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Slot>> e : byPrincipal.entrySet()) {
+            frozen.put(e.getKey(), Map.copyOf(e.getValue()));
+        }
+        loadedModified = modified;
+        if (!changed && current.generation() != 0) {
+            return false;
+        }
+        Snapshot next = new Snapshot(current.generation() + 1, Map.copyOf(frozen), nextExpiry);
+        snapshot = next;
+        for (Subject subject : subjects) {
+            replaceKeys(subject, current, next);
+        }
+        LOGGER.log(Level.FINE, "Loaded keytab " + keytab + ", generation " + next.generation());
+        return true;
+    }
+
+    private static void replaceKeys(Subject subject, Snapshot previous, Snapshot next) {
+        Set<Object> creds = subject.getPrivateCredentials();
+        synchronized (creds) {
+            if (previous != null) {
+                for (Map<Long, Slot> slots : previous.byPrincipal().values()) {
+                    for (Slot slot : slots.values()) {
+                        creds.remove(slot.key());
+                    }
+                }
+            }
+            for (Map<Long, Slot> slots : next.byPrincipal().values()) {
+                for (Slot slot : slots.values()) {
+                    creds.add(slot.key());
+                }
+            }
+        }
+    }
+
+    private static long index(int keyType, int versionNumber) {
+        return ((long) keyType << 32) | (versionNumber & 0xffffffffL);
+    }
+
+    /**
+     * Parse the entries of a version 2 keytab file, as written by MIT and Heimdal {@code ktutil} and Active Directory
+     * {@code ktpass}
+     *
+     * @param b
+     *     byte[] the contents of the file
+     * @return List of KerberosKey
+     * @throws IOException
+     *     if the format of the file is invalid
+     */
+    static List<KerberosKey> parse(byte[] b) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(b);
+        List<KerberosKey> keys = new ArrayList<>();
+        try {
+            if (buf.getShort() != KEYTAB_V2) {
+                throw new IOException("Unsupported keytab version");
+            }
+            while (buf.remaining() >= 4) {
+                int size = buf.getInt();
+                if (size == 0) {
+                    break;
+                }
+                if (size < 0) {
+                    // Hole left by a deleted entry
+                    buf.position(buf.position() - size);
+                    continue;
+                }
+                int end = buf.position() + size;
+                ByteBuffer entry = buf.slice(buf.position(), size);
+                buf.position(end);
+
+                int components = entry.getShort() & 0xffff;
+                String realm = string(entry);
+                StringBuilder name = new StringBuilder(64);
+                for (int i = 0; i < components; i++) {
+                    if (i > 0) {
+                        name.append('/');
+                    }
+                    name.append(string(entry));
+                }
+                entry.getInt(); // name type
+                entry.getInt(); // timestamp
+                int kvno = entry.get() & 0xff;
+                int keyType = entry.getShort() & 0xffff;
+                byte[] key = new byte[entry.getShort() & 0xffff];
+                entry.get(key);
+                if (entry.remaining() >= 4) {
+                    // The 32-bit key version, when present and non-zero, supersedes the 8-bit one
+                    int kvno32 = entry.getInt();
+                    if (kvno32 != 0) {
+                        kvno = kvno32;
+                    }
+                }
+                name.append('@').append(realm);
+                keys.add(new KerberosKey(new KerberosPrincipal(name.toString()), key, keyType, kvno));
+            }
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated or malformed keytab", e);
+        }
+        return keys;
+    }
+
+    private static String string(ByteBuffer buf) {
+        int len = buf.getShort() & 0xffff;
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+        buf.position(buf.position() + len);
+        return s;
+    }
+
+}
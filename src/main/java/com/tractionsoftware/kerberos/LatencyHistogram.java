@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, with log-linear buckets in the style of HdrHistogram.
+ *
+ * <p>
+ * Each power of two is split into {@link #SUB_BUCKETS} linear buckets, so values are kept to within 12.5%, and any
+ * positive {@code long} can be recorded in a fixed 4KB of counters. Recording increments one bucket and adds to
+ * striped total and maximum cells, without locks or retry loops; readers see a consistent enough view for
+ * monitoring, not a snapshot.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Number of linear buckets per power of two
+     */
+    public static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BITS = 3;
+
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a duration
+     *
+     * @param nanos
+     *     long, negative values are counted as zero
+     */
+    public void record(long nanos) {
+        long v = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketIndex(v));
+        total.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Return the number of values recorded
+     *
+     * @return long
+     */
+    public long getCount() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        return n;
+    }
+
+    /**
+     * Return the sum of the values recorded
+     *
+     * @return long
+     */
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    /**
+     * Return the largest value recorded
+     *
+     * @return long
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Return the value at or below which the specified share of values fall
+     *
+     * @param percentile
+     *     double, 0 to 100
+     * @return long the upper bound of the bucket holding that value, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Return the number of buckets, for exporting the full distribution
+     *
+     * @return int
+     */
+    public int bucketCount() {
+        return BUCKETS;
+    }
+
+    /**
+     * Return the number of values recorded in a bucket
+     *
+     * @param idx
+     *     int
+     * @return long
+     */
+    public long bucketCount(int idx) {
+        return counts.get(idx);
+    }
+
+    /**
+     * Return the smallest value that falls in a bucket
+     *
+     * @param idx
+     *     int
+     * @return long
+     */
+    public long bucketLowerBound(int idx) {
+        if (idx < SUB_BUCKETS) {
+            return idx;
+        }
+        int exp = (idx >>> SUB_BITS) + SUB_BITS - 1;
+        return (1L << exp) | ((long) (idx & (SUB_BUCKETS - 1)) << (exp - SUB_BITS));
+    }
+
+    /**
+     * Return the largest value that falls in a bucket
+     *
+     * @param idx
+     *     int
+     * @return long
+     */
+    public long bucketUpperBound(int idx) {
+        return idx == BUCKETS - 1 ? Long.MAX_VALUE : bucketLowerBound(idx + 1) - 1;
+    }
+
+    /**
+     * Clear all values
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    static int bucketIndex(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        return ((exp - SUB_BITS + 1) << SUB_BITS) | (int) ((v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+}
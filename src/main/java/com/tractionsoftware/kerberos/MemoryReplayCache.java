@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory {@link ReplayCache} that scales with concurrent accepts.
+ *
+ * <p>
+ * Authenticators are remembered by a 128-bit digest in time buckets one clock skew wide. Lookups and inserts go
+ * through {@link ConcurrentHashMap}s, and expired buckets are dropped whole when the ring rotates, so there is no
+ * global lock and no per-entry expiry scan. Each digest is kept for between two and three clock skews.
+ */
+public class MemoryReplayCache implements ReplayCache {
+
+    /**
+     * Default Kerberos clock skew, in seconds
+     */
+    public static final int DEFAULT_CLOCK_SKEW_SECONDS = 300;
+
+    // Current bucket plus the two before it
+
+    private static final int BUCKETS = 3;
+
+    private record Digest(long hi, long lo) {
+    }
+
+    private static final class Bucket {
+
+        private final long epoch;
+
+        private final Set<Digest> digests = ConcurrentHashMap.newKeySet();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+
+    }
+
+    private final long bucketMillis;
+
+    private final AtomicReferenceArray<Bucket> ring = new AtomicReferenceArray<>(BUCKETS);
+
+    /**
+     * Class constructor using the default Kerberos clock skew
+     */
+    public MemoryReplayCache() {
+        this(DEFAULT_CLOCK_SKEW_SECONDS);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param clockSkewSeconds
+     *     the clock skew allowed by the KDC configuration
+     */
+    public MemoryReplayCache(int clockSkewSeconds) {
+        if (clockSkewSeconds <= 0) {
+            throw new IllegalArgumentException("clockSkewSeconds must be positive");
+        }
+        this.bucketMillis = TimeUnit.SECONDS.toMillis(clockSkewSeconds);
+    }
+
+    @Override
+    public boolean checkAndRecord(byte[] buf, int off, int len) {
+        Digest digest = digest(buf, off, len);
+        long epoch = System.currentTimeMillis() / bucketMillis;
+        Bucket current = bucket(epoch);
+        for (int i = 1; i < BUCKETS; i++) {
+            Bucket older = ring.get((int) ((epoch - i) % BUCKETS));
+            if (older != null && older.epoch == epoch - i && older.digests.contains(digest)) {
+                return false;
+            }
+        }
+        return current.digests.add(digest);
+    }
+
+    /**
+     * Return the number of remembered authenticators, including some that may have expired
+     *
+     * @return int
+     */
+    public int size() {
+        int n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            Bucket b = ring.get(i);
+            if (b != null) {
+                n += b.digests.size();
+            }
+        }
+        return n;
+    }
+
+    private Bucket bucket(long epoch) {
+        int slot = (int) (epoch % BUCKETS);
+        for (;;) {
+            Bucket b = ring.get(slot);
+            if (b != null && b.epoch == epoch) {
+                return b;
+            }
+            if (b != null && b.epoch > epoch) {
+                // The clock went backwards past a rotation; keep using the newer bucket
+                return b;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (ring.compareAndSet(slot, b, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static Digest digest(byte[] buf, int off, int len) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        md.update(buf, off, len);
+        byte[] d = md.digest();
+        return new Digest(toLong(d, 0), toLong(d, 8));
+    }
+
+    private static long toLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xff);
+        }
+        return v;
+    }
+
+}
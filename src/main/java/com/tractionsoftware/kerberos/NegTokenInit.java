@@ -20,10 +20,11 @@
 package com.tractionsoftware.kerberos;
 
 import com.tractionsoftware.asn.*;
-import org.ietf.jgss.GSSException;
 import org.ietf.jgss.Oid;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -33,6 +34,9 @@ import java.util.stream.Collectors;
 /**
  * Contains the details of an SPNEGO NegTokenInit blob.
  *
+ * <p>
+ * {@link NegTokenInitView} decodes the same blobs in place, without allocating.
+ *
  * @author gkspencer
  */
 public class NegTokenInit {
@@ -167,13 +171,16 @@ public class NegTokenInit {
      * @return boolean
      */
     public final boolean hasOid(Oid oid) {
-        boolean foundOid = false;
-
-        if (m_mechTypes != null) {
-            foundOid = oid.containedIn(m_mechTypes);
+        if (m_mechTypes == null) {
+            return false;
         }
-
-        return foundOid;
+        // Decoded mechTypes are usually the shared instances from the OidRegistry
+        for (Oid mechType : m_mechTypes) {
+            if (mechType == oid) {
+                return true;
+            }
+        }
+        return oid.containedIn(m_mechTypes);
     }
 
     /**
@@ -209,19 +216,51 @@ public class NegTokenInit {
      * @param len
      *     int
      * @throws IOException
-     *     if the format of the data is invalid.
+     *     if the format of the data is invalid, or it lists more than {@link NegTokenInitView#MAX_MECH_TYPES}
+     *     mechTypes.
      */
     public void decode(byte[] buf, int off, int len) throws IOException {
-        // Create a DER buffer to decode the blob
-        DERBuffer derBuf = new DERBuffer(buf, off, len);
-        // Get the first object from the blob
-        DERObject derObj = derBuf.unpackApplicationSpecific();
-        if (derObj instanceof DEROid derOid) {
-            // Check that the OID indicates SPNEGO
-            decodeWithOid(buf, derBuf, derOid);
+        TokenCodecEvent event = new TokenCodecEvent();
+        event.begin();
+        NegTokenInitView view = new NegTokenInitView().wrap(buf, off, len);
+        if (view.isKerberos()) {
+            setAlreadyDecoded(buf, off, len);
         }
         else {
-            throw new IOException("Invalid security blob");
+            // Registered mechanisms resolve to shared Oids without parsing
+            m_mechTypes = new Oid[view.numberOfOids()];
+            for (int i = 0; i < m_mechTypes.length; i++) {
+                m_mechTypes[i] = OidRegistry.intern(buf, view.oidOffset(i), view.oidLength(i));
+            }
+            m_contextFlags = view.getContextFlags();
+            m_mechToken = Arrays.copyOfRange(buf, view.mechTokenOffset(), view.mechTokenOffset() + view.mechTokenLength());
+        }
+        if (event.shouldCommit()) {
+            event.operation = "NegTokenInit.decode";
+            event.tokenSize = len;
+            event.mechanism = numberOfOids() > 0 ? String.valueOf(getOidAt(0)) : null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Decode an SPNEGO NegTokenInit blob held in a buffer. The blob is the bytes between the position and the limit; the
+     * position is not changed. Heap buffers are decoded in place, and direct buffers are copied once.
+     *
+     * @param buf
+     *     ByteBuffer
+     * @throws IOException
+     *     if the format of the data is invalid, or it lists more than {@link NegTokenInitView#MAX_MECH_TYPES}
+     *     mechTypes.
+     */
+    public void decode(ByteBuffer buf) throws IOException {
+        if (buf.hasArray()) {
+            decode(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        }
+        else {
+            byte[] b = new byte[buf.remaining()];
+            buf.get(buf.position(), b);
+            decode(b, 0, b.length);
         }
     }
 
@@ -285,93 +324,124 @@ public class NegTokenInit {
         return derBuf.getBytes();
     }
 
-    private void decodeWithOid(byte[] buf, DERBuffer derBuf, DEROid derOid) throws IOException {
-        String oidName = derOid.getOid();
-        switch (oidName) {
-        case CommonOids.ID_KERBEROS5 -> setAlreadyDecoded(buf);
-        case CommonOids.ID_SPNEGO -> decodeFromSPNEGO(derBuf);
-        default -> throw new IOException("Blob is not Kerberos v5 or SPNEGO.");
-        }
+    /**
+     * Return the exact length of the encoded NegTokenInit blob
+     *
+     * @return int
+     * @throws IOException
+     *     if an OID cannot be encoded.
+     */
+    public int encodedLength() throws IOException {
+        return encodedLength(mechTypesDER(), principalBytes());
     }
 
-    private void setAlreadyDecoded(byte[] buf) {
-        // ALF-6284 fix, the blob is already kerberos5, no need to parse
-        m_mechTypes = new Oid[] { CommonOids.KERBEROS5 };
-        m_mechToken = buf;
+    /**
+     * Encode an SPNEGO NegTokenInit blob into a caller-supplied array, in a single pass
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @return int the number of bytes written
+     * @throws IOException
+     *     if the blob does not fit or an OID cannot be encoded.
+     */
+    public int encode(byte[] buf, int off) throws IOException {
+        return encode(ByteBuffer.wrap(buf, off, buf.length - off));
     }
 
-    private void decodeFromSPNEGO(DERBuffer derBuf) throws IOException {
-        // Get the remaining objects from the DER buffer
-        DERObject derObj = derBuf.unpackObject();
-        if (derObj instanceof DERSequence derSeq) {
-            decodeMechTypes(derSeq);
-        }
-        else {
-            throw new IOException("Bad object type in SPNEGO blob.");
+    /**
+     * Encode an SPNEGO NegTokenInit blob at the position of a caller-supplied buffer, in a single pass, writing the
+     * tags and lengths directly. The position is advanced past the blob.
+     *
+     * @param dst
+     *     ByteBuffer
+     * @return int the number of bytes written
+     * @throws IOException
+     *     if the blob does not fit or an OID cannot be encoded.
+     */
+    public int encode(ByteBuffer dst) throws IOException {
+        byte[][] mechTypes = mechTypesDER();
+        byte[] principal = principalBytes();
+        byte[] spnego = DERWriter.der(CommonOids.SPNEGO);
+        int oidsLen = oidsLength(mechTypes);
+        int seqLen = initSequenceContentLength(oidsLen, principal);
+        int appLen = spnego.length + DERWriter.elementLength(DERWriter.elementLength(seqLen));
+        int total = DERWriter.elementLength(appLen);
+        DERWriter.checkRemaining(dst, total);
+
+        int pos = dst.position();
+        pos = DERWriter.putHeader(dst, pos, DERCursor.APPLICATION, appLen);
+        pos = DERWriter.putBytes(dst, pos, spnego, 0, spnego.length);
+        pos = DERWriter.putHeader(dst, pos, DERCursor.CONTEXT, DERWriter.elementLength(seqLen));
+        pos = DERWriter.putHeader(dst, pos, DERCursor.SEQUENCE, seqLen);
+
+        // mechTypes
+
+        pos = DERWriter.putHeader(dst, pos, DERCursor.CONTEXT, DERWriter.elementLength(oidsLen));
+        pos = DERWriter.putHeader(dst, pos, DERCursor.SEQUENCE, oidsLen);
+        for (byte[] der : mechTypes) {
+            pos = DERWriter.putBytes(dst, pos, der, 0, der.length);
         }
-    }
-
-    private void decodeMechTypes(DERSequence derSeq) throws IOException {
 
-        // Access the sequence, should be a sequence of tagged values
-
-        // Get the mechTypes list
+        // mechListMIC
+        //
+        // Note: This field is not as specified
 
-        DERObject derObj = derSeq.getTaggedObject(0);
-        if (derObj == null) {
-            throw new IOException("No mechTypes list in blob");
+        if (principal != null) {
+            int strLen = DERWriter.elementLength(principal.length);
+            pos = DERWriter.putHeader(dst, pos, DERCursor.CONTEXT | 3, DERWriter.elementLength(DERWriter.elementLength(strLen)));
+            pos = DERWriter.putHeader(dst, pos, DERCursor.SEQUENCE, DERWriter.elementLength(strLen));
+            pos = DERWriter.putHeader(dst, pos, DERCursor.CONTEXT, strLen);
+            pos = DERWriter.putHeader(dst, pos, DERCursor.GENERAL_STRING, principal.length);
+            pos = DERWriter.putBytes(dst, pos, principal, 0, principal.length);
         }
-        if (!(derObj instanceof DERSequence derOidSeq)) {
-            throw new IOException("Invalid mechTypes object");
-        }
-
-        // Unpack the OID list (required)
 
-        m_mechTypes = new Oid[derOidSeq.numberOfObjects()];
-        int idx = 0;
+        dst.position(pos);
+        return total;
+    }
 
-        for (int i = 0; i < derOidSeq.numberOfObjects(); i++) {
-            derObj = derOidSeq.getObjectAt(i);
-            if (derObj instanceof DEROid derOid) {
-                try {
-                    m_mechTypes[idx++] = new Oid(derOid.getOid());
-                }
-                catch (GSSException ex) {
-                    throw new IOException("Bad mechType OID");
-                }
-            }
+    private byte[][] mechTypesDER() throws IOException {
+        byte[][] der = new byte[m_mechTypes.length][];
+        for (int i = 0; i < der.length; i++) {
+            der[i] = DERWriter.der(m_mechTypes[i]);
         }
+        return der;
+    }
 
-        // Unpack the context flags (optional)
+    private byte[] principalBytes() {
+        return m_mecListMICPrincipal != null ? m_mecListMICPrincipal.getBytes(StandardCharsets.UTF_8) : null;
+    }
 
-        derObj = derSeq.getTaggedObject(1);
-        if (derObj != null) {
-            // Check the type
-            if (derObj instanceof DERBitString derBitStr) {
-                // Get the bit flags
-                m_contextFlags = derBitStr.intValue();
-            }
+    private static int oidsLength(byte[][] mechTypes) {
+        int oidsLen = 0;
+        for (byte[] der : mechTypes) {
+            oidsLen += der.length;
         }
+        return oidsLen;
+    }
 
-        // Unpack the mechToken (required)
-        derObj = derSeq.getTaggedObject(2);
-        if (derObj == null) {
-            throw new IOException("No mechToken in blob");
-        }
-        if (!(derObj instanceof DEROctetString derStr)) {
-            throw new IOException("Invalid mechToken object");
-        }
+    private static int encodedLength(byte[][] mechTypes, byte[] principal) throws IOException {
+        int seqLen = initSequenceContentLength(oidsLength(mechTypes), principal);
+        int appLen = DERWriter.der(CommonOids.SPNEGO).length + DERWriter.elementLength(DERWriter.elementLength(seqLen));
+        return DERWriter.elementLength(appLen);
+    }
 
-        m_mechToken = derStr.getValue();
+    // Return the length of the content of the NegTokenInit SEQUENCE
 
-        // Unpack the mechListMIC (optional)
-//        derObj = derSeq.getTaggedObject(3);
-//        if (derObj != null) {
-//            // Check for the Microsoft format mechListMIC
-//            if (derObj instanceof DERSequence) {
-//            }
-//        }
+    private static int initSequenceContentLength(int oidsLen, byte[] principal) {
+        int content = DERWriter.elementLength(DERWriter.elementLength(oidsLen));
+        if (principal != null) {
+            int strLen = DERWriter.elementLength(DERWriter.elementLength(principal.length));
+            content += DERWriter.elementLength(DERWriter.elementLength(strLen));
+        }
+        return content;
+    }
 
+    private void setAlreadyDecoded(byte[] buf, int off, int len) {
+        // ALF-6284 fix, the blob is already kerberos5, no need to parse
+        m_mechTypes = new Oid[] { CommonOids.KERBEROS5 };
+        m_mechToken = off == 0 && len == buf.length ? buf : Arrays.copyOfRange(buf, off, off + len);
     }
 
 }
@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.Oid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Flyweight decoder for an SPNEGO NegTokenInit blob, or a bare Kerberos v5 blob.
+ *
+ * <p>
+ * Unlike {@link NegTokenInit#decode(byte[], int, int)}, this walks the DER bytes in place: the mechTypes, the
+ * context flags and the mechToken are exposed as offsets into the caller's array, and no objects are created.
+ * The array must not be modified while the view is in use. Instances are reusable, so one per thread can decode
+ * any number of blobs, but they are not thread-safe.
+ */
+public final class NegTokenInitView {
+
+    /**
+     * Maximum number of mechTypes accepted in a blob
+     */
+    public static final int MAX_MECH_TYPES = 16;
+
+    // DER content of the SPNEGO and Kerberos v5 OIDs
+
+    private static final byte[] SPNEGO_OID = { 0x2b, 0x06, 0x01, 0x05, 0x05, 0x02 };
+
+    private static final byte[] KERBEROS5_OID = { 0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x12, 0x01, 0x02, 0x02 };
+
+    private final DERCursor cursor = new DERCursor();
+
+    private byte[] buf;
+
+    // Staging array for direct buffers
+
+    private byte[] scratch;
+
+    // Offset and length of the DER encoding of each mechType
+
+    private final int[] mechTypeOff = new int[MAX_MECH_TYPES];
+
+    private final int[] mechTypeLen = new int[MAX_MECH_TYPES];
+
+    private int mechTypeCount;
+
+    private int contextFlags;
+
+    private int mechTokenOff;
+
+    private int mechTokenLen;
+
+    private boolean kerberos;
+
+    /**
+     * Decode an SPNEGO NegTokenInit blob, or accept a Kerberos v5 blob.
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return this view
+     * @throws IOException
+     *     if the format of the data is invalid.
+     */
+    public NegTokenInitView wrap(byte[] buf, int off, int len) throws IOException {
+        this.buf = buf;
+        mechTypeCount = 0;
+        contextFlags = -1;
+        mechTokenOff = -1;
+        mechTokenLen = 0;
+        kerberos = false;
+
+        DERCursor c = cursor.reset(buf, off, len);
+        c.expect(DERCursor.APPLICATION);
+        c.enter();
+        c.expect(DERCursor.OID);
+        if (c.contentEquals(KERBEROS5_OID, 0, KERBEROS5_OID.length)) {
+            // ALF-6284 fix, the blob is already kerberos5, no need to parse
+            kerberos = true;
+            mechTypeOff[0] = c.headerOffset();
+            mechTypeLen[0] = c.elementLength();
+            mechTypeCount = 1;
+            mechTokenOff = off;
+            mechTokenLen = len;
+            return this;
+        }
+        if (!c.contentEquals(SPNEGO_OID, 0, SPNEGO_OID.length)) {
+            throw new IOException("Blob is not Kerberos v5 or SPNEGO.");
+        }
+
+        // [0] NegTokenInit ::= SEQUENCE
+
+        if (c.next() != (DERCursor.CONTEXT | 0)) {
+            throw new IOException("Bad object type in SPNEGO blob.");
+        }
+        c.enter();
+        c.expect(DERCursor.SEQUENCE);
+        c.enter();
+        boolean haveMechTypes = false;
+        while (c.hasNext()) {
+            int tag = c.next();
+            switch (tag) {
+            case DERCursor.CONTEXT | 0 -> {
+                decodeMechTypes(c);
+                haveMechTypes = true;
+            }
+            case DERCursor.CONTEXT | 1 -> {
+                c.enter();
+                if (c.next() == DERCursor.BIT_STRING) {
+                    contextFlags = c.bitStringValue();
+                }
+                c.exit();
+            }
+            case DERCursor.CONTEXT | 2 -> {
+                c.enter();
+                if (c.next() != DERCursor.OCTET_STRING) {
+                    throw new IOException("Invalid mechToken object");
+                }
+                mechTokenOff = c.contentOffset();
+                mechTokenLen = c.contentLength();
+                c.exit();
+            }
+            default -> {
+                // mechListMIC is not used
+            }
+            }
+        }
+        if (!haveMechTypes) {
+            throw new IOException("No mechTypes list in blob");
+        }
+        if (mechTokenOff < 0) {
+            throw new IOException("No mechToken in blob");
+        }
+        return this;
+    }
+
+    private void decodeMechTypes(DERCursor c) throws IOException {
+        c.enter();
+        if (c.next() != DERCursor.SEQUENCE) {
+            throw new IOException("Invalid mechTypes object");
+        }
+        c.enter();
+        while (c.hasNext()) {
+            if (c.next() == DERCursor.OID) {
+                if (mechTypeCount == MAX_MECH_TYPES) {
+                    throw new IOException("Too many mechTypes in blob");
+                }
+                mechTypeOff[mechTypeCount] = c.headerOffset();
+                mechTypeLen[mechTypeCount] = c.elementLength();
+                mechTypeCount++;
+            }
+        }
+        c.exit();
+        c.exit();
+    }
+
+    /**
+     * Decode an SPNEGO NegTokenInit blob held in a buffer. The blob is the bytes between the position and the limit; the
+     * position is not changed. Heap buffers are decoded in place. Direct buffers are copied once into a scratch
+     * array owned by this view, so offsets always refer to {@link #buffer()}.
+     *
+     * @param buf
+     *     ByteBuffer
+     * @return this view
+     * @throws IOException
+     *     if the format of the data is invalid.
+     */
+    public NegTokenInitView wrap(ByteBuffer buf) throws IOException {
+        if (buf.hasArray()) {
+            return wrap(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        }
+        int len = buf.remaining();
+        if (scratch == null || scratch.length < len) {
+            scratch = new byte[Math.max(len, 1024)];
+        }
+        buf.get(buf.position(), scratch, 0, len);
+        return wrap(scratch, 0, len);
+    }
+
+    /**
+     * Return the array the view refers to
+     *
+     * @return byte[]
+     */
+    public byte[] buffer() {
+        return buf;
+    }
+
+    /**
+     * Check if the blob was a bare Kerberos v5 blob rather than SPNEGO
+     *
+     * @return boolean
+     */
+    public boolean isKerberos() {
+        return kerberos;
+    }
+
+    /**
+     * Return the count of OIDs
+     *
+     * @return int
+     */
+    public int numberOfOids() {
+        return mechTypeCount;
+    }
+
+    /**
+     * Return the offset of the DER encoding of the specified mechType
+     *
+     * @param idx
+     *     int
+     * @return int
+     */
+    public int oidOffset(int idx) {
+        checkIndex(idx);
+        return mechTypeOff[idx];
+    }
+
+    /**
+     * Return the length of the DER encoding of the specified mechType
+     *
+     * @param idx
+     *     int
+     * @return int
+     */
+    public int oidLength(int idx) {
+        checkIndex(idx);
+        return mechTypeLen[idx];
+    }
+
+    /**
+     * Check if the specified mechType has the given DER encoding, as returned by {@link Oid#getDER()}
+     *
+     * @param idx
+     *     int
+     * @param der
+     *     byte[]
+     * @return boolean
+     */
+    public boolean oidEquals(int idx, byte[] der) {
+        checkIndex(idx);
+        int from = mechTypeOff[idx];
+        return Arrays.equals(buf, from, from + mechTypeLen[idx], der, 0, der.length);
+    }
+
+    /**
+     * Return the index of the mechType with the given DER encoding
+     *
+     * @param der
+     *     byte[]
+     * @return int the index, or -1 if it is not listed
+     */
+    public int indexOfOid(byte[] der) {
+        for (int i = 0; i < mechTypeCount; i++) {
+            if (oidEquals(i, der)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the specified mechType as an {@link Oid}. Registered mechanisms return a shared instance from the
+     * {@link OidRegistry}; others allocate, so prefer {@link #oidEquals(int, byte[])}.
+     *
+     * @param idx
+     *     int
+     * @return Oid
+     * @throws IOException
+     *     if the OID encoding is invalid
+     */
+    public Oid getOidAt(int idx) throws IOException {
+        checkIndex(idx);
+        return OidRegistry.intern(buf, mechTypeOff[idx], mechTypeLen[idx]);
+    }
+
+    /**
+     * Return the context flags
+     *
+     * @return int, or -1 if there were none
+     */
+    public int getContextFlags() {
+        return contextFlags;
+    }
+
+    /**
+     * Return the offset of the mechToken
+     *
+     * @return int
+     */
+    public int mechTokenOffset() {
+        return mechTokenOff;
+    }
+
+    /**
+     * Return the length of the mechToken
+     *
+     * @return int
+     */
+    public int mechTokenLength() {
+        return mechTokenLen;
+    }
+
+    private void checkIndex(int idx) {
+        if (idx < 0 || idx >= mechTypeCount) {
+            throw new IndexOutOfBoundsException("mechType " + idx + " of " + mechTypeCount);
+        }
+    }
+
+}
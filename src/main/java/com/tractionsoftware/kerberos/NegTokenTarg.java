@@ -20,14 +20,18 @@
 package com.tractionsoftware.kerberos;
 
 import com.tractionsoftware.asn.*;
-import org.ietf.jgss.GSSException;
 import org.ietf.jgss.Oid;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Contains the details of an SPNEGO NegTokenTarg blob.
  *
+ * <p>
+ * {@link NegTokenTargView} decodes the same blobs in place, without allocating.
+ *
  * @author gkspencer
  */
 public class NegTokenTarg {
@@ -116,91 +120,36 @@ public class NegTokenTarg {
      *     if the format of the data is invalid.
      */
     public void decode(byte[] buf, int off, int len) throws IOException {
+        NegTokenTargView view = new NegTokenTargView().wrap(buf, off, len);
+        if (view.getResult() != -1) {
+            m_result = view.getResult();
+        }
+        // Registered mechanisms resolve to shared Oids without parsing
+        m_supportedMech = view.hasSupportedMech()
+            ? OidRegistry.intern(buf, view.supportedMechOffset(), view.supportedMechLength())
+            : null;
+        m_responseToken = view.hasResponseToken()
+            ? Arrays.copyOfRange(buf, view.responseTokenOffset(), view.responseTokenOffset() + view.responseTokenLength())
+            : null;
+    }
 
-        // Create a DER buffer to decode the blob
-
-        DERBuffer derBuf = new DERBuffer(buf, off, len);
-
-        // Get the first object from the blob
-
-        DERObject derObj = derBuf.unpackObject();
-
-        if (derObj instanceof DERSequence) {
-
-            // Access the sequence
-
-            DERSequence derSeq = (DERSequence) derObj;
-
-            // Get the status
-
-            derObj = derSeq.getTaggedObject(0);
-            if (derObj != null) {
-
-                if (!(derObj instanceof DEREnumerated)) {
-                    throw new IOException("Invalid status object");
-                }
-
-                DEREnumerated derEnum = (DEREnumerated) derObj;
-                m_result = derEnum.getValue();
-            }
-
-            // Get the supportedMech (optional)
-
-            derObj = derSeq.getTaggedObject(1);
-            if (derObj != null) {
-
-                // Check the object type
-
-                if (!(derObj instanceof DEROid)) {
-                    throw new IOException("Invalid supportedMech object");
-                }
-
-                DEROid derMech = (DEROid) derObj;
-                try {
-                    m_supportedMech = new Oid(derMech.getOid());
-                }
-                catch (GSSException ex) {
-                    throw new IOException("Bad supportedMech OID");
-                }
-            }
-            else {
-                m_supportedMech = null;
-            }
-
-            // Get the responseToken (optional)
-
-            derObj = derSeq.getTaggedObject(2);
-            if (derObj != null) {
-
-                // Check the object type
-
-                if (!(derObj instanceof DEROctetString)) {
-                    throw new IOException("Invalid responseToken object");
-                }
-
-                DEROctetString derResp = (DEROctetString) derObj;
-                m_responseToken = derResp.getValue();
-            }
-            else {
-                m_responseToken = null;
-            }
-
-            // Get the mecListMIC (optional)
-
-            derObj = derSeq.getTaggedObject(3);
-            if (derObj != null) {
-
-                // Check the object type
-
-                if (!(derObj instanceof DEROctetString)) {
-                    throw new IOException("Invalid mecListMIC object");
-                }
-
-                DEROctetString derMec = (DEROctetString) derObj;
-            }
+    /**
+     * Decode an SPNEGO NegTokenTarg blob held in a buffer. The blob is the bytes between the position and the limit; the
+     * position is not changed. Heap buffers are decoded in place, and direct buffers are copied once.
+     *
+     * @param buf
+     *     ByteBuffer
+     * @throws IOException
+     *     if the format of the data is invalid.
+     */
+    public void decode(ByteBuffer buf) throws IOException {
+        if (buf.hasArray()) {
+            decode(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
         }
         else {
-            throw new IOException("Bad format in security blob");
+            byte[] b = new byte[buf.remaining()];
+            buf.get(buf.position(), b);
+            decode(b, 0, b.length);
         }
     }
 
@@ -213,6 +162,9 @@ public class NegTokenTarg {
      */
     public byte[] encode() throws IOException {
 
+        TokenCodecEvent event = new TokenCodecEvent();
+        event.begin();
+
         // Build the sequence of tagged objects
 
         DERSequence derSeq = new DERSequence();
@@ -247,7 +199,146 @@ public class NegTokenTarg {
 
         // Return the packed negTokenInit blob
 
-        return derBuf.getBytes();
+        byte[] blob = derBuf.getBytes();
+        if (event.shouldCommit()) {
+            commit(event, m_supportedMech, blob.length);
+        }
+        return blob;
+    }
+
+    /**
+     * Return the exact length of the encoded NegTokenTarg blob
+     *
+     * @return int
+     * @throws IOException
+     *     if the supportedMech cannot be encoded.
+     */
+    public int encodedLength() throws IOException {
+        return encodedLength(m_result, m_supportedMech, m_responseToken != null ? m_responseToken.length : -1);
+    }
+
+    /**
+     * Encode an SPNEGO NegTokenTarg blob into a caller-supplied array, in a single pass
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @return int the number of bytes written
+     * @throws IOException
+     *     if the blob does not fit or the supportedMech cannot be encoded.
+     */
+    public int encode(byte[] buf, int off) throws IOException {
+        return encode(ByteBuffer.wrap(buf, off, buf.length - off));
+    }
+
+    /**
+     * Encode an SPNEGO NegTokenTarg blob at the position of a caller-supplied buffer, in a single pass. The
+     * position is advanced past the blob.
+     *
+     * @param dst
+     *     ByteBuffer
+     * @return int the number of bytes written
+     * @throws IOException
+     *     if the blob does not fit or the supportedMech cannot be encoded.
+     */
+    public int encode(ByteBuffer dst) throws IOException {
+        if (m_responseToken != null) {
+            return encode(m_result, m_supportedMech, m_responseToken, 0, m_responseToken.length, dst);
+        }
+        return encode(m_result, m_supportedMech, null, 0, -1, dst);
+    }
+
+    /**
+     * Return the exact length of an encoded NegTokenTarg blob
+     *
+     * @param result
+     *     int
+     * @param supportedMech
+     *     Oid, or null
+     * @param responseLen
+     *     int length of the response token, or -1 if there is none
+     * @return int
+     * @throws IOException
+     *     if the supportedMech cannot be encoded.
+     */
+    public static int encodedLength(int result, Oid supportedMech, int responseLen) throws IOException {
+        int seqLen = sequenceContentLength(result, supportedMech != null ? DERWriter.der(supportedMech) : null, responseLen);
+        return DERWriter.elementLength(DERWriter.elementLength(seqLen));
+    }
+
+    /**
+     * Encode an SPNEGO NegTokenTarg blob at the position of a caller-supplied buffer without creating a
+     * NegTokenTarg, writing the tags, lengths and response token directly. The position is advanced past the blob.
+     *
+     * @param result
+     *     int
+     * @param supportedMech
+     *     Oid, or null
+     * @param response
+     *     byte[] containing the response token, or null
+     * @param responseOff
+     *     int
+     * @param responseLen
+     *     int
+     * @param dst
+     *     ByteBuffer
+     * @return int the number of bytes written
+     * @throws IOException
+     *     if the blob does not fit or the supportedMech cannot be encoded.
+     */
+    public static int encode(int result, Oid supportedMech, byte[] response, int responseOff, int responseLen, ByteBuffer dst)
+        throws IOException {
+
+        TokenCodecEvent event = new TokenCodecEvent();
+        event.begin();
+        byte[] mechDER = supportedMech != null ? DERWriter.der(supportedMech) : null;
+        if (response == null) {
+            responseLen = -1;
+        }
+        int seqLen = sequenceContentLength(result, mechDER, responseLen);
+        int total = DERWriter.elementLength(DERWriter.elementLength(seqLen));
+        DERWriter.checkRemaining(dst, total);
+
+        int pos = dst.position();
+        pos = DERWriter.putHeader(dst, pos, DERCursor.CONTEXT | 1, DERWriter.elementLength(seqLen));
+        pos = DERWriter.putHeader(dst, pos, DERCursor.SEQUENCE, seqLen);
+        pos = DERWriter.putHeader(dst, pos, DERCursor.CONTEXT, DERWriter.elementLength(DERWriter.intLength(result)));
+        pos = DERWriter.putInt(dst, pos, DERCursor.ENUMERATED, result);
+        if (mechDER != null) {
+            pos = DERWriter.putHeader(dst, pos, DERCursor.CONTEXT | 1, mechDER.length);
+            pos = DERWriter.putBytes(dst, pos, mechDER, 0, mechDER.length);
+        }
+        if (responseLen >= 0) {
+            pos = DERWriter.putHeader(dst, pos, DERCursor.CONTEXT | 2, DERWriter.elementLength(responseLen));
+            pos = DERWriter.putHeader(dst, pos, DERCursor.OCTET_STRING, responseLen);
+            pos = DERWriter.putBytes(dst, pos, response, responseOff, responseLen);
+        }
+        dst.position(pos);
+        if (event.shouldCommit()) {
+            commit(event, supportedMech, total);
+        }
+        return total;
+    }
+
+    private static void commit(TokenCodecEvent event, Oid supportedMech, int tokenSize) {
+        event.operation = "NegTokenTarg.encode";
+        event.tokenSize = tokenSize;
+        event.mechanism = supportedMech != null ? supportedMech.toString() : null;
+        event.commit();
+    }
+
+    // Return the length of the content of the NegTokenTarg SEQUENCE
+
+    private static int sequenceContentLength(int result, byte[] mechDER, int responseLen) {
+        int content = DERWriter.elementLength(DERWriter.elementLength(DERWriter.intLength(result)));
+        if (mechDER != null) {
+            content += DERWriter.elementLength(mechDER.length);
+        }
+        if (responseLen >= 0) {
+            content += DERWriter.elementLength(DERWriter.elementLength(responseLen));
+        }
+        return content;
     }
 
     /**
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.Oid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Flyweight decoder for an SPNEGO NegTokenTarg blob.
+ *
+ * <p>
+ * Unlike {@link NegTokenTarg#decode(byte[], int, int)}, this walks the DER bytes in place: the supportedMech and
+ * the responseToken are exposed as offsets into the caller's array, and no objects are created. The array must not
+ * be modified while the view is in use. Instances are reusable but not thread-safe.
+ */
+public final class NegTokenTargView {
+
+    private final DERCursor cursor = new DERCursor();
+
+    private byte[] buf;
+
+    // Staging array for direct buffers
+
+    private byte[] scratch;
+
+    private int result;
+
+    private int mechOff;
+
+    private int mechLen;
+
+    private int responseOff;
+
+    private int responseLen;
+
+    private int micOff;
+
+    private int micLen;
+
+    /**
+     * Decode an SPNEGO NegTokenTarg blob
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return this view
+     * @throws IOException
+     *     if the format of the data is invalid.
+     */
+    public NegTokenTargView wrap(byte[] buf, int off, int len) throws IOException {
+        this.buf = buf;
+        result = -1;
+        mechOff = -1;
+        mechLen = 0;
+        responseOff = -1;
+        responseLen = 0;
+        micOff = -1;
+        micLen = 0;
+
+        DERCursor c = cursor.reset(buf, off, len);
+        int tag = c.next();
+        if (tag == (DERCursor.CONTEXT | 1)) {
+            c.enter();
+            tag = c.next();
+        }
+        if (tag != DERCursor.SEQUENCE) {
+            throw new IOException("Bad format in security blob");
+        }
+        c.enter();
+        while (c.hasNext()) {
+            tag = c.next();
+            c.enter();
+            switch (tag) {
+            case DERCursor.CONTEXT | 0 -> {
+                if (c.next() != DERCursor.ENUMERATED) {
+                    throw new IOException("Invalid status object");
+                }
+                result = c.intValue();
+            }
+            case DERCursor.CONTEXT | 1 -> {
+                if (c.next() != DERCursor.OID) {
+                    throw new IOException("Invalid supportedMech object");
+                }
+                mechOff = c.headerOffset();
+                mechLen = c.elementLength();
+            }
+            case DERCursor.CONTEXT | 2 -> {
+                if (c.next() != DERCursor.OCTET_STRING) {
+                    throw new IOException("Invalid responseToken object");
+                }
+                responseOff = c.contentOffset();
+                responseLen = c.contentLength();
+            }
+            case DERCursor.CONTEXT | 3 -> {
+                if (c.next() != DERCursor.OCTET_STRING) {
+                    throw new IOException("Invalid mecListMIC object");
+                }
+                micOff = c.contentOffset();
+                micLen = c.contentLength();
+            }
+            default -> {
+                // Unknown fields are ignored
+            }
+            }
+            c.exit();
+        }
+        return this;
+    }
+
+    /**
+     * Decode an SPNEGO NegTokenTarg blob held in a buffer. The blob is the bytes between the position and the limit; the
+     * position is not changed. Heap buffers are decoded in place. Direct buffers are copied once into a scratch
+     * array owned by this view, so offsets always refer to {@link #buffer()}.
+     *
+     * @param buf
+     *     ByteBuffer
+     * @return this view
+     * @throws IOException
+     *     if the format of the data is invalid.
+     */
+    public NegTokenTargView wrap(ByteBuffer buf) throws IOException {
+        if (buf.hasArray()) {
+            return wrap(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        }
+        int len = buf.remaining();
+        if (scratch == null || scratch.length < len) {
+            scratch = new byte[Math.max(len, 1024)];
+        }
+        buf.get(buf.position(), scratch, 0, len);
+        return wrap(scratch, 0, len);
+    }
+
+    /**
+     * Return the array the view refers to
+     *
+     * @return byte[]
+     */
+    public byte[] buffer() {
+        return buf;
+    }
+
+    /**
+     * Return the result
+     *
+     * @return int, or -1 if there was none
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * Check if there is a supportedMech
+     *
+     * @return boolean
+     */
+    public boolean hasSupportedMech() {
+        return mechOff >= 0;
+    }
+
+    /**
+     * Return the offset of the DER encoding of the supportedMech
+     *
+     * @return int, or -1 if there was none
+     */
+    public int supportedMechOffset() {
+        return mechOff;
+    }
+
+    /**
+     * Return the length of the DER encoding of the supportedMech
+     *
+     * @return int
+     */
+    public int supportedMechLength() {
+        return mechLen;
+    }
+
+    /**
+     * Check if the supportedMech has the given DER encoding, as returned by {@link Oid#getDER()}
+     *
+     * @param der
+     *     byte[]
+     * @return boolean
+     */
+    public boolean supportedMechEquals(byte[] der) {
+        return mechOff >= 0 && Arrays.equals(buf, mechOff, mechOff + mechLen, der, 0, der.length);
+    }
+
+    /**
+     * Return the supportedMech as an {@link Oid}. Registered mechanisms return a shared instance from the
+     * {@link OidRegistry}; others allocate, so prefer {@link #supportedMechEquals(byte[])}.
+     *
+     * @return Oid, or null if there was none
+     * @throws IOException
+     *     if the OID encoding is invalid
+     */
+    public Oid getSupportedMech() throws IOException {
+        if (mechOff < 0) {
+            return null;
+        }
+        return OidRegistry.intern(buf, mechOff, mechLen);
+    }
+
+    /**
+     * Determine if there is a valid response token
+     *
+     * @return boolean
+     */
+    public boolean hasResponseToken() {
+        return responseOff >= 0;
+    }
+
+    /**
+     * Return the offset of the response token
+     *
+     * @return int, or -1 if there was none
+     */
+    public int responseTokenOffset() {
+        return responseOff;
+    }
+
+    /**
+     * Return the length of the response token
+     *
+     * @return int
+     */
+    public int responseTokenLength() {
+        return responseLen;
+    }
+
+    /**
+     * Return the offset of the mechListMIC
+     *
+     * @return int, or -1 if there was none
+     */
+    public int mechListMICOffset() {
+        return micOff;
+    }
+
+    /**
+     * Return the length of the mechListMIC
+     *
+     * @return int
+     */
+    public int mechListMICLength() {
+        return micLen;
+    }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, time-expiring cache of security blobs that recently failed to be accepted.
+ *
+ * <p>
+ * When a ticket is bad, such as after a key rotation or with a skewed clock, clients tend to resend the same token
+ * over and over. With this cache in the {@link AcceptorConfig}, a repeat of a token that failed within the time to
+ * live is rejected straight away with the original failure, without credentials or {@code acceptSecContext}, and
+ * is logged without a stack trace.
+ *
+ * <p>
+ * Tokens are keyed by a fast, non-cryptographic 128-bit hash of the Kerberos mechToken, so the same AP-REQ matches
+ * whether or not it is wrapped in SPNEGO, together with the acceptor account and the {@link KeytabIndex} generation.
+ * A token that failed for one account is still tried for another, and every failure is forgotten once the keytab is
+ * reloaded. Only the first token of a handshake is looked up, and only failures of the token itself are cached, not
+ * failures to acquire credentials. When the cache is full, expired entries are dropped first and then arbitrary ones.
+ *
+ * @see AcceptorConfig#setNegativeTokenCache(NegativeTokenCache)
+ */
+public class NegativeTokenCache {
+
+    /**
+     * Default time a failure is remembered
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+
+    /**
+     * Default maximum number of remembered failures
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    /**
+     * Hash of a mechToken, with the acceptor account and keytab generation it failed for
+     */
+    record Key(String accountName, int generation, long hi, long lo) {
+    }
+
+    private record Failure(int major, int minor, String minorString, long expiresAtNanos) {
+    }
+
+    /**
+     * A failure replayed from the cache. It has no stack trace, since it is thrown for every repeat of a bad token.
+     */
+    static final class CachedFailureException extends GSSException {
+
+        private static final long serialVersionUID = 1L;
+
+        CachedFailureException(int major, int minor, String minorString) {
+            super(major, minor, minorString);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+    }
+
+    private final ConcurrentHashMap<Key, Failure> failures = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    /**
+     * Class constructor with the default time to live and size
+     */
+    public NegativeTokenCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param ttl
+     *     time a failure is remembered
+     * @param maxEntries
+     *     maximum number of remembered failures
+     */
+    public NegativeTokenCache(Duration ttl, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Throw the remembered failure if a security blob failed recently for an acceptor account
+     *
+     * @param accountName
+     *     String, or null for the default account
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @throws GSSException
+     *     the remembered failure
+     */
+    public void check(String accountName, byte[] buf, int off, int len) throws GSSException {
+        check(key(accountName, 0, buf, off, len));
+    }
+
+    /**
+     * Remember that a security blob failed for an acceptor account
+     *
+     * @param accountName
+     *     String, or null for the default account
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @param failure
+     *     GSSException
+     */
+    public void record(String accountName, byte[] buf, int off, int len, GSSException failure) {
+        record(key(accountName, 0, buf, off, len), failure);
+    }
+
+    /**
+     * Return the number of remembered failures, including some that may have expired
+     *
+     * @return int
+     */
+    public int size() {
+        return failures.size();
+    }
+
+    /**
+     * Forget all failures, such as after the keytab has been fixed
+     */
+    public void clear() {
+        failures.clear();
+    }
+
+    void check(Key key) throws GSSException {
+        Failure failure = failures.get(key);
+        if (failure == null) {
+            return;
+        }
+        if (System.nanoTime() - failure.expiresAtNanos() >= 0) {
+            failures.remove(key, failure);
+            return;
+        }
+        throw new CachedFailureException(failure.major(), failure.minor(), failure.minorString());
+    }
+
+    void record(Key key, GSSException e) {
+        if (e instanceof CachedFailureException) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (failures.size() >= maxEntries) {
+            evict(now);
+        }
+        String minorString = e.getMinorString();
+        failures.put(key, new Failure(e.getMajor(), e.getMinor(), minorString != null ? minorString : e.getMajorString(), now + ttlNanos));
+    }
+
+    private void evict(long now) {
+        failures.values().removeIf(f -> now - f.expiresAtNanos() >= 0);
+        Iterator<Key> it = failures.keySet().iterator();
+        while (failures.size() >= maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Return the key for a security blob, hashing its mechToken if it is SPNEGO or a GSS-API Kerberos token
+     *
+     * @param accountName
+     *     String, or null for the default account
+     * @param generation
+     *     int {@link KeytabIndex} generation, or 0 if no index is used
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return Key
+     */
+    static Key key(String accountName, int generation, byte[] buf, int off, int len) {
+        if (len > 0 && (buf[off] & 0xff) == DERCursor.APPLICATION) {
+            try {
+                NegTokenInitView init = new NegTokenInitView().wrap(buf, off, len);
+                return hash(accountName, generation, buf, init.mechTokenOffset(), init.mechTokenLength());
+            }
+            catch (IOException e) {
+                // Hash the whole blob
+            }
+        }
+        return hash(accountName, generation, buf, off, len);
+    }
+
+    // Two lanes of multiply-rotate mixing over little-endian words, in the style of MurmurHash3
+
+    private static Key hash(String accountName, int generation, byte[] b, int off, int len) {
+        long h1 = len;
+        long h2 = ~(long) len;
+        int i = off;
+        int end = off + len;
+        for (; end - i >= 16; i += 16) {
+            long k1 = (long) LONGS.get(b, i);
+            long k2 = (long) LONGS.get(b, i + 8);
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+            h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+            h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+        }
+        long k1 = 0;
+        long k2 = 0;
+        for (int shift = 0; i < end && shift < 64; i++, shift += 8) {
+            k1 |= (b[i] & 0xffL) << shift;
+        }
+        for (int shift = 0; i < end; i++, shift += 8) {
+            k2 |= (b[i] & 0xffL) << shift;
+        }
+        h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+        h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Key(accountName, generation, h1, h2);
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import com.sun.net.httpserver.HttpsExchange;
+import org.ietf.jgss.GSSException;
+
+import javax.net.ssl.SSLSession;
+import javax.security.auth.Subject;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * HTTP Negotiate authentication for the JDK's built-in {@code com.sun.net.httpserver}, bound to HTTPS connections.
+ *
+ * <p>
+ * A request with an {@code Authorization: Negotiate} header is accepted with a {@link SessionSetupPrivilegedAction}
+ * under the acceptor's {@link Subject}, continuing multi-round handshakes if the config has a
+ * {@link HandshakeTable}. Once a context is established over HTTPS, its principal is bound to the connection, and
+ * later requests on the same keep-alive connection without an {@code Authorization} header are authenticated as
+ * that principal without another accept. A binding lasts no longer than the ticket's
+ * {@link KerberosDetails#getRemainingLifetimeSeconds() remaining lifetime}, and is dropped when the connection has
+ * been idle for the idle timeout or when a new Negotiate token on it fails.
+ *
+ * <p>
+ * A connection is identified by its local and remote addresses and, for HTTPS, its TLS session. Over plain HTTP
+ * the addresses alone are all there is, and behind a NAT or a reverse proxy that pools its upstream connections
+ * they are shared by many clients, so plain HTTP connections are only bound after
+ * {@link #setBindPlainConnections(boolean)}. Even then the idle timeout must stay below the server's own idle
+ * connection timeout ({@code sun.net.httpserver.idleInterval}, 30 seconds by default), so that a binding is gone
+ * before its connection is closed and the addresses can be reused. The config's detail fields must include
+ * {@link KerberosDetails#SOURCE_NAME} and {@link KerberosDetails#LIFETIME}; contexts without a lifetime are not
+ * bound, and those with an indefinite one are only bounded by the idle timeout.
+ *
+ * <p>
+ * The authenticated {@link HttpExchange#getPrincipal()} is a {@link NegotiatePrincipal} carrying the
+ * {@link KerberosDetails}. Load shed by an {@link AdmissionController} is answered with 503 and a
+ * {@code Retry-After} header.
+ */
+public class NegotiateAuthenticator extends Authenticator {
+
+    private static final Logger LOGGER = Logger.getLogger(NegotiateAuthenticator.class.getName());
+
+    /**
+     * Default time a connection may be idle before its binding is dropped, below the JDK server's default idle
+     * connection timeout of 30 seconds
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 20;
+
+    /**
+     * Default maximum number of bound connections
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+
+    private static final String AUTHORIZATION = "Authorization";
+
+    private static final String WWW_AUTHENTICATE = "WWW-Authenticate";
+
+    /**
+     * The principal of a request authenticated with Kerberos
+     */
+    public static final class NegotiatePrincipal extends HttpPrincipal {
+
+        private final transient KerberosDetails details;
+
+        private NegotiatePrincipal(KerberosDetails details, String realm) {
+            super(nonNull(details.getUserName()), realm);
+            this.details = details;
+        }
+
+        /**
+         * Return the details of the context that authenticated the connection
+         *
+         * @return KerberosDetails
+         */
+        public KerberosDetails getDetails() {
+            return details;
+        }
+
+    }
+
+    private record ConnectionKey(InetSocketAddress local, InetSocketAddress remote, SSLSession tls) {
+
+        private static ConnectionKey of(HttpExchange exchange) {
+            SSLSession tls = exchange instanceof HttpsExchange https ? https.getSSLSession() : null;
+            return new ConnectionKey(exchange.getLocalAddress(), exchange.getRemoteAddress(), tls);
+        }
+
+        private String handshakeId() {
+            String id = local + "|" + remote;
+            return tls != null ? id + "|" + System.identityHashCode(tls) : id;
+        }
+
+    }
+
+    private static final class Binding {
+
+        private final NegotiatePrincipal principal;
+
+        private final long expiresAtNanos;
+
+        private volatile long lastUsedNanos;
+
+        private Binding(NegotiatePrincipal principal, long expiresAtNanos, long now) {
+            this.principal = principal;
+            this.expiresAtNanos = expiresAtNanos;
+            this.lastUsedNanos = now;
+        }
+
+    }
+
+    private final ConcurrentHashMap<ConnectionKey, Binding> bindings = new ConcurrentHashMap<>();
+
+    private final Subject subject;
+
+    private final AcceptorConfig config;
+
+    private final String accountName;
+
+    private final String realm;
+
+    private final long idleTimeoutNanos;
+
+    private volatile int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    // Whether connections without TLS are bound, identified only by their addresses
+
+    private volatile boolean bindPlainConnections;
+
+    /**
+     * Class constructor with the default idle timeout
+     *
+     * @param subject
+     *     the acceptor's Subject, holding its keys or keytab
+     * @param config
+     *     shared acceptor settings, or null for the defaults
+     * @param accountName
+     *     String, the acceptor account, or null if an {@link SpnRouter} chooses it
+     * @param realm
+     *     String, the realm reported by the {@link HttpPrincipal}s
+     */
+    public NegotiateAuthenticator(Subject subject, AcceptorConfig config, String accountName, String realm) {
+        this(subject, config, accountName, realm, DEFAULT_IDLE_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param subject
+     *     the acceptor's Subject, holding its keys or keytab
+     * @param config
+     *     shared acceptor settings, or null for the defaults
+     * @param accountName
+     *     String, the acceptor account, or null if an {@link SpnRouter} chooses it
+     * @param realm
+     *     String, the realm reported by the {@link HttpPrincipal}s
+     * @param idleTimeoutSeconds
+     *     time a connection may be idle before its binding is dropped, which should be less than the server's idle
+     *     connection timeout
+     */
+    public NegotiateAuthenticator(Subject subject, AcceptorConfig config, String accountName, String realm, long idleTimeoutSeconds) {
+        this.subject = subject;
+        this.config = config;
+        this.accountName = accountName;
+        this.realm = realm;
+        this.idleTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(0, idleTimeoutSeconds));
+    }
+
+    @Override
+    public Result authenticate(HttpExchange exchange) {
+        ConnectionKey key = ConnectionKey.of(exchange);
+        String authorization = exchange.getRequestHeaders().getFirst(AUTHORIZATION);
+        long now = System.nanoTime();
+        if (authorization == null) {
+            Binding binding = bindings.get(key);
+            if (binding != null) {
+                if (now - binding.expiresAtNanos < 0 && now - binding.lastUsedNanos < idleTimeoutNanos) {
+                    binding.lastUsedNanos = now;
+                    return new Success(binding.principal);
+                }
+                bindings.remove(key, binding);
+            }
+            return challenge(exchange);
+        }
+
+        NegotiateHeader header = new NegotiateHeader(authorization.length());
+        if (!header.decode(authorization)) {
+            return challenge(exchange);
+        }
+        SessionSetupPrivilegedAction action = new SessionSetupPrivilegedAction(config, accountName, header.buffer(), 0, header.length());
+        action.setHandshakeId(key.handshakeId());
+        KerberosDetails details;
+        try {
+            details = Subject.callAs(subject, action::accept);
+        }
+        catch (CompletionException e) {
+            // A shed or failed accept says nothing about the connection's earlier authentication, so only a
+            // rejected token drops its binding
+            if (e.getCause() instanceof AdmissionRejectedException shed) {
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(shed.getRetryAfterSeconds()));
+                return new Failure(503);
+            }
+            if (e.getCause() instanceof GSSException failure) {
+                bindings.remove(key);
+                LOGGER.log(Level.FINE, "Negotiate authentication failed for " + key.remote(), failure);
+                return new Failure(401);
+            }
+            LOGGER.log(Level.WARNING, "Unexpected failure accepting security context", e.getCause());
+            return new Failure(500);
+        }
+
+        byte[] response = details.getResponseToken();
+        if (response != null && response.length > 0) {
+            // The AP-REP for mutual authentication, or the next leg of the handshake
+            exchange.getResponseHeaders().set(WWW_AUTHENTICATE, NegotiateHeader.append(response, 0, response.length, new StringBuilder()).toString());
+        }
+        if (!details.isEstablished()) {
+            return new Retry(401);
+        }
+        NegotiatePrincipal principal = new NegotiatePrincipal(details, realm != null ? realm : nonNull(details.getDomain()));
+        bind(key, principal, details.getRemainingLifetimeSeconds(), now);
+        return new Success(principal);
+    }
+
+    private Result challenge(HttpExchange exchange) {
+        exchange.getResponseHeaders().set(WWW_AUTHENTICATE, NegotiateHeader.SCHEME);
+        return new Retry(401);
+    }
+
+    private void bind(ConnectionKey key, NegotiatePrincipal principal, int lifetimeSeconds, long now) {
+        if (key.tls() == null && !bindPlainConnections) {
+            return;
+        }
+        if (lifetimeSeconds <= 0) {
+            // Without a lifetime the binding cannot be capped, so every request authenticates again
+            bindings.remove(key);
+            return;
+        }
+        long lifetimeNanos = lifetimeSeconds == Integer.MAX_VALUE ? Long.MAX_VALUE / 2 : TimeUnit.SECONDS.toNanos(lifetimeSeconds);
+        Binding binding = new Binding(principal, now + lifetimeNanos, now);
+        bindings.put(key, binding);
+        if (bindings.size() > maxConnections) {
+            evict(binding, now);
+        }
+    }
+
+    // Drop expired and idle bindings, then the least recently used ones, until within the bound
+
+    private void evict(Binding keep, long now) {
+        bindings.values().removeIf(b -> b != keep && (now - b.expiresAtNanos >= 0 || now - b.lastUsedNanos >= idleTimeoutNanos));
+        while (bindings.size() > maxConnections) {
+            ConnectionKey oldest = null;
+            long oldestUsed = 0;
+            for (var e : bindings.entrySet()) {
+                Binding b = e.getValue();
+                if (b != keep && (oldest == null || b.lastUsedNanos - oldestUsed < 0)) {
+                    oldest = e.getKey();
+                    oldestUsed = b.lastUsedNanos;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            bindings.remove(oldest);
+        }
+    }
+
+    /**
+     * Return the number of bound connections, including some that may have closed
+     *
+     * @return int
+     */
+    public int getBoundConnections() {
+        return bindings.size();
+    }
+
+    /**
+     * Drop all bindings, so that every connection authenticates again
+     */
+    public void unbindAll() {
+        bindings.clear();
+    }
+
+    /**
+     * Return the maximum number of bound connections
+     *
+     * @return int
+     */
+    public final int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Set the maximum number of bound connections. When a new binding would exceed it, expired and idle bindings are
+     * dropped, then the least recently used ones.
+     *
+     * @param maxConnections
+     *     int, at least 1
+     */
+    public final void setMaxConnections(int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be at least 1");
+        }
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Check if plain HTTP connections are bound
+     *
+     * @return boolean
+     */
+    public final boolean isBindPlainConnections() {
+        return bindPlainConnections;
+    }
+
+    /**
+     * Set whether plain HTTP connections are bound as well as HTTPS ones. Only enable this when clients connect
+     * directly, not through a NAT or a reverse proxy that could reuse a connection's addresses for another client.
+     *
+     * @param bindPlainConnections
+     *     boolean
+     */
+    public final void setBindPlainConnections(boolean bindPlainConnections) {
+        this.bindPlainConnections = bindPlainConnections;
+    }
+
+    private static String nonNull(String s) {
+        return s != null ? s : "";
+    }
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.Oid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codec for HTTP {@code Negotiate} headers (RFC 4559).
+ *
+ * <p>
+ * An instance decodes {@code Authorization: Negotiate <token>} values in one pass, straight from the header
+ * characters into a reusable array, ready for {@link SPNEGO#checkTokenType(byte[], int, int)} and
+ * {@link SessionSetupPrivilegedAction}. Instances are reusable but not thread-safe.
+ *
+ * <p>
+ * The static methods render {@code WWW-Authenticate: Negotiate <token>} values, Base64-encoding straight into a
+ * {@link StringBuilder} or an ASCII {@link ByteBuffer}, optionally wrapping a response token in a NegTokenTarg on
+ * the way.
+ */
+public final class NegotiateHeader {
+
+    /**
+     * The HTTP authentication scheme name
+     */
+    public static final String SCHEME = "Negotiate";
+
+    private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+        .getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private byte[] buf;
+
+    private int len;
+
+    /**
+     * Class constructor
+     */
+    public NegotiateHeader() {
+        this(4096);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param initialCapacity
+     *     initial size of the token array, which grows as needed
+     */
+    public NegotiateHeader(int initialCapacity) {
+        this.buf = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Decode an {@code Authorization} header value
+     *
+     * @param value
+     *     CharSequence, e.g. {@code "Negotiate YIIG..."}
+     * @return boolean true if it was a Negotiate value with a well-formed token
+     */
+    public boolean decode(CharSequence value) {
+        if (value == null) {
+            len = 0;
+            return false;
+        }
+        return decode(value, 0, value.length());
+    }
+
+    /**
+     * Decode an {@code Authorization} header value held as ASCII bytes. The value is the bytes between the position
+     * and the limit; the position is not changed.
+     *
+     * @param value
+     *     ByteBuffer
+     * @return boolean true if it was a Negotiate value with a well-formed token
+     */
+    public boolean decode(ByteBuffer value) {
+        return decode(value, value.position(), value.limit());
+    }
+
+    /**
+     * Return the array holding the decoded token, which starts at offset 0
+     *
+     * @return byte[]
+     */
+    public byte[] buffer() {
+        return buf;
+    }
+
+    /**
+     * Return the length of the decoded token
+     *
+     * @return int
+     */
+    public int length() {
+        return len;
+    }
+
+    private boolean decode(Object src, int from, int to) {
+        len = 0;
+
+        // Scheme, case-insensitive, then at least one space
+
+        int i = skipSpaces(src, from, to);
+        if (to - i < SCHEME.length() + 1) {
+            return false;
+        }
+        for (int k = 0; k < SCHEME.length(); k++) {
+            if (Character.toLowerCase(at(src, i + k)) != Character.toLowerCase(SCHEME.charAt(k))) {
+                return false;
+            }
+        }
+        i += SCHEME.length();
+        if (at(src, i) != ' ') {
+            return false;
+        }
+        i = skipSpaces(src, i, to);
+        while (to > i && (at(src, to - 1) == ' ' || at(src, to - 1) == '\t')) {
+            to--;
+        }
+        // Padding is optional, but if present it must complete the last group of four, as for java.util.Base64
+
+        int pad = 0;
+        while (to > i && at(src, to - 1) == '=') {
+            to--;
+            pad++;
+        }
+        int n = to - i;
+        if (n == 0 || n % 4 == 1 || pad > 0 && (n + pad) % 4 != 0) {
+            return false;
+        }
+
+        int outLen = n / 4 * 3 + (n % 4 == 0 ? 0 : n % 4 - 1);
+        if (buf.length < outLen) {
+            buf = new byte[Math.max(outLen, buf.length * 2)];
+        }
+
+        int out = 0;
+        int bits = 0;
+        int nbits = 0;
+        for (; i < to; i++) {
+            int c = at(src, i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) {
+                len = 0;
+                return false;
+            }
+            bits = (bits << 6) | v;
+            nbits += 6;
+            if (nbits >= 8) {
+                nbits -= 8;
+                buf[out++] = (byte) (bits >> nbits);
+            }
+        }
+        len = out;
+        return true;
+    }
+
+    private static int at(Object src, int i) {
+        if (src instanceof ByteBuffer b) {
+            return b.get(i) & 0xff;
+        }
+        return ((CharSequence) src).charAt(i);
+    }
+
+    private static int skipSpaces(Object src, int i, int to) {
+        while (i < to && (at(src, i) == ' ' || at(src, i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Return the length of a {@code Negotiate} header value carrying a token of the specified length
+     *
+     * @param tokenLen
+     *     int, or -1 for a bare {@code Negotiate} challenge
+     * @return int
+     */
+    public static int encodedLength(int tokenLen) {
+        return tokenLen < 0 ? SCHEME.length() : SCHEME.length() + 1 + (tokenLen + 2) / 3 * 4;
+    }
+
+    /**
+     * Render a {@code Negotiate} header value carrying the specified token
+     *
+     * @param token
+     *     byte[], or null for a bare {@code Negotiate} challenge
+     * @param off
+     *     int
+     * @param tokenLen
+     *     int
+     * @param sb
+     *     StringBuilder to append to
+     * @return StringBuilder
+     */
+    public static StringBuilder append(byte[] token, int off, int tokenLen, StringBuilder sb) {
+        sb.ensureCapacity(sb.length() + encodedLength(token != null ? tokenLen : -1));
+        sb.append(SCHEME);
+        if (token != null) {
+            sb.append(' ');
+            int end = off + tokenLen;
+            for (int i = off; i < end; i += 3) {
+                int n = Math.min(3, end - i);
+                int bits = chunk(token, i, n);
+                for (int k = 0; k < 4; k++) {
+                    sb.append(k <= n ? (char) ALPHABET[(bits >>> (18 - 6 * k)) & 0x3f] : '=');
+                }
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Render a {@code Negotiate} header value carrying the specified token as ASCII bytes at the position of a
+     * buffer. The position is advanced past the value.
+     *
+     * @param token
+     *     byte[], or null for a bare {@code Negotiate} challenge
+     * @param off
+     *     int
+     * @param tokenLen
+     *     int
+     * @param dst
+     *     ByteBuffer
+     * @return int the number of bytes written
+     * @throws IOException
+     *     if the value does not fit
+     */
+    public static int encode(byte[] token, int off, int tokenLen, ByteBuffer dst) throws IOException {
+        int total = encodedLength(token != null ? tokenLen : -1);
+        DERWriter.checkRemaining(dst, total);
+        int pos = dst.position();
+        for (int k = 0; k < SCHEME.length(); k++) {
+            dst.put(pos++, (byte) SCHEME.charAt(k));
+        }
+        if (token != null) {
+            dst.put(pos++, (byte) ' ');
+            int end = off + tokenLen;
+            for (int i = off; i < end; i += 3) {
+                int n = Math.min(3, end - i);
+                int bits = chunk(token, i, n);
+                for (int k = 0; k < 4; k++) {
+                    dst.put(pos++, k <= n ? ALPHABET[(bits >>> (18 - 6 * k)) & 0x3f] : (byte) '=');
+                }
+            }
+        }
+        dst.position(pos);
+        return total;
+    }
+
+    /**
+     * Render a {@code WWW-Authenticate} value that wraps a response token in a NegTokenTarg
+     *
+     * @param result
+     *     int, e.g. {@link SPNEGO#AcceptCompleted}
+     * @param supportedMech
+     *     Oid, or null
+     * @param response
+     *     byte[], e.g. {@link KerberosDetails#getResponseToken()}, or null
+     * @param sb
+     *     StringBuilder to append to
+     * @return StringBuilder
+     * @throws IOException
+     *     if the supportedMech cannot be encoded
+     */
+    public static StringBuilder appendResponse(int result, Oid supportedMech, byte[] response, StringBuilder sb) throws IOException {
+        int respLen = response != null ? response.length : -1;
+        int targLen = NegTokenTarg.encodedLength(result, supportedMech, respLen);
+        byte[] scratch = ScratchBuffers.acquire(targLen);
+        try {
+            ByteBuffer targ = ByteBuffer.wrap(scratch);
+            int n = NegTokenTarg.encode(result, supportedMech, response, 0, respLen, targ);
+            return append(scratch, 0, n, sb);
+        }
+        finally {
+            ScratchBuffers.release(scratch, targLen);
+        }
+    }
+
+    /**
+     * Render a {@code WWW-Authenticate} value that wraps a response token in a NegTokenTarg, as ASCII bytes at the
+     * position of a buffer. The position is advanced past the value.
+     *
+     * @param result
+     *     int, e.g. {@link SPNEGO#AcceptCompleted}
+     * @param supportedMech
+     *     Oid, or null
+     * @param response
+     *     byte[], e.g. {@link KerberosDetails#getResponseToken()}, or null
+     * @param dst
+     *     ByteBuffer
+     * @return int the number of bytes written
+     * @throws IOException
+     *     if the value does not fit or the supportedMech cannot be encoded
+     */
+    public static int encodeResponse(int result, Oid supportedMech, byte[] response, ByteBuffer dst) throws IOException {
+        int respLen = response != null ? response.length : -1;
+        int targLen = NegTokenTarg.encodedLength(result, supportedMech, respLen);
+        byte[] scratch = ScratchBuffers.acquire(targLen);
+        try {
+            ByteBuffer targ = ByteBuffer.wrap(scratch);
+            int n = NegTokenTarg.encode(result, supportedMech, response, 0, respLen, targ);
+            return encode(scratch, 0, n, dst);
+        }
+        finally {
+            ScratchBuffers.release(scratch, targLen);
+        }
+    }
+
+    private static int chunk(byte[] b, int i, int n) {
+        int bits = (b[i] & 0xff) << 16;
+        if (n > 1) {
+            bits |= (b[i + 1] & 0xff) << 8;
+        }
+        if (n > 2) {
+            bits |= b[i + 2] & 0xff;
+        }
+        return bits;
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+import org.ietf.jgss.Oid;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonical {@link Oid} instances, keyed by their DER encoding.
+ *
+ * <p>
+ * Decoders look mechanism OIDs up here by the raw bytes in the token, so the common mechanisms resolve to the
+ * shared {@link CommonOids} instances with one hash and one comparison, and without parsing or allocating. The
+ * registry starts with the {@link CommonOids} and can be extended with {@link #register(Oid)}; OIDs that are not
+ * registered are still decoded, just not shared. Encoders use the cached encodings of registered OIDs instead of
+ * calling {@link Oid#getDER()}, which copies.
+ */
+public final class OidRegistry {
+
+    // Open-addressed table of DER encodings and the Oid for each, replaced as a whole on registration
+
+    private record Table(byte[][] der, Oid[] oids, Map<Oid, byte[]> byOid) {
+    }
+
+    private static volatile Table table = build(new Oid[] {
+        CommonOids.SPNEGO,
+        CommonOids.KERBEROS5,
+        CommonOids.MSKERBEROS5,
+        CommonOids.KRB5USERTOUSER,
+        CommonOids.NTLMSSP
+    });
+
+    private OidRegistry() {
+    }
+
+    /**
+     * Register an OID, so that decoders return a shared instance for it
+     *
+     * @param oid
+     *     Oid
+     * @return Oid the registered instance, which is an existing one if the OID was already registered
+     * @throws GSSException
+     *     if the OID cannot be encoded
+     */
+    public static synchronized Oid register(Oid oid) throws GSSException {
+        byte[] der = oid.getDER();
+        Table t = table;
+        Oid existing = lookup(t, der, 0, der.length);
+        if (existing != null) {
+            return existing;
+        }
+        Oid[] oids = Arrays.copyOf(t.byOid().keySet().toArray(new Oid[0]), t.byOid().size() + 1);
+        oids[oids.length - 1] = oid;
+        table = build(oids);
+        return oid;
+    }
+
+    /**
+     * Return the registered OID with the specified DER encoding
+     *
+     * @param buf
+     *     byte[] holding the full DER element, tag and length included
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return Oid, or null if it is not registered
+     */
+    public static Oid lookup(byte[] buf, int off, int len) {
+        return lookup(table, buf, off, len);
+    }
+
+    /**
+     * Return the OID with the specified DER encoding, which is the shared instance if it is registered
+     *
+     * @param buf
+     *     byte[] holding the full DER element, tag and length included
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return Oid
+     * @throws IOException
+     *     if the encoding is not a valid OID
+     */
+    public static Oid intern(byte[] buf, int off, int len) throws IOException {
+        Oid oid = lookup(table, buf, off, len);
+        if (oid != null) {
+            return oid;
+        }
+        try {
+            return new Oid(Arrays.copyOfRange(buf, off, off + len));
+        }
+        catch (GSSException ex) {
+            throw new IOException("Bad mechType OID");
+        }
+    }
+
+    /**
+     * Return the DER encoding of an OID, shared if the OID is registered. The array must not be modified.
+     *
+     * @param oid
+     *     Oid
+     * @return byte[]
+     * @throws IOException
+     *     if the OID cannot be encoded
+     */
+    static byte[] der(Oid oid) throws IOException {
+        byte[] der = table.byOid().get(oid);
+        if (der != null) {
+            return der;
+        }
+        try {
+            return oid.getDER();
+        }
+        catch (GSSException e) {
+            throw new IOException("Cannot encode OID " + oid, e);
+        }
+    }
+
+    private static Oid lookup(Table t, byte[] buf, int off, int len) {
+        byte[][] der = t.der();
+        int mask = der.length - 1;
+        for (int i = hash(buf, off, len) & mask; der[i] != null; i = (i + 1) & mask) {
+            if (Arrays.equals(der[i], 0, der[i].length, buf, off, off + len)) {
+                return t.oids()[i];
+            }
+        }
+        return null;
+    }
+
+    private static Table build(Oid[] oids) {
+        int size = Integer.highestOneBit(Math.max(oids.length, 2) * 4 - 1) << 1;
+        byte[][] der = new byte[size][];
+        Oid[] slots = new Oid[size];
+        Map<Oid, byte[]> byOid = new HashMap<>();
+        for (Oid oid : oids) {
+            if (oid == null) {
+                // CommonOids failed to initialize
+                continue;
+            }
+            byte[] d;
+            try {
+                d = oid.getDER();
+            }
+            catch (GSSException e) {
+                throw new IllegalArgumentException("Cannot encode OID " + oid, e);
+            }
+            int i = hash(d, 0, d.length) & (size - 1);
+            while (der[i] != null) {
+                i = (i + 1) & (size - 1);
+            }
+            der[i] = d;
+            slots[i] = oid;
+            byOid.put(oid, d);
+        }
+        return new Table(der, slots, Map.copyOf(byOid));
+    }
+
+    private static int hash(byte[] b, int off, int len) {
+        int h = len;
+        for (int i = off; i < off + len; i++) {
+            h = 31 * h + b[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+}
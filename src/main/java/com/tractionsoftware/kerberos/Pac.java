@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import com.sun.security.jgss.AuthorizationDataEntry;
+
+import java.io.IOException;
+
+/**
+ * Flyweight view of a Microsoft Privilege Attribute Certificate (MS-PAC), as found in the authorization data of
+ * tickets issued by Active Directory.
+ *
+ * <p>
+ * The PAC lists typed buffers; {@link #getLogonInfo()} decodes the logon information buffer, which carries the
+ * user's group memberships, so they need not be looked up in the directory. Nothing is copied: offsets refer to
+ * the array passed to {@link #parse(byte[], int, int)}, which must not be modified while the view is in use.
+ *
+ * <p>
+ * The PAC signatures are not checked. The PAC is only trusted because it arrives inside the encrypted part of a
+ * ticket that the acceptor has decrypted with its own key.
+ */
+public final class Pac {
+
+    // Authorization data types
+
+    static final int AD_IF_RELEVANT = 1;
+    static final int AD_WIN2K_PAC = 128;
+
+    // PAC buffer types
+
+    public static final int LOGON_INFO = 1;
+    public static final int CREDENTIALS_INFO = 2;
+    public static final int SERVER_CHECKSUM = 6;
+    public static final int PRIVSVR_CHECKSUM = 7;
+    public static final int CLIENT_INFO = 10;
+    public static final int DELEGATION_INFO = 11;
+    public static final int UPN_DNS_INFO = 12;
+
+    // Maximum nesting of AD-IF-RELEVANT containers
+
+    private static final int MAX_AD_DEPTH = 4;
+
+    private final byte[] buf;
+
+    private final int off;
+
+    private final int count;
+
+    private PacLogonInfo logonInfo;
+
+    private Pac(byte[] buf, int off, int count) {
+        this.buf = buf;
+        this.off = off;
+        this.count = count;
+    }
+
+    /**
+     * Parse the header of a PAC
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return Pac
+     * @throws IOException
+     *     if the header or a buffer entry is malformed
+     */
+    public static Pac parse(byte[] buf, int off, int len) throws IOException {
+        if (off < 0 || len < 8 || off + len > buf.length) {
+            throw new IOException("PAC too short");
+        }
+        int count = (int) Math.min(readInt(buf, off), Integer.MAX_VALUE);
+        if (readInt(buf, off + 4) != 0) {
+            throw new IOException("Unsupported PAC version");
+        }
+        if (count > (len - 8) / 16) {
+            throw new IOException("PAC buffer count " + count + " overruns PAC");
+        }
+        for (int i = 0; i < count; i++) {
+            int e = off + 8 + 16 * i;
+            long size = readInt(buf, e + 4);
+            long offset = readInt(buf, e + 8) | (readInt(buf, e + 12) << 32);
+            if (offset < 0 || offset > len || size > len - offset) {
+                throw new IOException("PAC buffer " + i + " overruns PAC");
+            }
+        }
+        return new Pac(buf, off, count);
+    }
+
+    /**
+     * Find and parse the PAC in the authorization data of a ticket, looking inside AD-IF-RELEVANT containers
+     *
+     * @param entries
+     *     AuthorizationDataEntry[], as returned for {@code InquireType.KRB5_GET_AUTHZ_DATA}
+     * @return Pac, or null if there is none
+     * @throws IOException
+     *     if the PAC or its container is malformed
+     */
+    public static Pac fromAuthorizationData(AuthorizationDataEntry[] entries) throws IOException {
+        if (entries == null) {
+            return null;
+        }
+        DERCursor c = new DERCursor();
+        for (AuthorizationDataEntry entry : entries) {
+            byte[] data = entry.getData();
+            if (entry.getType() == AD_WIN2K_PAC) {
+                return parse(data, 0, data.length);
+            }
+            if (entry.getType() == AD_IF_RELEVANT) {
+                Pac pac = find(c.reset(data, 0, data.length), 0);
+                if (pac != null) {
+                    return pac;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find and parse the PAC in the DER AuthorizationData of a decrypted ticket
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int offset of the AuthorizationData SEQUENCE
+     * @param len
+     *     int
+     * @return Pac, or null if there is none
+     * @throws IOException
+     *     if the PAC or its container is malformed
+     */
+    static Pac fromAuthorizationData(byte[] buf, int off, int len) throws IOException {
+        return find(new DERCursor().reset(buf, off, len), 0);
+    }
+
+    // Search DER AuthorizationData ::= SEQUENCE OF SEQUENCE { ad-type [0] Int32, ad-data [1] OCTET STRING }
+
+    private static Pac find(DERCursor c, int depth) throws IOException {
+        c.expect(DERCursor.SEQUENCE);
+        c.enter();
+        while (c.hasNext()) {
+            c.expect(DERCursor.SEQUENCE);
+            c.enter();
+            int type = -1;
+            while (c.hasNext()) {
+                int tag = c.next();
+                c.enter();
+                if (tag == (DERCursor.CONTEXT | 0)) {
+                    c.expect(DERCursor.INTEGER);
+                    type = c.intValue();
+                }
+                else if (tag == (DERCursor.CONTEXT | 1)) {
+                    c.expect(DERCursor.OCTET_STRING);
+                    if (type == AD_WIN2K_PAC) {
+                        return parse(c.buffer(), c.contentOffset(), c.contentLength());
+                    }
+                    if (type == AD_IF_RELEVANT && depth < MAX_AD_DEPTH) {
+                        DERCursor inner = new DERCursor().reset(c.buffer(), c.contentOffset(), c.contentLength());
+                        Pac pac = find(inner, depth + 1);
+                        if (pac != null) {
+                            return pac;
+                        }
+                    }
+                }
+                c.exit();
+            }
+            c.exit();
+        }
+        return null;
+    }
+
+    /**
+     * Return the array the view refers to
+     *
+     * @return byte[]
+     */
+    public byte[] buffer() {
+        return buf;
+    }
+
+    /**
+     * Return the number of buffers in the PAC
+     *
+     * @return int
+     */
+    public int bufferCount() {
+        return count;
+    }
+
+    /**
+     * Return the type of a buffer
+     *
+     * @param idx
+     *     int
+     * @return int
+     */
+    public int bufferType(int idx) {
+        return (int) readInt(buf, entry(idx));
+    }
+
+    /**
+     * Return the offset of a buffer in {@link #buffer()}
+     *
+     * @param idx
+     *     int
+     * @return int
+     */
+    public int bufferOffset(int idx) {
+        int e = entry(idx);
+        return off + (int) readInt(buf, e + 8);
+    }
+
+    /**
+     * Return the length of a buffer
+     *
+     * @param idx
+     *     int
+     * @return int
+     */
+    public int bufferLength(int idx) {
+        return (int) readInt(buf, entry(idx) + 4);
+    }
+
+    /**
+     * Return the index of the first buffer of a type
+     *
+     * @param type
+     *     int
+     * @return int the index, or -1 if there is none
+     */
+    public int indexOf(int type) {
+        for (int i = 0; i < count; i++) {
+            if (bufferType(i) == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return the decoded logon information, which is parsed on first use
+     *
+     * @return PacLogonInfo, or null if the PAC has none
+     * @throws IOException
+     *     if the logon information is malformed
+     */
+    public PacLogonInfo getLogonInfo() throws IOException {
+        if (logonInfo == null) {
+            int idx = indexOf(LOGON_INFO);
+            if (idx < 0) {
+                return null;
+            }
+            logonInfo = PacLogonInfo.parse(buf, bufferOffset(idx), bufferLength(idx));
+        }
+        return logonInfo;
+    }
+
+    private int entry(int idx) {
+        if (idx < 0 || idx >= count) {
+            throw new IndexOutOfBoundsException("PAC buffer " + idx + " of " + count);
+        }
+        return off + 8 + 16 * idx;
+    }
+
+    // Unsigned little-endian 32 bit integer
+
+    static long readInt(byte[] b, int p) {
+        return (b[p] & 0xffL) | (b[p + 1] & 0xffL) << 8 | (b[p + 2] & 0xffL) << 16 | (b[p + 3] & 0xffL) << 24;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder("[PAC buffers=");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                str.append(',');
+            }
+            str.append(bufferType(i)).append(':').append(bufferLength(i));
+        }
+        return str.append(']').toString();
+    }
+
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flyweight view of the KERB_VALIDATION_INFO logon information in a {@link Pac}.
+ *
+ * <p>
+ * The structure is NDR-encoded; parsing walks it once to find the deferred strings, SIDs and group arrays, and
+ * records where they are. Values are only decoded when asked for, and SIDs are returned in the usual
+ * {@code S-1-5-21-...} string form. Domain groups are the logon domain SID plus each relative ID; extra SIDs
+ * include universal groups from other domains and claims such as {@code S-1-18-1}.
+ */
+public final class PacLogonInfo {
+
+    // NDR type serialization header: common header, private header, then the top-level pointer
+
+    private static final int HEADER_LENGTH = 8 + 8 + 4;
+
+    // Length of the fixed part of KERB_VALIDATION_INFO
+
+    private static final int FIXED_LENGTH = 216;
+
+    // Offsets of fixed fields
+
+    private static final int EFFECTIVE_NAME = 48;
+    private static final int FULL_NAME = 56;
+    private static final int LOGON_COUNT = 96;
+    private static final int USER_ID = 100;
+    private static final int PRIMARY_GROUP_ID = 104;
+    private static final int GROUP_COUNT = 108;
+    private static final int GROUP_IDS = 112;
+    private static final int USER_FLAGS = 116;
+    private static final int LOGON_SERVER = 136;
+    private static final int LOGON_DOMAIN_NAME = 144;
+    private static final int LOGON_DOMAIN_ID = 152;
+    private static final int USER_ACCOUNT_CONTROL = 164;
+    private static final int SID_COUNT = 196;
+    private static final int EXTRA_SIDS = 200;
+    private static final int RESOURCE_GROUP_DOMAIN_SID = 204;
+    private static final int RESOURCE_GROUP_COUNT = 208;
+    private static final int RESOURCE_GROUP_IDS = 212;
+
+    // Deferred strings in the order they are marshalled
+
+    private static final int[] LEADING_STRINGS = { EFFECTIVE_NAME, FULL_NAME, 64, 72, 80, 88 };
+
+    private static final int MAX_SUB_AUTHORITIES = 15;
+
+    private final byte[] buf;
+
+    private final int base;
+
+    private final int end;
+
+    // Offsets of the deferred data, or -1 if the pointer was null
+
+    private int effectiveNameOff = -1;
+
+    private int fullNameOff = -1;
+
+    private int logonServerOff = -1;
+
+    private int logonDomainNameOff = -1;
+
+    private int groupIdsOff = -1;
+
+    private int domainSidOff = -1;
+
+    private int extraSidsOff = -1;
+
+    private int[] extraSidOff;
+
+    private int resourceDomainSidOff = -1;
+
+    private int resourceGroupIdsOff = -1;
+
+    private PacLogonInfo(byte[] buf, int base, int end) {
+        this.buf = buf;
+        this.base = base;
+        this.end = end;
+    }
+
+    /**
+     * Parse a LOGON_INFO buffer
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return PacLogonInfo
+     * @throws IOException
+     *     if the buffer is not well-formed NDR
+     */
+    public static PacLogonInfo parse(byte[] buf, int off, int len) throws IOException {
+        if (off < 0 || len < HEADER_LENGTH + FIXED_LENGTH || off + len > buf.length) {
+            throw new IOException("PAC logon info too short");
+        }
+        if (buf[off] != 1 || buf[off + 1] != 0x10) {
+            throw new IOException("Unsupported NDR encoding in PAC logon info");
+        }
+        PacLogonInfo info = new PacLogonInfo(buf, off + HEADER_LENGTH, off + len);
+        info.parseDeferred(off);
+        return info;
+    }
+
+    private void parseDeferred(int origin) throws IOException {
+        int p = base + FIXED_LENGTH;
+        for (int field : LEADING_STRINGS) {
+            if (stringPointer(field)) {
+                p = align(p, origin);
+                if (field == EFFECTIVE_NAME) {
+                    effectiveNameOff = p;
+                }
+                else if (field == FULL_NAME) {
+                    fullNameOff = p;
+                }
+                p = skipString(p);
+            }
+        }
+        if (pointer(GROUP_IDS)) {
+            p = align(p, origin);
+            groupIdsOff = p + 4;
+            p = skipArray(p, fixed(GROUP_COUNT), 8);
+        }
+        if (stringPointer(LOGON_SERVER)) {
+            p = align(p, origin);
+            logonServerOff = p;
+            p = skipString(p);
+        }
+        if (stringPointer(LOGON_DOMAIN_NAME)) {
+            p = align(p, origin);
+            logonDomainNameOff = p;
+            p = skipString(p);
+        }
+        if (pointer(LOGON_DOMAIN_ID)) {
+            p = align(p, origin);
+            domainSidOff = p + 4;
+            p = skipSid(p);
+        }
+        int sidCount = fixed(SID_COUNT);
+        if (pointer(EXTRA_SIDS)) {
+            p = align(p, origin);
+            extraSidsOff = p + 4;
+            p = skipArray(p, sidCount, 8);
+            extraSidOff = new int[sidCount];
+            for (int i = 0; i < sidCount; i++) {
+                extraSidOff[i] = -1;
+                if (Pac.readInt(buf, extraSidsOff + 8 * i) != 0) {
+                    p = align(p, origin);
+                    extraSidOff[i] = p + 4;
+                    p = skipSid(p);
+                }
+            }
+        }
+        if (pointer(RESOURCE_GROUP_DOMAIN_SID)) {
+            p = align(p, origin);
+            resourceDomainSidOff = p + 4;
+            p = skipSid(p);
+        }
+        if (pointer(RESOURCE_GROUP_IDS)) {
+            p = align(p, origin);
+            resourceGroupIdsOff = p + 4;
+            skipArray(p, fixed(RESOURCE_GROUP_COUNT), 8);
+        }
+    }
+
+    private boolean pointer(int field) {
+        return Pac.readInt(buf, base + field) != 0;
+    }
+
+    // RPC_UNICODE_STRING: length, maximum length, then the pointer
+
+    private boolean stringPointer(int field) {
+        return pointer(field + 4);
+    }
+
+    private int fixed(int field) {
+        return (int) Math.min(Pac.readInt(buf, base + field), Integer.MAX_VALUE);
+    }
+
+    private static int align(int p, int origin) {
+        return p + (-(p - origin) & 3);
+    }
+
+    private int need(int p, long n) throws IOException {
+        if (n > end - p) {
+            throw new IOException("PAC logon info truncated");
+        }
+        return p + (int) n;
+    }
+
+    // Conformant varying array of UTF-16 code units: max count, offset, actual count, then the characters
+
+    private int skipString(int p) throws IOException {
+        need(p, 12);
+        long actual = Pac.readInt(buf, p + 8);
+        if (actual > Pac.readInt(buf, p)) {
+            throw new IOException("Bad string length in PAC logon info");
+        }
+        return need(p + 12, actual * 2);
+    }
+
+    // Conformant array: max count, then the elements
+
+    private int skipArray(int p, int count, int elementSize) throws IOException {
+        need(p, 4);
+        if (Pac.readInt(buf, p) != count) {
+            throw new IOException("Array count mismatch in PAC logon info");
+        }
+        return need(p + 4, (long) count * elementSize);
+    }
+
+    // Conformant RPC_SID: max count, revision, sub-authority count, 6 byte authority, then the sub-authorities
+
+    private int skipSid(int p) throws IOException {
+        need(p, 12);
+        int subs = buf[p + 5] & 0xff;
+        if (subs > MAX_SUB_AUTHORITIES || subs != Pac.readInt(buf, p)) {
+            throw new IOException("Bad SID in PAC logon info");
+        }
+        return need(p + 12, 4L * subs);
+    }
+
+    private String string(int p) {
+        if (p < 0) {
+            return null;
+        }
+        int n = (int) Pac.readInt(buf, p + 8);
+        return new String(buf, p + 12, n * 2, StandardCharsets.UTF_16LE);
+    }
+
+    private String sid(int p, long rid) {
+        if (p < 0) {
+            return null;
+        }
+        StringBuilder str = new StringBuilder(64);
+        str.append("S-").append(buf[p] & 0xff).append('-');
+        long authority = 0;
+        for (int i = 0; i < 6; i++) {
+            authority = (authority << 8) | (buf[p + 2 + i] & 0xff);
+        }
+        str.append(authority);
+        int subs = buf[p + 1] & 0xff;
+        for (int i = 0; i < subs; i++) {
+            str.append('-').append(Pac.readInt(buf, p + 8 + 4 * i));
+        }
+        if (rid >= 0) {
+            str.append('-').append(rid);
+        }
+        return str.toString();
+    }
+
+    /**
+     * Return the account name
+     *
+     * @return String, or null if it is not present
+     */
+    public String getEffectiveName() {
+        return string(effectiveNameOff);
+    }
+
+    /**
+     * Return the user's full name
+     *
+     * @return String, or null if it is not present
+     */
+    public String getFullName() {
+        return string(fullNameOff);
+    }
+
+    /**
+     * Return the name of the domain controller that issued the PAC
+     *
+     * @return String, or null if it is not present
+     */
+    public String getLogonServer() {
+        return string(logonServerOff);
+    }
+
+    /**
+     * Return the NetBIOS name of the account's domain
+     *
+     * @return String, or null if it is not present
+     */
+    public String getLogonDomainName() {
+        return string(logonDomainNameOff);
+    }
+
+    /**
+     * Return the SID of the account's domain
+     *
+     * @return String, or null if it is not present
+     */
+    public String getLogonDomainSid() {
+        return sid(domainSidOff, -1);
+    }
+
+    /**
+     * Return the SID of the account
+     *
+     * @return String, or null if the domain SID is not present
+     */
+    public String getUserSid() {
+        return sid(domainSidOff, Pac.readInt(buf, base + USER_ID));
+    }
+
+    /**
+     * Return the SID of the account's primary group
+     *
+     * @return String, or null if the domain SID is not present
+     */
+    public String getPrimaryGroupSid() {
+        return sid(domainSidOff, Pac.readInt(buf, base + PRIMARY_GROUP_ID));
+    }
+
+    public int getUserId() {
+        return (int) Pac.readInt(buf, base + USER_ID);
+    }
+
+    public int getPrimaryGroupId() {
+        return (int) Pac.readInt(buf, base + PRIMARY_GROUP_ID);
+    }
+
+    public int getUserFlags() {
+        return (int) Pac.readInt(buf, base + USER_FLAGS);
+    }
+
+    public int getUserAccountControl() {
+        return (int) Pac.readInt(buf, base + USER_ACCOUNT_CONTROL);
+    }
+
+    /**
+     * Return the number of domain groups
+     *
+     * @return int
+     */
+    public int getGroupCount() {
+        return groupIdsOff < 0 ? 0 : fixed(GROUP_COUNT);
+    }
+
+    /**
+     * Return the relative ID of a domain group
+     *
+     * @param idx
+     *     int
+     * @return int
+     */
+    public int getGroupId(int idx) {
+        return (int) Pac.readInt(buf, groupIdsOff + 8 * checkIndex(idx, getGroupCount()));
+    }
+
+    /**
+     * Return the SE_GROUP attributes of a domain group
+     *
+     * @param idx
+     *     int
+     * @return int
+     */
+    public int getGroupAttributes(int idx) {
+        return (int) Pac.readInt(buf, groupIdsOff + 8 * checkIndex(idx, getGroupCount()) + 4);
+    }
+
+    /**
+     * Return the SID of a domain group
+     *
+     * @param idx
+     *     int
+     * @return String, or null if the domain SID is not present
+     */
+    public String getGroupSid(int idx) {
+        return sid(domainSidOff, Pac.readInt(buf, groupIdsOff + 8 * checkIndex(idx, getGroupCount())));
+    }
+
+    /**
+     * Return the number of extra SIDs
+     *
+     * @return int
+     */
+    public int getExtraSidCount() {
+        return extraSidOff != null ? extraSidOff.length : 0;
+    }
+
+    /**
+     * Return an extra SID
+     *
+     * @param idx
+     *     int
+     * @return String, or null if its pointer was null
+     */
+    public String getExtraSid(int idx) {
+        return sid(extraSidOff[checkIndex(idx, getExtraSidCount())], -1);
+    }
+
+    /**
+     * Return the SE_GROUP attributes of an extra SID
+     *
+     * @param idx
+     *     int
+     * @return int
+     */
+    public int getExtraSidAttributes(int idx) {
+        return (int) Pac.readInt(buf, extraSidsOff + 8 * checkIndex(idx, getExtraSidCount()) + 4);
+    }
+
+    /**
+     * Return the number of resource groups
+     *
+     * @return int
+     */
+    public int getResourceGroupCount() {
+        return resourceGroupIdsOff < 0 ? 0 : fixed(RESOURCE_GROUP_COUNT);
+    }
+
+    /**
+     * Return the SID of a resource group
+     *
+     * @param idx
+     *     int
+     * @return String, or null if the resource domain SID is not present
+     */
+    public String getResourceGroupSid(int idx) {
+        return sid(resourceDomainSidOff, Pac.readInt(buf, resourceGroupIdsOff + 8 * checkIndex(idx, getResourceGroupCount())));
+    }
+
+    /**
+     * Return the SIDs of every group the account belongs to: the primary group, domain groups, extra SIDs and
+     * resource groups
+     *
+     * @return List of String
+     */
+    public List<String> getGroupSids() {
+        List<String> sids = new ArrayList<>(1 + getGroupCount() + getExtraSidCount() + getResourceGroupCount());
+        if (domainSidOff >= 0) {
+            sids.add(getPrimaryGroupSid());
+        }
+        for (int i = 0; i < getGroupCount(); i++) {
+            String sid = getGroupSid(i);
+            if (sid != null && !sids.contains(sid)) {
+                sids.add(sid);
+            }
+        }
+        for (int i = 0; i < getExtraSidCount(); i++) {
+            String sid = getExtraSid(i);
+            if (sid != null) {
+                sids.add(sid);
+            }
+        }
+        for (int i = 0; i < getResourceGroupCount(); i++) {
+            String sid = getResourceGroupSid(i);
+            if (sid != null) {
+                sids.add(sid);
+            }
+        }
+        return sids;
+    }
+
+    private static int checkIndex(int idx, int count) {
+        if (idx < 0 || idx >= count) {
+            throw new IndexOutOfBoundsException(idx + " of " + count);
+        }
+        return idx;
+    }
+
+    @Override
+    public String toString() {
+        return "[PacLogonInfo user=" + getLogonDomainName() + "\\" + getEffectiveName() + " sid=" + getUserSid() + " groups=" + getGroupSids() + "]";
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+/**
+ * Replay cache used by {@link SessionSetupPrivilegedAction} to reject authenticators that have already been
+ * accepted.
+ *
+ * <p>
+ * Implementations must be safe for concurrent use. Each authenticator must be remembered for at least twice the
+ * Kerberos clock skew, since that is how long it could pass the timestamp check.
+ *
+ * <p>
+ * The JDK keeps its own replay cache, which serializes concurrent accepts. When a library replay cache is
+ * configured, call {@link #disableBuiltInReplayCache()} at startup, before any Kerberos credentials are acquired.
+ */
+public interface ReplayCache {
+
+    /**
+     * JDK system property selecting the built-in Kerberos replay cache
+     */
+    String BUILT_IN_REPLAY_CACHE_PROPERTY = "sun.security.krb5.rcache";
+
+    /**
+     * Record an accepted authenticator.
+     *
+     * @param buf
+     *     byte[] containing the encrypted authenticator of an accepted AP-REQ
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return boolean true if it had not been seen before, false if it is a replay
+     */
+    boolean checkAndRecord(byte[] buf, int off, int len);
+
+    /**
+     * Turn off the JDK's built-in replay cache. This only affects credentials acquired afterwards, and must only be
+     * used when a {@code ReplayCache} is configured for every acceptor.
+     */
+    static void disableBuiltInReplayCache() {
+        System.setProperty(BUILT_IN_REPLAY_CACHE_PROPERTY, "none");
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Issues and verifies compact, HMAC-signed session resumption tokens.
+ *
+ * <p>
+ * After a successful accept, a token carrying the source principal (including its realm), the session key algorithm
+ * and an expiry can be handed to the client, typically in a cookie. Presenting it again lets the server restore the
+ * {@link KerberosDetails} without any GSS work. The expiry is capped by both the configured maximum lifetime and
+ * {@link KerberosDetails#getRemainingLifetimeSeconds()}.
+ *
+ * <p>
+ * Tokens are signed with HMAC-SHA256 under the current key and name the key by a one byte ID, so every node holding
+ * the same key set can verify tokens issued by any other. To rotate, distribute the new key alongside the old ones,
+ * then make it current; drop the old key once its tokens have expired. Tokens are bearer credentials and must only
+ * travel over TLS.
+ *
+ * <p>
+ * Token layout, before URL-safe Base64 encoding: version, key ID, expiry (8 bytes, epoch seconds), session key
+ * algorithm (length-prefixed UTF-8), source principal (length-prefixed UTF-8), then the first 16 bytes of the MAC.
+ */
+public class ResumptionTokens {
+
+    private static final Logger LOGGER = Logger.getLogger(ResumptionTokens.class.getName());
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int VERSION = 1;
+
+    private static final int MAC_LENGTH = 16;
+
+    // version + key ID + expiry + two length prefixes
+
+    private static final int FIXED_LENGTH = 1 + 1 + 8 + 2 + 2;
+
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private record KeySet(int currentKeyId, Mac[] macs) {
+    }
+
+    private final long maxLifetimeSeconds;
+
+    private volatile KeySet keySet;
+
+    /**
+     * Class constructor
+     *
+     * @param maxLifetime
+     *     upper bound on the lifetime of issued tokens
+     * @param currentKeyId
+     *     ID of the key used to sign new tokens, 0-255
+     * @param keys
+     *     HMAC keys by ID, at least 32 bytes each
+     */
+    public ResumptionTokens(Duration maxLifetime, int currentKeyId, Map<Integer, byte[]> keys) {
+        this.maxLifetimeSeconds = maxLifetime.toSeconds();
+        setKeys(currentKeyId, keys);
+    }
+
+    /**
+     * Replace the signing and verification keys. Tokens signed with a key that is no longer present stop verifying.
+     *
+     * @param currentKeyId
+     *     ID of the key used to sign new tokens, 0-255
+     * @param keys
+     *     HMAC keys by ID, at least 32 bytes each
+     */
+    public final void setKeys(int currentKeyId, Map<Integer, byte[]> keys) {
+        Mac[] macs = new Mac[256];
+        for (Map.Entry<Integer, byte[]> e : new HashMap<>(keys).entrySet()) {
+            int id = e.getKey();
+            if (id < 0 || id > 255) {
+                throw new IllegalArgumentException("Key ID out of range: " + id);
+            }
+            if (e.getValue().length < MIN_KEY_LENGTH) {
+                throw new IllegalArgumentException("Key " + id + " is shorter than " + MIN_KEY_LENGTH + " bytes");
+            }
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(new SecretKeySpec(e.getValue(), MAC_ALGORITHM));
+                macs[id] = mac;
+            }
+            catch (GeneralSecurityException x) {
+                throw new IllegalStateException("Cannot initialize " + MAC_ALGORITHM, x);
+            }
+        }
+        if (currentKeyId < 0 || currentKeyId > 255 || macs[currentKeyId] == null) {
+            throw new IllegalArgumentException("No key for current key ID " + currentKeyId);
+        }
+        keySet = new KeySet(currentKeyId, macs);
+    }
+
+    /**
+     * Issue a token for an accepted context
+     *
+     * @param details
+     *     KerberosDetails
+     * @return String the URL-safe token, or null if the context has no remaining lifetime
+     */
+    public String issue(KerberosDetails details) {
+        long lifetime = Math.min(maxLifetimeSeconds, details.getRemainingLifetimeSeconds());
+        if (lifetime <= 0 || details.getSourceName() == null) {
+            return null;
+        }
+        long expiry = System.currentTimeMillis() / 1000 + lifetime;
+
+        byte[] principal = details.getSourceName().getBytes(StandardCharsets.UTF_8);
+        String algorithm = details.getSessionKeyAlgorithm();
+        byte[] alg = algorithm != null ? algorithm.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (principal.length > 0xffff || alg.length > 0xffff) {
+            return null;
+        }
+
+        KeySet keys = keySet;
+        byte[] token = new byte[FIXED_LENGTH + alg.length + principal.length + MAC_LENGTH];
+        int pos = 0;
+        token[pos++] = VERSION;
+        token[pos++] = (byte) keys.currentKeyId();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            token[pos++] = (byte) (expiry >>> shift);
+        }
+        pos = putString(token, pos, alg);
+        pos = putString(token, pos, principal);
+
+        byte[] mac = sign(keys.macs()[keys.currentKeyId()], token, pos);
+        System.arraycopy(mac, 0, token, pos, MAC_LENGTH);
+        return ENCODER.encodeToString(token);
+    }
+
+    /**
+     * Verify a token and restore the details it was issued for
+     *
+     * @param token
+     *     String
+     * @return KerberosDetails, or null if the token is malformed, forged, signed with an unknown key or expired
+     */
+    public KerberosDetails verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        byte[] b;
+        try {
+            b = DECODER.decode(token);
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (b.length < FIXED_LENGTH + MAC_LENGTH || b[0] != VERSION) {
+            return null;
+        }
+
+        Mac prototype = keySet.macs()[b[1] & 0xff];
+        if (prototype == null) {
+            LOGGER.log(Level.FINE, "Resumption token signed with unknown key " + (b[1] & 0xff));
+            return null;
+        }
+        int signedLen = b.length - MAC_LENGTH;
+        byte[] expected = sign(prototype, b, signedLen);
+        // Constant time comparison of the truncated MAC
+        int diff = 0;
+        for (int i = 0; i < MAC_LENGTH; i++) {
+            diff |= expected[i] ^ b[signedLen + i];
+        }
+        if (diff != 0) {
+            LOGGER.log(Level.FINE, "Resumption token has a bad signature");
+            return null;
+        }
+
+        long expiry = 0;
+        for (int i = 2; i < 10; i++) {
+            expiry = (expiry << 8) | (b[i] & 0xff);
+        }
+        long remaining = expiry - System.currentTimeMillis() / 1000;
+        if (remaining <= 0) {
+            return null;
+        }
+
+        int pos = 10;
+        int algLen = ((b[pos] & 0xff) << 8) | (b[pos + 1] & 0xff);
+        pos += 2;
+        if (algLen > signedLen - pos - 2) {
+            return null;
+        }
+        String algorithm = algLen > 0 ? new String(b, pos, algLen, StandardCharsets.UTF_8) : null;
+        pos += algLen;
+        int principalLen = ((b[pos] & 0xff) << 8) | (b[pos + 1] & 0xff);
+        pos += 2;
+        if (principalLen != signedLen - pos) {
+            return null;
+        }
+        String principal = new String(b, pos, principalLen, StandardCharsets.UTF_8);
+
+        return new KerberosDetails(principal, null, (int) Math.min(remaining, Integer.MAX_VALUE), algorithm, null);
+    }
+
+    private static int putString(byte[] token, int pos, byte[] s) {
+        token[pos++] = (byte) (s.length >>> 8);
+        token[pos++] = (byte) s.length;
+        System.arraycopy(s, 0, token, pos, s.length);
+        return pos + s.length;
+    }
+
+    private static byte[] sign(Mac prototype, byte[] b, int len) {
+        Mac mac;
+        try {
+            mac = (Mac) prototype.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            // Providers that cannot clone are shared under a lock instead
+            synchronized (prototype) {
+                prototype.update(b, 0, len);
+                return prototype.doFinal();
+            }
+        }
+        mac.update(b, 0, len);
+        return mac.doFinal();
+    }
+
+}
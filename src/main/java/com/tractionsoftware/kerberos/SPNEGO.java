@@ -21,6 +21,8 @@ package com.tractionsoftware.kerberos;
 
 import com.tractionsoftware.asn.DER;
 
+import java.nio.ByteBuffer;
+
 /**
  * SPNEGO constants.
  *
@@ -100,4 +102,25 @@ public class SPNEGO {
         return -1;
     }
 
+    /**
+     * Determine the SPNEGO token type of the blob at the position of a buffer
+     *
+     * @param buf
+     *     ByteBuffer
+     * @return int
+     */
+    public static int checkTokenType(ByteBuffer buf) {
+        if (!buf.hasRemaining()) {
+            return -1;
+        }
+        byte first = buf.get(buf.position());
+        if (DER.isApplicationSpecific(first)) {
+            return NegTokenInit;
+        }
+        if (DER.isTagged(first)) {
+            return NegTokenTarg;
+        }
+        return -1;
+    }
+
 }
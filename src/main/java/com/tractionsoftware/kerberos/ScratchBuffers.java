@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of scratch arrays for staging token bytes that arrive in direct {@link ByteBuffer}s.
+ *
+ * <p>
+ * Arrays come in a few size classes covering normal SPNEGO and Kerberos tokens; larger requests get an unpooled
+ * array. Each class keeps a bounded number of idle arrays, so the pool never holds more than a few megabytes, and
+ * arrays are zeroed as they are returned.
+ */
+final class ScratchBuffers {
+
+    private static final int[] SIZES = { 4 * 1024, 16 * 1024, 64 * 1024 };
+
+    private static final int MAX_IDLE_PER_SIZE = 64;
+
+    private static final ConcurrentLinkedQueue<byte[]>[] IDLE = newQueues();
+
+    private static final AtomicInteger[] IDLE_COUNT = { new AtomicInteger(), new AtomicInteger(), new AtomicInteger() };
+
+    private ScratchBuffers() {
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static ConcurrentLinkedQueue<byte[]>[] newQueues() {
+        ConcurrentLinkedQueue<byte[]>[] queues = new ConcurrentLinkedQueue[SIZES.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        return queues;
+    }
+
+    /**
+     * Borrow an array of at least the specified length
+     *
+     * @param minLength
+     *     int
+     * @return byte[]
+     */
+    static byte[] acquire(int minLength) {
+        int cls = sizeClass(minLength);
+        if (cls < 0) {
+            return new byte[minLength];
+        }
+        byte[] b = IDLE[cls].poll();
+        if (b != null) {
+            IDLE_COUNT[cls].decrementAndGet();
+            return b;
+        }
+        return new byte[SIZES[cls]];
+    }
+
+    /**
+     * Return an array borrowed from {@link #acquire(int)}. The bytes that were used are zeroed before the array goes
+     * back in the pool, so that token and key material does not linger there.
+     *
+     * @param b
+     *     byte[]
+     * @param usedLength
+     *     int number of bytes written from the start of the array
+     */
+    static void release(byte[] b, int usedLength) {
+        for (int cls = 0; cls < SIZES.length; cls++) {
+            if (b.length == SIZES[cls]) {
+                if (IDLE_COUNT[cls].incrementAndGet() <= MAX_IDLE_PER_SIZE) {
+                    Arrays.fill(b, 0, Math.min(usedLength, b.length), (byte) 0);
+                    IDLE[cls].offer(b);
+                }
+                else {
+                    IDLE_COUNT[cls].decrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copy the remaining bytes of a buffer into a borrowed array, without changing its position
+     *
+     * @param src
+     *     ByteBuffer
+     * @return byte[] to be returned with {@link #release(byte[], int)}
+     */
+    static byte[] copyOf(ByteBuffer src) {
+        int len = src.remaining();
+        byte[] b = acquire(len);
+        src.get(src.position(), b, 0, len);
+        return b;
+    }
+
+    private static int sizeClass(int len) {
+        for (int cls = 0; cls < SIZES.length; cls++) {
+            if (len <= SIZES[cls]) {
+                return cls;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -21,6 +21,8 @@ package com.tractionsoftware.kerberos;
 
 import org.ietf.jgss.*;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.PrivilegedAction;
 import java.util.concurrent.Callable;
 import java.util.logging.Level;
@@ -38,10 +40,14 @@ public class SessionSetupPrivilegedAction implements PrivilegedAction<KerberosDe
 
     private static final Logger LOGGER = Logger.getLogger(SessionSetupPrivilegedAction.class.getName());
 
-    private static final class GSSData implements AutoCloseable {
+    private static final AcceptorConfig DEFAULT_CONFIG = new AcceptorConfig();
+
+    static final class GSSData implements AutoCloseable {
 
         private static GSSData create(String m_accountName) throws GSSException {
 
+            CredentialEvent event = new CredentialEvent();
+            event.begin();
             GSSManager gssManager = GSSManager.getInstance();
             GSSName serverGSSName = gssManager.createName(m_accountName, GSSName.NT_USER_NAME);
             GSSCredential serverGSSCreds = gssManager.createCredential(
@@ -50,10 +56,14 @@ public class SessionSetupPrivilegedAction implements PrivilegedAction<KerberosDe
                 CommonOids.KERBEROS5,
                 GSSCredential.ACCEPT_ONLY
             );
+            if (event.shouldCommit()) {
+                event.accountName = m_accountName;
+                event.commit();
+            }
 
             try {
                 GSSContext serverGSSContext = gssManager.createContext(serverGSSCreds);
-                return new GSSData(serverGSSName, serverGSSCreds, serverGSSContext);
+                return new GSSData(serverGSSCreds, null, serverGSSContext);
             }
             catch (GSSException | RuntimeException e) {
                 try {
@@ -67,21 +77,49 @@ public class SessionSetupPrivilegedAction implements PrivilegedAction<KerberosDe
 
         }
 
-        private GSSName serverGSSName;
+        private static GSSData create(AcceptorCredentialCache cache, String m_accountName) throws GSSException {
+
+            AcceptorCredentialCache.Lease lease = cache.acquire(m_accountName);
+
+            try {
+                GSSContext serverGSSContext = GSSManager.getInstance().createContext(lease.getCredential());
+                return new GSSData(null, lease, serverGSSContext);
+            }
+            catch (GSSException | RuntimeException e) {
+                try {
+                    lease.close();
+                }
+                catch (GSSException | RuntimeException x) {
+                    e.addSuppressed(x);
+                }
+                throw e;
+            }
+
+        }
+
+        // Credentials owned by this request, or a lease on shared credentials
 
         private GSSCredential serverGSSCreds;
 
+        private AcceptorCredentialCache.Lease lease;
+
         private GSSContext serverGSSContext;
 
-        public GSSData(GSSName serverGSSName, GSSCredential serverGSSCreds, GSSContext serverGSSContext) {
-            this.serverGSSName = serverGSSName;
+        private boolean closed;
+
+        // Set once an AP-REQ of this handshake has passed the replay check
+
+        private boolean replayChecked;
+
+        public GSSData(GSSCredential serverGSSCreds, AcceptorCredentialCache.Lease lease, GSSContext serverGSSContext) {
             this.serverGSSCreds = serverGSSCreds;
+            this.lease = lease;
             this.serverGSSContext = serverGSSContext;
         }
 
         @Override
         public void close() throws GSSException {
-            if (serverGSSName != null) {
+            if (!closed) {
                 closeImpl();
             }
         }
@@ -91,11 +129,12 @@ public class SessionSetupPrivilegedAction implements PrivilegedAction<KerberosDe
         }
 
         private void closeImpl() throws GSSException {
-            serverGSSName = null;
+            closed = true;
             GSSException eMain = null;
             RuntimeException erMain = null;
+            // Dispose the context before releasing the credentials it was created from
             try {
-                serverGSSCreds.dispose();
+                serverGSSContext.dispose();
             }
             catch (GSSException e) {
                 eMain = e;
@@ -103,9 +142,14 @@ public class SessionSetupPrivilegedAction implements PrivilegedAction<KerberosDe
             catch (RuntimeException e) {
                 erMain = e;
             }
-            serverGSSCreds = null;
+            serverGSSContext = null;
             try {
-                serverGSSContext.dispose();
+                if (lease != null) {
+                    lease.close();
+                }
+                else {
+                    serverGSSCreds.dispose();
+                }
             }
             catch (GSSException e) {
                 if (eMain == null) {
@@ -126,7 +170,8 @@ public class SessionSetupPrivilegedAction implements PrivilegedAction<KerberosDe
                     eMain.addSuppressed(e);
                 }
             }
-            serverGSSContext = null;
+            serverGSSCreds = null;
+            lease = null;
             if (eMain != null) {
                 throw eMain;
             }
@@ -145,33 +190,116 @@ public class SessionSetupPrivilegedAction implements PrivilegedAction<KerberosDe
 
     private final int m_secLen;
 
+    // Direct buffer holding the security blob, staged into a scratch array when the action runs
+
+    private final ByteBuffer m_secBuffer;
+
     // CIFS server account name
 
     private final String accountName;
 
+    // Shared acceptor settings
+
+    private final AcceptorConfig config;
+
+    // Connection or handshake ID used to continue multi-round handshakes
+
+    private String handshakeId;
+
     public SessionSetupPrivilegedAction(String accountName, byte[] secBlob) {
         this(accountName, secBlob, 0, secBlob.length);
     }
 
     public SessionSetupPrivilegedAction(String accountName, byte[] secBlob, int secOffset, int secLen) {
+        this(null, accountName, secBlob, secOffset, secLen);
+    }
+
+    public SessionSetupPrivilegedAction(AcceptorConfig config, String accountName, byte[] secBlob) {
+        this(config, accountName, secBlob, 0, secBlob.length);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param config
+     *     shared acceptor settings, or null for the defaults
+     * @param accountName
+     *     String
+     * @param secBlob
+     *     byte[]
+     * @param secOffset
+     *     int
+     * @param secLen
+     *     int
+     */
+    public SessionSetupPrivilegedAction(AcceptorConfig config, String accountName, byte[] secBlob, int secOffset, int secLen) {
+        this.config = config != null ? config : DEFAULT_CONFIG;
         this.accountName = accountName;
         this.m_secBlob = secBlob;
         this.m_secOffset = secOffset;
         this.m_secLen = secLen;
+        this.m_secBuffer = null;
+    }
+
+    public SessionSetupPrivilegedAction(String accountName, ByteBuffer secBlob) {
+        this(null, accountName, secBlob);
+    }
+
+    /**
+     * Class constructor for a security blob held in a buffer. The blob is the bytes between the position and the
+     * limit, and must not be changed until the action has run; the position is not changed. Heap buffers are used in
+     * place, and direct buffers are copied once into a pooled scratch array while the action runs.
+     *
+     * @param config
+     *     shared acceptor settings, or null for the defaults
+     * @param accountName
+     *     String
+     * @param secBlob
+     *     ByteBuffer
+     */
+    public SessionSetupPrivilegedAction(AcceptorConfig config, String accountName, ByteBuffer secBlob) {
+        this.config = config != null ? config : DEFAULT_CONFIG;
+        this.accountName = accountName;
+        if (secBlob.hasArray()) {
+            this.m_secBlob = secBlob.array();
+            this.m_secOffset = secBlob.arrayOffset() + secBlob.position();
+            this.m_secBuffer = null;
+        }
+        else {
+            this.m_secBlob = null;
+            this.m_secOffset = 0;
+            this.m_secBuffer = secBlob;
+        }
+        this.m_secLen = secBlob.remaining();
+    }
+
+    /**
+     * Set the ID under which a context that needs another token is parked, and from which a parked context is
+     * continued. It must identify the client, such as its connection, and is ignored unless the config has a
+     * {@link HandshakeTable}.
+     *
+     * @param handshakeId
+     *     String, or null to dispose the context after this token
+     */
+    public final void setHandshakeId(String handshakeId) {
+        this.handshakeId = handshakeId;
     }
 
     /**
      * Run the privileged action
+     *
+     * @return KerberosDetails, or null if the security context could not be accepted
      */
     @Override
     public KerberosDetails run() {
-        try (GSSData data = GSSData.create(accountName)) {
-            GSSContext serverGSSContext = data.getContext();
-            // Accept the incoming security blob and generate the response blob
-            byte[] respBlob = serverGSSContext.acceptSecContext(m_secBlob, m_secOffset, m_secLen);
-            LOGGER.log(Level.FINE, "GSSContext for " + accountName + ": " + serverGSSContext);
-            // Create the Kerberos response details
-            return KerberosDetails.createInstance(serverGSSContext, respBlob);
+        try {
+            return accept();
+        }
+        catch (AdmissionRejectedException e) {
+            LOGGER.log(Level.FINE, "Shed security blob for " + accountName + ": " + e.getMinorString() + ", retry after " + e.getRetryAfter());
+        }
+        catch (NegativeTokenCache.CachedFailureException e) {
+            LOGGER.log(Level.FINE, "Rejected repeat of failed security blob for " + accountName + ": " + e.getMessage());
         }
         catch (GSSException e) {
             LOGGER.log(Level.WARNING, "Failed to accept security context for " + accountName, e);
@@ -179,6 +307,304 @@ public class SessionSetupPrivilegedAction implements PrivilegedAction<KerberosDe
         return null;
     }
 
+    /**
+     * Accept the security blob. Like {@link #run()}, this must be called in the context of the acceptor's
+     * {@code Subject}.
+     *
+     * @return KerberosDetails
+     * @throws GSSException
+     *     if the security context could not be accepted
+     */
+    public KerberosDetails accept() throws GSSException {
+        AcceptorMetrics metrics = config.getMetrics();
+        AcceptEvent event = new AcceptEvent();
+        event.begin();
+        AdmissionController admission = config.getAdmissionController();
+        long admittedNanos = 0;
+        if (admission != null) {
+            // Shed load is not a failure of the blob, so it is neither committed nor counted as FAILED
+
+            try {
+                admittedNanos = admission.admit(m_secLen);
+            }
+            catch (AdmissionRejectedException e) {
+                if (metrics != null) {
+                    metrics.recordOutcome(AcceptorMetrics.Outcome.REJECTED);
+                }
+                throw e;
+            }
+        }
+        try {
+            KerberosDetails details;
+            long t = start(metrics);
+            if (m_secBuffer == null) {
+                details = accept(metrics, event, m_secBlob, m_secOffset, m_secLen, t);
+            }
+            else {
+                byte[] scratch = ScratchBuffers.copyOf(m_secBuffer);
+                try {
+                    details = accept(metrics, event, scratch, 0, m_secLen, t);
+                }
+                finally {
+                    ScratchBuffers.release(scratch, m_secLen);
+                }
+            }
+            if (metrics != null) {
+                metrics.recordOutcome(details.isEstablished() ? AcceptorMetrics.Outcome.ESTABLISHED : AcceptorMetrics.Outcome.CONTINUE);
+            }
+            if (event.shouldCommit()) {
+                event.established = details.isEstablished();
+                event.responseSize = details.getResponseLength();
+                event.sessionKeyAlgorithm = details.getSessionKeyAlgorithm();
+                commit(event, 0);
+            }
+            return details;
+        }
+        catch (GSSException e) {
+            if (metrics != null) {
+                metrics.recordOutcome(AcceptorMetrics.Outcome.FAILED);
+                metrics.recordFailure(e.getMajor());
+            }
+            if (event.shouldCommit()) {
+                commit(event, e.getMajor());
+            }
+            throw e;
+        }
+        catch (RuntimeException e) {
+            if (metrics != null) {
+                metrics.recordOutcome(AcceptorMetrics.Outcome.ERROR);
+            }
+            if (event.shouldCommit()) {
+                commit(event, GSSException.FAILURE);
+            }
+            throw e;
+        }
+        finally {
+            if (admission != null) {
+                admission.release(admittedNanos, m_secLen);
+            }
+        }
+    }
+
+    private void commit(AcceptEvent event, int majorCode) {
+        event.accountName = accountName;
+        event.tokenSize = m_secLen;
+        event.majorCode = majorCode;
+        event.commit();
+    }
+
+    // Phases are timed from the start of staging, which t records
+
+    private KerberosDetails accept(AcceptorMetrics metrics, AcceptEvent event, byte[] secBlob, int secOffset, int secLen, long t) throws GSSException {
+        TokenValidator validator = config.getTokenValidator();
+        if (validator != null) {
+            int reason = validator.validate(secBlob, secOffset, secLen);
+            if (reason != TokenValidator.OK) {
+                throw new GSSException(GSSException.DEFECTIVE_TOKEN, reason, "Rejected security blob: " + TokenValidator.asReasonString(reason));
+            }
+        }
+        KeytabIndex keytabIndex = config.getKeytabIndex();
+        if (keytabIndex != null) {
+            keytabIndex.check();
+        }
+        HandshakeTable handshakes = handshakeId != null ? config.getHandshakeTable() : null;
+        GSSData data = handshakes != null ? handshakes.take(handshakeId) : null;
+        String account = null;
+        NegativeTokenCache negativeCache = null;
+        NegativeTokenCache.Key negativeKey = null;
+        if (data == null) {
+            account = routeAccount(secBlob, secOffset, secLen);
+            negativeCache = config.getNegativeTokenCache();
+            if (negativeCache != null) {
+                int generation = keytabIndex != null ? keytabIndex.getGeneration() : 0;
+                negativeKey = NegativeTokenCache.key(account, generation, secBlob, secOffset, secLen);
+                negativeCache.check(negativeKey);
+            }
+        }
+        t = lap(metrics, AcceptorMetrics.Phase.DECODE, t);
+        // Settings used after the blob is accepted are read once, so a concurrent config change cannot mix them
+
+        ReplayCache replayCache = config.getReplayCache();
+        ResumptionTokens resumptionTokens = config.getResumptionTokens();
+        DelegatedCredentialCache delegatedCache = config.getDelegatedCredentialCache();
+        int fields = detailFields(resumptionTokens, delegatedCache);
+        if (data == null) {
+            FastPathAcceptor fastPath = config.getFastPathAcceptor();
+            if (fastPath != null && replayCache != null && fastPath.isAccount(account)) {
+                KerberosDetails details = fastPath.accept(secBlob, secOffset, secLen, fields);
+                t = lap(metrics, AcceptorMetrics.Phase.FAST_PATH, t);
+                if (details != null) {
+                    try {
+                        checkReplay(replayCache, secBlob, secOffset, secLen, true);
+                    }
+                    catch (GSSException e) {
+                        recordFailure(negativeCache, negativeKey, e);
+                        throw e;
+                    }
+                    lap(metrics, AcceptorMetrics.Phase.REPLAY, t);
+                    LOGGER.log(Level.FINE, "Fast path accepted context for " + accountName + ": " + details);
+                    if (resumptionTokens != null) {
+                        details.setResumptionToken(resumptionTokens.issue(details));
+                    }
+                    return details;
+                }
+            }
+            AcceptorCredentialCache cache = config.getCredentialCache();
+            data = cache != null ? GSSData.create(cache, account) : GSSData.create(account);
+        }
+        t = lap(metrics, AcceptorMetrics.Phase.CREDENTIALS, t);
+        boolean parked = false;
+        try {
+            GSSContext serverGSSContext = data.getContext();
+            byte[] respBlob;
+            try {
+                // Accept the incoming security blob and generate the response blob
+                respBlob = serverGSSContext.acceptSecContext(secBlob, secOffset, secLen);
+                t = lap(metrics, AcceptorMetrics.Phase.ACCEPT, t);
+                if (replayCache != null) {
+                    checkReplay(replayCache, data, secBlob, secOffset, secLen);
+                    t = lap(metrics, AcceptorMetrics.Phase.REPLAY, t);
+                }
+            }
+            catch (GSSException e) {
+                recordFailure(negativeCache, negativeKey, e);
+                throw e;
+            }
+            if (event.isEnabled()) {
+                event.mechanism = String.valueOf(serverGSSContext.getMech());
+            }
+            if (handshakes != null && !serverGSSContext.isEstablished()) {
+                // Keep the context for the next leg of the handshake
+                handshakes.park(handshakeId, data);
+                parked = true;
+                return KerberosDetails.createContinueInstance(respBlob);
+            }
+            LOGGER.log(Level.FINE, "GSSContext for " + accountName + ": " + serverGSSContext);
+            // Create the Kerberos response details
+            KerberosDetails details = KerberosDetails.createInstance(serverGSSContext, respBlob, fields);
+            lap(metrics, AcceptorMetrics.Phase.INQUIRE, t);
+            cacheDelegatedCredential(delegatedCache, details);
+            if (resumptionTokens != null) {
+                details.setResumptionToken(resumptionTokens.issue(details));
+            }
+            return details;
+        }
+        catch (GSSException | RuntimeException e) {
+            try {
+                data.close();
+            }
+            catch (GSSException | RuntimeException x) {
+                e.addSuppressed(x);
+            }
+            data = null;
+            throw e;
+        }
+        finally {
+            if (data != null && !parked) {
+                data.close();
+            }
+        }
+    }
+
+    // Only failures of the token itself are remembered, not those of acquiring credentials or of later steps
+
+    private static void recordFailure(NegativeTokenCache cache, NegativeTokenCache.Key key, GSSException e) {
+        if (key != null) {
+            cache.record(key, e);
+        }
+    }
+
+    // Choose the account from the ticket's SPN when a router is set, falling back to the action's own account
+
+    String routeAccount(byte[] secBlob, int secOffset, int secLen) throws GSSException {
+        SpnRouter router = config.getSpnRouter();
+        if (router == null) {
+            return accountName;
+        }
+        String account = null;
+        try {
+            account = router.route(secBlob, secOffset, secLen);
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot read service principal from security blob", e);
+        }
+        if (account != null) {
+            return account;
+        }
+        if (accountName == null) {
+            throw new GSSException(GSSException.NO_CRED, 0, "No acceptor account for the ticket's service principal");
+        }
+        return accountName;
+    }
+
+    private int detailFields(ResumptionTokens resumptionTokens, DelegatedCredentialCache delegatedCache) {
+        int fields = config.getDetailFields();
+        if (resumptionTokens != null) {
+            fields |= KerberosDetails.SOURCE_NAME | KerberosDetails.LIFETIME | KerberosDetails.SESSION_KEY_ALGORITHM;
+        }
+        if (delegatedCache != null) {
+            fields |= KerberosDetails.SOURCE_NAME | KerberosDetails.DELEGATED_CREDENTIAL;
+        }
+        return fields;
+    }
+
+    private static void cacheDelegatedCredential(DelegatedCredentialCache cache, KerberosDetails details) {
+        GSSCredential credential = details.getDelegatedCredential();
+        if (cache == null || credential == null) {
+            return;
+        }
+        try {
+            cache.put(details.getSourceName(), credential);
+        }
+        catch (GSSException | RuntimeException e) {
+            // The client is still authenticated; downstream calls will fall back to another path
+            LOGGER.log(Level.WARNING, "Cannot cache delegated credential for " + details.getSourceName(), e);
+        }
+    }
+
+    private static long start(AcceptorMetrics metrics) {
+        return metrics != null ? System.nanoTime() : 0;
+    }
+
+    private static long lap(AcceptorMetrics metrics, AcceptorMetrics.Phase phase, long start) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.recordPhase(phase, now - start);
+        return now;
+    }
+
+    // Check the AP-REQ of each leg until one has been found, which must happen by the time the context is established
+
+    private static void checkReplay(ReplayCache replayCache, GSSData data, byte[] secBlob, int secOffset, int secLen) throws GSSException {
+        if (data.replayChecked) {
+            return;
+        }
+        data.replayChecked = checkReplay(replayCache, secBlob, secOffset, secLen, data.getContext().isEstablished());
+    }
+
+    // The authenticator is found inside any SPNEGO wrapping, so a re-wrapped token has the same key as the original
+
+    private static boolean checkReplay(ReplayCache replayCache, byte[] secBlob, int secOffset, int secLen, boolean required) throws GSSException {
+        APRequest apReq = new APRequest();
+        try {
+            apReq.parseBlob(secBlob, secOffset, secLen);
+        }
+        catch (IOException e) {
+            if (!required) {
+                return false;
+            }
+            GSSException failure = new GSSException(GSSException.DEFECTIVE_TOKEN, 0, "Cannot locate authenticator for replay check");
+            failure.initCause(e);
+            throw failure;
+        }
+        if (!replayCache.checkAndRecord(secBlob, apReq.authenticatorCipherOffset(), apReq.authenticatorCipherLength())) {
+            throw new GSSException(GSSException.DUPLICATE_TOKEN, 0, "Replayed authenticator");
+        }
+        return true;
+    }
+
     @Override
     public KerberosDetails call() {
         return run();
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the acceptor account for a security blob from the service principal name in its ticket.
+ *
+ * <p>
+ * A server hosting many virtual hosts would otherwise have to try each account's credentials until
+ * {@code acceptSecContext} succeeds. The router reads the unencrypted ticket sname and realm from the AP-REQ,
+ * either bare or inside an SPNEGO NegTokenInit, and looks it up in a table of routes. SPNs are matched first with
+ * their realm, as in {@code HTTP/www.example.com@EXAMPLE.COM}, and then without it. Unmapped SPNs can optionally be
+ * used as the account name themselves, which suits accounts named after their principal.
+ *
+ * @see AcceptorConfig#setSpnRouter(SpnRouter)
+ */
+public class SpnRouter {
+
+    private final Map<String, String> routes = new ConcurrentHashMap<>();
+
+    private final boolean routeUnmapped;
+
+    /**
+     * Class constructor
+     *
+     * @param routeUnmapped
+     *     true to use an unmapped SPN, with its realm, as the account name, false to route only mapped SPNs
+     */
+    public SpnRouter(boolean routeUnmapped) {
+        this.routeUnmapped = routeUnmapped;
+    }
+
+    /**
+     * Route an SPN to an account
+     *
+     * @param spn
+     *     String, such as {@code HTTP/www.example.com@EXAMPLE.COM}, or {@code HTTP/www.example.com} for any realm
+     * @param accountName
+     *     String
+     */
+    public void addRoute(String spn, String accountName) {
+        routes.put(spn, accountName);
+    }
+
+    /**
+     * Remove the route for an SPN
+     *
+     * @param spn
+     *     String
+     */
+    public void removeRoute(String spn) {
+        routes.remove(spn);
+    }
+
+    /**
+     * Return the account for an SPN
+     *
+     * @param spn
+     *     String, including the realm
+     * @return String, or null if the SPN is not routed
+     */
+    public String route(String spn) {
+        String account = routes.get(spn);
+        if (account == null) {
+            int at = spn.lastIndexOf('@');
+            if (at >= 0) {
+                account = routes.get(spn.substring(0, at));
+            }
+        }
+        if (account == null && routeUnmapped) {
+            account = spn;
+        }
+        return account;
+    }
+
+    /**
+     * Return the account for the ticket in a security blob
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return String, or null if the SPN is not routed
+     * @throws IOException
+     *     if the blob is not an SPNEGO or Kerberos v5 AP-REQ
+     */
+    public String route(byte[] buf, int off, int len) throws IOException {
+        return route(getServicePrincipal(buf, off, len));
+    }
+
+    /**
+     * Return the service principal name in the ticket of a security blob
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return String, such as {@code HTTP/www.example.com@EXAMPLE.COM}
+     * @throws IOException
+     *     if the blob is not an SPNEGO or Kerberos v5 AP-REQ
+     */
+    public static String getServicePrincipal(byte[] buf, int off, int len) throws IOException {
+        APRequest req = new APRequest();
+        if (len > 0 && (buf[off] & 0xff) == DERCursor.APPLICATION) {
+            // SPNEGO, or a GSS-API framed Kerberos token which the view passes through whole
+            NegTokenInitView init = new NegTokenInitView().wrap(buf, off, len);
+            req.parse(buf, init.mechTokenOffset(), init.mechTokenLength());
+        }
+        else {
+            req.parse(buf, off, len);
+        }
+        StringBuilder spn = new StringBuilder(64);
+        DERCursor c = new DERCursor().reset(buf, req.serverNameOffset(), req.serverNameLength());
+        while (c.hasNext()) {
+            c.expect(DERCursor.GENERAL_STRING);
+            if (!spn.isEmpty()) {
+                spn.append('/');
+            }
+            spn.append(new String(buf, c.contentOffset(), c.contentLength(), StandardCharsets.UTF_8));
+        }
+        return spn.append('@').append(new String(buf, req.realmOffset(), req.realmLength(), StandardCharsets.UTF_8)).toString();
+    }
+
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Cheap structural checks that reject junk security blobs before they reach the decoders and JGSS.
+ *
+ * <p>
+ * {@link SPNEGO#checkTokenType(byte[], int, int)} only looks at the first byte. This walks the whole blob: every DER
+ * length must fit its container exactly, nesting is bounded, the blob must not exceed a maximum size, the
+ * mechanism must be Kerberos v5 (directly, or offered in an SPNEGO NegTokenInit), and a Kerberos token must be a
+ * correctly framed AP-REQ with its ticket and authenticator. Continuation NegTokenTarg blobs only get the DER
+ * checks. Nothing is decrypted, so a blob that passes can still be refused by JGSS.
+ *
+ * <p>
+ * Validation allocates nothing for byte arrays and heap buffers, and takes time proportional to the number of DER
+ * elements. Instances are immutable and thread-safe.
+ *
+ * @see AcceptorConfig#setTokenValidator(TokenValidator)
+ */
+public final class TokenValidator {
+
+    // Reason codes
+
+    public static final int OK = 0;
+    public static final int EMPTY = 1;
+    public static final int TOO_LARGE = 2;
+    public static final int BAD_TAG = 3;
+    public static final int BAD_LENGTH = 4;
+    public static final int TOO_DEEP = 5;
+    public static final int UNSUPPORTED_MECH = 6;
+    public static final int NOT_AP_REQ = 7;
+
+    /**
+     * Default maximum blob size, which covers Kerberos tickets carrying large PACs
+     */
+    public static final int DEFAULT_MAX_TOKEN_SIZE = 64 * 1024;
+
+    /**
+     * Default maximum nesting of DER elements, enough for an AP-REQ inside SPNEGO
+     */
+    public static final int DEFAULT_MAX_DEPTH = DERCursor.MAX_DEPTH;
+
+    // DER content of the mechanism OIDs
+
+    private static final byte[] SPNEGO_OID = { 0x2b, 0x06, 0x01, 0x05, 0x05, 0x02 };
+
+    private static final byte[] KERBEROS5_OID = { 0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x12, 0x01, 0x02, 0x02 };
+
+    private static final byte[] MSKERBEROS5_OID = { 0x2a, (byte) 0x86, 0x48, (byte) 0x82, (byte) 0xf7, 0x12, 0x01, 0x02, 0x02 };
+
+    private static final int TOK_ID_AP_REQ = 0x0100;
+
+    private static final int KRB_AP_REQ = 14;
+
+    private static final int NEG_TOKEN_TARG = DERCursor.CONTEXT | 1;
+
+    private final int maxTokenSize;
+
+    private final int maxDepth;
+
+    /**
+     * Class constructor with the default limits
+     */
+    public TokenValidator() {
+        this(DEFAULT_MAX_TOKEN_SIZE, DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param maxTokenSize
+     *     maximum blob size in bytes
+     * @param maxDepth
+     *     maximum nesting of DER elements
+     */
+    public TokenValidator(int maxTokenSize, int maxDepth) {
+        this.maxTokenSize = maxTokenSize;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Return a reason code as a string
+     *
+     * @param reason
+     *     int
+     * @return String
+     */
+    public static String asReasonString(int reason) {
+        return switch (reason) {
+        case OK -> "OK";
+        case EMPTY -> "Empty";
+        case TOO_LARGE -> "TooLarge";
+        case BAD_TAG -> "BadTag";
+        case BAD_LENGTH -> "BadLength";
+        case TOO_DEEP -> "TooDeep";
+        case UNSUPPORTED_MECH -> "UnsupportedMech";
+        case NOT_AP_REQ -> "NotApReq";
+        default -> String.valueOf(reason);
+        };
+    }
+
+    /**
+     * Check the structure of a security blob
+     *
+     * @param buf
+     *     byte[]
+     * @param off
+     *     int
+     * @param len
+     *     int
+     * @return int {@link #OK}, or the reason the blob was rejected
+     */
+    public int validate(byte[] buf, int off, int len) {
+        if (len <= 0) {
+            return EMPTY;
+        }
+        if (len > maxTokenSize) {
+            return TOO_LARGE;
+        }
+        int end = off + len;
+        long h = header(buf, off, end);
+        if (h < 0) {
+            return (int) -h;
+        }
+        if (contentEnd(h) != end) {
+            // Trailing bytes after the outer element
+            return BAD_LENGTH;
+        }
+        int reason = checkTree(buf, off, end, 0);
+        if (reason != OK) {
+            return reason;
+        }
+        return switch (buf[off] & 0xff) {
+        case DERCursor.APPLICATION -> checkInitial(buf, off, end, true);
+        case APRequest.AP_REQ -> checkApReq(buf, off, end);
+        case NEG_TOKEN_TARG -> OK;
+        default -> BAD_TAG;
+        };
+    }
+
+    /**
+     * Check the structure of a security blob held in a buffer. The blob is the bytes between the position and the
+     * limit; the position is not changed. Direct buffers are staged through a pooled scratch array.
+     *
+     * @param buf
+     *     ByteBuffer
+     * @return int {@link #OK}, or the reason the blob was rejected
+     */
+    public int validate(ByteBuffer buf) {
+        if (buf.hasArray()) {
+            return validate(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        }
+        int len = buf.remaining();
+        if (len <= 0) {
+            return EMPTY;
+        }
+        if (len > maxTokenSize) {
+            return TOO_LARGE;
+        }
+        byte[] scratch = ScratchBuffers.copyOf(buf);
+        try {
+            return validate(scratch, 0, len);
+        }
+        finally {
+            ScratchBuffers.release(scratch, len);
+        }
+    }
+
+    // Every element in [pos, end) must be well formed and constructed ones must be exactly filled by their children
+
+    private int checkTree(byte[] b, int pos, int end, int depth) {
+        while (pos < end) {
+            long h = header(b, pos, end);
+            if (h < 0) {
+                return (int) -h;
+            }
+            if ((b[pos] & 0x20) != 0) {
+                if (depth == maxDepth) {
+                    return TOO_DEEP;
+                }
+                int reason = checkTree(b, contentOffset(h), contentEnd(h), depth + 1);
+                if (reason != OK) {
+                    return reason;
+                }
+            }
+            pos = contentEnd(h);
+        }
+        return OK;
+    }
+
+    // GSS-API initial context token: Kerberos v5 AP-REQ, or if allowed an SPNEGO NegTokenInit
+
+    private int checkInitial(byte[] b, int off, int end, boolean spnego) {
+        long h = header(b, off, end);
+        int pos = contentOffset(h);
+        int inner = contentEnd(h);
+        long oid = header(b, pos, inner);
+        if (oid < 0 || (b[pos] & 0xff) != DERCursor.OID) {
+            return BAD_TAG;
+        }
+        pos = contentEnd(oid);
+        if (oidEquals(b, oid, KERBEROS5_OID)) {
+            if (inner - pos < 2 || (((b[pos] & 0xff) << 8) | (b[pos + 1] & 0xff)) != TOK_ID_AP_REQ) {
+                return NOT_AP_REQ;
+            }
+            pos += 2;
+            long ap = header(b, pos, inner);
+            if (ap < 0 || contentEnd(ap) != inner) {
+                return NOT_AP_REQ;
+            }
+            return checkApReq(b, pos, inner);
+        }
+        if (!spnego || !oidEquals(b, oid, SPNEGO_OID)) {
+            return UNSUPPORTED_MECH;
+        }
+
+        // [0] NegTokenInit ::= SEQUENCE { mechTypes [0], reqFlags [1], mechToken [2], mechListMIC [3] }
+
+        long ctx = header(b, pos, inner);
+        if (ctx < 0 || (b[pos] & 0xff) != (DERCursor.CONTEXT | 0)) {
+            return BAD_TAG;
+        }
+        long seq = header(b, contentOffset(ctx), contentEnd(ctx));
+        if (seq < 0 || (b[contentOffset(ctx)] & 0xff) != DERCursor.SEQUENCE) {
+            return BAD_TAG;
+        }
+        boolean kerberos = false;
+        int mechTokenOff = -1;
+        int mechTokenEnd = -1;
+        pos = contentOffset(seq);
+        while (pos < contentEnd(seq)) {
+            long f = header(b, pos, contentEnd(seq));
+            int tag = b[pos] & 0xff;
+            int child = contentOffset(f);
+            long v = child < contentEnd(f) ? header(b, child, contentEnd(f)) : -BAD_LENGTH;
+            if (v < 0) {
+                return BAD_LENGTH;
+            }
+            if (tag == (DERCursor.CONTEXT | 0)) {
+                if ((b[child] & 0xff) != DERCursor.SEQUENCE) {
+                    return BAD_TAG;
+                }
+                for (int p = contentOffset(v); p < contentEnd(v); ) {
+                    long m = header(b, p, contentEnd(v));
+                    if ((b[p] & 0xff) != DERCursor.OID) {
+                        return BAD_TAG;
+                    }
+                    kerberos |= oidEquals(b, m, KERBEROS5_OID) || oidEquals(b, m, MSKERBEROS5_OID);
+                    p = contentEnd(m);
+                }
+            }
+            else if (tag == (DERCursor.CONTEXT | 2)) {
+                if ((b[child] & 0xff) != DERCursor.OCTET_STRING) {
+                    return BAD_TAG;
+                }
+                mechTokenOff = contentOffset(v);
+                mechTokenEnd = contentEnd(v);
+            }
+            pos = contentEnd(f);
+        }
+        if (!kerberos) {
+            return UNSUPPORTED_MECH;
+        }
+        if (mechTokenOff < 0) {
+            // No optimistic token; the acceptor will ask for one
+            return OK;
+        }
+        // The mechToken is inside an OCTET STRING, so the tree check has not looked at it yet
+        long t = header(b, mechTokenOff, mechTokenEnd);
+        if (t < 0) {
+            return (int) -t;
+        }
+        if (contentEnd(t) != mechTokenEnd) {
+            return BAD_LENGTH;
+        }
+        int reason = checkTree(b, mechTokenOff, mechTokenEnd, 0);
+        if (reason != OK) {
+            return reason;
+        }
+        // The mechToken must be Kerberos, not another layer of SPNEGO
+        return (b[mechTokenOff] & 0xff) == DERCursor.APPLICATION
+            ? checkInitial(b, mechTokenOff, mechTokenEnd, false)
+            : checkApReq(b, mechTokenOff, mechTokenEnd);
+    }
+
+    // AP-REQ ::= [APPLICATION 14] SEQUENCE { pvno [0] 5, msg-type [1] 14, ap-options [2], ticket [3], authenticator [4] }
+
+    private int checkApReq(byte[] b, int off, int end) {
+        long h = header(b, off, end);
+        if ((b[off] & 0xff) != APRequest.AP_REQ || contentOffset(h) >= contentEnd(h)) {
+            return NOT_AP_REQ;
+        }
+        long seq = header(b, contentOffset(h), contentEnd(h));
+        if ((b[contentOffset(h)] & 0xff) != DERCursor.SEQUENCE) {
+            return NOT_AP_REQ;
+        }
+        int seen = 0;
+        for (int pos = contentOffset(seq); pos < contentEnd(seq); ) {
+            long f = header(b, pos, contentEnd(seq));
+            int tag = b[pos] & 0xff;
+            if ((tag & 0xe0) != DERCursor.CONTEXT || contentOffset(f) >= contentEnd(f)) {
+                return NOT_AP_REQ;
+            }
+            int child = contentOffset(f);
+            int childTag = b[child] & 0xff;
+            long v = header(b, child, contentEnd(f));
+            switch (tag & 0x1f) {
+            case 0, 1 -> {
+                int expected = (tag & 0x1f) == 0 ? 5 : KRB_AP_REQ;
+                if (childTag != DERCursor.INTEGER || contentEnd(v) - contentOffset(v) != 1 || b[contentOffset(v)] != expected) {
+                    return NOT_AP_REQ;
+                }
+            }
+            case 2 -> {
+                if (childTag != DERCursor.BIT_STRING) {
+                    return NOT_AP_REQ;
+                }
+            }
+            case 3 -> {
+                if (childTag != APRequest.TICKET) {
+                    return NOT_AP_REQ;
+                }
+            }
+            case 4 -> {
+                if (childTag != DERCursor.SEQUENCE) {
+                    return NOT_AP_REQ;
+                }
+            }
+            default -> {
+                return NOT_AP_REQ;
+            }
+            }
+            seen |= 1 << (tag & 0x1f);
+            pos = contentEnd(f);
+        }
+        return seen == 0x1f ? OK : NOT_AP_REQ;
+    }
+
+    /**
+     * Read a DER header, returning the content offset and length packed in a long, or the negated reason code
+     */
+    private static long header(byte[] b, int pos, int end) {
+        if (end - pos < 2) {
+            return -BAD_LENGTH;
+        }
+        if ((b[pos] & 0x1f) == 0x1f) {
+            return -BAD_TAG;
+        }
+        int len = b[pos + 1] & 0xff;
+        pos += 2;
+        if (len > 0x7f) {
+            int n = len & 0x7f;
+            if (n == 0 || n > 4 || end - pos < n) {
+                return -BAD_LENGTH;
+            }
+            len = 0;
+            for (int i = 0; i < n; i++) {
+                len = (len << 8) | (b[pos++] & 0xff);
+            }
+            if (len < 0) {
+                return -BAD_LENGTH;
+            }
+        }
+        if (len > end - pos) {
+            return -BAD_LENGTH;
+        }
+        return ((long) pos << 32) | len;
+    }
+
+    private static int contentOffset(long h) {
+        return (int) (h >>> 32);
+    }
+
+    private static int contentEnd(long h) {
+        return (int) (h >>> 32) + (int) h;
+    }
+
+    private static boolean oidEquals(byte[] b, long h, byte[] oid) {
+        int from = contentOffset(h);
+        return Arrays.equals(b, from, contentEnd(h), oid, 0, oid.length);
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.tractionsoftware.kerberos.TestKerberos.tlv;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class APRequestTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    @Test
+    void findsSameAuthenticatorInEveryWrapping() throws Exception {
+        byte[] framed = kdc.apReq();
+        byte[] expected = authenticator(framed);
+        assertEquals(KerberosAes.AES256_CTS_HMAC_SHA1_96, parse(framed).authenticatorEtype());
+        assertArrayEquals(expected, authenticator(TestKerberos.unframe(framed)));
+        assertArrayEquals(expected, authenticator(TestKerberos.spnego(framed)));
+        assertArrayEquals(expected, authenticator(targ(framed)));
+    }
+
+    @Test
+    void rejectsBlobWithoutApReq() {
+        byte[] noResponse = tlv(0xa1, tlv(0x30, tlv(0xa0, tlv(0x0a, new byte[] { 1 }))));
+        assertThrows(IOException.class, () -> parse(noResponse));
+        byte[] noMechToken = tlv(0x60, tlv(0x06, TestKerberos.SPNEGO_OID), tlv(0xa0, tlv(0x30,
+            tlv(0xa0, tlv(0x30, tlv(0x06, TestKerberos.KERBEROS5_OID)))
+        )));
+        assertThrows(IOException.class, () -> parse(noMechToken));
+        assertThrows(IOException.class, () -> parse(new byte[] { 0x04, 0x01, 0x00 }));
+    }
+
+    // NegTokenTarg ::= [1] SEQUENCE { negResult [0], responseToken [2] }
+
+    static byte[] targ(byte[] responseToken) {
+        return tlv(0xa1, tlv(0x30, tlv(0xa0, tlv(0x0a, new byte[] { 1 })), tlv(0xa2, tlv(0x04, responseToken))));
+    }
+
+    private static APRequest parse(byte[] blob) throws IOException {
+        APRequest req = new APRequest();
+        req.parseBlob(blob, 0, blob.length);
+        return req;
+    }
+
+    private static byte[] authenticator(byte[] blob) throws IOException {
+        APRequest req = parse(blob);
+        return Arrays.copyOfRange(blob, req.authenticatorCipherOffset(), req.authenticatorCipherOffset() + req.authenticatorCipherLength());
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSCredential;
+import org.ietf.jgss.GSSException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.security.auth.Subject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AcceptorCredentialCacheTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    private final Subject acceptor = kdc.acceptor();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void disposesAfterLastLease() throws Exception {
+        AcceptorCredentialCache cache = new AcceptorCredentialCache();
+        AcceptorCredentialCache.Lease a = acquire(cache);
+        AcceptorCredentialCache.Lease b = acquire(cache);
+        GSSCredential credential = a.getCredential();
+        assertSame(credential, b.getCredential());
+        assertEquals(1, cache.size());
+
+        cache.invalidate(TestKerberos.SERVICE);
+        assertEquals(0, cache.size());
+        a.close();
+        a.close();
+        assertThrows(IllegalStateException.class, a::getCredential);
+        assertFalse(isDisposed(credential));
+        b.close();
+        assertTrue(isDisposed(credential));
+    }
+
+    @Test
+    void reloadsWhenSubjectCredentialsChange() throws Exception {
+        AcceptorCredentialCache cache = new AcceptorCredentialCache((Path) null, 0);
+        AcceptorCredentialCache.Lease first = acquire(cache);
+        try (AcceptorCredentialCache.Lease same = acquire(cache)) {
+            assertSame(first.getCredential(), same.getCredential());
+        }
+
+        // A rotated key
+        kdc.kvno++;
+        acceptor.getPrivateCredentials().add(kdc.key());
+        AcceptorCredentialCache.Lease second = acquire(cache);
+        assertNotSame(first.getCredential(), second.getCredential());
+        assertFalse(isDisposed(first.getCredential()));
+        GSSCredential stale = first.getCredential();
+        first.close();
+        assertTrue(isDisposed(stale));
+
+        // Another Subject has its own credential
+        try (AcceptorCredentialCache.Lease other = Subject.callAs(kdc.acceptor(), () -> cache.acquire(TestKerberos.SERVICE))) {
+            assertNotSame(second.getCredential(), other.getCredential());
+        }
+        assertFalse(isDisposed(second.getCredential()));
+        second.close();
+    }
+
+    @Test
+    void reloadsWhenKeytabIndexChanges() throws Exception {
+        Path path = dir.resolve("service.keytab");
+        write(path, 1, 60_000);
+        KeytabIndex index = new KeytabIndex(path, Duration.ZERO, 0);
+        AcceptorCredentialCache cache = new AcceptorCredentialCache(index, 0);
+        GSSCredential first;
+        try (AcceptorCredentialCache.Lease lease = acquire(cache)) {
+            first = lease.getCredential();
+        }
+        try (AcceptorCredentialCache.Lease lease = acquire(cache)) {
+            assertSame(first, lease.getCredential());
+        }
+
+        write(path, 2, 30_000);
+        assertTrue(index.reload());
+        try (AcceptorCredentialCache.Lease lease = acquire(cache)) {
+            assertNotSame(first, lease.getCredential());
+        }
+        assertTrue(isDisposed(first));
+    }
+
+    @Test
+    void loadsOnceForConcurrentMisses() throws Exception {
+        AcceptorCredentialCache cache = new AcceptorCredentialCache();
+        int threads = 16;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<AcceptorCredentialCache.Lease>> leases = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                leases.add(executor.submit(() -> {
+                    start.await();
+                    return acquire(cache);
+                }));
+            }
+        }
+        GSSCredential credential = leases.get(0).get().getCredential();
+        for (Future<AcceptorCredentialCache.Lease> lease : leases) {
+            assertSame(credential, lease.get().getCredential());
+            lease.get().close();
+        }
+        assertEquals(1, cache.size());
+        assertFalse(isDisposed(credential));
+        cache.close();
+        assertTrue(isDisposed(credential));
+        assertThrows(IllegalStateException.class, () -> acquire(cache));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAccount() throws Exception {
+        AcceptorCredentialCache cache = new AcceptorCredentialCache();
+        cache.setMaxEntries(1);
+        GSSCredential first;
+        try (AcceptorCredentialCache.Lease lease = acquire(cache)) {
+            first = lease.getCredential();
+        }
+        try (AcceptorCredentialCache.Lease lease = Subject.callAs(acceptor, () -> cache.acquire("HTTP/localhost"))) {
+            assertNotSame(first, lease.getCredential());
+        }
+        assertEquals(1, cache.size());
+        assertTrue(isDisposed(first));
+    }
+
+    private AcceptorCredentialCache.Lease acquire(AcceptorCredentialCache cache) {
+        try {
+            return Subject.callAs(acceptor, () -> cache.acquire(TestKerberos.SERVICE));
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw e;
+        }
+    }
+
+    // A disposed JDK credential refuses further use
+
+    private static boolean isDisposed(GSSCredential credential) throws GSSException {
+        try {
+            credential.getRemainingAcceptLifetime(CommonOids.KERBEROS5);
+            return false;
+        }
+        catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    private static void write(Path path, int kvno, long age) throws Exception {
+        Files.write(path, KeytabIndexTest.keytab(KeytabIndexTest.entry(kvno, KerberosAes.AES256_CTS_HMAC_SHA1_96, kvno, 0)));
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() - age));
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AcceptorServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    private AcceptorConfig config;
+
+    // Accepts block in the replay check until the gate is opened, then check a real replay cache
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private final Semaphore entered = new Semaphore(0);
+
+    private AcceptorService service;
+
+    @BeforeEach
+    void setUp() {
+        config = new AcceptorConfig();
+        config.setFastPathAcceptor(new FastPathAcceptor(List.of(kdc.key())));
+        ReplayCache replays = new MemoryReplayCache();
+        config.setReplayCache((buf, off, len) -> {
+            entered.release();
+            try {
+                return gate.await(TIMEOUT.toNanos(), TimeUnit.NANOSECONDS) && replays.checkAndRecord(buf, off, len);
+            }
+            catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void capsConcurrencyAndQueue() throws Exception {
+        service = new AcceptorService(kdc.acceptor(), config, 2, 1, TIMEOUT);
+        List<CompletableFuture<KerberosDetails>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(submit());
+        }
+        assertTrue(entered.tryAcquire(2, 5, TimeUnit.SECONDS));
+        assertEquals(2, service.getRunning());
+        assertEquals(1, service.getQueued());
+        assertFalse(entered.tryAcquire(100, TimeUnit.MILLISECONDS));
+
+        // Beyond the queue, a blob fails straight away
+        CompletableFuture<KerberosDetails> overflow = submit();
+        assertTrue(overflow.isCompletedExceptionally());
+        assertInstanceOf(RejectedExecutionException.class, cause(overflow));
+
+        gate.countDown();
+        for (CompletableFuture<KerberosDetails> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).isEstablished());
+        }
+        assertEquals(1, entered.availablePermits());
+        awaitIdle();
+    }
+
+    @Test
+    void timesOutAtDeadline() throws Exception {
+        service = new AcceptorService(kdc.acceptor(), config, 1, 1, TIMEOUT);
+        CompletableFuture<KerberosDetails> running = service.submit(action(), Duration.ofMillis(200));
+        assertTrue(entered.tryAcquire(5, TimeUnit.SECONDS));
+        CompletableFuture<KerberosDetails> queued = service.submit(action(), Duration.ofMillis(100));
+
+        assertInstanceOf(TimeoutException.class, cause(queued));
+        assertInstanceOf(TimeoutException.class, cause(running));
+
+        // The running accept keeps its slot until it finishes; the queued one never starts
+        assertEquals(1, service.getRunning());
+        gate.countDown();
+        CompletableFuture<KerberosDetails> next = submit();
+        assertTrue(next.get(5, TimeUnit.SECONDS).isEstablished());
+        assertEquals(1, entered.availablePermits());
+    }
+
+    @Test
+    void keepsBatchOrder() throws Exception {
+        gate.countDown();
+        service = new AcceptorService(kdc.acceptor(), config, 2, 8, TIMEOUT);
+        String[] clients = { "alice", "bob", "carol", "dave", "erin" };
+        List<ByteBuffer> blobs = new ArrayList<>();
+        for (String client : clients) {
+            kdc.client = client;
+            blobs.add(ByteBuffer.wrap(kdc.apReq()));
+        }
+        List<AcceptResult> results = service.submitAll(TestKerberos.SERVICE, blobs).get(5, TimeUnit.SECONDS);
+        assertEquals(clients.length, results.size());
+        for (int i = 0; i < clients.length; i++) {
+            assertEquals(AcceptResult.Status.ESTABLISHED, results.get(i).getStatus());
+            assertEquals(clients[i] + "@" + TestKerberos.REALM, results.get(i).getDetails().getSourceName());
+        }
+    }
+
+    @Test
+    void reportsEachFailureInBatch() throws Exception {
+        service = new AcceptorService(kdc.acceptor(), config, 1, 1, TIMEOUT);
+        byte[] token = kdc.apReq();
+        List<ByteBuffer> blobs = List.of(ByteBuffer.wrap(token), ByteBuffer.wrap(kdc.apReq()), ByteBuffer.wrap(kdc.apReq()));
+        CompletableFuture<List<AcceptResult>> batch = service.submitAll(TestKerberos.SERVICE, blobs, Duration.ofMillis(200));
+        List<AcceptResult> results = batch.get(5, TimeUnit.SECONDS);
+        assertEquals(AcceptResult.Status.TIMED_OUT, results.get(0).getStatus());
+        assertEquals(AcceptResult.Status.TIMED_OUT, results.get(1).getStatus());
+        assertEquals(AcceptResult.Status.REJECTED, results.get(2).getStatus());
+        gate.countDown();
+        awaitIdle();
+
+        // The first blob was recorded by the accept that outlived its deadline
+        AcceptResult replay = service.submitAll(TestKerberos.SERVICE, List.of(ByteBuffer.wrap(token))).get(5, TimeUnit.SECONDS).get(0);
+        assertEquals(AcceptResult.Status.FAILED, replay.getStatus());
+        assertEquals(GSSException.DUPLICATE_TOKEN, replay.getMajorCode());
+        assertFalse(replay.isSuccess());
+
+        config.setReplayCache((buf, off, len) -> {
+            throw new IllegalStateException("broken");
+        });
+        AcceptResult error = service.submitAll(TestKerberos.SERVICE, List.of(ByteBuffer.wrap(kdc.apReq()))).get(5, TimeUnit.SECONDS).get(0);
+        assertEquals(AcceptResult.Status.ERROR, error.getStatus());
+        assertInstanceOf(IllegalStateException.class, error.getFailure());
+
+        service.close();
+        AcceptResult closed = service.submitAll(TestKerberos.SERVICE, List.of(ByteBuffer.wrap(kdc.apReq()))).get(5, TimeUnit.SECONDS).get(0);
+        assertEquals(AcceptResult.Status.REJECTED, closed.getStatus());
+    }
+
+    @Test
+    void mapsFailureToStatus() {
+        GSSException defective = new GSSException(GSSException.DEFECTIVE_TOKEN);
+        assertStatus(AcceptResult.Status.FAILED, defective);
+        assertStatus(AcceptResult.Status.FAILED, new CompletionException(defective));
+        assertStatus(AcceptResult.Status.REJECTED, new AdmissionRejectedException("busy", Duration.ofSeconds(1)));
+        assertStatus(AcceptResult.Status.REJECTED, new RejectedExecutionException("busy"));
+        assertStatus(AcceptResult.Status.TIMED_OUT, new TimeoutException());
+        assertStatus(AcceptResult.Status.ERROR, new IllegalStateException());
+
+        AcceptResult result = AcceptResult.of(null, new CompletionException(defective));
+        assertEquals(GSSException.DEFECTIVE_TOKEN, result.getMajorCode());
+        assertEquals(defective, result.getFailure());
+        assertNull(result.getDetails());
+        assertEquals(0, AcceptResult.of(null, new TimeoutException()).getMajorCode());
+    }
+
+    // A slot is released just after its future completes, and a timed out accept may still be running
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((service.getRunning() > 0 || service.getQueued() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, service.getRunning());
+        assertEquals(0, service.getQueued());
+    }
+
+    private static void assertStatus(AcceptResult.Status status, Throwable failure) {
+        assertEquals(status, AcceptResult.of(null, failure).getStatus());
+    }
+
+    private CompletableFuture<KerberosDetails> submit() throws Exception {
+        return service.submit(action(), TIMEOUT);
+    }
+
+    private SessionSetupPrivilegedAction action() throws Exception {
+        return new SessionSetupPrivilegedAction(config, TestKerberos.SERVICE, kdc.apReq());
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) {
+        return assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS)).getCause();
+    }
+
+}
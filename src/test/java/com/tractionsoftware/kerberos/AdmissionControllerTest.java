@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControllerTest {
+
+    private static final Duration TARGET = Duration.ofSeconds(10);
+
+    @Test
+    void capsAcceptsInFlight() throws Exception {
+        AdmissionController admission = new AdmissionController(2, 2, TARGET);
+        long first = admission.admit(10);
+        admission.admit(10);
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(10));
+        assertEquals(2, admission.getInFlight());
+        assertEquals(20, admission.getInFlightBytes());
+        assertEquals(1, admission.getRejected());
+
+        admission.release(first, 10);
+        admission.admit(10);
+        assertEquals(2, admission.getInFlight());
+    }
+
+    @Test
+    void capsBytesInFlight() throws Exception {
+        AdmissionController admission = new AdmissionController(4, 4, TARGET, 100, Duration.ofSeconds(1));
+        long first = admission.admit(60);
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(41));
+        assertEquals(1, admission.getInFlight());
+        assertEquals(60, admission.getInFlightBytes());
+        assertEquals(1, admission.getRejected());
+
+        admission.admit(40);
+        admission.release(first, 60);
+        assertEquals(1, admission.getInFlight());
+        assertEquals(40, admission.getInFlightBytes());
+    }
+
+    @Test
+    void growsOnlyWhileLimitIsInUse() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 3, TARGET);
+        admission.release(admission.admit(1), 1);
+        assertEquals(2, admission.getLimit());
+
+        // One accept in flight does not use a limit of two
+        admission.release(admission.admit(1), 1);
+        assertEquals(2, admission.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            fill(admission);
+        }
+        assertEquals(3, admission.getLimit());
+    }
+
+    @Test
+    void backsOffOncePerSmoothedLatency() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 10, TARGET);
+        while (admission.getLimit() < 10) {
+            fill(admission);
+        }
+        long slow = System.nanoTime() - 2 * TARGET.toNanos();
+        admission.admit(1);
+        admission.release(slow, 1);
+        assertEquals(9, admission.getLimit());
+
+        // The next slow accept is part of the same round
+        admission.admit(1);
+        admission.release(slow, 1);
+        assertEquals(9, admission.getLimit());
+        assertEquals(0, admission.getInFlight());
+    }
+
+    @Test
+    void neverBacksOffBelowMinimum() throws Exception {
+        AdmissionController admission = new AdmissionController(2, 10, TARGET);
+        admission.admit(1);
+        admission.release(System.nanoTime() - 2 * TARGET.toNanos(), 1);
+        assertEquals(2, admission.getLimit());
+    }
+
+    @Test
+    void floorsRetryAfter() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 1, Duration.ofMillis(1), 1024, Duration.ofMillis(1500));
+        assertEquals(Duration.ofMillis(1500), admission.getRetryAfter());
+        long start = admission.admit(1);
+        AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class, () -> admission.admit(1));
+        assertEquals(Duration.ofMillis(1500), e.getRetryAfter());
+        assertEquals(2, e.getRetryAfterSeconds());
+
+        // A slow accept raises the hint to twice the smoothed latency
+        admission.release(start - Duration.ofSeconds(5).toNanos(), 1);
+        Duration retryAfter = admission.getRetryAfter();
+        assertTrue(retryAfter.compareTo(Duration.ofSeconds(10)) >= 0 && retryAfter.compareTo(Duration.ofSeconds(11)) < 0, retryAfter.toString());
+    }
+
+    @Test
+    void rejectsBadLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionController(0, 1, TARGET));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionController(2, 1, TARGET));
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionController(1, 1, TARGET, 0, Duration.ZERO));
+    }
+
+    // Admit accepts up to the limit and release them all quickly
+
+    private static void fill(AdmissionController admission) throws AdmissionRejectedException {
+        int limit = admission.getLimit();
+        long[] starts = new long[limit];
+        for (int i = 0; i < limit; i++) {
+            starts[i] = admission.admit(1);
+        }
+        for (long start : starts) {
+            admission.release(start, 1);
+        }
+    }
+
+}
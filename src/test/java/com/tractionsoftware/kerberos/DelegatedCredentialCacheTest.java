@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSCredential;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DelegatedCredentialCacheTest {
+
+    @Test
+    void refusesCredentialExpiringWithinMargin() throws Exception {
+        DelegatedCredentialCache cache = new DelegatedCredentialCache(60);
+        Credential soon = new Credential(60);
+        assertFalse(cache.put("alice@EXAMPLE.COM", soon.proxy));
+        assertEquals(1, soon.disposed);
+        assertEquals(0, cache.size());
+
+        Credential later = new Credential(61);
+        assertTrue(cache.put("alice@EXAMPLE.COM", later.proxy));
+        Credential forever = new Credential(GSSCredential.INDEFINITE_LIFETIME);
+        assertTrue(cache.put("bob@EXAMPLE.COM", forever.proxy));
+        try (DelegatedCredentialCache.Lease lease = cache.acquire("alice@EXAMPLE.COM")) {
+            assertSame(later.proxy, lease.getCredential());
+        }
+        assertNotNull(cache.acquire("bob@EXAMPLE.COM"));
+        assertNull(cache.acquire("carol@EXAMPLE.COM"));
+    }
+
+    @Test
+    void stopsHandingOutAtMargin() throws Exception {
+        DelegatedCredentialCache cache = new DelegatedCredentialCache(59);
+        Credential credential = new Credential(60);
+        assertTrue(cache.put("alice@EXAMPLE.COM", credential.proxy));
+        Thread.sleep(1100);
+        assertNull(cache.acquire("alice@EXAMPLE.COM"));
+        assertEquals(1, credential.disposed);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void disposesReplacedCredentialAfterLastLease() throws Exception {
+        DelegatedCredentialCache cache = new DelegatedCredentialCache();
+        Credential first = new Credential(3600);
+        Credential second = new Credential(3600);
+        cache.put("alice@EXAMPLE.COM", first.proxy);
+        DelegatedCredentialCache.Lease a = cache.acquire("alice@EXAMPLE.COM");
+        DelegatedCredentialCache.Lease b = cache.acquire("alice@EXAMPLE.COM");
+
+        cache.put("alice@EXAMPLE.COM", second.proxy);
+        assertEquals(0, first.disposed);
+        assertSame(first.proxy, a.getCredential());
+        try (DelegatedCredentialCache.Lease c = cache.acquire("alice@EXAMPLE.COM")) {
+            assertSame(second.proxy, c.getCredential());
+        }
+
+        a.close();
+        a.close();
+        assertEquals(0, first.disposed);
+        assertThrows(IllegalStateException.class, a::getCredential);
+        b.close();
+        assertEquals(1, first.disposed);
+        assertEquals(0, second.disposed);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        DelegatedCredentialCache cache = new DelegatedCredentialCache();
+        cache.setMaxEntries(2);
+        Credential alice = new Credential(3600);
+        Credential bob = new Credential(3600);
+        Credential carol = new Credential(3600);
+        cache.put("alice@EXAMPLE.COM", alice.proxy);
+        cache.put("bob@EXAMPLE.COM", bob.proxy);
+        Thread.sleep(5);
+        cache.acquire("alice@EXAMPLE.COM").close();
+
+        cache.put("carol@EXAMPLE.COM", carol.proxy);
+        assertEquals(2, cache.size());
+        assertNull(cache.acquire("bob@EXAMPLE.COM"));
+        assertEquals(1, bob.disposed);
+        assertNotNull(cache.acquire("alice@EXAMPLE.COM"));
+        assertNotNull(cache.acquire("carol@EXAMPLE.COM"));
+        assertThrows(IllegalArgumentException.class, () -> cache.setMaxEntries(0));
+    }
+
+    @Test
+    void closeDisposesOnceLeasesAreReleased() throws Exception {
+        DelegatedCredentialCache cache = new DelegatedCredentialCache();
+        Credential alice = new Credential(3600);
+        Credential bob = new Credential(3600);
+        cache.put("alice@EXAMPLE.COM", alice.proxy);
+        cache.put("bob@EXAMPLE.COM", bob.proxy);
+        DelegatedCredentialCache.Lease lease = cache.acquire("alice@EXAMPLE.COM");
+
+        cache.close();
+        assertEquals(0, cache.size());
+        assertEquals(1, bob.disposed);
+        assertEquals(0, alice.disposed);
+        lease.close();
+        assertEquals(1, alice.disposed);
+        assertThrows(IllegalStateException.class, () -> cache.acquire("alice@EXAMPLE.COM"));
+        assertThrows(IllegalStateException.class, () -> cache.put("carol@EXAMPLE.COM", new Credential(3600).proxy));
+    }
+
+    // A GSSCredential that only reports its lifetime and counts how often it is disposed
+
+    private static final class Credential {
+
+        final int lifetime;
+
+        int disposed;
+
+        final GSSCredential proxy;
+
+        Credential(int lifetime) {
+            this.lifetime = lifetime;
+            this.proxy = (GSSCredential) Proxy.newProxyInstance(GSSCredential.class.getClassLoader(), new Class<?>[] { GSSCredential.class },
+                (p, method, args) -> switch (method.getName()) {
+                    case "getRemainingLifetime" -> this.lifetime;
+                    case "dispose" -> {
+                        disposed++;
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(p);
+                    case "equals" -> p == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.Oid;
+import org.junit.jupiter.api.Test;
+
+import javax.security.auth.Subject;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FastPathAcceptorTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    @Test
+    void completesJgssKerberosHandshake() throws Exception {
+        assertHandshake(CommonOids.KERBEROS5);
+    }
+
+    @Test
+    void completesJgssSpnegoHandshake() throws Exception {
+        assertHandshake(CommonOids.SPNEGO);
+    }
+
+    @Test
+    void acceptsForgedApReq() throws Exception {
+        FastPathAcceptor acceptor = acceptor();
+        KerberosDetails details = accept(acceptor, kdc.apReq());
+        assertNotNull(details);
+        assertTrue(details.isEstablished());
+        assertEquals(TestKerberos.CLIENT, details.getSourceName());
+        assertNotNull(details.getResponseToken());
+        assertNotNull(accept(acceptor, TestKerberos.unframe(kdc.apReq())));
+        assertNotNull(accept(acceptor, TestKerberos.spnego(kdc.apReq())));
+        assertEquals(3, acceptor.getAccepted());
+    }
+
+    @Test
+    void readsPacFromTicket() throws Exception {
+        byte[] pac = PacTest.pac(new PacLogonInfoTest.LogonInfo().encode());
+        kdc.authorizationData = PacTest.authorizationData(Pac.AD_IF_RELEVANT, PacTest.authorizationData(Pac.AD_WIN2K_PAC, pac));
+        byte[] token = kdc.apReq();
+        KerberosDetails details = acceptor().accept(token, 0, token.length, KerberosDetails.DEFAULT_FIELDS | KerberosDetails.PAC);
+        assertEquals("alice", details.getPac().getLogonInfo().getEffectiveName());
+    }
+
+    @Test
+    void fallsBackOnTamperedChecksum() throws Exception {
+        byte[] token = kdc.apReq();
+        // The last byte is part of the authenticator's HMAC
+        token[token.length - 1] ^= 1;
+        assertFallsBack(token);
+    }
+
+    @Test
+    void fallsBackOnClockSkew() throws Exception {
+        assertFallsBack(kdc.apReq(kdc.client, System.currentTimeMillis() / 1000 - 600, TestKerberos.GSS_MUTUAL));
+    }
+
+    @Test
+    void fallsBackOnWrongClient() throws Exception {
+        assertFallsBack(kdc.apReq("mallory", System.currentTimeMillis() / 1000, TestKerberos.GSS_MUTUAL));
+    }
+
+    @Test
+    void fallsBackOnInvalidTicket() throws Exception {
+        kdc.flags |= TestKerberos.FLAG_INVALID;
+        assertFallsBack(kdc.apReq());
+    }
+
+    @Test
+    void fallsBackOnExpiredTicket() throws Exception {
+        kdc.authtime -= 7200;
+        kdc.endtime = kdc.authtime + 3600;
+        assertFallsBack(kdc.apReq());
+    }
+
+    @Test
+    void fallsBackOnUnknownKeyVersion() throws Exception {
+        FastPathAcceptor acceptor = acceptor();
+        kdc.kvno = 2;
+        byte[] token = kdc.apReq();
+        assertNull(acceptor.accept(token, 0, token.length, KerberosDetails.DEFAULT_FIELDS));
+    }
+
+    @Test
+    void fallsBackOnDelegation() throws Exception {
+        assertFallsBack(kdc.apReq(kdc.client, System.currentTimeMillis() / 1000, TestKerberos.GSS_MUTUAL | TestKerberos.GSS_DELEG));
+    }
+
+    @Test
+    void fallsBackOnSpnegoPreferringAnotherMech() throws Exception {
+        byte[] ntlm = { 0x2b, 0x06, 0x01, 0x04, 0x01, (byte) 0x82, 0x37, 0x02, 0x02, 0x0a };
+        byte[] token = TestKerberos.tlv(0x60, TestKerberos.tlv(0x06, TestKerberos.SPNEGO_OID), TestKerberos.tlv(0xa0, TestKerberos.tlv(0x30,
+            TestKerberos.tlv(0xa0, TestKerberos.tlv(0x30, TestKerberos.tlv(0x06, ntlm), TestKerberos.tlv(0x06, TestKerberos.KERBEROS5_OID))),
+            TestKerberos.tlv(0xa2, TestKerberos.tlv(0x04, kdc.apReq()))
+        )));
+        assertFallsBack(token);
+    }
+
+    @Test
+    void matchesAccountNames() {
+        FastPathAcceptor acceptor = acceptor();
+        assertTrue(acceptor.isAccount(TestKerberos.SERVICE));
+        assertTrue(acceptor.isAccount("HTTP/localhost"));
+        assertFalse(acceptor.isAccount("HTTP/localhost@OTHER.COM"));
+        assertFalse(acceptor.isAccount("HTTP/local"));
+        assertFalse(acceptor.isAccount("HTTP/otherhost"));
+        assertFalse(acceptor.isAccount(null));
+    }
+
+    // The acceptor's response must complete a real JGSS initiator, which checks the AP-REP and, for SPNEGO, the
+    // NegTokenTarg around it
+
+    private void assertHandshake(Oid mech) throws Exception {
+        Subject initiator = kdc.initiator();
+        GSSContext context = TestKerberos.initiatorContext(initiator, mech);
+        byte[] token = TestKerberos.initSecContext(initiator, context, new byte[0]);
+        FastPathAcceptor acceptor = acceptor();
+        KerberosDetails details = accept(acceptor, token);
+        assertNotNull(details);
+        assertEquals(TestKerberos.CLIENT, details.getSourceName());
+        assertEquals(TestKerberos.SERVICE, details.getTargetName());
+        assertNull(TestKerberos.initSecContext(initiator, context, details.getResponseToken()));
+        assertTrue(context.isEstablished());
+        assertTrue(context.getMutualAuthState());
+        assertEquals(1, acceptor.getAccepted());
+    }
+
+    private void assertFallsBack(byte[] token) {
+        FastPathAcceptor acceptor = acceptor();
+        assertNull(accept(acceptor, token));
+        assertEquals(0, acceptor.getAccepted());
+    }
+
+    private FastPathAcceptor acceptor() {
+        return new FastPathAcceptor(List.of(kdc.key()));
+    }
+
+    private static KerberosDetails accept(FastPathAcceptor acceptor, byte[] token) {
+        return acceptor.accept(token, 0, token.length, KerberosDetails.DEFAULT_FIELDS);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.GSSCredential;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HandshakeTableTest {
+
+    private final AtomicInteger disposed = new AtomicInteger();
+
+    @Test
+    void takesParkedContext() {
+        try (HandshakeTable table = new HandshakeTable(Duration.ofMinutes(1), 10)) {
+            SessionSetupPrivilegedAction.GSSData data = data();
+            table.park("a", data);
+            assertSame(data, table.take("a"));
+            assertNull(table.take("a"));
+            assertEquals(0, disposed.get());
+        }
+    }
+
+    @Test
+    void takeDisposesExpiredContexts() throws Exception {
+        try (HandshakeTable table = new HandshakeTable(Duration.ofMillis(50), 10)) {
+            table.park("a", data());
+            table.park("b", data());
+            Thread.sleep(100);
+            assertNull(table.take("c"));
+            assertEquals(0, table.size());
+            assertEquals(4, disposed.get());
+        }
+    }
+
+    @Test
+    void sweepDisposesExpiredContexts() throws Exception {
+        try (HandshakeTable table = new HandshakeTable(Duration.ofMillis(50), 10)) {
+            table.park("a", data());
+            Thread.sleep(100);
+            table.park("b", data());
+            table.sweep();
+            assertEquals(1, table.size());
+            assertEquals(2, disposed.get());
+        }
+    }
+
+    @Test
+    void evictsOldestWhenFull() {
+        try (HandshakeTable table = new HandshakeTable(Duration.ofMinutes(1), 2)) {
+            table.park("a", data());
+            table.park("b", data());
+            table.park("c", data());
+            assertEquals(2, table.size());
+            assertNull(table.take("a"));
+            assertEquals(2, disposed.get());
+        }
+    }
+
+    // A context and credential that only count their disposals
+
+    private SessionSetupPrivilegedAction.GSSData data() {
+        return new SessionSetupPrivilegedAction.GSSData(countingProxy(GSSCredential.class), null, countingProxy(GSSContext.class));
+    }
+
+    private <T> T countingProxy(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getName().equals("dispose")) {
+                disposed.incrementAndGet();
+            }
+            return null;
+        }));
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalNegTokenDecoderTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    @Test
+    void referencesWholeChunkInPlace() throws Exception {
+        byte[] token = TestKerberos.spnego(kdc.apReq());
+        byte[] chunk = new byte[token.length + 7];
+        System.arraycopy(token, 0, chunk, 3, token.length);
+        IncrementalNegTokenDecoder decoder = new IncrementalNegTokenDecoder();
+        // Trailing bytes are left for the caller
+        assertEquals(token.length, decoder.feed(chunk, 3, token.length + 4));
+        assertTrue(decoder.isComplete());
+        assertSame(chunk, decoder.buffer());
+        assertEquals(3, decoder.offset());
+        assertToken(token, decoder);
+    }
+
+    @Test
+    void assemblesAcrossSplitLongFormLength() throws Exception {
+        byte[] token = TestKerberos.spnego(kdc.apReq());
+        assertEquals(0x82, token[1] & 0xff);
+        IncrementalNegTokenDecoder decoder = new IncrementalNegTokenDecoder();
+        // Tag, length form and the first of two length bytes
+        assertEquals(3, decoder.feed(token, 0, 3));
+        assertFalse(decoder.isComplete());
+        assertEquals(-1, decoder.expectedLength());
+        assertEquals(3, decoder.received());
+        assertEquals(1, decoder.feed(token, 3, 1));
+        assertEquals(token.length, decoder.expectedLength());
+        assertEquals(token.length - 4, decoder.feed(token, 4, token.length - 4));
+        assertToken(token, decoder);
+    }
+
+    @Test
+    void assemblesOneByteChunks() throws Exception {
+        byte[] token = TestKerberos.spnego(kdc.apReq());
+        IncrementalNegTokenDecoder decoder = new IncrementalNegTokenDecoder();
+        for (int i = 0; i < token.length; i++) {
+            assertFalse(decoder.isComplete());
+            assertEquals(1, decoder.feed(token, i, 1));
+            assertEquals(i + 1, decoder.received());
+        }
+        assertToken(token, decoder);
+        assertArrayEquals(mechToken(token), mechToken(decoder));
+    }
+
+    @Test
+    void leavesTrailingBytesOfLastChunk() throws Exception {
+        byte[] apReq = kdc.apReq();
+        byte[] token = APRequestTest.targ(apReq);
+        byte[] stream = Arrays.copyOf(token, token.length + 5);
+        IncrementalNegTokenDecoder decoder = new IncrementalNegTokenDecoder();
+        assertEquals(10, decoder.feed(stream, 0, 10));
+        assertEquals(token.length - 10, decoder.feed(stream, 10, stream.length - 10));
+        assertTrue(decoder.isComplete());
+        assertFalse(decoder.isNegTokenInit());
+        assertToken(token, decoder);
+        NegTokenTargView targ = decoder.targView();
+        assertArrayEquals(apReq, Arrays.copyOfRange(decoder.buffer(), targ.responseTokenOffset(), targ.responseTokenOffset() + targ.responseTokenLength()));
+        assertThrows(IllegalStateException.class, () -> decoder.feed(stream, token.length, 5));
+    }
+
+    @Test
+    void assemblesDirectBuffers() throws Exception {
+        byte[] token = TestKerberos.spnego(kdc.apReq());
+        ByteBuffer first = ByteBuffer.allocateDirect(100).put(token, 0, 100).flip();
+        ByteBuffer rest = ByteBuffer.allocateDirect(token.length - 100 + 5).put(token, 100, token.length - 100).put(new byte[5]).flip();
+        IncrementalNegTokenDecoder decoder = new IncrementalNegTokenDecoder();
+        assertEquals(100, decoder.feed(first));
+        assertEquals(100, first.position());
+        assertEquals(token.length - 100, decoder.feed(rest));
+        assertEquals(5, rest.remaining());
+        assertToken(token, decoder);
+    }
+
+    @Test
+    void reusesAssemblyBufferAfterReset() throws Exception {
+        byte[] large = TestKerberos.spnego(kdc.apReq());
+        byte[] small = APRequestTest.targ(new byte[] { 0x30, 0x00 });
+        IncrementalNegTokenDecoder decoder = new IncrementalNegTokenDecoder();
+        feedInHalves(decoder, large);
+        byte[] assembly = decoder.buffer();
+        decoder.reset();
+        assertFalse(decoder.isComplete());
+        assertThrows(IllegalStateException.class, decoder::buffer);
+        feedInHalves(decoder, small);
+        assertSame(assembly, decoder.buffer());
+        assertTrue(decoder.buffer().length > decoder.length());
+        assertToken(small, decoder);
+        // A partial token is dropped too
+        decoder.reset();
+        decoder.feed(large, 0, 10);
+        decoder.reset();
+        feedInHalves(decoder, large);
+        assertToken(large, decoder);
+    }
+
+    @Test
+    void rejectsBadHeaders() throws Exception {
+        assertThrows(IOException.class, () -> new IncrementalNegTokenDecoder().feed(new byte[] { 0x04, 0x00 }, 0, 2));
+        // Indefinite length, and more length bytes than are supported
+        assertThrows(IOException.class, () -> new IncrementalNegTokenDecoder().feed(new byte[] { 0x60, (byte) 0x80 }, 0, 2));
+        assertThrows(IOException.class, () -> new IncrementalNegTokenDecoder().feed(new byte[] { 0x60, (byte) 0x85, 0 }, 0, 3));
+        // Too large, rejected from the header alone
+        byte[] token = TestKerberos.spnego(kdc.apReq());
+        IncrementalNegTokenDecoder decoder = new IncrementalNegTokenDecoder(token.length - 1);
+        assertEquals(2, decoder.feed(token, 0, 2));
+        assertThrows(IOException.class, () -> decoder.feed(token, 2, 2));
+    }
+
+    private static void feedInHalves(IncrementalNegTokenDecoder decoder, byte[] token) throws IOException {
+        int half = token.length / 2;
+        assertEquals(half, decoder.feed(token, 0, half));
+        assertEquals(token.length - half, decoder.feed(token, half, token.length - half));
+    }
+
+    private static void assertToken(byte[] expected, IncrementalNegTokenDecoder decoder) {
+        assertTrue(decoder.isComplete());
+        assertEquals(expected.length, decoder.length());
+        assertEquals(expected.length, decoder.received());
+        assertArrayEquals(expected, Arrays.copyOfRange(decoder.buffer(), decoder.offset(), decoder.offset() + decoder.length()));
+    }
+
+    private static byte[] mechToken(byte[] token) throws IOException {
+        NegTokenInitView init = new NegTokenInitView().wrap(token, 0, token.length);
+        return Arrays.copyOfRange(token, init.mechTokenOffset(), init.mechTokenOffset() + init.mechTokenLength());
+    }
+
+    private static byte[] mechToken(IncrementalNegTokenDecoder decoder) throws IOException {
+        NegTokenInitView init = decoder.initView();
+        return Arrays.copyOfRange(decoder.buffer(), init.mechTokenOffset(), init.mechTokenOffset() + init.mechTokenLength());
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KerberosAesTest {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    // RFC 3961 appendix A.1
+
+    @Test
+    void nfoldMatchesRfc3961() {
+        assertNfold("012345", 64, "be072631276b1955");
+        assertNfold("password", 56, "78a07b6caf85fa");
+        assertNfold("Rough Consensus, and Running Code", 64, "bb6ed30870b7f0e0");
+        assertNfold("password", 168, "59e4a8ca7c0385c3c37b3f6d2000247cb6e6bd5b3e");
+        assertNfold("MASSACHVSETTS INSTITVTE OF TECHNOLOGY", 192, "db3b0d8f0b061e603282b308a50841229ad798fab9540c1b");
+        assertNfold("Q", 168, "518a54a215a8452a518a54a215a8452a518a54a215");
+        assertNfold("ba", 168, "fb25d531ae8974499f52fd92ea9857c4ba24cf297e");
+        assertNfold("kerberos", 64, "6b65726265726f73");
+        assertNfold("kerberos", 128, "6b65726265726f737b9b5b2b93132b93");
+        assertNfold("kerberos", 168, "8372c236344e5f1550cd0747e15d62ca7a5a3bcea4");
+        assertNfold("kerberos", 256, "6b65726265726f737b9b5b2b93132b935c9bdcdad95c9899c4cae4dee6d6cae4");
+    }
+
+    // RFC 3962 appendix B: the protocol key is DK(PBKDF2(password, salt), "kerberos")
+
+    @Test
+    void keyDerivationMatchesRfc3962() throws Exception {
+        assertStringToKey(1, 128, "42263c6e89f4fc28b8df68ee09799f15");
+        assertStringToKey(1, 256, "fe697b52bc0d3ce14432ba036a92e65bbb52280990a2fa27883998d72af30161");
+        assertStringToKey(2, 128, "c651bf29e2300ac27fa469d693bdda13");
+        assertStringToKey(2, 256, "a2e16d16b36069c135d5e9d2e25f896102685618b95914b467c67622225824ff");
+        assertStringToKey(1200, 128, "4c01cd46d632d01e6dbe230a01ed642a");
+        assertStringToKey(1200, 256, "55a6ac740ad17b4846941051e1e8b0a7548d93b0ab30a8bc3ff16280382b8c2a");
+    }
+
+    // RFC 3962 appendix B, with the key "chicken teriyaki"
+
+    @Test
+    void ciphertextStealingMatchesRfc3962() throws Exception {
+        String plain = "I would like the General Gau's Chicken, please, and wonton soup.";
+        assertCts(plain.substring(0, 17), "c6353568f2bf8cb4d8a580362da7ff7f97");
+        assertCts(plain.substring(0, 31), "fc00783e0efdb2c1d445d4c8eff7ed2297687268d6ecccc0c07b25e25ecfe5");
+        assertCts(plain.substring(0, 32), "39312523a78662d5be7fcbcc98ebf5a897687268d6ecccc0c07b25e25ecfe584");
+        assertCts(plain.substring(0, 47), "97687268d6ecccc0c07b25e25ecfe584b3fffd940c16a18c1b5549d2f838029e39312523a78662d5be7fcbcc98ebf5");
+        assertCts(plain.substring(0, 48), "97687268d6ecccc0c07b25e25ecfe5849dad8bbb96c4cdc03bc103e1a194bbd839312523a78662d5be7fcbcc98ebf5a8");
+        assertCts(plain, "97687268d6ecccc0c07b25e25ecfe58439312523a78662d5be7fcbcc98ebf5a84807efe836ee89a526730dbc2f7bc8409dad8bbb96c4cdc03bc103e1a194bbd8");
+    }
+
+    @Test
+    void decryptsWhatItEncrypts() throws Exception {
+        for (int keyLength : new int[] { 16, 32 }) {
+            byte[] key = new byte[keyLength];
+            Arrays.fill(key, (byte) 7);
+            KerberosAes.UsageKeys keys = KerberosAes.deriveKeys(key, 11);
+            for (int n : new int[] { 0, 1, 15, 16, 17, 100 }) {
+                byte[] data = new byte[n];
+                Arrays.fill(data, (byte) n);
+                byte[] plain = KerberosAes.decrypt(keys, KerberosAes.encrypt(keys, data), 0, 16 + n + 12);
+                assertArrayEquals(data, Arrays.copyOfRange(plain, 16, plain.length));
+            }
+        }
+    }
+
+    @Test
+    void rejectsTamperedAndMisusedCiphertext() throws Exception {
+        byte[] key = new byte[32];
+        KerberosAes.UsageKeys keys = KerberosAes.deriveKeys(key, 2);
+        byte[] cipher = KerberosAes.encrypt(keys, "ticket".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < cipher.length; i++) {
+            byte[] tampered = cipher.clone();
+            tampered[i] ^= 1;
+            assertThrows(GeneralSecurityException.class, () -> KerberosAes.decrypt(keys, tampered, 0, tampered.length));
+        }
+        // A different key usage derives different keys
+        KerberosAes.UsageKeys other = KerberosAes.deriveKeys(key, 11);
+        assertThrows(GeneralSecurityException.class, () -> KerberosAes.decrypt(other, cipher, 0, cipher.length));
+        assertThrows(GeneralSecurityException.class, () -> KerberosAes.decrypt(keys, cipher, 0, 28));
+    }
+
+    private static void assertNfold(String in, int bits, String expected) {
+        assertEquals(expected, HEX.formatHex(KerberosAes.nfold(in.getBytes(StandardCharsets.US_ASCII), bits / 8)), bits + "-fold(" + in + ")");
+    }
+
+    private static void assertStringToKey(int iterations, int bits, String expected) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec("password".toCharArray(), "ATHENA.MIT.EDUraeburn".getBytes(StandardCharsets.US_ASCII), iterations, bits);
+        byte[] tkey = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded();
+        assertEquals(expected, HEX.formatHex(KerberosAes.dk(tkey, "kerberos".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    private static void assertCts(String plain, String expected) throws GeneralSecurityException {
+        SecretKeySpec key = new SecretKeySpec("chicken teriyaki".getBytes(StandardCharsets.US_ASCII), "AES");
+        byte[] cipher = KerberosAes.cts(Cipher.ENCRYPT_MODE, key).doFinal(plain.getBytes(StandardCharsets.US_ASCII));
+        assertEquals(expected, HEX.formatHex(cipher));
+        assertEquals(plain, new String(KerberosAes.cts(Cipher.DECRYPT_MODE, key).doFinal(cipher), StandardCharsets.US_ASCII));
+    }
+
+}
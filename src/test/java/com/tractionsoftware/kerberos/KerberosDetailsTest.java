@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import com.sun.security.jgss.ExtendedGSSContext;
+import com.sun.security.jgss.InquireType;
+import org.ietf.jgss.GSSCredential;
+import org.ietf.jgss.GSSException;
+import org.ietf.jgss.GSSName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.security.auth.kerberos.EncryptionKey;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class KerberosDetailsTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    private AcceptorConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new AcceptorConfig();
+        config.setReplayCache(new MemoryReplayCache());
+    }
+
+    @Test
+    void skipsInquiryOfOmittedFields() throws Exception {
+        Context context = new Context();
+        byte[] resp = new byte[] { 1, 2, 3 };
+        KerberosDetails details = KerberosDetails.createInstance(context.proxy, resp, KerberosDetails.SOURCE_NAME);
+        assertEquals(List.of("getSrcName"), context.calls);
+        assertEquals(TestKerberos.CLIENT, details.getSourceName());
+        assertNull(details.getTargetName());
+        assertEquals(0, details.getRemainingLifetimeSeconds());
+        assertNull(details.getSessionKeyAlgorithm());
+        assertNull(details.getPac());
+        assertNull(details.getDelegatedCredential());
+        assertEquals(KerberosDetails.SOURCE_NAME, details.getFields());
+        assertSame(resp, details.getResponseToken());
+    }
+
+    @Test
+    void readsAllFields() throws Exception {
+        Context context = new Context();
+        KerberosDetails details = KerberosDetails.createInstance(context.proxy, null, KerberosDetails.ALL_FIELDS);
+        assertEquals(List.of(
+            "getSrcName",
+            "getTargName",
+            "getLifetime",
+            "inquireSecContext:" + InquireType.KRB5_GET_SESSION_KEY_EX,
+            "inquireSecContext:" + InquireType.KRB5_GET_AUTHZ_DATA,
+            "getCredDelegState",
+            "getDelegCred"
+        ), context.calls);
+        assertEquals(TestKerberos.SERVICE, details.getTargetName());
+        assertEquals(3600, details.getRemainingLifetimeSeconds());
+        assertEquals("aes256-cts-hmac-sha1-96", details.getSessionKeyAlgorithm());
+        assertNull(details.getPac());
+        assertSame(context.delegated, details.getDelegatedCredential());
+        assertEquals(KerberosDetails.ALL_FIELDS, details.getFields());
+    }
+
+    @Test
+    void honoursConfiguredFields() throws Exception {
+        config.setDetailFields(KerberosDetails.SOURCE_NAME);
+        assertSourceNameOnly(accept(TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5)));
+    }
+
+    @Test
+    void honoursConfiguredFieldsOnFastPath() throws Exception {
+        config.setDetailFields(KerberosDetails.SOURCE_NAME);
+        FastPathAcceptor fastPath = new FastPathAcceptor(List.of(kdc.key()));
+        config.setFastPathAcceptor(fastPath);
+        assertSourceNameOnly(accept(TestKerberos.spnego(kdc.apReq())));
+        assertEquals(1, fastPath.getAccepted());
+    }
+
+    @Test
+    void readsDefaultFields() throws Exception {
+        KerberosDetails details = accept(TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5));
+        assertEquals(KerberosDetails.DEFAULT_FIELDS, details.getFields());
+        assertEquals(TestKerberos.CLIENT, details.getSourceName());
+        assertEquals(TestKerberos.SERVICE, details.getTargetName());
+        assertNotNull(details.getSessionKeyAlgorithm());
+        assertNull(details.getPac());
+    }
+
+    private static void assertSourceNameOnly(KerberosDetails details) {
+        assertEquals(KerberosDetails.SOURCE_NAME, details.getFields());
+        assertEquals(TestKerberos.CLIENT, details.getSourceName());
+        assertNull(details.getTargetName());
+        assertEquals(0, details.getRemainingLifetimeSeconds());
+        assertNull(details.getSessionKeyAlgorithm());
+        assertNull(details.getPac());
+        assertNull(details.getDelegatedCredential());
+    }
+
+    private KerberosDetails accept(byte[] token) throws GSSException {
+        SessionSetupPrivilegedAction action = new SessionSetupPrivilegedAction(config, TestKerberos.SERVICE, token);
+        return SessionSetupPrivilegedActionTest.accept(kdc.acceptor(), action);
+    }
+
+    // Established context that records which fields are read from it
+
+    private static final class Context {
+
+        final List<String> calls = new ArrayList<>();
+
+        final GSSCredential delegated = proxy(GSSCredential.class, "credential");
+
+        final ExtendedGSSContext proxy = proxy(ExtendedGSSContext.class, (p, method, args) -> {
+            if (method.getName().equals("inquireSecContext")) {
+                calls.add("inquireSecContext:" + args[0]);
+                return args[0] == InquireType.KRB5_GET_SESSION_KEY_EX ? new EncryptionKey(new byte[32], 18) : null;
+            }
+            calls.add(method.getName());
+            return switch (method.getName()) {
+                case "getSrcName" -> proxy(GSSName.class, TestKerberos.CLIENT);
+                case "getTargName" -> proxy(GSSName.class, TestKerberos.SERVICE);
+                case "getLifetime" -> 3600;
+                case "getCredDelegState" -> true;
+                case "getDelegCred" -> delegated;
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        });
+
+        private static <T> T proxy(Class<T> type, String name) {
+            return proxy(type, (p, method, args) -> switch (method.getName()) {
+                case "toString" -> name;
+                case "hashCode" -> System.identityHashCode(p);
+                case "equals" -> p == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+        }
+
+    }
+
+}
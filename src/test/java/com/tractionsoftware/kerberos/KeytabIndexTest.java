@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.security.auth.Subject;
+import javax.security.auth.kerberos.KerberosKey;
+import javax.security.auth.kerberos.KerberosPrincipal;
+import javax.security.auth.kerberos.KeyTab;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeytabIndexTest {
+
+    private static final int AES256 = KerberosAes.AES256_CTS_HMAC_SHA1_96;
+    private static final int AES128 = KerberosAes.AES128_CTS_HMAC_SHA1_96;
+
+    @TempDir
+    Path dir;
+
+    private long modified = System.currentTimeMillis() - 60_000;
+
+    @Test
+    void parsesEntriesAroundHoles() throws Exception {
+        byte[] file = keytab(
+            entry(1, AES256, 1, 0),
+            hole(37),
+            entry(2, AES128, 2, 0),
+            // An 8-bit version of 3 that the 32-bit field raises to 259
+            entry(3, AES256, 3, 259)
+        );
+        List<KerberosKey> keys = KeytabIndex.parse(file);
+        assertEquals(3, keys.size());
+        assertEquals(TestKerberos.SERVICE, keys.get(0).getPrincipal().getName());
+        assertEquals(List.of(1, 2, 259), keys.stream().map(KerberosKey::getVersionNumber).toList());
+        assertEquals(List.of(AES256, AES128, AES256), keys.stream().map(KerberosKey::getKeyType).toList());
+        assertArrayEquals(key(2, 16), keys.get(1).getEncoded());
+
+        // The JDK's own reader agrees
+        Path path = write(file);
+        KerberosPrincipal service = new KerberosPrincipal(TestKerberos.SERVICE);
+        Set<Integer> jdk = Arrays.stream(KeyTab.getInstance(service, path.toFile()).getKeys(service))
+            .map(KerberosKey::getVersionNumber)
+            .collect(Collectors.toSet());
+        assertEquals(Set.of(1, 2, 259), jdk);
+    }
+
+    @Test
+    void stopsAtZeroSizeEntry() throws Exception {
+        byte[] file = keytab(entry(1, AES256, 1, 0), new byte[4], entry(2, AES256, 2, 0));
+        assertEquals(1, KeytabIndex.parse(file).size());
+    }
+
+    @Test
+    void rejectsMalformedFiles() throws Exception {
+        byte[] file = keytab(entry(1, AES256, 1, 0), entry(2, AES256, 2, 0));
+        assertThrows(IOException.class, () -> KeytabIndex.parse(new byte[] { 5, 1 }));
+        assertThrows(IOException.class, () -> KeytabIndex.parse(new byte[1]));
+        // Cut inside the second entry
+        assertThrows(IOException.class, () -> KeytabIndex.parse(Arrays.copyOf(file, file.length - 10)));
+        // An entry size past the end, and a hole past the end
+        byte[] oversized = file.clone();
+        ByteBuffer.wrap(oversized).putInt(2, 10_000);
+        assertThrows(IOException.class, () -> KeytabIndex.parse(oversized));
+        assertThrows(IOException.class, () -> KeytabIndex.parse(keytab(new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xf0, 0 })));
+        // A realm length past the end of its entry
+        byte[] realm = file.clone();
+        ByteBuffer.wrap(realm).putShort(2 + 4 + 2, (short) 0x7fff);
+        assertThrows(IOException.class, () -> KeytabIndex.parse(realm));
+    }
+
+    @Test
+    void keepsKeysWhenReloadFails() throws Exception {
+        Path path = write(keytab(entry(1, AES256, 1, 0)));
+        KeytabIndex index = new KeytabIndex(path, Duration.ofHours(1), 0);
+        assertEquals(1, index.getGeneration());
+        byte[] next = keytab(entry(2, AES256, 2, 0));
+        rewrite(path, Arrays.copyOf(next, next.length - 3));
+        assertFalse(index.reload());
+        assertEquals(1, index.getGeneration());
+        assertEquals(1, index.getKey(TestKerberos.SERVICE, AES256, -1).getVersionNumber());
+        // The finished file is read on the next check
+        rewrite(path, next);
+        assertTrue(index.reload());
+        assertEquals(2, index.getGeneration());
+        assertEquals(2, index.getKey(TestKerberos.SERVICE, AES256, -1).getVersionNumber());
+        // Nothing changed
+        assertFalse(index.reload());
+        assertEquals(2, index.getGeneration());
+    }
+
+    @Test
+    void keepsDroppedKeysForOverlap() throws Exception {
+        Path path = write(keytab(entry(1, AES256, 1, 0)));
+        KeytabIndex index = new KeytabIndex(path, Duration.ofMillis(300), 0);
+        rewrite(path, keytab(entry(2, AES256, 2, 0)));
+        assertTrue(index.reload());
+        assertEquals(2, index.getGeneration());
+        assertEquals(2, index.getKeys(TestKerberos.SERVICE).size());
+        assertEquals(1, index.getKey(TestKerberos.SERVICE, AES256, 1).getVersionNumber());
+        assertEquals(2, index.getKey(TestKerberos.SERVICE, AES256, -1).getVersionNumber());
+        Thread.sleep(400);
+        // The file is unchanged, but the overlap has ended
+        assertTrue(index.reload());
+        assertEquals(3, index.getGeneration());
+        assertNull(index.getKey(TestKerberos.SERVICE, AES256, 1));
+        assertEquals(1, index.getKeys(TestKerberos.SERVICE).size());
+        assertEquals(Set.of(TestKerberos.SERVICE), index.getPrincipals());
+    }
+
+    @Test
+    void installsKeysInSubject() throws Exception {
+        Path path = write(keytab(entry(1, AES256, 1, 0)));
+        KeytabIndex index = new KeytabIndex(path, Duration.ofMillis(300), 0);
+        Subject subject = new Subject();
+        subject.getPrivateCredentials().add("unrelated");
+        index.install(subject);
+        assertEquals(Set.of(1), versions(subject));
+        rewrite(path, keytab(entry(2, AES256, 2, 0)));
+        index.reload();
+        assertEquals(Set.of(1, 2), versions(subject));
+        Thread.sleep(400);
+        index.reload();
+        assertEquals(Set.of(2), versions(subject));
+        assertTrue(subject.getPrivateCredentials().contains("unrelated"));
+    }
+
+    private static Set<Integer> versions(Subject subject) {
+        return subject.getPrivateCredentials(KerberosKey.class).stream().map(KerberosKey::getVersionNumber).collect(Collectors.toSet());
+    }
+
+    private Path write(byte[] file) throws IOException {
+        Path path = dir.resolve("service.keytab");
+        rewrite(path, file);
+        return path;
+    }
+
+    // Each write gets a later modification time, however coarse the file system's clock
+
+    private void rewrite(Path path, byte[] file) throws IOException {
+        Files.write(path, file);
+        modified += 2000;
+        Files.setLastModifiedTime(path, FileTime.fromMillis(modified));
+    }
+
+    static byte[] keytab(byte[]... entries) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(5);
+        out.write(2);
+        for (byte[] entry : entries) {
+            out.writeBytes(entry);
+        }
+        return out.toByteArray();
+    }
+
+    // A size-prefixed entry for HTTP/localhost@EXAMPLE.COM, with a 32-bit key version if kvno32 is non-zero
+
+    static byte[] entry(int kvno, int keyType, int seed, int kvno32) {
+        byte[] key = key(seed, keyType == AES128 ? 16 : 32);
+        ByteBuffer b = ByteBuffer.allocate(256);
+        b.putShort((short) 2);
+        putString(b, TestKerberos.REALM);
+        putString(b, "HTTP");
+        putString(b, "localhost");
+        b.putInt(1).putInt((int) (System.currentTimeMillis() / 1000));
+        b.put((byte) kvno).putShort((short) keyType).putShort((short) key.length).put(key);
+        if (kvno32 != 0) {
+            b.putInt(kvno32);
+        }
+        return ByteBuffer.allocate(4 + b.position()).putInt(b.position()).put(b.array(), 0, b.position()).array();
+    }
+
+    private static byte[] hole(int size) {
+        return ByteBuffer.allocate(4 + size).putInt(-size).array();
+    }
+
+    private static byte[] key(int seed, int len) {
+        byte[] key = new byte[len];
+        Arrays.fill(key, (byte) seed);
+        return key;
+    }
+
+    private static void putString(ByteBuffer b, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        b.putShort((short) bytes.length).put(bytes);
+    }
+
+}
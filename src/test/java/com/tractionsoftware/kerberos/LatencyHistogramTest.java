@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void recordsCountTotalAndMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 1000; v++) {
+            h.record(v);
+        }
+        h.record(-5);
+        assertEquals(1001, h.getCount());
+        assertEquals(500_500, h.getTotalNanos());
+        assertEquals(1000, h.getMaxNanos());
+        long median = h.getValueAtPercentile(50);
+        assertTrue(median >= 500 && median <= 500 * 1.125, "median " + median);
+        assertEquals(1000, h.getValueAtPercentile(100));
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMaxNanos());
+        assertEquals(0, h.getValueAtPercentile(50));
+    }
+
+    @Test
+    void bucketsCoverEveryValue() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v : new long[] { 0, 7, 8, 9, 1023, 1024, Long.MAX_VALUE }) {
+            int idx = LatencyHistogram.bucketIndex(v);
+            assertTrue(h.bucketLowerBound(idx) <= v && v <= h.bucketUpperBound(idx), "value " + v);
+        }
+    }
+
+}
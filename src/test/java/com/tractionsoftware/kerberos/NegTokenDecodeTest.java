@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.Oid;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.tractionsoftware.kerberos.TestKerberos.tlv;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks NegTokenInit and NegTokenTarg decode the way the DERBuffer-based decoders did.
+ */
+class NegTokenDecodeTest {
+
+    private static final byte[] MECH_TOKEN = { 0x60, 0x03, 0x01, 0x02, 0x03 };
+
+    @Test
+    void decodesSpnegoInit() throws Exception {
+        Oid other = new Oid("1.3.6.1.4.1.55555.7");
+        byte[] blob = init(
+            tlv(0xa0, tlv(0x30, CommonOids.MSKERBEROS5.getDER(), tlv(0x06, TestKerberos.KERBEROS5_OID), other.getDER())),
+            tlv(0xa2, tlv(0x04, MECH_TOKEN)),
+            tlv(0xa3, tlv(0x30, tlv(0xa0, tlv(0x1b, "HTTP/localhost@EXAMPLE.COM".getBytes()))))
+        );
+        NegTokenInit init = decode(blob);
+        assertEquals(3, init.numberOfOids());
+        assertSame(CommonOids.MSKERBEROS5, init.getOidAt(0));
+        assertSame(CommonOids.KERBEROS5, init.getOidAt(1));
+        assertEquals(other, init.getOidAt(2));
+        assertTrue(init.hasOid(CommonOids.KERBEROS5));
+        assertArrayEquals(MECH_TOKEN, init.getMechtoken());
+        assertEquals(-1, init.getContextFlags());
+        assertNull(init.getPrincipal());
+    }
+
+    @Test
+    void passesKerberosThrough() throws Exception {
+        byte[] framed = TestKerberos.gssFrame(new byte[] { 0x6e, 0x00 });
+        byte[] padded = new byte[framed.length + 4];
+        System.arraycopy(framed, 0, padded, 2, framed.length);
+        NegTokenInit init = new NegTokenInit();
+        init.decode(padded, 2, framed.length);
+        assertArrayEquals(new Oid[] { CommonOids.KERBEROS5 }, init.getOids());
+        assertSame(CommonOids.KERBEROS5, init.getOidAt(0));
+        assertArrayEquals(framed, init.getMechtoken());
+
+        // A whole array is kept rather than copied, as before
+        init.decode(framed, 0, framed.length);
+        assertSame(framed, init.getMechtoken());
+    }
+
+    @Test
+    void rejectsMalformedInit() {
+        byte[] mechTypes = tlv(0xa0, tlv(0x30, tlv(0x06, TestKerberos.KERBEROS5_OID)));
+        byte[] mechToken = tlv(0xa2, tlv(0x04, MECH_TOKEN));
+        assertThrows(IOException.class, () -> decode(init(mechToken)));
+        assertThrows(IOException.class, () -> decode(init(mechTypes)));
+        assertThrows(IOException.class, () -> decode(init(tlv(0xa0, tlv(0x04)), mechToken)));
+        assertThrows(IOException.class, () -> decode(init(mechTypes, tlv(0xa2, tlv(0x30)))));
+        assertThrows(IOException.class, () -> decode(tlv(0x60, CommonOids.MSKERBEROS5.getDER(), MECH_TOKEN)));
+        assertThrows(IOException.class, () -> decode(tlv(0x30, mechTypes, mechToken)));
+    }
+
+    // The DERBuffer decoder took any number of mechTypes; the view it now uses stops at MAX_MECH_TYPES
+
+    @Test
+    void limitsMechTypes() throws Exception {
+        byte[] mechToken = tlv(0xa2, tlv(0x04, MECH_TOKEN));
+        assertEquals(NegTokenInitView.MAX_MECH_TYPES, decode(init(mechTypes(NegTokenInitView.MAX_MECH_TYPES), mechToken)).numberOfOids());
+        assertThrows(IOException.class, () -> decode(init(mechTypes(NegTokenInitView.MAX_MECH_TYPES + 1), mechToken)));
+    }
+
+    @Test
+    void decodesDirectBuffer() throws Exception {
+        byte[] blob = TestKerberos.spnego(MECH_TOKEN);
+        ByteBuffer direct = ByteBuffer.allocateDirect(blob.length + 3);
+        direct.position(3);
+        direct.put(blob);
+        direct.position(3);
+        NegTokenInit init = new NegTokenInit();
+        init.decode(direct);
+        assertEquals(3, direct.position());
+        assertArrayEquals(MECH_TOKEN, init.getMechtoken());
+        assertSame(CommonOids.KERBEROS5, init.getOidAt(0));
+
+        NegTokenTarg targ = new NegTokenTarg();
+        targ.decode(ByteBuffer.wrap(APRequestTest.targ(MECH_TOKEN)));
+        assertArrayEquals(MECH_TOKEN, targ.getResponseToken());
+    }
+
+    @Test
+    void decodesTarg() throws Exception {
+        NegTokenTarg targ = new NegTokenTarg();
+        byte[] full = tlv(0xa1, tlv(0x30,
+            tlv(0xa0, tlv(0x0a, new byte[] { 0 })),
+            tlv(0xa1, tlv(0x06, TestKerberos.KERBEROS5_OID)),
+            tlv(0xa2, tlv(0x04, MECH_TOKEN)),
+            tlv(0xa3, tlv(0x04, new byte[] { 9, 9 }))
+        ));
+        targ.decode(full, 0, full.length);
+        assertEquals(SPNEGO.AcceptCompleted, targ.getResult());
+        assertSame(CommonOids.KERBEROS5, targ.getSupportedMech());
+        assertTrue(targ.hasResponseToken());
+        assertArrayEquals(MECH_TOKEN, targ.getResponseToken());
+
+        // Optional fields that are missing are cleared, except the result which is left as it was
+        byte[] bare = tlv(0x30, tlv(0xa1, tlv(0x06, TestKerberos.KERBEROS5_OID)));
+        targ.decode(bare, 0, bare.length);
+        assertEquals(SPNEGO.AcceptCompleted, targ.getResult());
+        assertSame(CommonOids.KERBEROS5, targ.getSupportedMech());
+        assertFalse(targ.hasResponseToken());
+        assertNull(targ.getResponseToken());
+
+        assertEquals(-1, decodeTarg(tlv(0xa1, tlv(0x30))).getResult());
+        assertNull(decodeTarg(tlv(0xa1, tlv(0x30))).getSupportedMech());
+    }
+
+    @Test
+    void rejectsMalformedTarg() {
+        assertThrows(IOException.class, () -> decodeTarg(tlv(0xa1, tlv(0x30, tlv(0xa0, tlv(0x02, new byte[] { 0 }))))));
+        assertThrows(IOException.class, () -> decodeTarg(tlv(0xa1, tlv(0x30, tlv(0xa1, tlv(0x04))))));
+        assertThrows(IOException.class, () -> decodeTarg(tlv(0xa1, tlv(0x30, tlv(0xa2, tlv(0x06, TestKerberos.KERBEROS5_OID))))));
+        assertThrows(IOException.class, () -> decodeTarg(tlv(0xa1, tlv(0x30, tlv(0xa3, tlv(0x30))))));
+        assertThrows(IOException.class, () -> decodeTarg(tlv(0x04, MECH_TOKEN)));
+    }
+
+    private static byte[] init(byte[]... fields) {
+        return tlv(0x60, tlv(0x06, TestKerberos.SPNEGO_OID), tlv(0xa0, tlv(0x30, fields)));
+    }
+
+    private static byte[] mechTypes(int count) throws Exception {
+        byte[][] oids = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            oids[i] = new Oid("1.3.6.1.4.1.55555.8." + i).getDER();
+        }
+        return tlv(0xa0, tlv(0x30, oids));
+    }
+
+    private static NegTokenInit decode(byte[] blob) throws IOException {
+        NegTokenInit init = new NegTokenInit();
+        init.decode(Arrays.copyOf(blob, blob.length), 0, blob.length);
+        return init;
+    }
+
+    private static NegTokenTarg decodeTarg(byte[] blob) throws IOException {
+        NegTokenTarg targ = new NegTokenTarg();
+        targ.decode(blob, 0, blob.length);
+        return targ;
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.Oid;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.tractionsoftware.kerberos.TestKerberos.tlv;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the single-pass NegTokenTarg and NegTokenInit encoders against the legacy encoder and against the layout
+ * built by hand, across short and long DER lengths.
+ */
+class NegTokenEncodeTest {
+
+    // Response lengths around each DER length form, up to a three byte length
+
+    private static final int[] RESPONSE_LENGTHS = { -1, 0, 1, 100, 124, 125, 200, 300, 70000 };
+
+    @Test
+    void encodesTargLikeLegacyEncoder() throws Exception {
+        for (int result : new int[] { SPNEGO.AcceptCompleted, SPNEGO.AcceptIncomplete, SPNEGO.Reject }) {
+            for (Oid mech : new Oid[] { null, CommonOids.KERBEROS5 }) {
+                for (int len : RESPONSE_LENGTHS) {
+                    byte[] response = len >= 0 ? response(len) : null;
+                    NegTokenTarg targ = new NegTokenTarg(result, mech, response);
+                    byte[] expected = targ(result, mech, response);
+                    String what = "result " + result + ", mech " + mech + ", response " + len;
+
+                    assertArrayEquals(expected, targ.encode(), what);
+                    assertEquals(expected.length, targ.encodedLength(), what);
+                    assertEquals(expected.length, NegTokenTarg.encodedLength(result, mech, len), what);
+                    assertArrayEquals(expected, encode(targ::encode, expected.length), what);
+                    assertArrayEquals(expected, encodeArray(targ::encode, expected.length), what);
+                    assertArrayEquals(expected, encode(dst -> {
+                        return NegTokenTarg.encode(result, mech, response, 0, len, dst);
+                    }, expected.length), what);
+                }
+            }
+        }
+    }
+
+    @Test
+    void encodesTargResponseSlice() throws Exception {
+        byte[] response = response(300);
+        byte[] slice = Arrays.copyOfRange(response, 7, 207);
+        byte[] expected = new NegTokenTarg(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, slice).encode();
+        assertArrayEquals(expected, encode(dst -> {
+            return NegTokenTarg.encode(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, response, 7, 200, dst);
+        }, expected.length));
+    }
+
+    @Test
+    void encodesInitLikeLegacyEncoder() throws Exception {
+        Oid[][] mechLists = {
+            { CommonOids.KERBEROS5 },
+            { CommonOids.MSKERBEROS5, CommonOids.KERBEROS5 },
+            many(40)
+        };
+        String[] principals = { null, "", "HTTP/localhost@EXAMPLE.COM", "HTTP/" + "x".repeat(300) + "@EXAMPLE.COM" };
+        for (Oid[] mechTypes : mechLists) {
+            for (String principal : principals) {
+                NegTokenInit init = new NegTokenInit(mechTypes, principal);
+                byte[] expected = init(mechTypes, principal);
+                String what = mechTypes.length + " mechTypes, principal " + (principal != null ? principal.length() : -1);
+
+                assertArrayEquals(expected, init.encode(), what);
+                assertEquals(expected.length, init.encodedLength(), what);
+                assertArrayEquals(expected, encode(init::encode, expected.length), what);
+                assertArrayEquals(expected, encodeArray(init::encode, expected.length), what);
+            }
+        }
+    }
+
+    @Test
+    void rejectsBufferTooSmall() throws Exception {
+        NegTokenTarg targ = new NegTokenTarg(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, response(300));
+        NegTokenInit init = new NegTokenInit(new Oid[] { CommonOids.KERBEROS5 }, "HTTP/localhost@EXAMPLE.COM");
+        for (Encoder encoder : new Encoder[] { targ::encode, init::encode }) {
+            int length = encoder.encode(ByteBuffer.allocate(1024));
+            ByteBuffer dst = ByteBuffer.allocate(length - 1);
+            assertThrows(IOException.class, () -> encoder.encode(dst));
+            assertEquals(0, dst.position());
+        }
+        assertThrows(IOException.class, () -> targ.encode(new byte[targ.encodedLength() + 4], 5));
+        assertThrows(IOException.class, () -> init.encode(new byte[init.encodedLength() + 4], 5));
+    }
+
+    // NegTokenTarg ::= [1] SEQUENCE { negResult [0] ENUMERATED, supportedMech [1] OID, responseToken [2] OCTET STRING }
+
+    private static byte[] targ(int result, Oid mech, byte[] response) throws Exception {
+        byte[] fields = tlv(0xa0, tlv(0x0a, new byte[] { (byte) result }));
+        if (mech != null) {
+            fields = concat(fields, tlv(0xa1, mech.getDER()));
+        }
+        if (response != null) {
+            fields = concat(fields, tlv(0xa2, tlv(0x04, response)));
+        }
+        return tlv(0xa1, tlv(0x30, fields));
+    }
+
+    // [APPLICATION 0] { spnego OID, [0] SEQUENCE { mechTypes [0] SEQUENCE OF OID, [3] SEQUENCE { [0] GeneralString } } }
+
+    private static byte[] init(Oid[] mechTypes, String principal) throws Exception {
+        byte[] oids = new byte[0];
+        for (Oid mechType : mechTypes) {
+            oids = concat(oids, mechType.getDER());
+        }
+        byte[] fields = tlv(0xa0, tlv(0x30, oids));
+        if (principal != null) {
+            fields = concat(fields, tlv(0xa3, tlv(0x30, tlv(0xa0, tlv(0x1b, principal.getBytes(StandardCharsets.UTF_8))))));
+        }
+        return tlv(0x60, CommonOids.SPNEGO.getDER(), tlv(0xa0, tlv(0x30, fields)));
+    }
+
+    // Encode into a buffer with room to spare, checking the reported length against the bytes written
+
+    private static byte[] encode(Encoder encoder, int length) throws IOException {
+        ByteBuffer dst = ByteBuffer.allocate(length + 16);
+        dst.position(3);
+        int written = encoder.encode(dst);
+        assertEquals(length, written);
+        assertEquals(3 + length, dst.position());
+        return Arrays.copyOfRange(dst.array(), 3, 3 + length);
+    }
+
+    private static byte[] encodeArray(ArrayEncoder encoder, int length) throws IOException {
+        byte[] buf = new byte[length + 5];
+        int written = encoder.encode(buf, 5);
+        assertEquals(length, written);
+        return Arrays.copyOfRange(buf, 5, 5 + length);
+    }
+
+    private static Oid[] many(int count) throws Exception {
+        Oid[] oids = new Oid[count];
+        for (int i = 0; i < count; i++) {
+            oids[i] = new Oid("1.3.6.1.4.1.311.2.2." + (i + 10));
+        }
+        return oids;
+    }
+
+    private static byte[] response(int length) {
+        byte[] response = new byte[length];
+        for (int i = 0; i < length; i++) {
+            response[i] = (byte) (i * 31 + 7);
+        }
+        return response;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private interface Encoder {
+        int encode(ByteBuffer dst) throws IOException;
+    }
+
+    private interface ArrayEncoder {
+        int encode(byte[] buf, int off) throws IOException;
+    }
+}
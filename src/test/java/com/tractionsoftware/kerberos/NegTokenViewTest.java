@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.tractionsoftware.kerberos.TestKerberos.tlv;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NegTokenViewTest {
+
+    private static final byte[] MECH_TOKEN = { 0x60, 0x03, 0x01, 0x02, 0x03 };
+
+    private static final byte[] MECH_TYPES = tlv(0xa0, tlv(0x30, tlv(0x06, TestKerberos.KERBEROS5_OID)));
+
+    @Test
+    void passesBareKerberosThrough() throws Exception {
+        byte[] framed = TestKerberos.gssFrame(new byte[] { 0x6e, 0x00 });
+        byte[] padded = new byte[framed.length + 7];
+        System.arraycopy(framed, 0, padded, 4, framed.length);
+        NegTokenInitView view = new NegTokenInitView().wrap(padded, 4, framed.length);
+        assertTrue(view.isKerberos());
+        assertSame(padded, view.buffer());
+        assertEquals(4, view.mechTokenOffset());
+        assertEquals(framed.length, view.mechTokenLength());
+        assertEquals(1, view.numberOfOids());
+        assertSame(CommonOids.KERBEROS5, view.getOidAt(0));
+        assertEquals(-1, view.getContextFlags());
+    }
+
+    @Test
+    void readsSpnegoInitInPlace() throws Exception {
+        byte[] blob = init(
+            tlv(0xa0, tlv(0x30, CommonOids.MSKERBEROS5.getDER(), tlv(0x04), tlv(0x06, TestKerberos.KERBEROS5_OID))),
+            tlv(0xa1, tlv(0x03, new byte[] { 1, (byte) 0x86 })),
+            tlv(0xa2, tlv(0x04, MECH_TOKEN)),
+            // mechListMIC is skipped whatever it holds
+            tlv(0xa3, tlv(0x02, new byte[] { 1 }))
+        );
+        NegTokenInitView view = new NegTokenInitView().wrap(blob, 0, blob.length);
+        assertFalse(view.isKerberos());
+        assertEquals(2, view.numberOfOids());
+        assertTrue(view.oidEquals(0, CommonOids.MSKERBEROS5.getDER()));
+        assertEquals(1, view.indexOfOid(CommonOids.KERBEROS5.getDER()));
+        assertEquals(-1, view.indexOfOid(CommonOids.SPNEGO.getDER()));
+        assertSame(CommonOids.KERBEROS5, view.getOidAt(1));
+        assertEquals(0x86, view.getContextFlags());
+        assertArrayEquals(MECH_TOKEN, Arrays.copyOfRange(blob, view.mechTokenOffset(), view.mechTokenOffset() + view.mechTokenLength()));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.oidOffset(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.getOidAt(-1));
+    }
+
+    @Test
+    void rejectsMalformedInit() {
+        byte[] mechToken = tlv(0xa2, tlv(0x04, MECH_TOKEN));
+        NegTokenInitView view = new NegTokenInitView();
+        assertThrows(IOException.class, () -> wrap(view, init(mechToken)), "no mechTypes list");
+        assertThrows(IOException.class, () -> wrap(view, init(MECH_TYPES)), "no mechToken");
+        assertThrows(IOException.class, () -> wrap(view, init(MECH_TYPES, tlv(0xa2, tlv(0x03, new byte[] { 0 })))));
+        assertThrows(IOException.class, () -> wrap(view, init(tlv(0xa0, tlv(0x31)), mechToken)));
+        assertThrows(IOException.class, () -> wrap(view, tlv(0x60, tlv(0x06, TestKerberos.SPNEGO_OID), tlv(0xa1, tlv(0x30)))));
+        assertThrows(IOException.class, () -> wrap(view, tlv(0x60, CommonOids.MSKERBEROS5.getDER(), MECH_TOKEN)));
+        assertThrows(IOException.class, () -> wrap(view, Arrays.copyOf(TestKerberos.spnego(MECH_TOKEN), 12)));
+    }
+
+    @Test
+    void reusesInitViewAcrossShapes() throws Exception {
+        NegTokenInitView view = new NegTokenInitView();
+        byte[] spnego = init(
+            tlv(0xa0, tlv(0x30, CommonOids.MSKERBEROS5.getDER(), tlv(0x06, TestKerberos.KERBEROS5_OID))),
+            tlv(0xa1, tlv(0x03, new byte[] { 0, 0x20 })),
+            tlv(0xa2, tlv(0x04, MECH_TOKEN))
+        );
+        wrap(view, spnego);
+        assertEquals(2, view.numberOfOids());
+        assertEquals(0x20, view.getContextFlags());
+
+        byte[] framed = TestKerberos.gssFrame(new byte[] { 0x6e, 0x00 });
+        wrap(view, framed);
+        assertTrue(view.isKerberos());
+        assertEquals(1, view.numberOfOids());
+        assertEquals(-1, view.getContextFlags());
+        assertEquals(framed.length, view.mechTokenLength());
+
+        // The view is usable again after a failed wrap
+        assertThrows(IOException.class, () -> wrap(view, init(MECH_TYPES)));
+        wrap(view, TestKerberos.spnego(MECH_TOKEN));
+        assertFalse(view.isKerberos());
+        assertEquals(1, view.numberOfOids());
+        assertEquals(-1, view.getContextFlags());
+        assertEquals(MECH_TOKEN.length, view.mechTokenLength());
+    }
+
+    @Test
+    void copiesDirectBufferOnce() throws Exception {
+        byte[] blob = TestKerberos.spnego(MECH_TOKEN);
+        ByteBuffer direct = ByteBuffer.allocateDirect(blob.length + 2);
+        direct.put(2, blob).position(2);
+        NegTokenInitView view = new NegTokenInitView().wrap(direct);
+        assertEquals(2, direct.position());
+        byte[] scratch = view.buffer();
+        assertNotSame(blob, scratch);
+        assertArrayEquals(MECH_TOKEN, Arrays.copyOfRange(scratch, view.mechTokenOffset(), view.mechTokenOffset() + view.mechTokenLength()));
+        view.wrap(direct);
+        assertSame(scratch, view.buffer());
+
+        ByteBuffer heap = ByteBuffer.wrap(blob);
+        assertSame(blob, view.wrap(heap).buffer());
+    }
+
+    @Test
+    void readsTargInPlace() throws Exception {
+        byte[] blob = tlv(0xa1, tlv(0x30,
+            tlv(0xa0, tlv(0x0a, new byte[] { 1 })),
+            tlv(0xa1, tlv(0x06, TestKerberos.KERBEROS5_OID)),
+            tlv(0xa2, tlv(0x04, MECH_TOKEN)),
+            tlv(0xa3, tlv(0x04, new byte[] { 9, 8 })),
+            tlv(0xa4, tlv(0x05))
+        ));
+        NegTokenTargView view = new NegTokenTargView().wrap(blob, 0, blob.length);
+        assertEquals(SPNEGO.AcceptIncomplete, view.getResult());
+        assertTrue(view.supportedMechEquals(CommonOids.KERBEROS5.getDER()));
+        assertSame(CommonOids.KERBEROS5, view.getSupportedMech());
+        assertTrue(view.hasResponseToken());
+        assertArrayEquals(MECH_TOKEN, Arrays.copyOfRange(blob, view.responseTokenOffset(), view.responseTokenOffset() + view.responseTokenLength()));
+        assertArrayEquals(new byte[] { 9, 8 }, Arrays.copyOfRange(blob, view.mechListMICOffset(), view.mechListMICOffset() + view.mechListMICLength()));
+
+        // The bare SEQUENCE without the [1] wrapper is accepted as well
+        byte[] bare = tlv(0x30, tlv(0xa0, tlv(0x0a, new byte[] { 2 })));
+        view.wrap(bare, 0, bare.length);
+        assertEquals(SPNEGO.Reject, view.getResult());
+        assertFalse(view.hasSupportedMech());
+        assertNull(view.getSupportedMech());
+        assertFalse(view.supportedMechEquals(CommonOids.KERBEROS5.getDER()));
+        assertFalse(view.hasResponseToken());
+        assertEquals(-1, view.mechListMICOffset());
+    }
+
+    @Test
+    void rejectsMalformedTarg() {
+        NegTokenTargView view = new NegTokenTargView();
+        assertThrows(IOException.class, () -> wrapTarg(view, tlv(0xa2, tlv(0x30))), "not a NegTokenTarg");
+        assertThrows(IOException.class, () -> wrapTarg(view, targ(tlv(0xa3, tlv(0x30)))), "mecListMIC not an OCTET STRING");
+        assertThrows(IOException.class, () -> wrapTarg(view, targ(tlv(0xa0, tlv(0x02, new byte[] { 0 })))));
+        assertThrows(IOException.class, () -> wrapTarg(view, targ(tlv(0xa1, tlv(0x04)))));
+        assertThrows(IOException.class, () -> wrapTarg(view, targ(tlv(0xa2, tlv(0x06, TestKerberos.KERBEROS5_OID)))));
+        assertThrows(IOException.class, () -> wrapTarg(view, Arrays.copyOf(APRequestTest.targ(MECH_TOKEN), 9)));
+    }
+
+    @Test
+    void reusesTargViewAcrossShapes() throws Exception {
+        NegTokenTargView view = new NegTokenTargView();
+        wrapTarg(view, targ(
+            tlv(0xa0, tlv(0x0a, new byte[] { 0 })),
+            tlv(0xa1, tlv(0x06, TestKerberos.KERBEROS5_OID)),
+            tlv(0xa2, tlv(0x04, MECH_TOKEN)),
+            tlv(0xa3, tlv(0x04, new byte[] { 9 }))
+        ));
+        assertTrue(view.hasSupportedMech());
+
+        wrapTarg(view, targ(tlv(0xa2, tlv(0x04))));
+        assertEquals(-1, view.getResult());
+        assertFalse(view.hasSupportedMech());
+        assertTrue(view.hasResponseToken());
+        assertEquals(0, view.responseTokenLength());
+        assertEquals(-1, view.mechListMICOffset());
+        assertEquals(0, view.mechListMICLength());
+
+        assertThrows(IOException.class, () -> wrapTarg(view, targ(tlv(0xa3, tlv(0x30)))));
+        wrapTarg(view, targ());
+        assertEquals(-1, view.getResult());
+        assertFalse(view.hasResponseToken());
+    }
+
+    private static byte[] init(byte[]... fields) {
+        return tlv(0x60, tlv(0x06, TestKerberos.SPNEGO_OID), tlv(0xa0, tlv(0x30, fields)));
+    }
+
+    private static byte[] targ(byte[]... fields) {
+        return tlv(0xa1, tlv(0x30, fields));
+    }
+
+    private static void wrap(NegTokenInitView view, byte[] blob) throws IOException {
+        view.wrap(blob, 0, blob.length);
+    }
+
+    private static void wrapTarg(NegTokenTargView view, byte[] blob) throws IOException {
+        view.wrap(blob, 0, blob.length);
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NegativeTokenCacheTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    private final NegativeTokenCache cache = new NegativeTokenCache();
+
+    private AcceptorConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new AcceptorConfig();
+        config.setReplayCache(new MemoryReplayCache());
+        config.setNegativeTokenCache(cache);
+    }
+
+    @Test
+    void rejectsRepeatOfFailedToken() throws Exception {
+        // A ticket encrypted in a key the acceptor does not have
+        byte[] token = new TestKerberos().apReq();
+        GSSException first = assertThrows(GSSException.class, () -> accept(TestKerberos.SERVICE, token));
+        assertFalse(first instanceof NegativeTokenCache.CachedFailureException);
+        assertEquals(1, cache.size());
+        GSSException repeat = assertThrows(GSSException.class, () -> accept(TestKerberos.SERVICE, TestKerberos.spnego(token)));
+        assertInstanceOf(NegativeTokenCache.CachedFailureException.class, repeat);
+        assertEquals(first.getMajor(), repeat.getMajor());
+        assertEquals(first.getMinor(), repeat.getMinor());
+    }
+
+    @Test
+    void remembersReplayOnFastPath() throws Exception {
+        config.setFastPathAcceptor(new FastPathAcceptor(List.of(kdc.key())));
+        byte[] token = kdc.apReq();
+        accept(TestKerberos.SERVICE, token);
+        assertEquals(0, cache.size());
+        assertEquals(GSSException.DUPLICATE_TOKEN, assertThrows(GSSException.class, () -> accept(TestKerberos.SERVICE, token)).getMajor());
+        assertInstanceOf(NegativeTokenCache.CachedFailureException.class, assertThrows(GSSException.class, () -> accept(TestKerberos.SERVICE, token)));
+    }
+
+    @Test
+    void ignoresCredentialFailures() throws Exception {
+        byte[] token = kdc.apReq();
+        // The acceptor Subject has no key for this account
+        assertThrows(GSSException.class, () -> accept("HTTP/otherhost@" + TestKerberos.REALM, token));
+        assertEquals(0, cache.size());
+        accept(TestKerberos.SERVICE, token);
+    }
+
+    @Test
+    void keysOnAccountAndGeneration() throws Exception {
+        byte[] token = kdc.apReq();
+        NegativeTokenCache.Key key = NegativeTokenCache.key(TestKerberos.SERVICE, 1, token, 0, token.length);
+        byte[] wrapped = TestKerberos.spnego(token);
+        assertEquals(key, NegativeTokenCache.key(TestKerberos.SERVICE, 1, wrapped, 0, wrapped.length));
+        assertNotEquals(key, NegativeTokenCache.key("HTTP/otherhost@" + TestKerberos.REALM, 1, token, 0, token.length));
+        assertNotEquals(key, NegativeTokenCache.key(TestKerberos.SERVICE, 2, token, 0, token.length));
+        cache.record(key, new GSSException(GSSException.BAD_MIC));
+        assertThrows(NegativeTokenCache.CachedFailureException.class, () -> cache.check(key));
+        // Another account, and the same account after a keytab reload, try the token again
+        assertDoesNotThrow(() -> cache.check(NegativeTokenCache.key(null, 1, token, 0, token.length)));
+        assertDoesNotThrow(() -> cache.check(NegativeTokenCache.key(TestKerberos.SERVICE, 2, token, 0, token.length)));
+        // Callers without a keytab index use generation 0
+        cache.record(TestKerberos.SERVICE, token, 0, token.length, new GSSException(GSSException.BAD_MIC));
+        assertThrows(NegativeTokenCache.CachedFailureException.class, () -> cache.check(NegativeTokenCache.key(TestKerberos.SERVICE, 0, token, 0, token.length)));
+    }
+
+    @Test
+    void forgetsExpiredFailures() throws Exception {
+        NegativeTokenCache expiring = new NegativeTokenCache(Duration.ofMillis(1), 10);
+        byte[] token = kdc.apReq();
+        expiring.record(null, token, 0, token.length, new GSSException(GSSException.BAD_MIC));
+        Thread.sleep(5);
+        assertDoesNotThrow(() -> expiring.check(null, token, 0, token.length));
+        assertEquals(0, expiring.size());
+    }
+
+    @Test
+    void staysWithinMaxEntries() throws Exception {
+        NegativeTokenCache small = new NegativeTokenCache(Duration.ofMinutes(1), 2);
+        for (int i = 0; i < 5; i++) {
+            byte[] token = kdc.apReq();
+            small.record(null, token, 0, token.length, new GSSException(GSSException.BAD_MIC));
+        }
+        assertEquals(2, small.size());
+        small.clear();
+        assertEquals(0, small.size());
+    }
+
+    private KerberosDetails accept(String account, byte[] token) throws GSSException {
+        return SessionSetupPrivilegedActionTest.accept(kdc.acceptor(), new SessionSetupPrivilegedAction(config, account, token));
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NegotiateAuthenticatorTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    private AcceptorConfig config;
+
+    private HttpServer server;
+
+    private NegotiateAuthenticator authenticator;
+
+    private Socket socket;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        config = new AcceptorConfig();
+        config.setReplayCache(new MemoryReplayCache());
+        authenticator = new NegotiateAuthenticator(kdc.acceptor(), config, TestKerberos.SERVICE, TestKerberos.REALM);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = exchange.getPrincipal().getUsername().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }).setAuthenticator(authenticator);
+        server.start();
+        socket = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        socket.close();
+        server.stop(0);
+    }
+
+    @Test
+    void bindsPlainConnectionOnlyWhenEnabled() throws Exception {
+        assertEquals(20, NegotiateAuthenticator.DEFAULT_IDLE_TIMEOUT_SECONDS);
+        assertEquals(401, get(null).status);
+        Response response = get(negotiate(kdc));
+        assertEquals(200, response.status);
+        assertEquals(kdc.client, response.body);
+        // Over plain HTTP the next request must authenticate again
+        assertEquals(0, authenticator.getBoundConnections());
+        assertEquals(401, get(null).status);
+    }
+
+    @Test
+    void reusesBindingOnKeepAliveConnection() throws Exception {
+        authenticator.setBindPlainConnections(true);
+        Response challenge = get(null);
+        assertEquals(401, challenge.status);
+        assertEquals(NegotiateHeader.SCHEME, challenge.headers.get("www-authenticate"));
+        Response response = get(negotiate(kdc));
+        assertEquals(200, response.status);
+        // The AP-REP for mutual authentication
+        assertTrue(response.headers.get("www-authenticate").startsWith(NegotiateHeader.SCHEME + " "));
+        assertEquals(1, authenticator.getBoundConnections());
+        Response keepAlive = get(null);
+        assertEquals(200, keepAlive.status);
+        assertEquals(kdc.client, keepAlive.body);
+    }
+
+    @Test
+    void dropsBindingAtTicketExpiry() throws Exception {
+        authenticator.setBindPlainConnections(true);
+        // JGSS reports an indefinite lifetime for accepted contexts, while the fast path reads the ticket's end time
+        config.setFastPathAcceptor(new FastPathAcceptor(List.of(kdc.key())));
+        kdc.endtime = System.currentTimeMillis() / 1000 + 2;
+        assertEquals(200, get(negotiate(kdc)).status);
+        assertEquals(200, get(null).status);
+        Thread.sleep(2100);
+        assertEquals(401, get(null).status);
+        assertEquals(0, authenticator.getBoundConnections());
+    }
+
+    @Test
+    void dropsBindingAfterFailedToken() throws Exception {
+        authenticator.setBindPlainConnections(true);
+        assertEquals(200, get(negotiate(kdc)).status);
+        // A ticket in a key the acceptor does not have
+        assertEquals(401, get(negotiate(new TestKerberos())).status);
+        assertEquals(0, authenticator.getBoundConnections());
+        assertEquals(401, get(null).status);
+    }
+
+    @Test
+    void keepsBindingWhenShed() throws Exception {
+        authenticator.setBindPlainConnections(true);
+        assertEquals(200, get(negotiate(kdc)).status);
+        // Every token is now larger than the in-flight byte budget
+        config.setAdmissionController(new AdmissionController(1, 1, Duration.ofSeconds(1), 1, Duration.ofSeconds(1)));
+        Response shed = get(negotiate(kdc));
+        assertEquals(503, shed.status);
+        assertEquals("1", shed.headers.get("retry-after"));
+        assertEquals(1, authenticator.getBoundConnections());
+        Response keepAlive = get(null);
+        assertEquals(200, keepAlive.status);
+        assertEquals(kdc.client, keepAlive.body);
+    }
+
+    private static String negotiate(TestKerberos kdc) throws Exception {
+        byte[] token = TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5);
+        return NegotiateHeader.SCHEME + " " + Base64.getEncoder().encodeToString(token);
+    }
+
+    private record Response(int status, Map<String, String> headers, String body) {
+    }
+
+    // One HTTP/1.1 request on the test's single keep-alive connection
+
+    private Response get(String authorization) throws IOException {
+        StringBuilder request = new StringBuilder("GET / HTTP/1.1\r\nHost: localhost\r\n");
+        if (authorization != null) {
+            request.append("Authorization: ").append(authorization).append("\r\n");
+        }
+        OutputStream out = socket.getOutputStream();
+        out.write(request.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        InputStream in = socket.getInputStream();
+        int status = Integer.parseInt(readLine(in).split(" ")[1]);
+        Map<String, String> headers = new HashMap<>();
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            headers.put(line.substring(0, colon).toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+        byte[] body = in.readNBytes(Integer.parseInt(headers.getOrDefault("content-length", "0")));
+        return new Response(status, headers, new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c < 0) {
+                throw new IOException("Connection closed");
+            }
+            if (c != '\r') {
+                line.write(c);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+}
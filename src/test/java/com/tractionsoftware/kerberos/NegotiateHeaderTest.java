@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NegotiateHeaderTest {
+
+    @Test
+    void roundTripsAgainstBase64() throws Exception {
+        NegotiateHeader header = new NegotiateHeader(16);
+        for (int len : new int[] { 1, 2, 3, 4, 5, 6, 47, 48, 49, 50, 1500, 1501, 1502 }) {
+            byte[] token = token(len);
+            String expected = "Negotiate " + Base64.getEncoder().encodeToString(token);
+
+            byte[] padded = new byte[len + 4];
+            System.arraycopy(token, 0, padded, 2, len);
+            assertEquals(expected, NegotiateHeader.append(padded, 2, len, new StringBuilder()).toString());
+            assertEquals(expected.length(), NegotiateHeader.encodedLength(len));
+            ByteBuffer dst = ByteBuffer.allocate(expected.length() + 3).position(3);
+            assertEquals(expected.length(), NegotiateHeader.encode(padded, 2, len, dst));
+            assertEquals(expected, new String(dst.array(), 3, expected.length(), StandardCharsets.US_ASCII));
+
+            assertTrue(header.decode(expected));
+            assertArrayEquals(token, decoded(header), "length " + len);
+            assertTrue(header.decode("Negotiate " + Base64.getEncoder().withoutPadding().encodeToString(token)));
+            assertArrayEquals(token, decoded(header), "unpadded length " + len);
+
+            ByteBuffer value = ByteBuffer.allocateDirect(expected.length() + 2);
+            value.position(2);
+            value.put(expected.getBytes(StandardCharsets.US_ASCII));
+            value.position(2);
+            assertTrue(header.decode(value));
+            assertEquals(2, value.position());
+            assertArrayEquals(token, decoded(header));
+        }
+    }
+
+    @Test
+    void rendersBareChallenge() throws Exception {
+        assertEquals("Negotiate", NegotiateHeader.append(null, 0, 0, new StringBuilder()).toString());
+        assertEquals("Negotiate ", NegotiateHeader.append(new byte[0], 0, 0, new StringBuilder()).toString());
+        assertEquals("Negotiate".length(), NegotiateHeader.encodedLength(-1));
+        ByteBuffer dst = ByteBuffer.allocate(9);
+        assertEquals(9, NegotiateHeader.encode(null, 0, 0, dst));
+        assertThrows(IOException.class, () -> NegotiateHeader.encode(token(3), 0, 3, ByteBuffer.allocate(13)));
+    }
+
+    @Test
+    void acceptsSchemeInAnyCaseWithSpaces() {
+        NegotiateHeader header = new NegotiateHeader();
+        for (String value : new String[] { "negotiate YWJj", "NEGOTIATE YWJj", " \tNegotiate   YWJj \t", "Negotiate YWJj" }) {
+            assertTrue(header.decode(value), value);
+            assertEquals("abc", new String(decoded(header), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void rejectsOtherSchemes() {
+        assertRejected(null, "", "Negotiate", "Negotiate ", "Negotiate   ", "NegotiateYWJj", "Negotiat YWJj", "Basic YWJj",
+            "NTLM TlRMTVNTUAABAAAAB4IIogAAAAAAAAAAAAAAAAAAAAAGAbEdAAAADw==", "Kerberos YWJj", "Negotiate\tYWJj");
+    }
+
+    @Test
+    void rejectsIllegalCharacters() {
+        assertRejected("Negotiate YW*j", "Negotiate YW Jj", "Negotiate YW-j", "Negotiate YW_j", "Negotiate YWéj",
+            "Negotiate YWĀj", "Negotiate YQ==YWJj", "Negotiate YW\nJj");
+    }
+
+    @Test
+    void rejectsBadPadding() {
+        assertRejected("Negotiate Y", "Negotiate Y===", "Negotiate YQ=", "Negotiate YQ===", "Negotiate YWI==",
+            "Negotiate YWJjZ", "Negotiate =", "Negotiate ====", "Negotiate YWJj=");
+    }
+
+    @Test
+    void rendersResponseInNegTokenTarg() throws Exception {
+        byte[] response = token(40);
+        byte[] targ = new NegTokenTarg(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, response).encode();
+        String expected = "Negotiate " + Base64.getEncoder().encodeToString(targ);
+        assertEquals(expected, NegotiateHeader.appendResponse(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, response, new StringBuilder()).toString());
+        ByteBuffer dst = ByteBuffer.allocate(expected.length());
+        NegotiateHeader.encodeResponse(SPNEGO.AcceptCompleted, CommonOids.KERBEROS5, response, dst);
+        assertEquals(expected, new String(dst.array(), StandardCharsets.US_ASCII));
+    }
+
+    private static void assertRejected(String... values) {
+        NegotiateHeader header = new NegotiateHeader();
+        for (String value : values) {
+            assertTrue(header.decode("Negotiate YWJj"));
+            assertFalse(header.decode(value), value);
+            assertEquals(0, header.length(), value);
+            if (value != null) {
+                assertFalse(header.decode(ByteBuffer.wrap(value.getBytes(StandardCharsets.ISO_8859_1))), value);
+            }
+        }
+    }
+
+    private static byte[] decoded(NegotiateHeader header) {
+        return Arrays.copyOf(header.buffer(), header.length());
+    }
+
+    private static byte[] token(int len) {
+        byte[] token = new byte[len];
+        for (int i = 0; i < len; i++) {
+            token[i] = (byte) (i * 37 + 11);
+        }
+        return token;
+    }
+
+}
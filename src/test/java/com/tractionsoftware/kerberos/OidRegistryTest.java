@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.Oid;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OidRegistryTest {
+
+    // An arc of its own, since registrations last for the life of the JVM
+
+    private static final String TEST_ARC = "1.3.6.1.4.1.55555.";
+
+    @Test
+    void internsCommonOids() throws Exception {
+        for (Oid common : new Oid[] { CommonOids.SPNEGO, CommonOids.KERBEROS5, CommonOids.MSKERBEROS5, CommonOids.NTLMSSP }) {
+            byte[] der = common.getDER();
+            byte[] padded = new byte[der.length + 6];
+            System.arraycopy(der, 0, padded, 3, der.length);
+            assertSame(common, OidRegistry.lookup(padded, 3, der.length));
+            assertSame(common, OidRegistry.intern(padded, 3, der.length));
+            assertSame(OidRegistry.der(common), OidRegistry.der(new Oid(common.toString())));
+            assertArrayEquals(der, OidRegistry.der(common));
+        }
+    }
+
+    @Test
+    void decodesUnregisteredOidsWithoutSharing() throws Exception {
+        Oid oid = new Oid(TEST_ARC + "1");
+        byte[] der = oid.getDER();
+        assertNull(OidRegistry.lookup(der, 0, der.length));
+        Oid first = OidRegistry.intern(der, 0, der.length);
+        assertEquals(oid, first);
+        assertNotSame(first, OidRegistry.intern(der, 0, der.length));
+        assertArrayEquals(der, OidRegistry.der(oid));
+
+        // A prefix of a registered OID is a different OID
+        byte[] kerberos = CommonOids.KERBEROS5.getDER();
+        byte[] prefix = { 0x06, (byte) (kerberos.length - 3), kerberos[2], kerberos[3], kerberos[4], kerberos[5], kerberos[6], kerberos[7], kerberos[8] };
+        assertNull(OidRegistry.lookup(prefix, 0, prefix.length));
+        assertThrows(IOException.class, () -> OidRegistry.intern(new byte[] { 0x06, 0x01, (byte) 0x80 }, 0, 3));
+    }
+
+    @Test
+    void registersCopyOnWrite() throws Exception {
+        assertSame(CommonOids.KERBEROS5, OidRegistry.register(new Oid(CommonOids.ID_KERBEROS5)));
+
+        // Enough registrations to grow the table several times, each keeping the earlier ones
+        List<Oid> registered = new ArrayList<>();
+        for (int i = 100; i < 140; i++) {
+            Oid oid = new Oid(TEST_ARC + i);
+            assertSame(oid, OidRegistry.register(oid));
+            assertSame(oid, OidRegistry.register(new Oid(TEST_ARC + i)));
+            registered.add(oid);
+            for (Oid earlier : registered) {
+                byte[] der = earlier.getDER();
+                assertSame(earlier, OidRegistry.intern(der, 0, der.length));
+            }
+        }
+        assertSame(CommonOids.SPNEGO, OidRegistry.intern(CommonOids.SPNEGO.getDER(), 0, CommonOids.SPNEGO.getDER().length));
+        assertSame(OidRegistry.der(registered.get(0)), OidRegistry.der(registered.get(0)));
+    }
+
+}
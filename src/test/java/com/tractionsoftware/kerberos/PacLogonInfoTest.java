@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PacLogonInfoTest {
+
+    static final String DOMAIN_SID = "S-1-5-21-1004336348-1177238915-682003330";
+
+    @Test
+    void parsesGroupsExtraSidsAndResourceGroups() throws Exception {
+        PacLogonInfo info = parse(new LogonInfo().encode());
+        assertEquals("alice", info.getEffectiveName());
+        assertEquals("Alice Example", info.getFullName());
+        assertEquals("DC1", info.getLogonServer());
+        assertEquals("EXAMPLE", info.getLogonDomainName());
+        assertEquals(DOMAIN_SID, info.getLogonDomainSid());
+        assertEquals(DOMAIN_SID + "-1105", info.getUserSid());
+        assertEquals(DOMAIN_SID + "-513", info.getPrimaryGroupSid());
+        assertEquals(0x20, info.getUserFlags());
+        assertEquals(0x210, info.getUserAccountControl());
+        assertEquals(2, info.getGroupCount());
+        assertEquals(512, info.getGroupId(1));
+        assertEquals(7, info.getGroupAttributes(1));
+        assertEquals(3, info.getExtraSidCount());
+        assertEquals("S-1-18-1", info.getExtraSid(0));
+        assertNull(info.getExtraSid(1));
+        assertEquals("S-1-5-21-1-2-3-1000", info.getExtraSid(2));
+        assertEquals(7, info.getExtraSidAttributes(0));
+        assertEquals(1, info.getResourceGroupCount());
+        assertEquals("S-1-5-21-4-5-6-2001", info.getResourceGroupSid(0));
+        assertEquals(List.of(
+            DOMAIN_SID + "-513",
+            DOMAIN_SID + "-512",
+            "S-1-18-1",
+            "S-1-5-21-1-2-3-1000",
+            "S-1-5-21-4-5-6-2001"
+        ), info.getGroupSids());
+        assertThrows(IndexOutOfBoundsException.class, () -> info.getGroupSid(2));
+    }
+
+    @Test
+    void handlesNullPointers() throws Exception {
+        LogonInfo logon = new LogonInfo();
+        logon.effectiveName = null;
+        logon.fullName = null;
+        logon.logonServer = null;
+        logon.domainName = null;
+        logon.domainSid = null;
+        logon.groupIds = null;
+        logon.extraSids = null;
+        logon.resourceDomainSid = null;
+        logon.resourceGroupIds = null;
+        PacLogonInfo info = parse(logon.encode());
+        assertNull(info.getEffectiveName());
+        assertNull(info.getLogonDomainName());
+        assertNull(info.getUserSid());
+        assertNull(info.getPrimaryGroupSid());
+        assertEquals(1105, info.getUserId());
+        assertEquals(0, info.getGroupCount());
+        assertEquals(0, info.getExtraSidCount());
+        assertEquals(0, info.getResourceGroupCount());
+        assertEquals(List.of(), info.getGroupSids());
+    }
+
+    @Test
+    void rejectsEveryTruncation() {
+        byte[] full = new LogonInfo().encode();
+        for (int len = 0; len < full.length; len++) {
+            int n = len;
+            assertThrows(IOException.class, () -> PacLogonInfo.parse(full, 0, n), "length " + n);
+        }
+    }
+
+    @Test
+    void rejectsMismatchedCounts() {
+        LogonInfo groups = new LogonInfo();
+        groups.groupCountDelta = 1;
+        assertThrows(IOException.class, () -> parse(groups.encode()));
+        LogonInfo sid = new LogonInfo();
+        sid.sidCountDelta = 1;
+        assertThrows(IOException.class, () -> parse(sid.encode()));
+        LogonInfo string = new LogonInfo();
+        string.stringCountDelta = 1;
+        assertThrows(IOException.class, () -> parse(string.encode()));
+    }
+
+    @Test
+    void rejectsCountsThatOverrunBuffer() {
+        // The fixed count and the conformant array's max count agree, but promise far more than the buffer holds
+        LogonInfo groups = new LogonInfo();
+        groups.forcedCount = 0x7fffffff;
+        groups.extraSids = null;
+        assertThrows(IOException.class, () -> parse(groups.encode()));
+        LogonInfo sids = new LogonInfo();
+        sids.forcedCount = 0x7fffffff;
+        sids.groupIds = null;
+        assertThrows(IOException.class, () -> parse(sids.encode()));
+    }
+
+    @Test
+    void rejectsOtherEncodings() {
+        byte[] b = new LogonInfo().encode();
+        b[1] = 0x00;
+        assertThrows(IOException.class, () -> parse(b));
+    }
+
+    @Test
+    void readsLogonInfoFromPac() throws Exception {
+        byte[] pac = PacTest.pac(new LogonInfo().encode());
+        Pac p = Pac.parse(pac, 0, pac.length);
+        assertEquals("alice", p.getLogonInfo().getEffectiveName());
+    }
+
+    static PacLogonInfo parse(byte[] b) throws IOException {
+        // Parse from an offset, since NDR alignment is relative to the start of the buffer
+        byte[] shifted = new byte[b.length + 3];
+        System.arraycopy(b, 0, shifted, 3, b.length);
+        return PacLogonInfo.parse(shifted, 3, b.length);
+    }
+
+    /**
+     * NDR encoder for KERB_VALIDATION_INFO, with deliberate inconsistencies on request
+     */
+    static final class LogonInfo {
+
+        String effectiveName = "alice";
+        String fullName = "Alice Example";
+        String logonServer = "DC1";
+        String domainName = "EXAMPLE";
+        String domainSid = DOMAIN_SID;
+        int userId = 1105;
+        int primaryGroupId = 513;
+        int[] groupIds = { 513, 512 };
+        String[] extraSids = { "S-1-18-1", null, "S-1-5-21-1-2-3-1000" };
+        String resourceDomainSid = "S-1-5-21-4-5-6";
+        int[] resourceGroupIds = { 2001 };
+
+        int groupCountDelta;
+        int sidCountDelta;
+        int stringCountDelta;
+        int forcedCount = -1;
+
+        private ByteBuffer b;
+
+        private int referent;
+
+        byte[] encode() {
+            b = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+            b.put(new byte[] { 1, 0x10, 8, 0 }).putInt(0xcccccccc);
+            int lengthAt = b.position();
+            b.putInt(0).putInt(0);
+            b.putInt(0x20000);
+            int fixed = b.position();
+            b.put(new byte[216]);
+
+            String[] leading = { effectiveName, fullName, null, null, null, null };
+            for (int i = 0; i < leading.length; i++) {
+                unicodeString(fixed + 48 + 8 * i, leading[i]);
+            }
+            b.putInt(fixed + 96, 3);
+            b.putInt(fixed + 100, userId);
+            b.putInt(fixed + 104, primaryGroupId);
+            b.putInt(fixed + 108, count(groupIds != null ? groupIds.length : 0));
+            b.putInt(fixed + 112, pointer(groupIds != null));
+            b.putInt(fixed + 116, 0x20);
+            unicodeString(fixed + 136, logonServer);
+            unicodeString(fixed + 144, domainName);
+            b.putInt(fixed + 152, pointer(domainSid != null));
+            b.putInt(fixed + 164, 0x210);
+            b.putInt(fixed + 196, count(extraSids != null ? extraSids.length : 0));
+            b.putInt(fixed + 200, pointer(extraSids != null));
+            b.putInt(fixed + 204, pointer(resourceDomainSid != null));
+            b.putInt(fixed + 208, resourceGroupIds != null ? resourceGroupIds.length : 0);
+            b.putInt(fixed + 212, pointer(resourceGroupIds != null));
+
+            for (String s : leading) {
+                deferredString(s);
+            }
+            if (groupIds != null) {
+                align();
+                b.putInt(count(groupIds.length) + groupCountDelta);
+                for (int id : groupIds) {
+                    b.putInt(id).putInt(7);
+                }
+            }
+            deferredString(logonServer);
+            deferredString(domainName);
+            if (domainSid != null) {
+                sid(domainSid);
+            }
+            if (extraSids != null) {
+                align();
+                b.putInt(count(extraSids.length));
+                for (String sid : extraSids) {
+                    b.putInt(pointer(sid != null)).putInt(7);
+                }
+                for (String sid : extraSids) {
+                    if (sid != null) {
+                        sid(sid);
+                    }
+                }
+            }
+            if (resourceDomainSid != null) {
+                sid(resourceDomainSid);
+            }
+            if (resourceGroupIds != null) {
+                align();
+                b.putInt(resourceGroupIds.length);
+                for (int id : resourceGroupIds) {
+                    b.putInt(id).putInt(7);
+                }
+            }
+            b.putInt(lengthAt, b.position() - fixed + 4);
+            return Arrays.copyOf(b.array(), b.position());
+        }
+
+        private int count(int n) {
+            return forcedCount >= 0 ? forcedCount : n;
+        }
+
+        private int pointer(boolean present) {
+            return present ? 0x20004 + 4 * referent++ : 0;
+        }
+
+        private void unicodeString(int at, String s) {
+            int len = s != null ? s.length() * 2 : 0;
+            b.putShort(at, (short) len).putShort(at + 2, (short) len).putInt(at + 4, pointer(s != null));
+        }
+
+        private void deferredString(String s) {
+            if (s == null) {
+                return;
+            }
+            align();
+            b.putInt(s.length()).putInt(0).putInt(s.length() + stringCountDelta);
+            b.put(s.getBytes(StandardCharsets.UTF_16LE));
+        }
+
+        private void sid(String sid) {
+            String[] parts = sid.split("-");
+            int subs = parts.length - 3;
+            align();
+            b.putInt(subs + sidCountDelta);
+            b.put((byte) Integer.parseInt(parts[1])).put((byte) subs);
+            long authority = Long.parseLong(parts[2]);
+            for (int i = 5; i >= 0; i--) {
+                b.put((byte) (authority >>> (8 * i)));
+            }
+            for (int i = 3; i < parts.length; i++) {
+                b.putInt((int) Long.parseLong(parts[i]));
+            }
+        }
+
+        private void align() {
+            while ((b.position() & 3) != 0) {
+                b.put((byte) 0);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import com.sun.security.jgss.AuthorizationDataEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.tractionsoftware.kerberos.TestKerberos.integer;
+import static com.tractionsoftware.kerberos.TestKerberos.tlv;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PacTest {
+
+    @Test
+    void parsesBufferTable() throws Exception {
+        byte[] logon = new PacLogonInfoTest.LogonInfo().encode();
+        byte[] pac = pac(logon);
+        Pac p = Pac.parse(pac, 0, pac.length);
+        assertEquals(2, p.bufferCount());
+        assertEquals(Pac.LOGON_INFO, p.bufferType(0));
+        assertEquals(logon.length, p.bufferLength(0));
+        assertEquals(Pac.SERVER_CHECKSUM, p.bufferType(1));
+        assertEquals(1, p.indexOf(Pac.SERVER_CHECKSUM));
+        assertEquals(-1, p.indexOf(Pac.UPN_DNS_INFO));
+        assertEquals("alice", p.getLogonInfo().getEffectiveName());
+        assertThrows(IndexOutOfBoundsException.class, () -> p.bufferType(2));
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        byte[] pac = pac(new PacLogonInfoTest.LogonInfo().encode());
+        assertThrows(IOException.class, () -> Pac.parse(pac, 0, 7));
+        // Buffer table runs past the end
+        assertThrows(IOException.class, () -> Pac.parse(pac, 0, 8 + 16));
+        byte[] version = pac.clone();
+        version[4] = 1;
+        assertThrows(IOException.class, () -> Pac.parse(version, 0, version.length));
+        byte[] count = pac.clone();
+        putInt(count, 0, 0x7fffffff);
+        assertThrows(IOException.class, () -> Pac.parse(count, 0, count.length));
+        // Logon info buffer offset past the end, and a size that overruns it
+        byte[] offset = pac.clone();
+        putInt(offset, 8 + 8, pac.length + 1);
+        assertThrows(IOException.class, () -> Pac.parse(offset, 0, offset.length));
+        byte[] size = pac.clone();
+        putInt(size, 8 + 4, pac.length);
+        assertThrows(IOException.class, () -> Pac.parse(size, 0, size.length));
+        byte[] high = pac.clone();
+        putInt(high, 8 + 12, 1);
+        assertThrows(IOException.class, () -> Pac.parse(high, 0, high.length));
+    }
+
+    @Test
+    void findsPacInNestedIfRelevant() throws Exception {
+        byte[] pac = pac(new PacLogonInfoTest.LogonInfo().encode());
+        byte[] ad = authorizationData(128, pac);
+        for (int depth = 1; depth <= 4; depth++) {
+            ad = authorizationData(1, ad);
+            Pac p = Pac.fromAuthorizationData(ad, 0, ad.length);
+            assertNotNull(p, "depth " + depth);
+            assertEquals("alice", p.getLogonInfo().getEffectiveName());
+        }
+        // Nesting beyond the limit is not followed
+        byte[] deep = authorizationData(1, ad);
+        assertNull(Pac.fromAuthorizationData(deep, 0, deep.length));
+    }
+
+    @Test
+    void skipsOtherAuthorizationData() throws Exception {
+        byte[] pac = pac(new PacLogonInfoTest.LogonInfo().encode());
+        byte[] ad = tlv(0x30, entry(141, new byte[] { 1, 2, 3 }), entry(1, authorizationData(128, pac)));
+        assertNotNull(Pac.fromAuthorizationData(ad, 0, ad.length));
+        byte[] none = authorizationData(1, authorizationData(141, new byte[0]));
+        assertNull(Pac.fromAuthorizationData(none, 0, none.length));
+    }
+
+    @Test
+    void findsPacInJgssAuthorizationData() throws Exception {
+        byte[] pac = pac(new PacLogonInfoTest.LogonInfo().encode());
+        AuthorizationDataEntry[] entries = {
+            new AuthorizationDataEntry(141, new byte[] { 1 }),
+            new AuthorizationDataEntry(1, authorizationData(128, pac))
+        };
+        assertEquals("alice", Pac.fromAuthorizationData(entries).getLogonInfo().getEffectiveName());
+        assertNull(Pac.fromAuthorizationData((AuthorizationDataEntry[]) null));
+    }
+
+    /**
+     * Build a PAC holding a logon info buffer and a dummy server checksum
+     */
+    static byte[] pac(byte[] logonInfo) {
+        byte[] checksum = new byte[16];
+        int logonOff = 8 + 2 * 16;
+        int checksumOff = (logonOff + logonInfo.length + 7) & ~7;
+        ByteBuffer b = ByteBuffer.allocate(checksumOff + checksum.length).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(2).putInt(0);
+        b.putInt(Pac.LOGON_INFO).putInt(logonInfo.length).putLong(logonOff);
+        b.putInt(Pac.SERVER_CHECKSUM).putInt(checksum.length).putLong(checksumOff);
+        b.put(logonOff, logonInfo).put(checksumOff, checksum);
+        return b.array();
+    }
+
+    // AuthorizationData ::= SEQUENCE OF SEQUENCE { ad-type [0] Int32, ad-data [1] OCTET STRING }
+
+    static byte[] authorizationData(int type, byte[] data) {
+        return tlv(0x30, entry(type, data));
+    }
+
+    private static byte[] entry(int type, byte[] data) {
+        return tlv(0x30, tlv(0xa0, integer(type)), tlv(0xa1, tlv(0x04, data)));
+    }
+
+    private static void putInt(byte[] b, int p, int v) {
+        ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN).putInt(p, v);
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResumptionTokensTest {
+
+    private static final byte[] KEY1 = key(1);
+    private static final byte[] KEY2 = key(2);
+
+    private static final String ALGORITHM = "aes256-cts-hmac-sha1-96";
+
+    private final ResumptionTokens tokens = new ResumptionTokens(Duration.ofHours(1), 1, Map.of(1, KEY1));
+
+    @Test
+    void restoresDetails() {
+        KerberosDetails details = tokens.verify(tokens.issue(details(600)));
+        assertNotNull(details);
+        assertEquals(TestKerberos.CLIENT, details.getSourceName());
+        assertEquals(ALGORITHM, details.getSessionKeyAlgorithm());
+        int remaining = details.getRemainingLifetimeSeconds();
+        assertTrue(remaining > 590 && remaining <= 600, "remaining " + remaining);
+        // Capped by the maximum lifetime
+        assertTrue(tokens.verify(tokens.issue(details(7200))).getRemainingLifetimeSeconds() <= 3600);
+    }
+
+    @Test
+    void issuesNothingWithoutLifetimeOrSource() {
+        assertNull(tokens.issue(details(0)));
+        assertNull(tokens.issue(new KerberosDetails((String) null, null, 600, ALGORITHM, null)));
+    }
+
+    @Test
+    void rejectsFlippedBytes() {
+        byte[] token = decode(tokens.issue(details(600)));
+        // The last MAC byte, and a byte of the principal
+        byte[] mac = token.clone();
+        mac[mac.length - 1] ^= 1;
+        assertNull(tokens.verify(encode(mac)));
+        byte[] payload = token.clone();
+        payload[token.length - 16 - 1] ^= 1;
+        assertNull(tokens.verify(encode(payload)));
+        byte[] version = token.clone();
+        version[0] = 2;
+        assertNull(tokens.verify(encode(version)));
+    }
+
+    @Test
+    void rejectsTruncatedAndMalformedTokens() {
+        byte[] token = decode(tokens.issue(details(600)));
+        for (int len = 0; len < token.length; len++) {
+            assertNull(tokens.verify(encode(Arrays.copyOf(token, len))), "length " + len);
+        }
+        assertNull(tokens.verify(null));
+        assertNull(tokens.verify("not*base64"));
+    }
+
+    @Test
+    void rejectsUnknownKey() {
+        ResumptionTokens other = new ResumptionTokens(Duration.ofHours(1), 2, Map.of(2, KEY2));
+        assertNull(tokens.verify(other.issue(details(600))));
+        // Same ID, different key
+        ResumptionTokens forger = new ResumptionTokens(Duration.ofHours(1), 1, Map.of(1, KEY2));
+        assertNull(tokens.verify(forger.issue(details(600))));
+    }
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        byte[] principal = bytes(TestKerberos.CLIENT);
+        long past = System.currentTimeMillis() / 1000 - 1;
+        assertNull(tokens.verify(forge(1, KEY1, past, bytes(ALGORITHM), principal.length, principal)));
+        assertNotNull(tokens.verify(forge(1, KEY1, past + 600, bytes(ALGORITHM), principal.length, principal)));
+    }
+
+    @Test
+    void verifiesOldTokensAfterRotation() {
+        String old = tokens.issue(details(600));
+        tokens.setKeys(2, Map.of(1, KEY1, 2, KEY2));
+        String current = tokens.issue(details(600));
+        assertEquals(2, decode(current)[1]);
+        assertNotNull(tokens.verify(old));
+        assertNotNull(tokens.verify(current));
+        // Dropping the old key retires its tokens
+        tokens.setKeys(2, Map.of(2, KEY2));
+        assertNull(tokens.verify(old));
+        assertNotNull(tokens.verify(current));
+    }
+
+    @Test
+    void rejectsBadLengthsUnderValidMac() throws Exception {
+        long expiry = System.currentTimeMillis() / 1000 + 600;
+        byte[] alg = bytes(ALGORITHM);
+        byte[] principal = bytes(TestKerberos.CLIENT);
+        assertNotNull(tokens.verify(forge(1, KEY1, expiry, alg, principal.length, principal)));
+        // algLen running past the principal's length prefix
+        assertNull(tokens.verify(forge(1, KEY1, expiry, alg, principal.length, principal, alg.length + principal.length)));
+        assertNull(tokens.verify(forge(1, KEY1, expiry, alg, principal.length, principal, 0xffff)));
+        // principalLen short of, and past, the signed bytes
+        assertNull(tokens.verify(forge(1, KEY1, expiry, alg, principal.length - 1, principal)));
+        assertNull(tokens.verify(forge(1, KEY1, expiry, alg, principal.length + 1, principal)));
+        // An empty algorithm is restored as null
+        assertNull(tokens.verify(forge(1, KEY1, expiry, new byte[0], principal.length, principal)).getSessionKeyAlgorithm());
+    }
+
+    @Test
+    void rejectsBadKeys() {
+        assertThrows(IllegalArgumentException.class, () -> new ResumptionTokens(Duration.ofHours(1), 1, Map.of(1, new byte[31])));
+        assertThrows(IllegalArgumentException.class, () -> new ResumptionTokens(Duration.ofHours(1), 256, Map.of(256, KEY1)));
+        assertThrows(IllegalArgumentException.class, () -> new ResumptionTokens(Duration.ofHours(1), 2, Map.of(1, KEY1)));
+    }
+
+    @Test
+    void issuedBySessionSetup() throws Exception {
+        TestKerberos kdc = new TestKerberos();
+        AcceptorConfig config = new AcceptorConfig();
+        config.setReplayCache(new MemoryReplayCache());
+        config.setResumptionTokens(tokens);
+        // The token carries the algorithm even when the caller does not ask for it
+        config.setDetailFields(KerberosDetails.SOURCE_NAME);
+        byte[] token = TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5);
+        KerberosDetails accepted = SessionSetupPrivilegedActionTest.accept(kdc.acceptor(), new SessionSetupPrivilegedAction(config, TestKerberos.SERVICE, token));
+        KerberosDetails resumed = tokens.verify(accepted.getResumptionToken());
+        assertEquals(TestKerberos.CLIENT, resumed.getSourceName());
+        assertEquals(ALGORITHM, resumed.getSessionKeyAlgorithm());
+    }
+
+    private static KerberosDetails details(int lifetime) {
+        return new KerberosDetails(TestKerberos.CLIENT, TestKerberos.SERVICE, lifetime, ALGORITHM, null);
+    }
+
+    // Sign a token with the layout of ResumptionTokens, whatever its length fields say
+
+    private static String forge(int keyId, byte[] key, long expiry, byte[] alg, int principalLen, byte[] principal) throws Exception {
+        return forge(keyId, key, expiry, alg, principalLen, principal, alg.length);
+    }
+
+    private static String forge(int keyId, byte[] key, long expiry, byte[] alg, int principalLen, byte[] principal, int algLen) throws Exception {
+        ByteBuffer b = ByteBuffer.allocate(14 + alg.length + principal.length + 16);
+        b.put((byte) 1).put((byte) keyId).putLong(expiry);
+        b.putShort((short) algLen).put(alg);
+        b.putShort((short) principalLen).put(principal);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        mac.update(b.array(), 0, b.position());
+        b.put(mac.doFinal(), 0, 16);
+        return encode(b.array());
+    }
+
+    private static byte[] key(int seed) {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) seed);
+        return key;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decode(String token) {
+        return Base64.getUrlDecoder().decode(token);
+    }
+
+    private static String encode(byte[] token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+}
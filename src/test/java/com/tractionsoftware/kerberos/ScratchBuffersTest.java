@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScratchBuffersTest {
+
+    // More than the pool keeps idle in one size class
+
+    private static final int DRAIN = 80;
+
+    @Test
+    void roundsUpToSizeClass() {
+        assertEquals(4 * 1024, ScratchBuffers.acquire(1).length);
+        assertEquals(4 * 1024, ScratchBuffers.acquire(4 * 1024).length);
+        assertEquals(16 * 1024, ScratchBuffers.acquire(4 * 1024 + 1).length);
+        assertEquals(64 * 1024, ScratchBuffers.acquire(64 * 1024).length);
+        assertEquals(64 * 1024 + 1, ScratchBuffers.acquire(64 * 1024 + 1).length);
+    }
+
+    @Test
+    void zeroesUsedBytesOnRelease() {
+        byte[] b = ScratchBuffers.acquire(100);
+        Arrays.fill(b, (byte) 0x5a);
+        ScratchBuffers.release(b, 100);
+        assertTrue(isZero(b, 0, 100));
+        assertEquals(0x5a, b[100]);
+
+        // Whatever the pool hands out next has no token bytes in it
+        Arrays.fill(b, 100, b.length, (byte) 0);
+        List<byte[]> drained = drain(100);
+        assertTrue(drained.stream().anyMatch(d -> d == b));
+        for (byte[] d : drained) {
+            assertTrue(isZero(d, 0, d.length));
+            ScratchBuffers.release(d, 0);
+        }
+    }
+
+    @Test
+    void doesNotPoolOversizedArrays() {
+        byte[] b = ScratchBuffers.acquire(100_000);
+        Arrays.fill(b, (byte) 0x5a);
+        ScratchBuffers.release(b, b.length);
+        assertNotSame(b, ScratchBuffers.acquire(100_000));
+    }
+
+    @Test
+    void copiesRemainingBytes() {
+        byte[] blob = new byte[70_000];
+        Arrays.fill(blob, (byte) 7);
+        for (int len : new int[] { 10, 5000, blob.length }) {
+            ByteBuffer direct = ByteBuffer.allocateDirect(len + 5);
+            direct.put(5, blob, 0, len).position(5);
+            byte[] copy = ScratchBuffers.copyOf(direct);
+            assertEquals(5, direct.position());
+            assertTrue(copy.length >= len);
+            assertArrayEquals(Arrays.copyOf(blob, len), Arrays.copyOf(copy, len));
+            ScratchBuffers.release(copy, len);
+            assertTrue(isZero(copy, 0, len) || copy.length > 64 * 1024);
+        }
+    }
+
+    @Test
+    void leavesNoTokenInPoolAfterValidating() throws Exception {
+        TestKerberos kdc = new TestKerberos();
+        byte[] token = kdc.apReq();
+        assertEquals(TokenValidator.OK, new TokenValidator().validate(TokenValidatorTest.direct(token)));
+        for (byte[] d : drain(token.length)) {
+            assertFalse(containsToken(d, token));
+            ScratchBuffers.release(d, 0);
+        }
+    }
+
+    private static List<byte[]> drain(int length) {
+        List<byte[]> drained = new ArrayList<>();
+        for (int i = 0; i < DRAIN; i++) {
+            drained.add(ScratchBuffers.acquire(length));
+        }
+        return drained;
+    }
+
+    private static boolean containsToken(byte[] b, byte[] token) {
+        return Arrays.equals(b, 0, token.length, token, 0, token.length);
+    }
+
+    private static boolean isZero(byte[] b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (b[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
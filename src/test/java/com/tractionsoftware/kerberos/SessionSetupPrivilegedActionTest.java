@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.security.auth.Subject;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionSetupPrivilegedActionTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    private AcceptorConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new AcceptorConfig();
+        config.setReplayCache(new MemoryReplayCache());
+    }
+
+    @Test
+    void acceptsKerberosToken() throws Exception {
+        KerberosDetails details = accept(TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5));
+        assertTrue(details.isEstablished());
+        assertEquals(TestKerberos.CLIENT, details.getSourceName());
+    }
+
+    @Test
+    void rejectsReplayedToken() throws Exception {
+        byte[] token = TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5);
+        accept(token);
+        GSSException e = assertThrows(GSSException.class, () -> accept(token));
+        assertEquals(GSSException.DUPLICATE_TOKEN, e.getMajor());
+    }
+
+    @Test
+    void keysReplayCacheOnAuthenticator() throws Exception {
+        byte[][] recorded = new byte[1][];
+        config.setReplayCache((buf, off, len) -> {
+            recorded[0] = Arrays.copyOfRange(buf, off, off + len);
+            return true;
+        });
+        byte[] token = TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5);
+        accept(token);
+        APRequest req = new APRequest();
+        byte[] wrapped = TestKerberos.spnego(token);
+        req.parseBlob(wrapped, 0, wrapped.length);
+        assertArrayEquals(recorded[0], Arrays.copyOfRange(wrapped, req.authenticatorCipherOffset(), req.authenticatorCipherOffset() + req.authenticatorCipherLength()));
+    }
+
+    @Test
+    void recordsEachPhaseOnce() throws Exception {
+        PhaseCounter counter = new PhaseCounter();
+        config.setMetrics(counter);
+        accept(TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5));
+        assertEquals(Map.of(
+            AcceptorMetrics.Phase.DECODE, 1,
+            AcceptorMetrics.Phase.CREDENTIALS, 1,
+            AcceptorMetrics.Phase.ACCEPT, 1,
+            AcceptorMetrics.Phase.REPLAY, 1,
+            AcceptorMetrics.Phase.INQUIRE, 1
+        ), counter.phases);
+        assertEquals(Map.of(AcceptorMetrics.Outcome.ESTABLISHED, 1), counter.outcomes);
+    }
+
+    @Test
+    void rejectsReWrappedTokenOnFastPath() throws Exception {
+        config.setFastPathAcceptor(new FastPathAcceptor(List.of(kdc.key())));
+        byte[] token = kdc.apReq();
+        assertNotNull(accept(token));
+        // The same AP-REQ in an SPNEGO NegTokenInit, and then bare, is still a replay
+        GSSException e = assertThrows(GSSException.class, () -> accept(TestKerberos.spnego(token)));
+        assertEquals(GSSException.DUPLICATE_TOKEN, e.getMajor());
+        e = assertThrows(GSSException.class, () -> accept(TestKerberos.unframe(token)));
+        assertEquals(GSSException.DUPLICATE_TOKEN, e.getMajor());
+    }
+
+    @Test
+    void recordsFastPathPhasesOnce() throws Exception {
+        PhaseCounter counter = new PhaseCounter();
+        config.setMetrics(counter);
+        config.setFastPathAcceptor(new FastPathAcceptor(List.of(kdc.key())));
+        accept(TestKerberos.spnego(kdc.apReq()));
+        assertEquals(Map.of(
+            AcceptorMetrics.Phase.DECODE, 1,
+            AcceptorMetrics.Phase.FAST_PATH, 1,
+            AcceptorMetrics.Phase.REPLAY, 1
+        ), counter.phases);
+        assertEquals(Map.of(AcceptorMetrics.Outcome.ESTABLISHED, 1), counter.outcomes);
+    }
+
+    @Test
+    void skipsFastPathForOtherAccount() throws Exception {
+        FastPathAcceptor fastPath = new FastPathAcceptor(List.of(kdc.key()));
+        config.setFastPathAcceptor(fastPath);
+        byte[] token = TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5);
+        SessionSetupPrivilegedAction action = new SessionSetupPrivilegedAction(config, "HTTP/otherhost@" + TestKerberos.REALM, token);
+        assertThrows(GSSException.class, () -> accept(kdc.acceptor(), action));
+        assertEquals(0, fastPath.getAccepted());
+        accept(TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5));
+        assertEquals(1, fastPath.getAccepted());
+    }
+
+    @Test
+    void recordsShedAcceptAsRejected() throws Exception {
+        PhaseCounter counter = new PhaseCounter();
+        config.setMetrics(counter);
+        AdmissionController admission = new AdmissionController(1, 1, Duration.ofSeconds(1), 1, Duration.ofSeconds(1));
+        config.setAdmissionController(admission);
+        byte[] token = TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5);
+        assertThrows(AdmissionRejectedException.class, () -> accept(token));
+        assertEquals(Map.of(AcceptorMetrics.Outcome.REJECTED, 1), counter.outcomes);
+        assertEquals(Map.of(), counter.phases);
+        assertEquals(Map.of(), counter.failures);
+        assertEquals(1, admission.getRejected());
+        assertEquals(0, admission.getInFlight());
+        assertEquals(0, admission.getInFlightBytes());
+    }
+
+    @Test
+    void acceptsDirectBuffer() throws Exception {
+        byte[] token = TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5);
+        ByteBuffer direct = ByteBuffer.allocateDirect(token.length + 3);
+        direct.put(3, token).position(3);
+        KerberosDetails details = accept(kdc.acceptor(), new SessionSetupPrivilegedAction(config, TestKerberos.SERVICE, direct));
+        assertTrue(details.isEstablished());
+        assertEquals(3, direct.position());
+        GSSException e = assertThrows(GSSException.class, () -> accept(token));
+        assertEquals(GSSException.DUPLICATE_TOKEN, e.getMajor());
+    }
+
+    @Test
+    void acceptsOversizedDirectBuffer() throws Exception {
+        config.setFastPathAcceptor(new FastPathAcceptor(List.of(kdc.key())));
+        // Larger than the biggest pooled scratch array
+        kdc.authorizationData = new byte[80_000];
+        byte[] token = TestKerberos.spnego(kdc.apReq());
+        SessionSetupPrivilegedAction action = new SessionSetupPrivilegedAction(config, TestKerberos.SERVICE, TokenValidatorTest.direct(token));
+        assertTrue(accept(kdc.acceptor(), action).isEstablished());
+    }
+
+    static final class PhaseCounter implements AcceptorMetrics {
+
+        final Map<Phase, Integer> phases = new EnumMap<>(Phase.class);
+
+        final Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+
+        final Map<Integer, Integer> failures = new HashMap<>();
+
+        @Override
+        public synchronized void recordPhase(Phase phase, long nanos) {
+            phases.merge(phase, 1, Integer::sum);
+        }
+
+        @Override
+        public synchronized void recordOutcome(Outcome outcome) {
+            outcomes.merge(outcome, 1, Integer::sum);
+        }
+
+        @Override
+        public synchronized void recordFailure(int majorCode) {
+            failures.merge(majorCode, 1, Integer::sum);
+        }
+
+    }
+
+    private KerberosDetails accept(byte[] token) throws GSSException {
+        SessionSetupPrivilegedAction action = new SessionSetupPrivilegedAction(config, TestKerberos.SERVICE, token);
+        return accept(kdc.acceptor(), action);
+    }
+
+    static KerberosDetails accept(Subject acceptor, SessionSetupPrivilegedAction action) throws GSSException {
+        try {
+            return Subject.callAs(acceptor, action::accept);
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof GSSException failure) {
+                throw failure;
+            }
+            throw e;
+        }
+    }
+
+}
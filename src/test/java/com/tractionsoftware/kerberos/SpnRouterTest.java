@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpnRouterTest {
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    @Test
+    void readsServicePrincipalFromEveryWrapping() throws Exception {
+        byte[] framed = kdc.apReq();
+        assertEquals(TestKerberos.SERVICE, servicePrincipal(framed));
+        assertEquals(TestKerberos.SERVICE, servicePrincipal(TestKerberos.unframe(framed)));
+        assertEquals(TestKerberos.SERVICE, servicePrincipal(TestKerberos.spnego(framed)));
+
+        byte[] padded = new byte[framed.length + 8];
+        System.arraycopy(framed, 0, padded, 5, framed.length);
+        assertEquals(TestKerberos.SERVICE, SpnRouter.getServicePrincipal(padded, 5, framed.length));
+    }
+
+    @Test
+    void rejectsBlobWithoutApReq() throws Exception {
+        assertThrows(IOException.class, () -> servicePrincipal(APRequestTest.targ(kdc.apReq())));
+        assertThrows(IOException.class, () -> servicePrincipal(new byte[] { 0x04, 0x01, 0x00 }));
+        assertThrows(IOException.class, () -> servicePrincipal(new byte[0]));
+    }
+
+    @Test
+    void matchesWithRealmThenWithout() throws Exception {
+        SpnRouter router = new SpnRouter(false);
+        router.addRoute("HTTP/localhost", "any-realm");
+        assertEquals("any-realm", router.route(TestKerberos.SERVICE));
+        router.addRoute(TestKerberos.SERVICE, "this-realm");
+        assertEquals("this-realm", router.route(TestKerberos.SERVICE));
+        assertEquals("any-realm", router.route("HTTP/localhost@OTHER.COM"));
+        assertNull(router.route("HTTP/otherhost@EXAMPLE.COM"));
+
+        byte[] token = TestKerberos.spnego(kdc.apReq());
+        assertEquals("this-realm", router.route(token, 0, token.length));
+        router.removeRoute(TestKerberos.SERVICE);
+        assertEquals("any-realm", router.route(token, 0, token.length));
+    }
+
+    @Test
+    void routesUnmappedServicePrincipal() throws Exception {
+        SpnRouter router = new SpnRouter(true);
+        router.addRoute("HTTP/www.example.com", "www");
+        assertEquals("www", router.route("HTTP/www.example.com@EXAMPLE.COM"));
+        assertEquals(TestKerberos.SERVICE, router.route(TestKerberos.SERVICE));
+        byte[] token = kdc.apReq();
+        assertEquals(TestKerberos.SERVICE, router.route(token, 0, token.length));
+    }
+
+    @Test
+    void fallsBackToActionAccount() throws Exception {
+        AcceptorConfig config = new AcceptorConfig();
+        byte[] token = TestKerberos.spnego(kdc.apReq());
+        byte[] targ = APRequestTest.targ(kdc.apReq());
+        byte[] garbage = { 0x04, 0x01, 0x00 };
+        assertEquals("default", routeAccount(config, "default", token));
+
+        SpnRouter router = new SpnRouter(false);
+        router.addRoute(TestKerberos.SERVICE, "routed");
+        config.setSpnRouter(router);
+        assertEquals("routed", routeAccount(config, "default", token));
+        assertEquals("routed", routeAccount(config, null, token));
+        assertEquals("default", routeAccount(config, "default", targ));
+        assertEquals("default", routeAccount(config, "default", garbage));
+
+        router.removeRoute(TestKerberos.SERVICE);
+        assertEquals("default", routeAccount(config, "default", token));
+        GSSException e = assertThrows(GSSException.class, () -> routeAccount(config, null, token));
+        assertEquals(GSSException.NO_CRED, e.getMajor());
+        e = assertThrows(GSSException.class, () -> routeAccount(config, null, targ));
+        assertEquals(GSSException.NO_CRED, e.getMajor());
+    }
+
+    private static String servicePrincipal(byte[] blob) throws IOException {
+        return SpnRouter.getServicePrincipal(blob, 0, blob.length);
+    }
+
+    private static String routeAccount(AcceptorConfig config, String accountName, byte[] blob) throws GSSException {
+        return new SessionSetupPrivilegedAction(config, accountName, blob).routeAccount(blob, 0, blob.length);
+    }
+
+}
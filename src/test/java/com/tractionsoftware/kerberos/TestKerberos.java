@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.tractionsoftware.kerberos;
+
+import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.GSSException;
+import org.ietf.jgss.GSSManager;
+import org.ietf.jgss.GSSName;
+import org.ietf.jgss.Oid;
+
+import javax.security.auth.Subject;
+import javax.security.auth.kerberos.KerberosKey;
+import javax.security.auth.kerberos.KerberosPrincipal;
+import javax.security.auth.kerberos.KerberosTicket;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A one-ticket KDC for tests: forges AES service tickets and AP-REQs in plain DER, and hands the tickets to the JGSS
+ * initiator so real clients can be run against the acceptor.
+ */
+final class TestKerberos {
+
+    static final String REALM = "EXAMPLE.COM";
+    static final String SERVICE = "HTTP/localhost@" + REALM;
+    static final String CLIENT = "alice@" + REALM;
+
+    // Ticket flags, with bit 0 in the high bit
+
+    static final int FLAG_INVALID = 0x01000000;
+    static final int FLAG_INITIAL = 0x00400000;
+
+    // GSS-API checksum flags of RFC 4121
+
+    static final int GSS_DELEG = 1;
+    static final int GSS_MUTUAL = 2;
+
+    static final int AP_MUTUAL_REQUIRED = 0x20000000;
+
+    static final byte[] KERBEROS5_OID = { 0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x12, 0x01, 0x02, 0x02 };
+    static final byte[] SPNEGO_OID = { 0x2b, 0x06, 0x01, 0x05, 0x05, 0x02 };
+
+    private static final DateTimeFormatter KERBEROS_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    static {
+        // No krb5.conf is needed for the default realm, and no KDC is ever contacted
+        System.setProperty("java.security.krb5.realm", REALM);
+        System.setProperty("java.security.krb5.kdc", "localhost");
+        ReplayCache.disableBuiltInReplayCache();
+    }
+
+    final int etype = KerberosAes.AES256_CTS_HMAC_SHA1_96;
+    final byte[] serviceKey = new byte[32];
+    final byte[] sessionKey = new byte[32];
+
+    // Ticket contents, which may be changed before the ticket is issued
+
+    int kvno = 1;
+    int flags = FLAG_INITIAL;
+    String client = "alice";
+    long authtime = System.currentTimeMillis() / 1000;
+    long endtime = authtime + 3600;
+    byte[] authorizationData;
+
+    TestKerberos() {
+        this(new Random().nextLong());
+    }
+
+    TestKerberos(long seed) {
+        Random random = new Random(seed);
+        random.nextBytes(serviceKey);
+        random.nextBytes(sessionKey);
+    }
+
+    KerberosKey key() {
+        return new KerberosKey(new KerberosPrincipal(SERVICE), serviceKey, etype, kvno);
+    }
+
+    Subject acceptor() {
+        KerberosPrincipal service = new KerberosPrincipal(SERVICE);
+        return new Subject(false, Set.of(service), Set.of(), Set.of(key()));
+    }
+
+    // The ticket doubles as the client's TGT, which JGSS needs to find before it looks for a service ticket
+
+    Subject initiator() throws GeneralSecurityException {
+        byte[] ticket = ticket();
+        KerberosPrincipal cp = new KerberosPrincipal(client + "@" + REALM);
+        boolean[] ticketFlags = new boolean[32];
+        for (int i = 0; i < 32; i++) {
+            ticketFlags[i] = (flags & (1 << (31 - i))) != 0;
+        }
+        Date start = new Date(authtime * 1000);
+        Date end = new Date(endtime * 1000);
+        KerberosTicket service = new KerberosTicket(ticket, cp, new KerberosPrincipal(SERVICE), sessionKey, etype, ticketFlags, start, start, end, null, null);
+        KerberosTicket tgt = new KerberosTicket(ticket, cp, new KerberosPrincipal("krbtgt/" + REALM + "@" + REALM), sessionKey, etype, ticketFlags, start, start, end, null, null);
+        return new Subject(false, Set.of(cp), Set.of(), Set.of(service, tgt));
+    }
+
+    /**
+     * Start a JGSS initiator context for the service
+     */
+    static GSSContext initiatorContext(Subject initiator, Oid mech) {
+        return Subject.callAs(initiator, () -> {
+            GSSManager manager = GSSManager.getInstance();
+            GSSContext context = manager.createContext(manager.createName("HTTP@localhost", GSSName.NT_HOSTBASED_SERVICE), mech, null, GSSContext.DEFAULT_LIFETIME);
+            context.requestMutualAuth(true);
+            return context;
+        });
+    }
+
+    static byte[] initSecContext(Subject initiator, GSSContext context, byte[] token) {
+        return Subject.callAs(initiator, () -> context.initSecContext(token, 0, token.length));
+    }
+
+    static byte[] initialToken(Subject initiator, Oid mech) throws GSSException {
+        return initSecContext(initiator, initiatorContext(initiator, mech), new byte[0]);
+    }
+
+    // Ticket ::= [APPLICATION 1] SEQUENCE { tkt-vno, realm, sname, enc-part }
+
+    byte[] ticket() throws GeneralSecurityException {
+        byte[] encPart = tlv(0x63, tlv(0x30,
+            tlv(0xa0, bits(flags)),
+            tlv(0xa1, tlv(0x30, tlv(0xa0, integer(etype)), tlv(0xa1, tlv(0x04, sessionKey)))),
+            tlv(0xa2, string(REALM)),
+            tlv(0xa3, principal(1, client)),
+            tlv(0xa4, tlv(0x30, tlv(0xa0, integer(1)), tlv(0xa1, tlv(0x04)))),
+            tlv(0xa5, time(authtime)),
+            tlv(0xa7, time(endtime)),
+            authorizationData != null ? tlv(0xaa, authorizationData) : new byte[0]
+        ));
+        return tlv(0x61, tlv(0x30,
+            tlv(0xa0, integer(5)),
+            tlv(0xa1, string(REALM)),
+            tlv(0xa2, principal(2, "HTTP", "localhost")),
+            tlv(0xa3, encryptedData(serviceKey, 2, kvno, encPart))
+        ));
+    }
+
+    /**
+     * Forge an AP-REQ with GSS-API framing
+     *
+     * @param authClient
+     *     client name in the authenticator
+     * @param ctime
+     *     authenticator time in seconds
+     * @param gssFlags
+     *     flags of the GSS-API checksum
+     */
+    byte[] apReq(String authClient, long ctime, int gssFlags) throws GeneralSecurityException {
+        Random random = new Random();
+        byte[] checksum = new byte[24];
+        checksum[0] = 16;
+        checksum[20] = (byte) gssFlags;
+        byte[] authenticator = tlv(0x62, tlv(0x30,
+            tlv(0xa0, integer(5)),
+            tlv(0xa1, string(REALM)),
+            tlv(0xa2, principal(1, authClient)),
+            tlv(0xa3, tlv(0x30, tlv(0xa0, integer(0x8003)), tlv(0xa1, tlv(0x04, checksum)))),
+            tlv(0xa4, integer(random.nextInt(1_000_000))),
+            tlv(0xa5, time(ctime)),
+            tlv(0xa7, integer(random.nextInt(0x3fffffff)))
+        ));
+        byte[] apReq = tlv(0x6e, tlv(0x30,
+            tlv(0xa0, integer(5)),
+            tlv(0xa1, integer(14)),
+            tlv(0xa2, bits((gssFlags & GSS_MUTUAL) != 0 ? AP_MUTUAL_REQUIRED : 0)),
+            tlv(0xa3, ticket()),
+            tlv(0xa4, encryptedData(sessionKey, 11, -1, authenticator))
+        ));
+        return gssFrame(apReq);
+    }
+
+    byte[] apReq() throws GeneralSecurityException {
+        return apReq(client, System.currentTimeMillis() / 1000, GSS_MUTUAL);
+    }
+
+    static byte[] gssFrame(byte[] apReq) {
+        return tlv(0x60, tlv(0x06, KERBEROS5_OID), new byte[] { 1, 0 }, apReq);
+    }
+
+    /**
+     * Wrap a Kerberos token in an SPNEGO NegTokenInit offering Kerberos v5 alone
+     */
+    static byte[] spnego(byte[] mechToken) {
+        return tlv(0x60, tlv(0x06, SPNEGO_OID), tlv(0xa0, tlv(0x30,
+            tlv(0xa0, tlv(0x30, tlv(0x06, KERBEROS5_OID))),
+            tlv(0xa2, tlv(0x04, mechToken))
+        )));
+    }
+
+    /**
+     * Return the bare AP-REQ inside a GSS-API framed token
+     */
+    static byte[] unframe(byte[] token) {
+        int p = 1;
+        p += (token[p] & 0x80) != 0 ? 1 + (token[p] & 0x7f) : 1;
+        p += 2 + KERBEROS5_OID.length + 2;
+        return Arrays.copyOfRange(token, p, token.length);
+    }
+
+    private static byte[] encryptedData(byte[] key, int usage, int kvno, byte[] plain) throws GeneralSecurityException {
+        byte[] cipher = KerberosAes.encrypt(KerberosAes.deriveKeys(key, usage), plain);
+        return tlv(0x30,
+            tlv(0xa0, integer(KerberosAes.AES256_CTS_HMAC_SHA1_96)),
+            kvno >= 0 ? tlv(0xa1, integer(kvno)) : new byte[0],
+            tlv(0xa2, tlv(0x04, cipher))
+        );
+    }
+
+    static byte[] principal(int type, String... names) {
+        byte[][] strings = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            strings[i] = string(names[i]);
+        }
+        return tlv(0x30, tlv(0xa0, integer(type)), tlv(0xa1, tlv(0x30, strings)));
+    }
+
+    static byte[] string(String s) {
+        return tlv(0x1b, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static byte[] time(long seconds) {
+        return tlv(0x18, KERBEROS_TIME.format(Instant.ofEpochSecond(seconds)).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static byte[] bits(int flags) {
+        return tlv(0x03, new byte[] { 0, (byte) (flags >>> 24), (byte) (flags >>> 16), (byte) (flags >>> 8), (byte) flags });
+    }
+
+    static byte[] integer(long v) {
+        return tlv(0x02, BigInteger.valueOf(v).toByteArray());
+    }
+
+    static byte[] tlv(int tag, byte[]... parts) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            content.writeBytes(part);
+        }
+        int len = content.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(len + 6);
+        out.write(tag);
+        if (len < 0x80) {
+            out.write(len);
+        }
+        else if (len < 0x100) {
+            out.write(0x81);
+            out.write(len);
+        }
+        else if (len < 0x10000) {
+            out.write(0x82);
+            out.write(len >>> 8);
+            out.write(len);
+        }
+        else {
+            out.write(0x83);
+            out.write(len >>> 16);
+            out.write(len >>> 8);
+            out.write(len);
+        }
+        out.writeBytes(content.toByteArray());
+        return out.toByteArray();
+    }
+
+}
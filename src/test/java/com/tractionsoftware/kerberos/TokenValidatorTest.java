@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2026 Traction Software, Inc.
+ *
+ * This file is part of the Traction Software Kerberos library.
+ *
+ * This library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.tractionsoftware.kerberos;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.tractionsoftware.kerberos.TestKerberos.tlv;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenValidatorTest {
+
+    private static final byte[] NTLMSSP_OID = { 0x2b, 0x06, 0x01, 0x04, 0x01, (byte) 0x82, 0x37, 0x02, 0x02, 0x0a };
+
+    private final TestKerberos kdc = new TestKerberos();
+
+    private final TokenValidator validator = new TokenValidator();
+
+    @Test
+    void acceptsKerberosTokens() throws Exception {
+        byte[] framed = kdc.apReq();
+        assertEquals(TokenValidator.OK, validate(framed));
+        assertEquals(TokenValidator.OK, validate(TestKerberos.unframe(framed)));
+        assertEquals(TokenValidator.OK, validate(TestKerberos.initialToken(kdc.initiator(), CommonOids.KERBEROS5)));
+    }
+
+    @Test
+    void acceptsSpnegoTokens() throws Exception {
+        byte[] framed = kdc.apReq();
+        assertEquals(TokenValidator.OK, validate(TestKerberos.spnego(framed)));
+        assertEquals(TokenValidator.OK, validate(TestKerberos.spnego(TestKerberos.unframe(framed))));
+        assertEquals(TokenValidator.OK, validate(TestKerberos.initialToken(kdc.initiator(), CommonOids.SPNEGO)));
+        // Kerberos offered without an optimistic token, and a continuation
+        assertEquals(TokenValidator.OK, validate(negTokenInit(tlv(0xa0, tlv(0x30, tlv(0x06, NTLMSSP_OID), tlv(0x06, TestKerberos.KERBEROS5_OID))))));
+        assertEquals(TokenValidator.OK, validate(APRequestTest.targ(framed)));
+    }
+
+    @Test
+    void checksBlobBetweenOffsets() throws Exception {
+        byte[] token = kdc.apReq();
+        byte[] padded = new byte[token.length + 8];
+        System.arraycopy(token, 0, padded, 4, token.length);
+        assertEquals(TokenValidator.OK, validator.validate(padded, 4, token.length));
+        ByteBuffer direct = ByteBuffer.allocateDirect(padded.length).put(padded).position(4).limit(4 + token.length);
+        assertEquals(TokenValidator.OK, validator.validate(direct));
+        assertEquals(4, direct.position());
+        assertEquals(TokenValidator.OK, validator.validate(ByteBuffer.wrap(padded, 4, token.length)));
+    }
+
+    @Test
+    void checksOversizedDirectBuffer() throws Exception {
+        // Larger than the biggest pooled scratch array
+        kdc.authorizationData = new byte[80_000];
+        byte[] token = kdc.apReq();
+        TokenValidator large = new TokenValidator(256 * 1024, TokenValidator.DEFAULT_MAX_DEPTH);
+        assertEquals(TokenValidator.OK, large.validate(direct(token)));
+        byte[] truncated = Arrays.copyOf(token, token.length - 1);
+        assertEquals(large.validate(truncated, 0, truncated.length), large.validate(direct(truncated)));
+        assertEquals(TokenValidator.TOO_LARGE, validator.validate(direct(token)));
+    }
+
+    @Test
+    void rejectsEmptyBlob() {
+        assertEquals(TokenValidator.EMPTY, validator.validate(new byte[4], 2, 0));
+        assertEquals(TokenValidator.EMPTY, validator.validate(ByteBuffer.allocateDirect(0)));
+    }
+
+    @Test
+    void rejectsLargeBlob() throws Exception {
+        byte[] token = kdc.apReq();
+        TokenValidator small = new TokenValidator(token.length - 1, TokenValidator.DEFAULT_MAX_DEPTH);
+        assertEquals(TokenValidator.TOO_LARGE, small.validate(token, 0, token.length));
+        assertEquals(TokenValidator.TOO_LARGE, small.validate(ByteBuffer.allocateDirect(token.length).put(token).flip()));
+    }
+
+    @Test
+    void rejectsBadTags() throws Exception {
+        // Not a GSS-API token, AP-REQ or NegTokenTarg
+        assertEquals(TokenValidator.BAD_TAG, validate(tlv(0x30, tlv(0x02, new byte[] { 1 }))));
+        // High tag numbers are never used
+        assertEquals(TokenValidator.BAD_TAG, validate(new byte[] { 0x7f, 0x01, 0x00 }));
+        // Framing without a mechanism OID
+        assertEquals(TokenValidator.BAD_TAG, validate(tlv(0x60, tlv(0x04, TestKerberos.KERBEROS5_OID))));
+        // mechToken that is not an OCTET STRING
+        assertEquals(TokenValidator.BAD_TAG, validate(negTokenInit(
+            tlv(0xa0, tlv(0x30, tlv(0x06, TestKerberos.KERBEROS5_OID))),
+            tlv(0xa2, tlv(0x30, kdc.apReq()))
+        )));
+    }
+
+    @Test
+    void rejectsTrailingBytes() throws Exception {
+        byte[] token = kdc.apReq();
+        assertEquals(TokenValidator.BAD_LENGTH, validate(Arrays.copyOf(token, token.length + 1)));
+    }
+
+    @Test
+    void rejectsOverrunningLength() throws Exception {
+        byte[] token = kdc.apReq();
+        assertEquals(TokenValidator.BAD_LENGTH, validate(Arrays.copyOf(token, token.length - 1)));
+        // An inner length one past its container
+        byte[] inner = tlv(0x6e, tlv(0x30, tlv(0xa0, TestKerberos.integer(5))));
+        inner[5]++;
+        assertEquals(TokenValidator.BAD_LENGTH, validate(inner));
+        // More length octets than an int holds
+        assertEquals(TokenValidator.BAD_LENGTH, validate(new byte[] { 0x60, (byte) 0x85, 0, 0, 0, 0, 1, 0 }));
+    }
+
+    @Test
+    void rejectsDeepNesting() throws Exception {
+        byte[] nested = tlv(0x04);
+        for (int i = 0; i <= TokenValidator.DEFAULT_MAX_DEPTH; i++) {
+            nested = tlv(0x30, nested);
+        }
+        assertEquals(TokenValidator.TOO_DEEP, validate(tlv(0x60, tlv(0x06, TestKerberos.KERBEROS5_OID), nested)));
+        byte[] token = kdc.apReq();
+        assertEquals(TokenValidator.TOO_DEEP, new TokenValidator(TokenValidator.DEFAULT_MAX_TOKEN_SIZE, 4).validate(token, 0, token.length));
+    }
+
+    @Test
+    void rejectsOtherMechanisms() throws Exception {
+        byte[] apReq = TestKerberos.unframe(kdc.apReq());
+        assertEquals(TokenValidator.UNSUPPORTED_MECH, validate(tlv(0x60, tlv(0x06, NTLMSSP_OID), new byte[] { 1, 0 }, apReq)));
+        assertEquals(TokenValidator.UNSUPPORTED_MECH, validate(negTokenInit(
+            tlv(0xa0, tlv(0x30, tlv(0x06, NTLMSSP_OID))),
+            tlv(0xa2, tlv(0x04, new byte[] { 0x30, 0x00 }))
+        )));
+        // SPNEGO inside SPNEGO
+        assertEquals(TokenValidator.UNSUPPORTED_MECH, validate(TestKerberos.spnego(TestKerberos.spnego(kdc.apReq()))));
+    }
+
+    @Test
+    void rejectsOtherKerberosMessages() throws Exception {
+        byte[] apReq = TestKerberos.unframe(kdc.apReq());
+        // AP-REP token ID
+        assertEquals(TokenValidator.NOT_AP_REQ, validate(tlv(0x60, tlv(0x06, TestKerberos.KERBEROS5_OID), new byte[] { 2, 0 }, apReq)));
+        // msg-type 15, and an AP-REQ without its authenticator
+        byte[] apRep = apReq.clone();
+        int msgType = indexOf(apReq, new byte[] { (byte) 0xa1, 0x03, 0x02, 0x01, 14 }) + 4;
+        apRep[msgType] = 15;
+        assertEquals(TokenValidator.NOT_AP_REQ, validate(apRep));
+        byte[] noAuthenticator = tlv(0x6e, tlv(0x30,
+            tlv(0xa0, TestKerberos.integer(5)),
+            tlv(0xa1, TestKerberos.integer(14)),
+            tlv(0xa2, TestKerberos.bits(0)),
+            tlv(0xa3, kdc.ticket())
+        ));
+        assertEquals(TokenValidator.NOT_AP_REQ, validate(noAuthenticator));
+        assertEquals(TokenValidator.NOT_AP_REQ, validate(TestKerberos.spnego(noAuthenticator)));
+    }
+
+    private int validate(byte[] blob) {
+        return validator.validate(blob, 0, blob.length);
+    }
+
+    static ByteBuffer direct(byte[] blob) {
+        return ByteBuffer.allocateDirect(blob.length).put(blob).flip();
+    }
+
+    private static byte[] negTokenInit(byte[]... fields) {
+        return tlv(0x60, tlv(0x06, TestKerberos.SPNEGO_OID), tlv(0xa0, tlv(0x30, fields)));
+    }
+
+    private static int indexOf(byte[] b, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= b.length; i++) {
+            if (Arrays.equals(b, i, i + pattern.length, pattern, 0, pattern.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Pattern not found");
+    }
+
+}